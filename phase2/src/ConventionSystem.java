@@ -1,24 +1,44 @@
 import contact.ContactController;
 import contact.ContactManager;
+import contact.ContactManagerCodec;
 import convention.ConferenceController;
 import convention.EventController;
 import convention.RoomController;
 import convention.ScheduleController;
 import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import gateway.BinarySerializer;
 import gateway.CSVReader;
 import gateway.DocumentPrinter;
 import gateway.IDocumentPrinter;
+import gateway.ISnapshotStore;
 import gateway.Serializer;
+import gateway.checkpoint.CheckpointService;
+import gateway.journal.JournalStore;
+import gateway.record.FileRecordStore;
+import gateway.segment.SegmentStore;
 import gui.MainFrame;
 import messaging.ConversationController;
 import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
 import user.UserController;
 import user.UserManager;
+import user.UserManagerCodec;
 import util.ControllerBundle;
+import util.codec.ICodec;
+import util.segment.IChangeTracked;
+import util.segment.ISegmentCodec;
 
+import javax.swing.*;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -28,32 +48,147 @@ import java.util.logging.Logger;
  * Main convention system. This where the fun begins.
  */
 public class ConventionSystem {
+    // Identify each manager's records in the journal. These must never change, or old journals will replay wrongly.
+    private static final int USER_MANAGER = 0;
+    private static final int CONTACT_MANAGER = 1;
+    private static final int CONVERSATION_MANAGER = 2;
+    private static final int CONFERENCE_MANAGER = 3;
+
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String SAVE_DIRECTORY = "save";
+
+    // Number of checkpoints to keep the files of, including the latest, in case the newest one is damaged
+    private static final int SAVE_GENERATIONS = 3;
+    static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60 * 1000;
+
     private Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
 
+    private final boolean journaling;
+    private final long checkpointIntervalMillis;
+    private final boolean verbose;
+
+    /**
+     * Creates a convention system that saves everything periodically and when it closes
+     */
+    public ConventionSystem() {
+        this(false);
+    }
+
+    /**
+     * Creates a convention system
+     *
+     * @param journaling whether to record every change to a journal as it happens, instead of saving periodically
+     */
+    public ConventionSystem(boolean journaling) {
+        this(journaling, DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a convention system
+     *
+     * @param journaling               whether to record every change to a journal as it happens, instead of saving
+     *                                 periodically
+     * @param checkpointIntervalMillis time between saves when not journaling
+     */
+    public ConventionSystem(boolean journaling, long checkpointIntervalMillis) {
+        this(journaling, checkpointIntervalMillis, false);
+    }
+
+    /**
+     * Creates a convention system
+     *
+     * @param journaling               whether to record every change to a journal as it happens, instead of saving
+     *                                 periodically
+     * @param checkpointIntervalMillis time between saves when not journaling
+     * @param verbose                  whether to print log messages (e.g. how long startup took) to the console
+     */
+    public ConventionSystem(boolean journaling, long checkpointIntervalMillis, boolean verbose) {
+        this.journaling = journaling;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.verbose = verbose;
+    }
+
     /**
      * Runs the Convention System
      */
     public void run() {
         // Setup logger
         Handler handlerObj = new ConsoleHandler();
-        handlerObj.setLevel(Level.OFF);
+        handlerObj.setLevel(verbose ? Level.INFO : Level.OFF);
         LOGGER.addHandler(handlerObj);
         LOGGER.setLevel(Level.ALL);
         LOGGER.setUseParentHandlers(false);
 
         // Create serializers
-        Serializer<UserManager> userManagerSerializer = new Serializer<>("userManager.ser");
-        Serializer<ContactManager> contactManagerSerializer = new Serializer<>("contactManager.ser");
-        Serializer<ConversationManager> conversationManagerSerializer = new Serializer<>("conversationManager.ser");
-        Serializer<ConferenceManager> conferenceManagerSerializer = new Serializer<>("conferenceManager.ser");
+        UserManagerCodec userManagerCodec = new UserManagerCodec();
+        ContactManagerCodec contactManagerCodec = new ContactManagerCodec();
+        ConversationManagerCodec conversationManagerCodec = new ConversationManagerCodec();
+        ConferenceManagerCodec conferenceManagerCodec = new ConferenceManagerCodec();
+
+        File directory = new File(".");
+
+        // Each manager is saved to its own directory, one file per conference, conversation or user, so a
+        // checkpoint only rewrites what changed
+        SegmentStore<UserManager> userManagerStore = segmentStore(directory, "userManager", userManagerCodec);
+        SegmentStore<ContactManager> contactManagerStore = segmentStore(directory, "contactManager", contactManagerCodec);
+        SegmentStore<ConversationManager> conversationManagerStore = segmentStore(directory, "conversationManager", conversationManagerCodec);
+        SegmentStore<ConferenceManager> conferenceManagerStore = segmentStore(directory, "conferenceManager", conferenceManagerCodec);
 
         // Create managers
-        // These store the entities and other important stuff
+        // These store the entities and other important stuff. Their files are independent, so they are read in
+        // parallel; the conversation history is usually by far the slowest.
         System.out.println("Reading from disk...");
-        UserManager userManager = userManagerSerializer.load(new UserManager());
-        ContactManager contactManager = contactManagerSerializer.load(new ContactManager());
-        ConversationManager conversationManager = conversationManagerSerializer.load(new ConversationManager());
-        ConferenceManager conferenceManager = conferenceManagerSerializer.load(new ConferenceManager());
+        long startNanos = System.nanoTime();
+
+        ExecutorService loader = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Future<UserManager> userManagerFuture;
+        Future<ContactManager> contactManagerFuture;
+        Future<ConversationManager> conversationManagerFuture;
+        Future<ConferenceManager> conferenceManagerFuture;
+        JournalStore journalStore;
+        CheckpointService checkpointService;
+
+        if (journaling) {
+            // Whatever was saved without the journal is moved into it first, so switching modes never loses changes
+            moveSavesToJournal(directory);
+
+            // The managers are only changed on the Swing event thread, so that's where snapshots are taken
+            JournalStore store = new JournalStore(new File(directory, JOURNAL_DIRECTORY), SwingUtilities::invokeLater);
+            journalStore = store;
+            userManagerFuture = loader.submit(timed("UserManager", () -> store.load(USER_MANAGER, "userManager.bin", userManagerCodec, UserManager::new)));
+            contactManagerFuture = loader.submit(timed("ContactManager", () -> store.load(CONTACT_MANAGER, "contactManager.bin", contactManagerCodec, ContactManager::new)));
+            conversationManagerFuture = loader.submit(timed("ConversationManager", () -> store.load(CONVERSATION_MANAGER, "conversationManager.bin", conversationManagerCodec, ConversationManager::new)));
+            conferenceManagerFuture = loader.submit(timed("ConferenceManager", () -> store.load(CONFERENCE_MANAGER, "conferenceManager.bin", conferenceManagerCodec, ConferenceManager::new)));
+            checkpointService = null;
+
+            // Replaying the log needs every manager, so nothing can be used before it's done
+            await(userManagerFuture);
+            await(contactManagerFuture);
+            await(conversationManagerFuture);
+            await(conferenceManagerFuture);
+            journalStore.recover();
+        } else {
+            journalStore = null;
+
+            // If the last run used the journal, it has the latest changes
+            moveJournalToSaves(directory);
+
+            userManagerFuture = loader.submit(timed("UserManager", () -> loadSaves(directory, "userManager", userManagerStore, userManagerCodec, new UserManager())));
+            contactManagerFuture = loader.submit(timed("ContactManager", () -> loadSaves(directory, "contactManager", contactManagerStore, contactManagerCodec, new ContactManager())));
+            conversationManagerFuture = loader.submit(timed("ConversationManager", () -> loadSaves(directory, "conversationManager", conversationManagerStore, conversationManagerCodec, new ConversationManager())));
+            conferenceManagerFuture = loader.submit(timed("ConferenceManager", () -> loadSaves(directory, "conferenceManager", conferenceManagerStore, conferenceManagerCodec, new ConferenceManager())));
+
+            // The managers are only changed on the Swing event thread, so that's where checkpoints capture them.
+            // They are registered once they've all loaded.
+            checkpointService = new CheckpointService(checkpointIntervalMillis, SwingUtilities::invokeLater);
+        }
+
+        UserManager userManager = await(userManagerFuture);
 
         // Create god mode accounts
         try {
@@ -68,36 +203,262 @@ public class ConventionSystem {
             System.out.println("Unable to load god mode users" + e);
         }
 
-        // Create the document writer
-        IDocumentPrinter documentPrinter = new DocumentPrinter();
-
         // User controller
+        // Login and registration only need this, so the UI can be shown before the rest have loaded
         UserController userController = new UserController(userManager);
 
-        // Messaging controllers
-        ContactController contactController = new ContactController(contactManager);
-        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        if (checkpointService != null) {
+            // Registered now rather than with the others, so it's still saved on exit if one of them fails to load
+            checkpointService.register(userManagerStore, userManager);
+        }
+
+        Future<ControllerBundle> otherControllers = loader.submit(() -> {
+            ContactManager contactManager = await(contactManagerFuture);
+            ConversationManager conversationManager = await(conversationManagerFuture);
+            ConferenceManager conferenceManager = await(conferenceManagerFuture);
+
+            if (checkpointService != null) {
+                // Messages are kept on disk rather than with their conversations, so the chat history doesn't have to
+                // fit in memory. The journal can't be used with this, since replaying it would add messages again.
+                FileRecordStore messageStore = messageStore(directory);
+                conversationManager.setMessageStore(messageStore);
+                checkpointService.register(messageStore);
+
+                checkpointService.register(contactManagerStore, contactManager);
+                checkpointService.register(conversationManagerStore, conversationManager);
+                checkpointService.register(conferenceManagerStore, conferenceManager);
+                checkpointService.start();
+            }
+
+            // Create the document writer
+            IDocumentPrinter documentPrinter = new DocumentPrinter();
+
+            // Messaging controllers
+            ContactController contactController = new ContactController(contactManager);
+            ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+
+            // Convention controllers
+            RoomController roomController = new RoomController(conferenceManager, userManager);
+            EventController eventController = new EventController(conferenceManager, conversationManager, userManager);
+            ScheduleController scheduleController = new ScheduleController(documentPrinter, userManager, conferenceManager, eventController);
+            ConferenceController conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
 
-        // Convention controllers
-        RoomController roomController = new RoomController(conferenceManager, userManager);
-        EventController eventController = new EventController(conferenceManager, conversationManager, userManager);
-        ScheduleController scheduleController = new ScheduleController(documentPrinter, userManager, conferenceManager, eventController);
-        ConferenceController conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+            LOGGER.log(Level.INFO, String.format("Startup: everything loaded after %d ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+
+            return new ControllerBundle(userController, contactController, conversationController, roomController, eventController, conferenceController, scheduleController);
+        });
+
+        loader.shutdown();
 
         // Packages up all the controllers in a nice bundle to make it easy to pass around UI components
         // without super long parameter lists
-        ControllerBundle controllerBundle = new ControllerBundle(userController, contactController, conversationController, roomController, eventController, conferenceController, scheduleController);
+        ControllerBundle controllerBundle = new ControllerBundle(userController, otherControllers);
 
         Runnable shutdown = () -> {
             // Serialize everything for the next run
             System.out.println("Writing to disk...");
-            userManagerSerializer.save(userManager);
-            contactManagerSerializer.save(contactManager);
-            conversationManagerSerializer.save(conversationManager);
-            conferenceManagerSerializer.save(conferenceManager);
+
+            if (journalStore != null) {
+                // Everything is already in the journal; this just saves replaying it next time
+                journalStore.close();
+            } else {
+                // Nothing can have changed the other managers before they finished loading
+                try {
+                    await(otherControllers);
+                } catch (IllegalStateException e) {
+                    // The other managers were never registered or used, but the user manager may have changed
+                    LOGGER.log(Level.SEVERE, "Saving only the user manager, since the others didn't load", e);
+                }
+
+                checkpointService.close();
+            }
         };
 
+        LOGGER.log(Level.INFO, String.format("Startup: showing UI after %d ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+
         MainFrame uiSystem = new MainFrame(controllerBundle, shutdown);
         uiSystem.run();
     }
+
+    /**
+     * Moves the managers from the save files into the journal, unless the journal already has them. A journal with a
+     * snapshot always has the latest changes, since switching back to the save files deletes it.
+     * <p>
+     * The save files are only deleted once the journal's snapshot is on disk, so if this is interrupted it starts over
+     * the next time.
+     *
+     * @param directory directory the journal and the save files are in
+     */
+    static void moveSavesToJournal(File directory) {
+        File journalDirectory = new File(directory, JOURNAL_DIRECTORY);
+        File saveDirectory = new File(directory, SAVE_DIRECTORY);
+
+        if (!JournalStore.hasSnapshot(journalDirectory)) {
+            System.out.println("Moving the save files to the journal...");
+
+            // Also seeds a new journal from the single file saves, or with empty managers
+            UserManager userManager = loadSaves(directory, "userManager", segmentStore(directory, "userManager", new UserManagerCodec()), new UserManagerCodec(), new UserManager());
+            ContactManager contactManager = loadSaves(directory, "contactManager", segmentStore(directory, "contactManager", new ContactManagerCodec()), new ContactManagerCodec(), new ContactManager());
+            ConversationManager conversationManager = loadSaves(directory, "conversationManager", segmentStore(directory, "conversationManager", new ConversationManagerCodec()), new ConversationManagerCodec(), new ConversationManager());
+            ConferenceManager conferenceManager = loadSaves(directory, "conferenceManager", segmentStore(directory, "conferenceManager", new ConferenceManagerCodec()), new ConferenceManagerCodec(), new ConferenceManager());
+
+            // The journal can't use a message store, so the messages have to be in memory
+            if (saveDirectory.isDirectory()) {
+                FileRecordStore messageStore = messageStore(directory);
+                conversationManager.readMessages(messageStore);
+                messageStore.close();
+            }
+
+            // Anything left of a journal without a snapshot is from an earlier attempt
+            deleteDirectory(journalDirectory);
+
+            JournalStore journalStore = new JournalStore(journalDirectory, Runnable::run);
+            journalStore.load(USER_MANAGER, "userManager.bin", new UserManagerCodec(), () -> userManager);
+            journalStore.load(CONTACT_MANAGER, "contactManager.bin", new ContactManagerCodec(), () -> contactManager);
+            journalStore.load(CONVERSATION_MANAGER, "conversationManager.bin", new ConversationManagerCodec(), () -> conversationManager);
+            journalStore.load(CONFERENCE_MANAGER, "conferenceManager.bin", new ConferenceManagerCodec(), () -> conferenceManager);
+            journalStore.recover();
+
+            // Takes the snapshot
+            journalStore.close();
+        }
+
+        deleteDirectory(saveDirectory);
+    }
+
+    /**
+     * Moves the managers from the journal into the save files, if there is a journal (i.e. the last run used it).
+     * <p>
+     * The journal is only deleted once the save files are on disk, so if this is interrupted it starts over the next
+     * time.
+     *
+     * @param directory directory the journal and the save files are in
+     */
+    static void moveJournalToSaves(File directory) {
+        File journalDirectory = new File(directory, JOURNAL_DIRECTORY);
+
+        if (!JournalStore.hasSnapshot(journalDirectory)) {
+            return;
+        }
+
+        System.out.println("Moving the journal to the save files...");
+
+        JournalStore journalStore = new JournalStore(journalDirectory, Runnable::run);
+        UserManager userManager = journalStore.load(USER_MANAGER, "userManager.bin", new UserManagerCodec(), UserManager::new);
+        ContactManager contactManager = journalStore.load(CONTACT_MANAGER, "contactManager.bin", new ContactManagerCodec(), ContactManager::new);
+        ConversationManager conversationManager = journalStore.load(CONVERSATION_MANAGER, "conversationManager.bin", new ConversationManagerCodec(), ConversationManager::new);
+        ConferenceManager conferenceManager = journalStore.load(CONFERENCE_MANAGER, "conferenceManager.bin", new ConferenceManagerCodec(), ConferenceManager::new);
+        journalStore.recover();
+        journalStore.close();
+
+        // Anything in the save files is older than the journal
+        deleteDirectory(new File(directory, SAVE_DIRECTORY));
+
+        // Messages first, since the conversations are saved without them
+        FileRecordStore messageStore = messageStore(directory);
+        conversationManager.setMessageStore(messageStore);
+        messageStore.close();
+
+        segmentStore(directory, "userManager", new UserManagerCodec()).save(userManager);
+        segmentStore(directory, "contactManager", new ContactManagerCodec()).save(contactManager);
+        segmentStore(directory, "conversationManager", new ConversationManagerCodec()).save(conversationManager);
+        segmentStore(directory, "conferenceManager", new ConferenceManagerCodec()).save(conferenceManager);
+
+        deleteDirectory(journalDirectory);
+    }
+
+    /**
+     * Loads a manager from its save files: its segment store, or if nothing has been saved there yet, the single file
+     * saves from before there were segment stores
+     *
+     * @param directory directory the save files are in
+     * @param name      name of the manager's save files
+     * @param store     the manager's segment store
+     * @param codec     codec of the manager's single file save
+     * @param empty     manager to return if there are no save files
+     * @param <T>       type of the manager
+     * @return the manager
+     */
+    private static <T> T loadSaves(File directory, String name, ISnapshotStore<T> store, ICodec<T> codec, T empty) {
+        // Save files from before the binary format are only read if there is no binary save file yet
+        return store.load(() -> new BinarySerializer<>(new File(directory, name + ".bin").getPath(), codec).load(() -> new Serializer<T>(new File(directory, name + ".ser").getPath()).load(empty)));
+    }
+
+    private static <T extends IChangeTracked> SegmentStore<T> segmentStore(File directory, String name, ISegmentCodec<T> codec) {
+        return new SegmentStore<>(new File(new File(directory, SAVE_DIRECTORY), name).getPath(), codec, SAVE_GENERATIONS);
+    }
+
+    private static FileRecordStore messageStore(File directory) {
+        return new FileRecordStore(new File(new File(directory, SAVE_DIRECTORY), "messages").getPath());
+    }
+
+    /**
+     * Deletes a directory and everything in it. It's renamed out of the way first, so it's gone as a whole even if the
+     * rest is interrupted.
+     *
+     * @param directory the directory
+     */
+    private static void deleteDirectory(File directory) {
+        File deleting = new File(directory.getPath() + ".old");
+        deleteRecursively(deleting);
+
+        if (directory.exists()) {
+            try {
+                Files.move(directory.toPath(), deleting.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            deleteRecursively(deleting);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    /**
+     * Wraps loading a manager so the time it takes is logged
+     *
+     * @param name name of the manager
+     * @param load loads the manager
+     * @param <T>  type of the manager
+     * @return task that loads the manager
+     */
+    private <T> Callable<T> timed(String name, Supplier<T> load) {
+        return () -> {
+            long startNanos = System.nanoTime();
+            T manager = load.get();
+
+            LOGGER.log(Level.INFO, String.format("Startup: loaded %s in %d ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+
+            return manager;
+        };
+    }
+
+    /**
+     * Waits for something being loaded in the background
+     *
+     * @param future the loading task
+     * @param <T>    type of what's being loaded
+     * @return what was loaded
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to load", e.getCause());
+        }
+    }
 }
@@ -1,9 +1,38 @@
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Entry point of the application
+ * <p>
+ * Pass --journal to record changes to a journal as they happen instead of saving periodically. Either way carries on
+ * from where the last run left off, since switching moves everything over. Pass --checkpoint-interval=SECONDS to
+ * change how often everything is saved when not journaling. Pass --verbose to print log messages, like how long
+ * startup took, to the console.
  */
 public class MainSystem {
+    private static final String CHECKPOINT_INTERVAL = "--checkpoint-interval=";
+
     public static void main(String[] args) {
-        ConventionSystem cs = new ConventionSystem();
+        List<String> arguments = Arrays.asList(args);
+        boolean journaling = arguments.contains("--journal");
+        boolean verbose = arguments.contains("--verbose");
+
+        String checkpointInterval = null;
+
+        for (String argument : arguments) {
+            if (argument.startsWith(CHECKPOINT_INTERVAL)) {
+                checkpointInterval = argument.substring(CHECKPOINT_INTERVAL.length());
+            }
+        }
+
+        long checkpointIntervalMillis = ConventionSystem.DEFAULT_CHECKPOINT_INTERVAL_MILLIS;
+
+        if (checkpointInterval != null) {
+            checkpointIntervalMillis = Long.parseLong(checkpointInterval) * 1000;
+        }
+
+        ConventionSystem cs = new ConventionSystem(journaling, checkpointIntervalMillis, verbose);
+
         cs.run();
     }
 }
@@ -1,18 +1,37 @@
 package contact;
 
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
+import util.segment.ChangeTracker;
+import util.segment.IChangeTracked;
+
 import java.io.Serializable;
 import java.util.*;
 
 /**
  * Stores and performs actions on contacts
  */
-public class ContactManager implements Serializable {
+public class ContactManager implements Serializable, IJournaled, IChangeTracked {
+    private static final long serialVersionUID = -8272238091565320375L;
+
+    // Journal record opcodes
+    private static final int SET_CONTACTS = 0;
+    private static final int SET_REQUESTS = 1;
+    private static final int SET_SENT_REQUESTS = 2;
+
     private Map<UUID, Set<UUID>> contactsMap;
 
     private Map<UUID, Set<UUID>> requestsMap;
 
     private Map<UUID, Set<UUID>> sentRequestsMap;
 
+    private transient IJournal journal;
+
+    // Which users' contacts have changed since the last save
+    private transient ChangeTracker changeTracker;
+
     /**
      * Constructs ContactManager
      */
@@ -73,6 +92,9 @@ public class ContactManager implements Serializable {
         } else {
             contactsMap.putIfAbsent(userUUID, contacts);
         }
+
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_CONTACTS).putUUID(userUUID).putUUIDs(contacts));
     }
 
     /**
@@ -87,6 +109,9 @@ public class ContactManager implements Serializable {
         } else {
             requestsMap.putIfAbsent(userUUID, requests);
         }
+
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_REQUESTS).putUUID(userUUID).putUUIDs(requests));
     }
 
     /**
@@ -101,5 +126,77 @@ public class ContactManager implements Serializable {
         } else {
             sentRequestsMap.putIfAbsent(userUUID, sentRequests);
         }
+
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_SENT_REQUESTS).putUUID(userUUID).putUUIDs(sentRequests));
+    }
+
+    /**
+     * Gets the map of contacts by user UUID, for the codec
+     *
+     * @return the live map of contacts
+     */
+    Map<UUID, Set<UUID>> getContactsMap() {
+        return contactsMap;
+    }
+
+    /**
+     * Gets the map of received requests by user UUID, for the codec
+     *
+     * @return the live map of received requests
+     */
+    Map<UUID, Set<UUID>> getRequestsMap() {
+        return requestsMap;
+    }
+
+    /**
+     * Gets the map of sent requests by user UUID, for the codec
+     *
+     * @return the live map of sent requests
+     */
+    Map<UUID, Set<UUID>> getSentRequestsMap() {
+        return sentRequestsMap;
+    }
+
+    @Override
+    public ChangeTracker getChangeTracker() {
+        if (changeTracker == null) {
+            changeTracker = new ChangeTracker();
+        }
+
+        return changeTracker;
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case SET_CONTACTS:
+                contactsMap.put(record.nextUUID(), record.nextUUIDs());
+                break;
+            case SET_REQUESTS:
+                requestsMap.put(record.nextUUID(), record.nextUUIDs());
+                break;
+            case SET_SENT_REQUESTS:
+                sentRequestsMap.put(record.nextUUID(), record.nextUUIDs());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
     }
 }
@@ -0,0 +1,122 @@
+package contact;
+
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.codec.ICodec;
+import util.segment.ISegmentCodec;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts a ContactManager to and from the compact binary format, either whole or as one segment per user
+ */
+public class ContactManagerCodec implements ICodec<ContactManager>, ISegmentCodec<ContactManager> {
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(BinaryWriter out, ContactManager contactManager) throws IOException {
+        writeMap(out, contactManager.getContactsMap());
+        writeMap(out, contactManager.getRequestsMap());
+        writeMap(out, contactManager.getSentRequestsMap());
+    }
+
+    @Override
+    public ContactManager read(BinaryReader in, int version) throws IOException {
+        ContactManager contactManager = new ContactManager();
+
+        readMap(in, contactManager.getContactsMap());
+        readMap(in, contactManager.getRequestsMap());
+        readMap(in, contactManager.getSentRequestsMap());
+
+        return contactManager;
+    }
+
+    @Override
+    public ContactManager create() {
+        return new ContactManager();
+    }
+
+    @Override
+    public Set<UUID> getSegments(ContactManager contactManager) {
+        Set<UUID> userUUIDs = new HashSet<>(contactManager.getContactsMap().keySet());
+        userUUIDs.addAll(contactManager.getRequestsMap().keySet());
+        userUUIDs.addAll(contactManager.getSentRequestsMap().keySet());
+
+        return userUUIDs;
+    }
+
+    @Override
+    public boolean hasSegment(ContactManager contactManager, UUID userUUID) {
+        return contactManager.getContactsMap().containsKey(userUUID) || contactManager.getRequestsMap().containsKey(userUUID)
+                || contactManager.getSentRequestsMap().containsKey(userUUID);
+    }
+
+    @Override
+    public void writeRoot(BinaryWriter out, ContactManager contactManager) {
+        // Everything belongs to a user
+    }
+
+    @Override
+    public void readRoot(BinaryReader in, int version, ContactManager contactManager) {
+    }
+
+    @Override
+    public void writeSegment(BinaryWriter out, ContactManager contactManager, UUID userUUID) throws IOException {
+        out.writeUUID(userUUID);
+        writeEntry(out, contactManager.getContactsMap().get(userUUID));
+        writeEntry(out, contactManager.getRequestsMap().get(userUUID));
+        writeEntry(out, contactManager.getSentRequestsMap().get(userUUID));
+    }
+
+    @Override
+    public void readSegment(BinaryReader in, int version, ContactManager contactManager) throws IOException {
+        UUID userUUID = in.readUUID();
+
+        readEntry(in, contactManager.getContactsMap(), userUUID);
+        readEntry(in, contactManager.getRequestsMap(), userUUID);
+        readEntry(in, contactManager.getSentRequestsMap(), userUUID);
+    }
+
+    private void writeMap(BinaryWriter out, Map<UUID, Set<UUID>> map) throws IOException {
+        out.writeVarInt(map.size());
+
+        for (Map.Entry<UUID, Set<UUID>> entry : map.entrySet()) {
+            out.writeUUID(entry.getKey());
+            out.writeUUIDs(entry.getValue());
+        }
+    }
+
+    private void readMap(BinaryReader in, Map<UUID, Set<UUID>> map) throws IOException {
+        int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            map.put(in.readUUID(), in.readUUIDs());
+        }
+    }
+
+    /**
+     * Writes one user's set from one of the maps, which may not be there
+     */
+    private void writeEntry(BinaryWriter out, Set<UUID> uuids) throws IOException {
+        out.writeBoolean(uuids != null);
+
+        if (uuids != null) {
+            out.writeUUIDs(uuids);
+        }
+    }
+
+    private void readEntry(BinaryReader in, Map<UUID, Set<UUID>> map, UUID userUUID) throws IOException {
+        if (in.readBoolean()) {
+            map.put(userUUID, in.readUUIDs());
+        }
+    }
+}
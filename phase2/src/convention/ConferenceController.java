@@ -63,15 +63,7 @@ public class ConferenceController {
      * @return set of conference UUIDs
      */
     public Set<UUID> getUserConferences(UUID userUUID) {
-        Set<UUID> myConferences = new HashSet<>();
-
-        for (UUID conferenceUUID : conferenceManager.getConferences()) {
-            if (conferenceManager.isAffiliated(conferenceUUID, userUUID, userManager)) {
-                myConferences.add(conferenceUUID);
-            }
-        }
-
-        return myConferences;
+        return conferenceManager.getAffiliatedConferences(userUUID, userManager);
     }
 
     /**
@@ -82,15 +74,7 @@ public class ConferenceController {
      * @return set of conference UUIDs
      */
     public Set<UUID> getNotUserConferences(UUID userUUID) {
-        Set<UUID> myNotConferences = new HashSet<>();
-
-        for (UUID conferenceUUID : conferenceManager.getConferences()) {
-            if (!conferenceManager.isAffiliated(conferenceUUID, userUUID, userManager)) {
-                myNotConferences.add(conferenceUUID);
-            }
-        }
-
-        return myNotConferences;
+        return conferenceManager.getNotAffiliatedConferences(userUUID, userManager);
     }
 
     /**
@@ -187,6 +171,13 @@ public class ConferenceController {
      */
     public void deleteConference(UUID conferenceUUID, UUID executorUUID) {
         permissionManager.testIsOrganizer(conferenceUUID, executorUUID);
+
+        UUID announcementConversationUUID = conferenceManager.getAnnouncementConversationUUID(conferenceUUID);
+
+        if (announcementConversationUUID != null) {
+            conversationManager.deleteConversation(announcementConversationUUID);
+        }
+
         conferenceManager.deleteConference(conferenceUUID);
         LOGGER.log(Level.INFO, String.format("Conference Deleted\n Conference UUID: %s\n Executor: %s", conferenceUUID, executorUUID));
     }
@@ -203,6 +194,7 @@ public class ConferenceController {
      */
     public void addAttendee(UUID conferenceUUID, UUID executorUUID) {
         conferenceManager.addAttendee(conferenceUUID, executorUUID);
+        eventController.updateAnnouncementMember(conferenceUUID, executorUUID);
         LOGGER.log(Level.INFO, String.format("User joined conference\n Conference UUID: %s\n Executor: %s", conferenceUUID, executorUUID));
     }
 
@@ -249,8 +241,9 @@ public class ConferenceController {
             conferenceManager.removeAttendee(conferenceUUID, targetUserUUID);
         }
 
-        // Update the event conversation members in case it was missed for some reason
-        updateConferenceEventsConversationMembers(conferenceUUID);
+        // Their speaker roles were taken away above without going through the event conversations
+        eventController.updateEventConversationsMember(conferenceUUID, targetUserUUID);
+        eventController.updateAnnouncementMember(conferenceUUID, targetUserUUID);
 
         LOGGER.log(Level.INFO, String.format("User left conference\n Conference UUID: %s\n Target: %s\n Executor: %s", conferenceUUID, targetUserUUID, executorUUID));
     }
@@ -279,6 +272,64 @@ public class ConferenceController {
         return conversationManager.createConversation(conversationName, conversationUsers, conversationUsers, executorUUID, String.format("Hi, this is %s.", executorName));
     }
 
+    /**
+     * Posts an announcement to everyone in a conference. The first announcement creates the conference's announcement
+     * channel, a conversation that every member of the conference can read but only organizers can post to. Each
+     * announcement is stored once, however many members there are, and members joining or leaving later are added to
+     * or taken out of the channel as they go.
+     * <p>
+     * Required Permission: ORGANIZER
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @param executorUUID   UUID of the user executing the command
+     * @param messageContent content of the announcement
+     * @return UUID of the announcement channel
+     */
+    public UUID sendAnnouncement(UUID conferenceUUID, UUID executorUUID, String messageContent) {
+        permissionManager.testIsOrganizer(conferenceUUID, executorUUID);
+
+        UUID conversationUUID = conferenceManager.getAnnouncementConversationUUID(conferenceUUID);
+
+        if (conversationUUID == null) {
+            Set<UUID> writers = conferenceManager.getOrganizers(conferenceUUID);
+            writers.add(executorUUID);
+
+            Set<UUID> readers = new HashSet<>(writers);
+            readers.addAll(conferenceManager.getSpeakers(conferenceUUID));
+            readers.addAll(conferenceManager.getAttendees(conferenceUUID));
+
+            String conversationName = String.format("Announcements @ %s", getConferenceName(conferenceUUID));
+
+            conversationUUID = conversationManager.createConversation(conversationName, writers, readers, executorUUID, messageContent);
+            conferenceManager.setAnnouncementConversationUUID(conferenceUUID, conversationUUID);
+        } else {
+            // God users can post without being organizers of the conference
+            if (!conversationManager.getConversation(conversationUUID).getWriteAccessUsers().contains(executorUUID)) {
+                conversationManager.addUser(executorUUID, conversationUUID);
+            }
+
+            conversationManager.sendMessage(executorUUID, messageContent, conversationUUID);
+        }
+
+        LOGGER.log(Level.INFO, String.format("Announcement sent\n Conference UUID: %s\n Executor: %s", conferenceUUID, executorUUID));
+
+        return conversationUUID;
+    }
+
+    /**
+     * Gets the UUID of a conference's announcement channel.
+     * <p>
+     * Required Permission: ATTENDEE
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @param executorUUID   UUID of the user executing the command
+     * @return UUID of the announcement conversation, or null if there have been no announcements
+     */
+    public UUID getAnnouncementConversationUUID(UUID conferenceUUID, UUID executorUUID) {
+        permissionManager.testIsAttendee(conferenceUUID, executorUUID);
+        return conferenceManager.getAnnouncementConversationUUID(conferenceUUID);
+    }
+
     /* Organizer operations */
 
     /**
@@ -294,7 +345,8 @@ public class ConferenceController {
         permissionManager.testIsOrganizer(conferenceUUID, executorUUID);
         conferenceManager.addOrganizer(conferenceUUID, targetUserUUID);
 
-        updateConferenceEventsConversationMembers(conferenceUUID);
+        eventController.updateEventConversationsMember(conferenceUUID, targetUserUUID);
+        eventController.updateAnnouncementMember(conferenceUUID, targetUserUUID);
     }
 
     /**
@@ -311,16 +363,8 @@ public class ConferenceController {
         permissionManager.testIsOrganizer(conferenceUUID, executorUUID);
         conferenceManager.removeOrganizer(conferenceUUID, targetUserUUID);
 
-        updateConferenceEventsConversationMembers(conferenceUUID);
-    }
-
-    private void updateConferenceEventsConversationMembers(UUID conferenceUUID) {
-        EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
-
-        // Update the conversation list for each event
-        for (UUID eventUUID : eventManager.getEvents()) {
-            eventController.updateEventConversationMembers(conferenceUUID, eventUUID);
-        }
+        eventController.updateEventConversationsMember(conferenceUUID, targetUserUUID);
+        eventController.updateAnnouncementMember(conferenceUUID, targetUserUUID);
     }
 
     /**
@@ -10,6 +10,7 @@ import convention.exception.InvalidEventTimeException;
 import convention.exception.SpeakerDoubleBookingException;
 import convention.permission.PermissionManager;
 import convention.room.RoomManager;
+import messaging.Conversation;
 import messaging.ConversationManager;
 import user.UserManager;
 
@@ -59,17 +60,8 @@ public class EventController {
     public Set<UUID> getAttendeeEvents(UUID conferenceUUID, UUID executorUUID) {
         permissionManager.testIsAttendee(conferenceUUID, executorUUID);
 
-        Set<UUID> registeredEventsUUIDs = new HashSet<>();
-
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
-
-        for (UUID eventUUID : eventManager.getEvents()) {
-            if (eventManager.getEventAttendees(eventUUID).contains(executorUUID)) {
-                registeredEventsUUIDs.add(eventUUID);
-            }
-        }
-
-        return registeredEventsUUIDs;
+        return eventManager.getAttendeeEvents(executorUUID);
     }
 
     /**
@@ -83,16 +75,8 @@ public class EventController {
     public Set<UUID> getSpeakerEvents(UUID conferenceUUID, UUID executorUUID) {
         permissionManager.testIsSpeaker(conferenceUUID, executorUUID);
 
-        Set<UUID> registeredEventsUUIDs = new HashSet<>();
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
-
-        for (UUID eventUUID : eventManager.getEvents()) {
-            if (eventManager.getEventSpeakers(eventUUID).contains(executorUUID)) {
-                registeredEventsUUIDs.add(eventUUID);
-            }
-        }
-
-        return registeredEventsUUIDs;
+        return eventManager.getSpeakerEvents(executorUUID);
     }
 
     /**
@@ -104,16 +88,9 @@ public class EventController {
      * @return list of events on that day
      */
     public Set<UUID> getDayEvents(UUID conferenceUUID, LocalDate day) {
-        Set<UUID> eventsUUIDsOnDay = new HashSet<>();
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
 
-        for (UUID eventUUID : eventManager.getEvents()) {
-            if (eventManager.getEvent(eventUUID).getTimeRange().isInDay(day)) {
-                eventsUUIDsOnDay.add(eventUUID);
-            }
-        }
-
-        return eventsUUIDsOnDay;
+        return eventManager.getDayEvents(day);
     }
 
     /**
@@ -131,7 +108,7 @@ public class EventController {
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
         RoomManager roomManager = conferenceManager.getRoomManager(conferenceUUID);
 
-        int currentEventAttendeeCount = eventManager.getEventAttendees(eventUUID).size();
+        int currentEventAttendeeCount = eventManager.getEventAttendeeCount(eventUUID);
         UUID roomUUID = eventManager.getEventRoom(eventUUID);
 
         // Verify the events can take additional attendees
@@ -140,7 +117,7 @@ public class EventController {
         }
 
         eventManager.registerAttendee(eventUUID, targetUserUUID);
-        updateEventConversationMembers(conferenceUUID, eventUUID);
+        updateEventConversationMember(conferenceUUID, eventManager, eventUUID, targetUserUUID);
     }
 
     /**
@@ -155,7 +132,7 @@ public class EventController {
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
 
         eventManager.unregisterAttendee(eventUUID, targetUserUUID);
-        updateEventConversationMembers(conferenceUUID, eventUUID);
+        updateEventConversationMember(conferenceUUID, eventManager, eventUUID, targetUserUUID);
     }
 
     /**
@@ -179,42 +156,25 @@ public class EventController {
      * @param conferenceUUID UUID of the conference to operate on
      */
     void updateSpeakers(UUID conferenceUUID) {
-        Set<UUID> speakerUUIDs = new HashSet<>();
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
 
-        for (UUID eventUUID : eventManager.getEvents()) {
-            Set<UUID> eventSpeakerUUIDs = eventManager.getEventSpeakers(eventUUID);
-
-            speakerUUIDs.addAll(eventSpeakerUUIDs);
-        }
-
-        conferenceManager.setSpeakers(conferenceUUID, speakerUUIDs);
-    }
-
-    /**
-     * Tests whether a speaker is scheduled to talk at a given time range.
-     *
-     * @param conferenceUUID UUID of the conference to operate on
-     * @param speakerUUID    UUID of the speaker to test
-     * @param timeRange      TimeRange to test for overlap
-     * @return true iff the speaker is not available at the given time range
-     */
-    private boolean speakerTimeRangeOccupied(UUID conferenceUUID, UUID speakerUUID, TimeRange timeRange) {
-        EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
-        for (UUID eventUUID : eventManager.getEvents()) {
-            Set<UUID> speakerUUIDs = eventManager.getEventSpeakers(eventUUID);
+        Set<UUID> oldSpeakers = conferenceManager.getSpeakers(conferenceUUID);
+        Set<UUID> newSpeakers = new HashSet<>(eventManager.getSpeakers());
 
-            // If the speaker is linked to this events, we want to test if there's a conflict
-            if (speakerUUIDs.contains(speakerUUID)) {
-                TimeRange eventTimeRange = eventManager.getEventTimeRange(eventUUID);
+        conferenceManager.setSpeakers(conferenceUUID, newSpeakers);
 
-                if (eventTimeRange.hasOverlap(timeRange)) {
-                    return true;
-                }
+        // Only the speakers who were added or removed can have changed whether they get announcements
+        for (UUID speakerUUID : oldSpeakers) {
+            if (!newSpeakers.contains(speakerUUID)) {
+                updateAnnouncementMember(conferenceUUID, speakerUUID);
             }
         }
 
-        return false;
+        for (UUID speakerUUID : newSpeakers) {
+            if (!oldSpeakers.contains(speakerUUID)) {
+                updateAnnouncementMember(conferenceUUID, speakerUUID);
+            }
+        }
     }
 
     /**
@@ -226,8 +186,10 @@ public class EventController {
      * @throws SpeakerDoubleBookingException iff there is at least one speaker which has a double booking
      */
     private void testSpeakersTimeRangeOccupied(UUID conferenceUUID, Set<UUID> speakerUUIDs, TimeRange timeRange) {
+        EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
+
         for (UUID speakerUUID : speakerUUIDs) {
-            if (speakerTimeRangeOccupied(conferenceUUID, speakerUUID, timeRange)) {
+            if (eventManager.isSpeakerBooked(speakerUUID, timeRange)) {
                 throw new SpeakerDoubleBookingException(speakerUUID, timeRange);
             }
         }
@@ -310,7 +272,7 @@ public class EventController {
 
         eventManager.addEventSpeaker(eventUUID, speakerUUID);
         updateSpeakers(conferenceUUID);
-        updateEventConversationMembers(conferenceUUID, eventUUID);
+        updateEventConversationMember(conferenceUUID, eventManager, eventUUID, speakerUUID);
     }
 
     /**
@@ -331,7 +293,7 @@ public class EventController {
 
         eventManager.removeEventSpeaker(eventUUID, speakerUUID);
         updateSpeakers(conferenceUUID);
-        updateEventConversationMembers(conferenceUUID, eventUUID);
+        updateEventConversationMember(conferenceUUID, eventManager, eventUUID, speakerUUID);
     }
 
     /**
@@ -508,7 +470,7 @@ public class EventController {
         permissionManager.testIsAttendee(conferenceUUID, executorUUID);
 
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
-        return eventManager.getEventAttendees(eventUUID).contains(executorUUID);
+        return eventManager.isEventAttendee(eventUUID, executorUUID);
     }
 
     /**
@@ -598,40 +560,81 @@ public class EventController {
 
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
 
-        return eventManager.getEventAttendees(eventUUID).size();
+        return eventManager.getEventAttendeeCount(eventUUID);
     }
 
     /**
-     * Triggers an update of the members of an event conversation
+     * Brings one user's membership of every event conversation in a conference up to date with their roles, e.g. when
+     * they become or stop being an organizer
      *
      * @param conferenceUUID UUID of the conference to operate on
-     * @param eventUUID      UUID of the events to operate on
+     * @param userUUID       UUID of the user whose roles changed
      */
-    void updateEventConversationMembers(UUID conferenceUUID, UUID eventUUID) {
+    void updateEventConversationsMember(UUID conferenceUUID, UUID userUUID) {
         EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
 
+        for (UUID eventUUID : eventManager.getEvents()) {
+            updateEventConversationMember(conferenceUUID, eventManager, eventUUID, userUUID);
+        }
+    }
+
+    /**
+     * Brings one user's membership of an event conversation up to date: they belong in it if they are registered for
+     * the event, speak at it, or organize the conference. Only that user is looked at, so this takes the same time
+     * however many people are in the event.
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @param eventManager   event manager of the conference
+     * @param eventUUID      UUID of the events to operate on
+     * @param userUUID       UUID of the user whose roles changed
+     */
+    private void updateEventConversationMember(UUID conferenceUUID, EventManager eventManager, UUID eventUUID, UUID userUUID) {
         UUID conversationUUID = eventManager.getEventConversationUUID(eventUUID);
 
-        if (conversationUUID != null) {
-            // This is the current list of users
-            Set<UUID> existingMembers = conversationManager.getUsers(conversationUUID);
+        if (conversationUUID == null) {
+            return;
+        }
 
-            // This is what we want
-            Set<UUID> targetUserList = compileEventConversationMembers(conferenceUUID, eventUUID);
+        boolean isMember = eventManager.isEventAttendee(eventUUID, userUUID) || eventManager.isEventSpeaker(eventUUID, userUUID)
+                || conferenceManager.isOrganizer(conferenceUUID, userUUID);
+        boolean isInConversation = conversationManager.getUsers(conversationUUID).contains(userUUID);
 
-            // Remove users no longer on the list
-            for (UUID userUUID : existingMembers) {
-                if (!targetUserList.contains(userUUID)) {
-                    conversationManager.removeUser(userUUID, conversationUUID);
-                }
-            }
+        if (isMember && !isInConversation) {
+            conversationManager.addUser(userUUID, conversationUUID);
+        } else if (!isMember && isInConversation) {
+            conversationManager.removeUser(userUUID, conversationUUID);
+        }
+    }
 
-            // Add new users to the list
-            for (UUID userUUID : targetUserList) {
-                if (!existingMembers.contains(userUUID)) {
-                    conversationManager.addUser(userUUID, conversationUUID);
-                }
+    /**
+     * Brings one user's membership of a conference's announcement channel up to date with their roles: organizers can
+     * post, every other member of the conference can read, and everyone else is taken out. Does nothing if the
+     * conference hasn't made any announcements.
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @param userUUID       UUID of the user whose roles changed
+     */
+    void updateAnnouncementMember(UUID conferenceUUID, UUID userUUID) {
+        UUID conversationUUID = conferenceManager.getAnnouncementConversationUUID(conferenceUUID);
+
+        if (conversationUUID == null) {
+            return;
+        }
+
+        Conversation conversation = conversationManager.getConversation(conversationUUID);
+        boolean isOrganizer = conferenceManager.isOrganizer(conferenceUUID, userUUID);
+        boolean isMember = isOrganizer || conferenceManager.isSpeaker(conferenceUUID, userUUID) || conferenceManager.isAttendee(conferenceUUID, userUUID);
+
+        if (isOrganizer) {
+            if (!conversation.getWriteAccessUsers().contains(userUUID)) {
+                conversationManager.addUser(userUUID, conversationUUID);
+            }
+        } else if (isMember) {
+            if (conversation.getWriteAccessUsers().contains(userUUID) || !conversation.getReadAccessUsers().contains(userUUID)) {
+                conversationManager.addReader(userUUID, conversationUUID);
             }
+        } else if (conversation.getReadAccessUsers().contains(userUUID)) {
+            conversationManager.removeUser(userUUID, conversationUUID);
         }
     }
 
@@ -51,8 +51,6 @@ public class ScheduleController {
         table.add(Arrays.asList("Conference Name", "Event Title", "Speakers", "Location"));
 
         for (Pair<UUID, UUID> pair : listOfPairs) {
-            List<String> speakerNames = new ArrayList<>();
-
             UUID conferenceUUID = pair.getValue();
             UUID eventUUID = pair.getKey();
 
@@ -60,11 +58,7 @@ public class ScheduleController {
             RoomManager roomManager = conferenceManager.getRoomManager(conferenceUUID);
 
             // Compile list of speakers
-            for (UUID speakerUUID : eventManager.getEvent(eventUUID).getSpeakers()) {
-                speakerNames.add(userManager.getUserFullName(speakerUUID));
-            }
-
-            String speakers = String.join(", ", speakerNames);
+            String speakers = String.join(", ", userManager.getUserFullNames(eventManager.getEvent(eventUUID).getSpeakers()).values());
 
             // Add row to the list
             List<String> eventInfoStrings = new ArrayList<>(
@@ -91,14 +85,9 @@ public class ScheduleController {
      */
     private List<Pair<UUID, UUID>> getRegisteredEventPairs(UUID userUUID) {
         List<Pair<UUID, UUID>> listOfPairs = new ArrayList<>();
-        Set<UUID> conferenceUUIDSet = new HashSet<>();
 
         // Compiles list of relevant conferences
-        for (UUID conferenceUUID : conferenceManager.getConferences()) {
-            if (conferenceManager.isAttendee(conferenceUUID, userUUID)) {
-                conferenceUUIDSet.add(conferenceUUID);
-            }
-        }
+        Set<UUID> conferenceUUIDSet = conferenceManager.getAttendeeConferences(userUUID);
 
         // Compiles list of relevant events
         for (UUID conferenceUUID : conferenceUUIDSet) {
@@ -120,14 +109,9 @@ public class ScheduleController {
      */
     private List<Pair<UUID, UUID>> getSpeakerEventPairs(UUID speakerUUID) {
         List<Pair<UUID, UUID>> listOfPairs = new ArrayList<>();
-        Set<UUID> conferenceUUIDSet = new HashSet<>();
 
         // Compiles list of relevant conferences
-        for (UUID conferenceUUID : conferenceManager.getConferences()) {
-            if (conferenceManager.isSpeaker(conferenceUUID, speakerUUID)) {
-                conferenceUUIDSet.add(conferenceUUID);
-            }
-        }
+        Set<UUID> conferenceUUIDSet = conferenceManager.getSpeakerConferences(speakerUUID);
 
         // Compiles list of relevant events
         for (UUID conferenceUUID : conferenceUUIDSet) {
@@ -149,17 +133,9 @@ public class ScheduleController {
      */
     private List<Pair<UUID, UUID>> getDateEventPairs(LocalDate date) {
         List<Pair<UUID, UUID>> listOfPairs = new ArrayList<>();
-        Set<UUID> conferenceUUIDSet = new HashSet<>();
 
-        // Compiles list of relevant conferences
-        for (UUID conferenceUUID : conferenceManager.getConferences()) {
-            if (conferenceManager.getTimeRange(conferenceUUID).isInDay(date)) {
-                conferenceUUIDSet.add(conferenceUUID);
-            }
-        }
-
-        // Compiles list of relevant events
-        for (UUID conferenceUUID : conferenceUUIDSet) {
+        // Compiles list of relevant events, from the conferences running that day
+        for (UUID conferenceUUID : conferenceManager.getDayConferences(date)) {
             Set<UUID> dayEventsInConference = eventController.getDayEvents(conferenceUUID, date);
             for (UUID eventUUID : dayEventsInConference) {
                 Pair<UUID, UUID> eventConferenceUUIDPair = new Pair<>(eventUUID, conferenceUUID);
@@ -7,14 +7,32 @@ import java.util.*;
  * Calendar object - stores mappings from events UUID to timeRange and prevents conflicts
  */
 public class Calendar implements Serializable {
-    // Look at the LocalDateTime library
-    // You can probably just store pairs of LocalDateTime (for start and end), in a set (Maybe make another class for the pair?)
-    // To check if a time slot is going to conflict, compare the new pair with the previous pairs
-    // We'll probably also want to be able to store the events UUID in the pair
-    //
-    // Edit: The TimeRange class will actually handle the pair of times for you
+    // Pinned so that calendars saved before the booking index was added can still be loaded
+    private static final long serialVersionUID = -5368907910893175018L;
+
     private final Map<UUID, TimeRange> uuidToTimeRange = new HashMap<>();
 
+    // Bookings ordered by start time, so conflict checks don't have to scan the whole calendar. This is rebuilt from
+    // uuidToTimeRange when needed, so it is not written to disk.
+    private transient TimeRangeIndex timeRangeIndex;
+
+    /**
+     * Gets the index of bookings ordered by time, building it first if this calendar was just loaded from disk
+     *
+     * @return the booking index
+     */
+    private TimeRangeIndex getTimeRangeIndex() {
+        if (timeRangeIndex == null) {
+            timeRangeIndex = new TimeRangeIndex();
+
+            for (Map.Entry<UUID, TimeRange> booking : uuidToTimeRange.entrySet()) {
+                timeRangeIndex.add(booking.getKey(), booking.getValue());
+            }
+        }
+
+        return timeRangeIndex;
+    }
+
     /**
      * Gets the full mapping from UUID to Time range
      *
@@ -25,10 +43,13 @@ public class Calendar implements Serializable {
     }
 
     /**
-     * @return get a Set of TimeRanges booked on this calendar
+     * Gets the bookings that overlap with a time range
+     *
+     * @param t the TimeRange to search
+     * @return a map of UUIDs to timeRange, in chronological order
      */
-    private Set<TimeRange> getUUIDtoTimeRanges() {
-        return new HashSet<>(uuidToTimeRange.values());
+    Map<UUID, TimeRange> getOverlapping(TimeRange t) {
+        return getTimeRangeIndex().getOverlapping(t);
     }
 
     /**
@@ -36,13 +57,7 @@ public class Calendar implements Serializable {
      * @return true iff t conflicts with an existing TimeRange object
      */
     boolean hasConflict(TimeRange t) {
-        Set<TimeRange> timeRangeSet = this.getUUIDtoTimeRanges();
-        for (TimeRange tr : timeRangeSet) {
-            if (t.hasOverlap(tr)) {
-                return true;
-            }
-        }
-        return false;
+        return getTimeRangeIndex().hasOverlap(t);
     }
 
     /**
@@ -52,7 +67,10 @@ public class Calendar implements Serializable {
      * @param timeRange Time range of the events
      */
     void addTimeBlock(UUID eventUUID, TimeRange timeRange) {
+        removeTimeBlock(eventUUID);
+
         this.uuidToTimeRange.put(eventUUID, timeRange);
+        getTimeRangeIndex().add(eventUUID, timeRange);
     }
 
     /**
@@ -61,7 +79,11 @@ public class Calendar implements Serializable {
      * @param eventUUID UUID of the event
      */
     void removeTimeBlock(UUID eventUUID) {
-        this.uuidToTimeRange.remove(eventUUID);
+        TimeRange timeRange = this.uuidToTimeRange.remove(eventUUID);
+
+        if (timeRange != null) {
+            getTimeRangeIndex().remove(eventUUID, timeRange);
+        }
     }
 
     /**
@@ -2,6 +2,10 @@ package convention.calendar;
 
 import convention.exception.CalendarDoubleBookingException;
 import convention.exception.NullBookingException;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
 
 import java.util.Map;
 import java.util.UUID;
@@ -9,9 +13,13 @@ import java.util.UUID;
 /**
  * Manages the Calendar entity
  */
-public class CalendarManager {
+public class CalendarManager implements IJournaled {
+    // Journal record opcodes
+    private static final int ADD_TIME_BLOCK = 0;
+    private static final int REMOVE_TIME_BLOCK = 1;
 
     private Calendar calendar;
+    private IJournal journal;
 
     /**
      * Creates calendar manager for a calendar
@@ -19,7 +27,18 @@ public class CalendarManager {
      * @param calendar calendar object to operate on
      */
     public CalendarManager(Calendar calendar) {
+        this(calendar, null);
+    }
+
+    /**
+     * Creates calendar manager for a calendar that records its changes
+     *
+     * @param calendar calendar object to operate on
+     * @param journal  journal to record changes to, or null
+     */
+    public CalendarManager(Calendar calendar, IJournal journal) {
         this.calendar = calendar;
+        this.journal = journal;
     }
 
     /**
@@ -31,6 +50,16 @@ public class CalendarManager {
         return calendar.getUUIDToTimeRange();
     }
 
+    /**
+     * Gets the bookings that overlap with a time range
+     *
+     * @param t TimeRange to search
+     * @return a map of event UUIDs to their TimeRange, in chronological order
+     */
+    public Map<UUID, TimeRange> getUUIDtoTimeRangesDuring(TimeRange t) {
+        return calendar.getOverlapping(t);
+    }
+
     /**
      * @param t TimeRange that is compared with existing TimeRange objects on this calendar
      * @return true iff t conflicts with an existing TimeRange in c
@@ -50,6 +79,8 @@ public class CalendarManager {
             throw new CalendarDoubleBookingException();
         } else {
             calendar.addTimeBlock(eventUUID, timeRange);
+            record(new JournalRecord(ADD_TIME_BLOCK).putUUID(eventUUID)
+                    .putDateTime(timeRange.getStart()).putDateTime(timeRange.getEnd()));
         }
     }
 
@@ -64,5 +95,36 @@ public class CalendarManager {
         }
 
         calendar.removeTimeBlock(eventUUID);
+        record(new JournalRecord(REMOVE_TIME_BLOCK).putUUID(eventUUID));
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case ADD_TIME_BLOCK:
+                calendar.addTimeBlock(record.nextUUID(), new TimeRange(record.nextDateTime(), record.nextDateTime()));
+                break;
+            case REMOVE_TIME_BLOCK:
+                calendar.removeTimeBlock(record.nextUUID());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
     }
 }
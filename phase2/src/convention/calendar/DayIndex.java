@@ -0,0 +1,96 @@
+package convention.calendar;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Index of things that happen over time ranges (e.g. events or conferences), grouped by every day they run on, so
+ * finding what happens on a day doesn't have to test each of them.
+ * <p>
+ * Anything running for more than a month is kept out of the day buckets, since it would need one bucket per day. Those
+ * are tested one by one, but there should only be a few.
+ */
+public class DayIndex {
+    // Time ranges longer than this are not put into day buckets
+    private static final int MAX_BUCKETED_DAYS = 31;
+
+    // Grouped by every day they run on. Ones that run across several days are listed under each of them.
+    private final Map<LocalDate, Set<UUID>> dateToUUIDs = new HashMap<>();
+
+    // Ones that are too long to bucket by day
+    private final Map<UUID, TimeRange> longUUIDToTimeRange = new HashMap<>();
+
+    /**
+     * Tests if a time range runs over too many days to be put into day buckets
+     *
+     * @param timeRange time range to test
+     * @return true iff the time range should not be bucketed
+     */
+    private boolean isLong(TimeRange timeRange) {
+        return timeRange.getStart().toLocalDate().plusDays(MAX_BUCKETED_DAYS).isBefore(timeRange.getEnd().toLocalDate());
+    }
+
+    /**
+     * Lists something under every day it runs on
+     *
+     * @param uuid      UUID of what is being added
+     * @param timeRange time range it runs over
+     */
+    public void add(UUID uuid, TimeRange timeRange) {
+        if (isLong(timeRange)) {
+            longUUIDToTimeRange.put(uuid, timeRange);
+            return;
+        }
+
+        LocalDate lastDay = timeRange.getEnd().toLocalDate();
+
+        for (LocalDate day = timeRange.getStart().toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            dateToUUIDs.computeIfAbsent(day, k -> new HashSet<>()).add(uuid);
+        }
+    }
+
+    /**
+     * Removes something from every day it runs on. Nothing happens if it isn't in the index.
+     *
+     * @param uuid      UUID of what is being removed
+     * @param timeRange time range it was added with
+     */
+    public void remove(UUID uuid, TimeRange timeRange) {
+        if (isLong(timeRange)) {
+            longUUIDToTimeRange.remove(uuid);
+            return;
+        }
+
+        LocalDate lastDay = timeRange.getEnd().toLocalDate();
+
+        for (LocalDate day = timeRange.getStart().toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            Set<UUID> dayUUIDs = dateToUUIDs.get(day);
+
+            if (dayUUIDs != null) {
+                dayUUIDs.remove(uuid);
+
+                if (dayUUIDs.isEmpty()) {
+                    dateToUUIDs.remove(day);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets what runs on a day
+     *
+     * @param day the day
+     * @return set of UUIDs
+     */
+    public Set<UUID> get(LocalDate day) {
+        Set<UUID> dayUUIDs = new HashSet<>(dateToUUIDs.getOrDefault(day, Collections.emptySet()));
+
+        for (Map.Entry<UUID, TimeRange> longEntry : longUUIDToTimeRange.entrySet()) {
+            if (longEntry.getValue().isInDay(day)) {
+                dayUUIDs.add(longEntry.getKey());
+            }
+        }
+
+        return dayUUIDs;
+    }
+}
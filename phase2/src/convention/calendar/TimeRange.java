@@ -64,9 +64,7 @@ public class TimeRange implements Serializable {
      * @return true iff the TimeRange overlaps with that day
      */
     public boolean isInDay(LocalDate date) {
-        return this.getEnd().toLocalDate().equals(date)
-                || this.getStart().toLocalDate().equals(date)
-                || (this.getStart().toLocalDate().isBefore(date) & this.getEnd().toLocalDate().isAfter(date));
+        return !getStart().toLocalDate().isAfter(date) && !getEnd().toLocalDate().isBefore(date);
     }
 
 
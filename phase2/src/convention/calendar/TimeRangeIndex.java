@@ -0,0 +1,101 @@
+package convention.calendar;
+
+import util.Pair;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Ordered index of non-overlapping time ranges, keyed by their start time.
+ * <p>
+ * Bookings stored in this index must never overlap (room calendars and speaker schedules both reject double bookings
+ * before anything is added). Since the bookings are disjoint, sorting them by start time also sorts them by end time,
+ * so an overlap test only needs to look at the latest booking that starts before the end of the tested range.
+ */
+public class TimeRangeIndex {
+    private final NavigableMap<LocalDateTime, Pair<UUID, TimeRange>> startToBooking = new TreeMap<>();
+
+    /**
+     * Adds a booking to the index
+     *
+     * @param uuid      UUID of the booking (usually an event UUID)
+     * @param timeRange time range of the booking
+     */
+    public void add(UUID uuid, TimeRange timeRange) {
+        startToBooking.put(timeRange.getStart(), new Pair<>(uuid, timeRange));
+    }
+
+    /**
+     * Removes a booking from the index. Nothing happens if the booking isn't in the index.
+     *
+     * @param uuid      UUID of the booking
+     * @param timeRange time range the booking was added with
+     */
+    public void remove(UUID uuid, TimeRange timeRange) {
+        Pair<UUID, TimeRange> booking = startToBooking.get(timeRange.getStart());
+
+        if (booking != null && booking.getKey().equals(uuid)) {
+            startToBooking.remove(timeRange.getStart());
+        }
+    }
+
+    /**
+     * Tests if a time range overlaps with any booking in the index. O(log n)
+     *
+     * @param timeRange time range to test
+     * @return true iff at least one booking overlaps with the time range
+     */
+    public boolean hasOverlap(TimeRange timeRange) {
+        Map.Entry<LocalDateTime, Pair<UUID, TimeRange>> latestBefore = startToBooking.floorEntry(timeRange.getEnd());
+
+        return latestBefore != null && latestBefore.getValue().getValue().hasOverlap(timeRange);
+    }
+
+    /**
+     * Gets all the bookings that overlap with a time range, in chronological order. O(log n + k) where k is the number
+     * of bookings returned.
+     *
+     * @param timeRange time range to search
+     * @return map from booking UUID to time range
+     */
+    public Map<UUID, TimeRange> getOverlapping(TimeRange timeRange) {
+        Map<UUID, TimeRange> overlapping = new LinkedHashMap<>();
+
+        // The booking starting just before this range may still be running when the range starts
+        LocalDateTime searchStart = startToBooking.floorKey(timeRange.getStart());
+
+        if (searchStart == null) {
+            searchStart = timeRange.getStart();
+        }
+
+        for (Pair<UUID, TimeRange> booking : startToBooking.subMap(searchStart, true, timeRange.getEnd(), true).values()) {
+            if (booking.getValue().hasOverlap(timeRange)) {
+                overlapping.put(booking.getKey(), booking.getValue());
+            }
+        }
+
+        return overlapping;
+    }
+
+    /**
+     * Gets the UUIDs of every booking in the index, in chronological order
+     *
+     * @return list of booking UUIDs
+     */
+    public List<UUID> getUUIDs() {
+        List<UUID> uuids = new ArrayList<>();
+
+        for (Pair<UUID, TimeRange> booking : startToBooking.values()) {
+            uuids.add(booking.getKey());
+        }
+
+        return uuids;
+    }
+
+    /**
+     * @return true iff there are no bookings in the index
+     */
+    public boolean isEmpty() {
+        return startToBooking.isEmpty();
+    }
+}
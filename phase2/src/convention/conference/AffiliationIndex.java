@@ -0,0 +1,118 @@
+package convention.conference;
+
+import java.util.*;
+
+/**
+ * Reverse lookup from a user to the conferences they have a role in, kept up to date by ConferenceManager.
+ * <p>
+ * Roles are stored as a bitmask per conference, so a user with several roles in a conference only has one entry for it.
+ * This is rebuilt from the conferences on load, so it is never written to disk.
+ */
+class AffiliationIndex {
+    static final int ORGANIZER = 1;
+    static final int SPEAKER = 1 << 1;
+    static final int ATTENDEE = 1 << 2;
+
+    private final Map<UUID, Map<UUID, Integer>> userUUIDToConferenceRoles = new HashMap<>();
+
+    /**
+     * Builds the index for a set of conferences
+     *
+     * @param conferences all the conferences in the system
+     */
+    AffiliationIndex(Collection<Conference> conferences) {
+        for (Conference conference : conferences) {
+            addConference(conference);
+        }
+    }
+
+    /**
+     * Adds every role in a conference to the index
+     *
+     * @param conference the conference to add
+     */
+    void addConference(Conference conference) {
+        for (UUID organizerUUID : conference.getOrganizerUUIDs()) {
+            addRole(organizerUUID, conference.getUUID(), ORGANIZER);
+        }
+        for (UUID speakerUUID : conference.getSpeakerUUIDs()) {
+            addRole(speakerUUID, conference.getUUID(), SPEAKER);
+        }
+        for (UUID attendeeUUID : conference.getAttendeeUUIDs()) {
+            addRole(attendeeUUID, conference.getUUID(), ATTENDEE);
+        }
+    }
+
+    /**
+     * Removes every role in a conference from the index
+     *
+     * @param conference the conference to remove
+     */
+    void removeConference(Conference conference) {
+        for (UUID organizerUUID : conference.getOrganizerUUIDs()) {
+            removeRole(organizerUUID, conference.getUUID(), ORGANIZER);
+        }
+        for (UUID speakerUUID : conference.getSpeakerUUIDs()) {
+            removeRole(speakerUUID, conference.getUUID(), SPEAKER);
+        }
+        for (UUID attendeeUUID : conference.getAttendeeUUIDs()) {
+            removeRole(attendeeUUID, conference.getUUID(), ATTENDEE);
+        }
+    }
+
+    /**
+     * Grants a user a role in a conference
+     *
+     * @param userUUID       UUID of the user
+     * @param conferenceUUID UUID of the conference
+     * @param role           one of ORGANIZER, SPEAKER or ATTENDEE
+     */
+    void addRole(UUID userUUID, UUID conferenceUUID, int role) {
+        userUUIDToConferenceRoles.computeIfAbsent(userUUID, k -> new HashMap<>()).merge(conferenceUUID, role, (a, b) -> a | b);
+    }
+
+    /**
+     * Revokes a user's role in a conference. The conference is dropped from the user's entry once they have no roles
+     * left in it.
+     *
+     * @param userUUID       UUID of the user
+     * @param conferenceUUID UUID of the conference
+     * @param role           one of ORGANIZER, SPEAKER or ATTENDEE
+     */
+    void removeRole(UUID userUUID, UUID conferenceUUID, int role) {
+        Map<UUID, Integer> conferenceRoles = userUUIDToConferenceRoles.get(userUUID);
+
+        if (conferenceRoles != null) {
+            Integer roles = conferenceRoles.get(conferenceUUID);
+
+            if (roles != null && (roles & ~role) != 0) {
+                conferenceRoles.put(conferenceUUID, roles & ~role);
+            } else {
+                conferenceRoles.remove(conferenceUUID);
+            }
+
+            if (conferenceRoles.isEmpty()) {
+                userUUIDToConferenceRoles.remove(userUUID);
+            }
+        }
+    }
+
+    /**
+     * Gets the conferences a user has any of the given roles in
+     *
+     * @param userUUID UUID of the user
+     * @param roles    bitmask of the roles to look for
+     * @return set of conference UUIDs
+     */
+    Set<UUID> getConferences(UUID userUUID, int roles) {
+        Set<UUID> conferenceUUIDs = new HashSet<>();
+
+        for (Map.Entry<UUID, Integer> conferenceRoles : userUUIDToConferenceRoles.getOrDefault(userUUID, Collections.emptyMap()).entrySet()) {
+            if ((conferenceRoles.getValue() & roles) != 0) {
+                conferenceUUIDs.add(conferenceRoles.getKey());
+            }
+        }
+
+        return conferenceUUIDs;
+    }
+}
@@ -2,6 +2,7 @@ package convention.conference;
 
 import convention.calendar.TimeRange;
 import convention.event.Event;
+import convention.event.EventIndex;
 import convention.room.Room;
 
 import java.io.Serializable;
@@ -12,6 +13,9 @@ import java.util.*;
  * the roles of users.
  */
 class Conference implements Serializable {
+    // Pinned so that conferences saved before the event index was added can still be loaded
+    private static final long serialVersionUID = -251882308033553694L;
+
     private Set<UUID> organizerUUIDs = new HashSet<>();
     private Set<UUID> speakerUUIDs = new HashSet<>();
     private Set<UUID> attendeeUUIDs = new HashSet<>();
@@ -24,6 +28,15 @@ class Conference implements Serializable {
 
     private TimeRange timeRange;
 
+    // Conversation organizers post announcements to, or null if none have been made yet
+    private UUID announcementConversationUUID;
+
+    // Derived from the events, so it is rebuilt instead of being written to disk
+    private transient EventIndex eventIndex;
+
+    // Reads the events and rooms the first time they're needed, if only the rest of this conference has been loaded
+    private transient Runnable bodyLoader;
+
     /**
      * Conference constructor.
      *
@@ -32,8 +45,20 @@ class Conference implements Serializable {
      * @param organizerUUID  UUID of the initial organizer
      */
     Conference(String conferenceName, TimeRange timeRange, UUID organizerUUID) {
+        this(UUID.randomUUID(), conferenceName, timeRange, organizerUUID);
+    }
+
+    /**
+     * Conference constructor with a known UUID, used when replaying the journal.
+     *
+     * @param uuid           UUID of the convention
+     * @param conferenceName name of new convention
+     * @param timeRange      TimeRange of the convention
+     * @param organizerUUID  UUID of the initial organizer
+     */
+    Conference(UUID uuid, String conferenceName, TimeRange timeRange, UUID organizerUUID) {
         this.conferenceName = conferenceName;
-        this.uuid = UUID.randomUUID();
+        this.uuid = uuid;
         this.timeRange = timeRange;
         this.organizerUUIDs.add(organizerUUID);
     }
@@ -44,18 +69,75 @@ class Conference implements Serializable {
      * @return Map from Event UUID to Event object
      */
     public Map<UUID, Event> getEvents() {
+        loadBody();
+
         return events;
     }
 
+    /**
+     * Gets the index over the events of this convention, building it if this convention was just loaded from disk
+     *
+     * @return the event index
+     */
+    public EventIndex getEventIndex() {
+        if (eventIndex == null) {
+            eventIndex = new EventIndex(getEvents());
+        }
+
+        return eventIndex;
+    }
+
     /**
      * Gets rooms associated with this convention
      *
      * @return Map from Room UUID to Room object
      */
     public Map<UUID, Room> getRooms() {
+        loadBody();
+
         return rooms;
     }
 
+    /**
+     * Tests if the events and rooms of this convention are in memory
+     *
+     * @return false iff they are waiting to be loaded
+     */
+    boolean isBodyLoaded() {
+        return bodyLoader == null;
+    }
+
+    /**
+     * Defers loading the events and rooms of this convention until they are first needed
+     *
+     * @param bodyLoader reads the events and rooms, then passes them to {@link #setBody}
+     */
+    void setBodyLoader(Runnable bodyLoader) {
+        this.bodyLoader = bodyLoader;
+    }
+
+    /**
+     * Replaces the events and rooms of this convention with ones that were just loaded
+     *
+     * @param events map from Event UUID to Event object
+     * @param rooms  map from Room UUID to Room object
+     */
+    void setBody(Map<UUID, Event> events, Map<UUID, Room> rooms) {
+        this.events = events;
+        this.rooms = rooms;
+        this.eventIndex = null;
+        this.bodyLoader = null;
+    }
+
+    /**
+     * Loads the events and rooms if they haven't been yet. If that fails, the next access tries again.
+     */
+    private void loadBody() {
+        if (bodyLoader != null) {
+            bodyLoader.run();
+        }
+    }
+
     /**
      * Gets the convention name
      *
@@ -92,6 +174,24 @@ class Conference implements Serializable {
         this.conferenceName = conferenceName;
     }
 
+    /**
+     * Gets the UUID of the conversation announcements to this convention are posted to
+     *
+     * @return UUID of the conversation, or null if there have been no announcements
+     */
+    public UUID getAnnouncementConversationUUID() {
+        return announcementConversationUUID;
+    }
+
+    /**
+     * Sets the UUID of the conversation announcements to this convention are posted to
+     *
+     * @param announcementConversationUUID UUID of the conversation
+     */
+    public void setAnnouncementConversationUUID(UUID announcementConversationUUID) {
+        this.announcementConversationUUID = announcementConversationUUID;
+    }
+
     /**
      * Gets the UUID for this convention
      *
@@ -1,8 +1,8 @@
 package convention.conference;
 
 import convention.calendar.CalendarManager;
+import convention.calendar.DayIndex;
 import convention.calendar.TimeRange;
-import convention.event.Event;
 import convention.event.EventManager;
 import convention.exception.InvalidNameException;
 import convention.exception.LoneOrganizerException;
@@ -11,16 +11,84 @@ import convention.exception.NullUserException;
 import convention.room.Room;
 import convention.room.RoomManager;
 import user.UserManager;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
+import util.segment.ChangeTracker;
+import util.segment.IChangeTracked;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
  * Manages conferences
  */
-public class ConferenceManager implements Serializable {
+public class ConferenceManager implements Serializable, IJournaled, IChangeTracked {
+    // Pinned so that save files from before this class gained new methods can still be loaded
+    private static final long serialVersionUID = 4718881216905206343L;
+
+    // Journal record opcodes
+    private static final int CREATE_CONFERENCE = 0;
+    private static final int DELETE_CONFERENCE = 1;
+    private static final int SET_TIME_RANGE = 2;
+    private static final int SET_CONFERENCE_NAME = 3;
+    private static final int ADD_ORGANIZER = 4;
+    private static final int REMOVE_ORGANIZER = 5;
+    private static final int ADD_ATTENDEE = 6;
+    private static final int REMOVE_ATTENDEE = 7;
+    private static final int SET_SPEAKERS = 8;
+    private static final int ADD_SPEAKER = 9;
+    private static final int REMOVE_SPEAKER = 10;
+    private static final int EVENTS = 11;
+    private static final int ROOMS = 12;
+    private static final int SET_ANNOUNCEMENTS = 13;
+
     private final Map<UUID, Conference> conferences = new HashMap<>();
 
+    // Derived from the conferences, so it is rebuilt on load instead of being saved
+    private transient AffiliationIndex affiliationIndex;
+
+    // Conferences grouped by every day they run on, rebuilt on load like the affiliation index
+    private transient DayIndex conferenceDays;
+
+    private transient IJournal journal;
+
+    // What has changed since the last save. The root is the directory of conference names, time ranges and roles;
+    // each conference's segment holds its events and rooms.
+    private transient ChangeTracker changeTracker;
+
+    /**
+     * Gets the user to conference role index, building it if this manager was just loaded
+     *
+     * @return the affiliation index
+     */
+    private AffiliationIndex getAffiliationIndex() {
+        if (affiliationIndex == null) {
+            affiliationIndex = new AffiliationIndex(conferences.values());
+        }
+
+        return affiliationIndex;
+    }
+
+    /**
+     * Gets the index of conferences by day, building it if this manager was just loaded
+     *
+     * @return the day index
+     */
+    private DayIndex getConferenceDays() {
+        if (conferenceDays == null) {
+            conferenceDays = new DayIndex();
+
+            for (Conference conference : conferences.values()) {
+                conferenceDays.add(conference.getUUID(), conference.getTimeRange());
+            }
+        }
+
+        return conferenceDays;
+    }
+
     /**
      * Conference names must be non-empty; this method tests for that condition
      *
@@ -57,15 +125,33 @@ public class ConferenceManager implements Serializable {
      * @return the events manager object
      */
     public EventManager getEventManager(UUID conferenceUUID) {
-        Map<UUID, Event> events = getConference(conferenceUUID).getEvents();
+        Conference conference = getConference(conferenceUUID);
 
-        return new EventManager(events);
+        return new EventManager(conference.getEvents(), conference.getEventIndex(), getNestedJournal(EVENTS, conferenceUUID));
     }
 
     public RoomManager getRoomManager(UUID conferenceUUID) {
         Map<UUID, Room> rooms = getConference(conferenceUUID).getRooms();
 
-        return new RoomManager(rooms);
+        return new RoomManager(rooms, getNestedJournal(ROOMS, conferenceUUID));
+    }
+
+    /**
+     * Gets a journal for the event or room manager of a conference. Their changes are recorded under the conference,
+     * so they can be sent to the right conference on replay, and mark the conference as changed.
+     *
+     * @param opcode         EVENTS or ROOMS
+     * @param conferenceUUID UUID of the conference to operate on
+     * @return journal for the manager, or null if this manager isn't recording changes
+     */
+    private IJournal getNestedJournal(int opcode, UUID conferenceUUID) {
+        return record -> {
+            getChangeTracker().markChanged(conferenceUUID);
+
+            if (journal != null) {
+                journal.append(new JournalRecord(opcode).putUUID(conferenceUUID).putRecord(record));
+            }
+        };
     }
 
     /**
@@ -77,12 +163,32 @@ public class ConferenceManager implements Serializable {
      * @return UUID of the new conference
      */
     public UUID createConference(String conferenceName, TimeRange timeRange, UUID organizerUUID) {
+        return createConference(UUID.randomUUID(), conferenceName, timeRange, organizerUUID);
+    }
+
+    /**
+     * Creates a conference with a known UUID.
+     *
+     * @param conferenceUUID UUID to give the conference
+     * @param conferenceName the desired conference name (Must be non-empty)
+     * @param timeRange      time range of the conference
+     * @param organizerUUID  UUID of the initial organizer user
+     * @return UUID of the new conference
+     */
+    private UUID createConference(UUID conferenceUUID, String conferenceName, TimeRange timeRange, UUID organizerUUID) {
         if (validateConferenceName(conferenceName)) {
             throw new InvalidNameException();
         }
 
-        Conference newConference = new Conference(conferenceName, timeRange, organizerUUID);
+        Conference newConference = new Conference(conferenceUUID, conferenceName, timeRange, organizerUUID);
         conferences.put(newConference.getUUID(), newConference);
+        getAffiliationIndex().addConference(newConference);
+        getConferenceDays().add(conferenceUUID, timeRange);
+
+        getChangeTracker().markRootChanged();
+        getChangeTracker().markChanged(conferenceUUID);
+        record(new JournalRecord(CREATE_CONFERENCE).putUUID(conferenceUUID).putString(conferenceName)
+                .putDateTime(timeRange.getStart()).putDateTime(timeRange.getEnd()).putUUID(organizerUUID));
 
         return newConference.getUUID();
     }
@@ -111,7 +217,13 @@ public class ConferenceManager implements Serializable {
             throw new NullConferenceException(conferenceUUID);
         }
 
-        conferences.remove(conferenceUUID);
+        Conference conference = conferences.remove(conferenceUUID);
+
+        getAffiliationIndex().removeConference(conference);
+        getConferenceDays().remove(conferenceUUID, conference.getTimeRange());
+        getChangeTracker().markRootChanged();
+        getChangeTracker().markChanged(conferenceUUID);
+        record(new JournalRecord(DELETE_CONFERENCE).putUUID(conferenceUUID));
     }
 
     /**
@@ -138,6 +250,67 @@ public class ConferenceManager implements Serializable {
         return new HashSet<>(conferences.keySet());
     }
 
+    /**
+     * Gets the conferences running on a day
+     *
+     * @param day the day
+     * @return set of conference UUIDs
+     */
+    public Set<UUID> getDayConferences(LocalDate day) {
+        return getConferenceDays().get(day);
+    }
+
+    /**
+     * Gets a set of the conferences a user is affiliated with (i.e. has a role in). God users are affiliated with every
+     * conference.
+     *
+     * @param userUUID    UUID of the user
+     * @param userManager User manager to fetch data from
+     * @return set of conference UUIDs
+     */
+    public Set<UUID> getAffiliatedConferences(UUID userUUID, UserManager userManager) {
+        if (userManager.isUser(userUUID) && userManager.getUserIsGod(userUUID)) {
+            return getConferences();
+        }
+
+        return getAffiliationIndex().getConferences(userUUID, AffiliationIndex.ORGANIZER | AffiliationIndex.SPEAKER | AffiliationIndex.ATTENDEE);
+    }
+
+    /**
+     * Gets a set of the conferences a user is not affiliated with
+     *
+     * @param userUUID    UUID of the user
+     * @param userManager User manager to fetch data from
+     * @return set of conference UUIDs
+     */
+    public Set<UUID> getNotAffiliatedConferences(UUID userUUID, UserManager userManager) {
+        Set<UUID> notAffiliated = getConferences();
+
+        notAffiliated.removeAll(getAffiliatedConferences(userUUID, userManager));
+
+        return notAffiliated;
+    }
+
+    /**
+     * Gets a set of the conferences a user is an attendee of
+     *
+     * @param userUUID UUID of the user
+     * @return set of conference UUIDs
+     */
+    public Set<UUID> getAttendeeConferences(UUID userUUID) {
+        return getAffiliationIndex().getConferences(userUUID, AffiliationIndex.ATTENDEE);
+    }
+
+    /**
+     * Gets a set of the conferences a user is a speaker in
+     *
+     * @param userUUID UUID of the user
+     * @return set of conference UUIDs
+     */
+    public Set<UUID> getSpeakerConferences(UUID userUUID) {
+        return getAffiliationIndex().getConferences(userUUID, AffiliationIndex.SPEAKER);
+    }
+
     /**
      * Gets convention name
      *
@@ -165,7 +338,14 @@ public class ConferenceManager implements Serializable {
      * @param timeRange      time range to assign the convention
      */
     public void setTimeRange(UUID conferenceUUID, TimeRange timeRange) {
-        getConference(conferenceUUID).setTimeRange(timeRange);
+        Conference conference = getConference(conferenceUUID);
+
+        getConferenceDays().remove(conferenceUUID, conference.getTimeRange());
+        getConferenceDays().add(conferenceUUID, timeRange);
+        conference.setTimeRange(timeRange);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(SET_TIME_RANGE).putUUID(conferenceUUID)
+                .putDateTime(timeRange.getStart()).putDateTime(timeRange.getEnd()));
     }
 
     /**
@@ -180,6 +360,30 @@ public class ConferenceManager implements Serializable {
         }
 
         getConference(conferenceUUID).setConferenceName(newName);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(SET_CONFERENCE_NAME).putUUID(conferenceUUID).putString(newName));
+    }
+
+    /**
+     * Gets the UUID of the conversation announcements to a conference are posted to
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @return UUID of the conversation, or null if there have been no announcements
+     */
+    public UUID getAnnouncementConversationUUID(UUID conferenceUUID) {
+        return getConference(conferenceUUID).getAnnouncementConversationUUID();
+    }
+
+    /**
+     * Sets the UUID of the conversation announcements to a conference are posted to
+     *
+     * @param conferenceUUID   UUID of the conference to operate on
+     * @param conversationUUID UUID of the conversation
+     */
+    public void setAnnouncementConversationUUID(UUID conferenceUUID, UUID conversationUUID) {
+        getConference(conferenceUUID).setAnnouncementConversationUUID(conversationUUID);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(SET_ANNOUNCEMENTS).putUUID(conferenceUUID).putUUID(conversationUUID));
     }
 
     /**
@@ -207,6 +411,18 @@ public class ConferenceManager implements Serializable {
         return getConference(conferenceUUID).isAttendee(userUUID);
     }
 
+    /**
+     * Tests if a user was made an organizer of this convention. Unlike isOrganizer with a UserManager, god users don't
+     * count unless they were made organizers too.
+     *
+     * @param conferenceUUID UUID of the conference to operate on
+     * @param userUUID       UUID of the user to test
+     * @return true iff the user is in the convention's set of organizers
+     */
+    public boolean isOrganizer(UUID conferenceUUID, UUID userUUID) {
+        return getConference(conferenceUUID).isOrganizer(userUUID);
+    }
+
     /**
      * Tests if a UUID belongs to an organizer user for this convention
      *
@@ -252,6 +468,9 @@ public class ConferenceManager implements Serializable {
      */
     public void addOrganizer(UUID conferenceUUID, UUID userUUID) {
         getConference(conferenceUUID).addOrganizer(userUUID);
+        getAffiliationIndex().addRole(userUUID, conferenceUUID, AffiliationIndex.ORGANIZER);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(ADD_ORGANIZER).putUUID(conferenceUUID).putUUID(userUUID));
     }
 
     /**
@@ -272,6 +491,9 @@ public class ConferenceManager implements Serializable {
             throw new LoneOrganizerException();
         } else {
             conference.removeOrganizer(userUUID);
+            getAffiliationIndex().removeRole(userUUID, conferenceUUID, AffiliationIndex.ORGANIZER);
+            getChangeTracker().markRootChanged();
+            record(new JournalRecord(REMOVE_ORGANIZER).putUUID(conferenceUUID).putUUID(userUUID));
         }
     }
 
@@ -297,6 +519,9 @@ public class ConferenceManager implements Serializable {
      */
     public void addAttendee(UUID conferenceUUID, UUID userUUID) {
         getConference(conferenceUUID).addAttendee(userUUID);
+        getAffiliationIndex().addRole(userUUID, conferenceUUID, AffiliationIndex.ATTENDEE);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(ADD_ATTENDEE).putUUID(conferenceUUID).putUUID(userUUID));
     }
 
     /**
@@ -315,6 +540,9 @@ public class ConferenceManager implements Serializable {
             throw new NullUserException(userUUID);
         } else {
             conference.removeAttendee(userUUID);
+            getAffiliationIndex().removeRole(userUUID, conferenceUUID, AffiliationIndex.ATTENDEE);
+            getChangeTracker().markRootChanged();
+            record(new JournalRecord(REMOVE_ATTENDEE).putUUID(conferenceUUID).putUUID(userUUID));
         }
     }
 
@@ -338,7 +566,21 @@ public class ConferenceManager implements Serializable {
      * @param conferenceUUID UUID of the conference to operate on
      */
     public void setSpeakers(UUID conferenceUUID, Set<UUID> speakers) {
-        getConference(conferenceUUID).setSpeakerUUIDs(speakers);
+        Conference conference = getConference(conferenceUUID);
+
+        for (UUID oldSpeakerUUID : conference.getSpeakerUUIDs()) {
+            if (!speakers.contains(oldSpeakerUUID)) {
+                getAffiliationIndex().removeRole(oldSpeakerUUID, conferenceUUID, AffiliationIndex.SPEAKER);
+            }
+        }
+
+        for (UUID newSpeakerUUID : speakers) {
+            getAffiliationIndex().addRole(newSpeakerUUID, conferenceUUID, AffiliationIndex.SPEAKER);
+        }
+
+        conference.setSpeakerUUIDs(speakers);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(SET_SPEAKERS).putUUID(conferenceUUID).putUUIDs(speakers));
     }
 
     /**
@@ -351,6 +593,9 @@ public class ConferenceManager implements Serializable {
      */
     public void addSpeaker(UUID conferenceUUID, UUID userUUID) {
         getConference(conferenceUUID).addSpeaker(userUUID);
+        getAffiliationIndex().addRole(userUUID, conferenceUUID, AffiliationIndex.SPEAKER);
+        getChangeTracker().markRootChanged();
+        record(new JournalRecord(ADD_SPEAKER).putUUID(conferenceUUID).putUUID(userUUID));
     }
 
     /**
@@ -369,6 +614,94 @@ public class ConferenceManager implements Serializable {
             throw new NullUserException(userUUID);
         } else {
             conference.removeSpeaker(userUUID);
+            getAffiliationIndex().removeRole(userUUID, conferenceUUID, AffiliationIndex.SPEAKER);
+            getChangeTracker().markRootChanged();
+            record(new JournalRecord(REMOVE_SPEAKER).putUUID(conferenceUUID).putUUID(userUUID));
+        }
+    }
+
+    /**
+     * Gets the map of conferences by UUID, for the codec
+     *
+     * @return the live map of conferences
+     */
+    Map<UUID, Conference> getConferenceMap() {
+        return conferences;
+    }
+
+    @Override
+    public ChangeTracker getChangeTracker() {
+        if (changeTracker == null) {
+            changeTracker = new ChangeTracker();
+        }
+
+        return changeTracker;
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case CREATE_CONFERENCE:
+                createConference(record.nextUUID(), record.nextString(),
+                        new TimeRange(record.nextDateTime(), record.nextDateTime()), record.nextUUID());
+                break;
+            case DELETE_CONFERENCE:
+                deleteConference(record.nextUUID());
+                break;
+            case SET_TIME_RANGE:
+                setTimeRange(record.nextUUID(), new TimeRange(record.nextDateTime(), record.nextDateTime()));
+                break;
+            case SET_CONFERENCE_NAME:
+                setConferenceName(record.nextUUID(), record.nextString());
+                break;
+            case ADD_ORGANIZER:
+                addOrganizer(record.nextUUID(), record.nextUUID());
+                break;
+            case REMOVE_ORGANIZER:
+                removeOrganizer(record.nextUUID(), record.nextUUID());
+                break;
+            case ADD_ATTENDEE:
+                addAttendee(record.nextUUID(), record.nextUUID());
+                break;
+            case REMOVE_ATTENDEE:
+                removeAttendee(record.nextUUID(), record.nextUUID());
+                break;
+            case SET_SPEAKERS:
+                setSpeakers(record.nextUUID(), record.nextUUIDs());
+                break;
+            case ADD_SPEAKER:
+                addSpeaker(record.nextUUID(), record.nextUUID());
+                break;
+            case REMOVE_SPEAKER:
+                removeSpeaker(record.nextUUID(), record.nextUUID());
+                break;
+            case EVENTS:
+                getEventManager(record.nextUUID()).replay(record.nextRecord());
+                break;
+            case ROOMS:
+                getRoomManager(record.nextUUID()).replay(record.nextRecord());
+                break;
+            case SET_ANNOUNCEMENTS:
+                setAnnouncementConversationUUID(record.nextUUID(), record.nextUUID());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
         }
     }
 }
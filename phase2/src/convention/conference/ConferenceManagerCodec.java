@@ -0,0 +1,243 @@
+package convention.conference;
+
+import convention.calendar.CalendarManager;
+import convention.calendar.TimeRange;
+import convention.event.Event;
+import convention.room.Room;
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.codec.ICodec;
+import util.segment.ISegmentCodec;
+import util.segment.ISegmentSource;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts a ConferenceManager, including every conference's events and rooms, to and from the compact binary format,
+ * either whole or in segments. The root segment is a directory of every conference's name, time range and roles, which
+ * is all the menus need; each conference's events and rooms are a segment of their own, only read when the conference
+ * is first opened.
+ */
+public class ConferenceManagerCodec implements ICodec<ConferenceManager>, ISegmentCodec<ConferenceManager> {
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(BinaryWriter out, ConferenceManager conferenceManager) throws IOException {
+        Map<UUID, Conference> conferences = conferenceManager.getConferenceMap();
+        out.writeVarInt(conferences.size());
+
+        for (Conference conference : conferences.values()) {
+            writeConference(out, conference);
+        }
+    }
+
+    @Override
+    public ConferenceManager read(BinaryReader in, int version) throws IOException {
+        ConferenceManager conferenceManager = new ConferenceManager();
+        Map<UUID, Conference> conferences = conferenceManager.getConferenceMap();
+
+        int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            Conference conference = readConference(in);
+            conferences.put(conference.getUUID(), conference);
+        }
+
+        return conferenceManager;
+    }
+
+    @Override
+    public ConferenceManager create() {
+        return new ConferenceManager();
+    }
+
+    @Override
+    public Set<UUID> getSegments(ConferenceManager conferenceManager) {
+        return new HashSet<>(conferenceManager.getConferenceMap().keySet());
+    }
+
+    @Override
+    public boolean hasSegment(ConferenceManager conferenceManager, UUID conferenceUUID) {
+        return conferenceManager.getConferenceMap().containsKey(conferenceUUID);
+    }
+
+    @Override
+    public void writeRoot(BinaryWriter out, ConferenceManager conferenceManager) throws IOException {
+        Map<UUID, Conference> conferences = conferenceManager.getConferenceMap();
+        out.writeVarInt(conferences.size());
+
+        for (Conference conference : conferences.values()) {
+            writeHeader(out, conference);
+        }
+    }
+
+    @Override
+    public void readRoot(BinaryReader in, int version, ConferenceManager conferenceManager) throws IOException {
+        int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            Conference conference = readHeader(in);
+            conferenceManager.getConferenceMap().put(conference.getUUID(), conference);
+        }
+    }
+
+    @Override
+    public void writeSegment(BinaryWriter out, ConferenceManager conferenceManager, UUID conferenceUUID) throws IOException {
+        Conference conference = conferenceManager.getConferenceMap().get(conferenceUUID);
+
+        out.writeUUID(conferenceUUID);
+        writeBody(out, conference);
+    }
+
+    @Override
+    public void readSegment(BinaryReader in, int version, ConferenceManager conferenceManager) throws IOException {
+        UUID conferenceUUID = in.readUUID();
+        Conference conference = conferenceManager.getConferenceMap().get(conferenceUUID);
+
+        if (conference == null) {
+            throw new StreamCorruptedException("Conference " + conferenceUUID + " is not in the directory");
+        }
+
+        readBody(in, conference);
+    }
+
+    @Override
+    public void loadSegment(ConferenceManager conferenceManager, UUID conferenceUUID, ISegmentSource source) {
+        Conference conference = conferenceManager.getConferenceMap().get(conferenceUUID);
+
+        if (conference == null) {
+            // Not in the directory, so reading it straight away reports the save as damaged
+            source.read((in, version) -> readSegment(in, version, conferenceManager));
+        } else {
+            conference.setBodyLoader(() -> source.read((in, version) -> readSegment(in, version, conferenceManager)));
+        }
+    }
+
+    private void writeConference(BinaryWriter out, Conference conference) throws IOException {
+        writeHeader(out, conference);
+        writeBody(out, conference);
+    }
+
+    private Conference readConference(BinaryReader in) throws IOException {
+        Conference conference = readHeader(in);
+        readBody(in, conference);
+
+        return conference;
+    }
+
+    private void writeHeader(BinaryWriter out, Conference conference) throws IOException {
+        out.writeUUID(conference.getUUID());
+        out.writeString(conference.getConferenceName());
+        writeTimeRange(out, conference.getTimeRange());
+        out.writeUUIDs(conference.getOrganizerUUIDs());
+        out.writeUUIDs(conference.getSpeakerUUIDs());
+        out.writeUUIDs(conference.getAttendeeUUIDs());
+        out.writeNullableUUID(conference.getAnnouncementConversationUUID());
+    }
+
+    private Conference readHeader(BinaryReader in) throws IOException {
+        UUID uuid = in.readUUID();
+        String name = in.readString();
+        TimeRange timeRange = readTimeRange(in);
+
+        // The constructor takes an initial organizer; the saved set replaces it
+        Conference conference = new Conference(uuid, name, timeRange, null);
+        conference.getOrganizerUUIDs().clear();
+        conference.getOrganizerUUIDs().addAll(in.readUUIDs());
+        conference.getSpeakerUUIDs().addAll(in.readUUIDs());
+        conference.getAttendeeUUIDs().addAll(in.readUUIDs());
+        conference.setAnnouncementConversationUUID(in.readNullableUUID());
+
+        return conference;
+    }
+
+    private void writeBody(BinaryWriter out, Conference conference) throws IOException {
+        Map<UUID, Room> rooms = conference.getRooms();
+        out.writeVarInt(rooms.size());
+
+        for (Room room : rooms.values()) {
+            out.writeUUID(room.getUUID());
+            out.writeString(room.getRoomLocation());
+            out.writeVarInt(room.getCapacity());
+
+            Map<UUID, TimeRange> bookings = new CalendarManager(room.getCalendar()).getUUIDtoTimeRanges();
+            out.writeVarInt(bookings.size());
+
+            for (Map.Entry<UUID, TimeRange> booking : bookings.entrySet()) {
+                out.writeUUID(booking.getKey());
+                writeTimeRange(out, booking.getValue());
+            }
+        }
+
+        Map<UUID, Event> events = conference.getEvents();
+        out.writeVarInt(events.size());
+
+        for (Event event : events.values()) {
+            out.writeUUID(event.getUUID());
+            out.writeString(event.getTitle());
+            writeTimeRange(out, event.getTimeRange());
+            out.writeNullableUUID(event.getRoomUUID());
+            out.writeUUIDs(event.getSpeakers());
+            out.writeUUIDs(event.getAttendeeUUIDs());
+            out.writeNullableUUID(event.getConversationUUID());
+        }
+    }
+
+    /**
+     * Reads the events and rooms of a conference, and replaces the conference's ones with them
+     */
+    private void readBody(BinaryReader in, Conference conference) throws IOException {
+        Map<UUID, Room> rooms = new HashMap<>();
+        Map<UUID, Event> events = new HashMap<>();
+
+        int roomCount = in.readVarInt();
+
+        for (int i = 0; i < roomCount; i++) {
+            Room room = new Room(in.readUUID(), in.readString(), in.readVarInt());
+            CalendarManager calendarManager = new CalendarManager(room.getCalendar());
+
+            int bookingCount = in.readVarInt();
+
+            for (int j = 0; j < bookingCount; j++) {
+                calendarManager.addTimeBlock(in.readUUID(), readTimeRange(in));
+            }
+
+            rooms.put(room.getUUID(), room);
+        }
+
+        int eventCount = in.readVarInt();
+
+        for (int i = 0; i < eventCount; i++) {
+            Event event = new Event(in.readUUID(), in.readString(), readTimeRange(in), in.readNullableUUID(), in.readUUIDs());
+
+            for (UUID attendeeUUID : in.readUUIDs()) {
+                event.addAttendee(attendeeUUID);
+            }
+
+            event.setConversationUUID(in.readNullableUUID());
+            events.put(event.getUUID(), event);
+        }
+
+        conference.setBody(events, rooms);
+    }
+
+    private void writeTimeRange(BinaryWriter out, TimeRange timeRange) throws IOException {
+        out.writeDateTime(timeRange.getStart());
+        out.writeDateTime(timeRange.getEnd());
+    }
+
+    private TimeRange readTimeRange(BinaryReader in) throws IOException {
+        return new TimeRange(in.readDateTime(), in.readDateTime());
+    }
+}
@@ -11,6 +11,8 @@ import java.util.UUID;
  * Event object. Stores details about the room, attendees, speakers, etc.
  */
 public class Event implements Serializable {
+    private static final long serialVersionUID = -8575362791327626710L;
+
     private UUID uuid;
     private String title;
     private Set<UUID> speakerUUIDs;
@@ -30,8 +32,21 @@ public class Event implements Serializable {
      * @param speakerUUIDs set of speakers for this events
      */
     public Event(String title, TimeRange timeRange, UUID roomUUID, Set<UUID> speakerUUIDs) {
+        this(UUID.randomUUID(), title, timeRange, roomUUID, speakerUUIDs);
+    }
+
+    /**
+     * Event constructor with a known UUID, used when replaying the journal.
+     *
+     * @param uuid         UUID of the events
+     * @param title        name of new events
+     * @param timeRange    TimeRange of the events
+     * @param roomUUID     UUID of the room in which events is held
+     * @param speakerUUIDs set of speakers for this events
+     */
+    public Event(UUID uuid, String title, TimeRange timeRange, UUID roomUUID, Set<UUID> speakerUUIDs) {
         this.title = title;
-        this.uuid = UUID.randomUUID();
+        this.uuid = uuid;
         this.speakerUUIDs = speakerUUIDs;
         this.timeRange = timeRange;
         this.roomUUID = roomUUID;
@@ -0,0 +1,199 @@
+package convention.event;
+
+import convention.calendar.DayIndex;
+import convention.calendar.TimeRange;
+import convention.calendar.TimeRangeIndex;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Lookup tables over the events of a single conference, kept up to date by EventManager as events change.
+ * <p>
+ * None of this is saved to disk; it is rebuilt from the events whenever a conference is loaded.
+ */
+public class EventIndex {
+    // Each speaker's events ordered by time. Speakers can't be double booked, so their events never overlap.
+    private final Map<UUID, TimeRangeIndex> speakerUUIDToSchedule = new HashMap<>();
+
+    // Events grouped by every day they run on
+    private final DayIndex days = new DayIndex();
+
+    // Events each user is registered in
+    private final Map<UUID, Set<UUID>> attendeeUUIDToEventUUIDs = new HashMap<>();
+
+    /**
+     * Builds the index for a set of events
+     *
+     * @param events map of UUIDs to all the events in a conference
+     */
+    public EventIndex(Map<UUID, Event> events) {
+        for (Event event : events.values()) {
+            addEvent(event);
+        }
+    }
+
+    /**
+     * Adds an event that was just created
+     *
+     * @param event the new event
+     */
+    void addEvent(Event event) {
+        for (UUID speakerUUID : event.getSpeakers()) {
+            addSpeaker(event, speakerUUID);
+        }
+
+        for (UUID attendeeUUID : event.getAttendeeUUIDs()) {
+            addAttendee(event, attendeeUUID);
+        }
+
+        days.add(event.getUUID(), event.getTimeRange());
+    }
+
+    /**
+     * Removes an event that is being deleted
+     *
+     * @param event the event being deleted
+     */
+    void removeEvent(Event event) {
+        for (UUID speakerUUID : event.getSpeakers()) {
+            removeSpeaker(event, speakerUUID);
+        }
+
+        for (UUID attendeeUUID : event.getAttendeeUUIDs()) {
+            removeAttendee(event, attendeeUUID);
+        }
+
+        days.remove(event.getUUID(), event.getTimeRange());
+    }
+
+    /**
+     * Records that an event has a new time range. Must be called before the event itself is updated.
+     *
+     * @param event        the event being moved
+     * @param newTimeRange the time range the event is moving to
+     */
+    void setTimeRange(Event event, TimeRange newTimeRange) {
+        for (UUID speakerUUID : event.getSpeakers()) {
+            TimeRangeIndex schedule = speakerUUIDToSchedule.get(speakerUUID);
+
+            schedule.remove(event.getUUID(), event.getTimeRange());
+            schedule.add(event.getUUID(), newTimeRange);
+        }
+
+        days.remove(event.getUUID(), event.getTimeRange());
+        days.add(event.getUUID(), newTimeRange);
+    }
+
+    /**
+     * Records that a speaker was added to an event
+     *
+     * @param event       the event
+     * @param speakerUUID UUID of the speaker
+     */
+    void addSpeaker(Event event, UUID speakerUUID) {
+        speakerUUIDToSchedule.computeIfAbsent(speakerUUID, k -> new TimeRangeIndex())
+                .add(event.getUUID(), event.getTimeRange());
+    }
+
+    /**
+     * Records that a speaker was removed from an event
+     *
+     * @param event       the event
+     * @param speakerUUID UUID of the speaker
+     */
+    void removeSpeaker(Event event, UUID speakerUUID) {
+        TimeRangeIndex schedule = speakerUUIDToSchedule.get(speakerUUID);
+
+        if (schedule != null) {
+            schedule.remove(event.getUUID(), event.getTimeRange());
+
+            // Drop speakers without any events, so the key set is exactly the set of speakers
+            if (schedule.isEmpty()) {
+                speakerUUIDToSchedule.remove(speakerUUID);
+            }
+        }
+    }
+
+    /**
+     * Records that a user registered for an event
+     *
+     * @param event        the event
+     * @param attendeeUUID UUID of the user
+     */
+    void addAttendee(Event event, UUID attendeeUUID) {
+        attendeeUUIDToEventUUIDs.computeIfAbsent(attendeeUUID, k -> new HashSet<>()).add(event.getUUID());
+    }
+
+    /**
+     * Records that a user is no longer registered for an event
+     *
+     * @param event        the event
+     * @param attendeeUUID UUID of the user
+     */
+    void removeAttendee(Event event, UUID attendeeUUID) {
+        Set<UUID> eventUUIDs = attendeeUUIDToEventUUIDs.get(attendeeUUID);
+
+        if (eventUUIDs != null) {
+            eventUUIDs.remove(event.getUUID());
+
+            if (eventUUIDs.isEmpty()) {
+                attendeeUUIDToEventUUIDs.remove(attendeeUUID);
+            }
+        }
+    }
+
+    /**
+     * Gets the events a user is registered in
+     *
+     * @param attendeeUUID UUID of the user
+     * @return set of event UUIDs
+     */
+    Set<UUID> getAttendeeEvents(UUID attendeeUUID) {
+        return new HashSet<>(attendeeUUIDToEventUUIDs.getOrDefault(attendeeUUID, Collections.emptySet()));
+    }
+
+    /**
+     * Tests if a speaker is already speaking at an event during a time range
+     *
+     * @param speakerUUID UUID of the speaker
+     * @param timeRange   time range to test
+     * @return true iff one of the speaker's events overlaps with the time range
+     */
+    boolean isSpeakerBooked(UUID speakerUUID, TimeRange timeRange) {
+        TimeRangeIndex schedule = speakerUUIDToSchedule.get(speakerUUID);
+
+        return schedule != null && schedule.hasOverlap(timeRange);
+    }
+
+    /**
+     * Gets the events a speaker is speaking at
+     *
+     * @param speakerUUID UUID of the speaker
+     * @return set of event UUIDs
+     */
+    Set<UUID> getSpeakerEvents(UUID speakerUUID) {
+        TimeRangeIndex schedule = speakerUUIDToSchedule.get(speakerUUID);
+
+        return schedule == null ? new HashSet<>() : new HashSet<>(schedule.getUUIDs());
+    }
+
+    /**
+     * Gets the events running on a day
+     *
+     * @param day the day
+     * @return set of event UUIDs
+     */
+    Set<UUID> getDayEvents(LocalDate day) {
+        return days.get(day);
+    }
+
+    /**
+     * Gets every user speaking at at least one event
+     *
+     * @return set of speaker UUIDs
+     */
+    Set<UUID> getSpeakers() {
+        return new HashSet<>(speakerUUIDToSchedule.keySet());
+    }
+}
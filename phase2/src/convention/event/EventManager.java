@@ -3,8 +3,13 @@ package convention.event;
 import convention.calendar.TimeRange;
 import convention.exception.InvalidNameException;
 import convention.exception.NullEventException;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -13,18 +18,62 @@ import java.util.UUID;
 /**
  * Manager for Event entities
  */
-public class EventManager implements Serializable {
+public class EventManager implements Serializable, IJournaled {
+    // Pinned so that its serialized form doesn't change with the journal methods
+    private static final long serialVersionUID = 473771819724941404L;
+
+    // Journal record opcodes
+    private static final int CREATE_EVENT = 0;
+    private static final int DELETE_EVENT = 1;
+    private static final int ADD_SPEAKER = 2;
+    private static final int REMOVE_SPEAKER = 3;
+    private static final int SET_TITLE = 4;
+    private static final int SET_ROOM = 5;
+    private static final int SET_TIME_RANGE = 6;
+    private static final int SET_CONVERSATION = 7;
+    private static final int REGISTER_ATTENDEE = 8;
+    private static final int UNREGISTER_ATTENDEE = 9;
+
     private Map<UUID, Event> events;
+    private EventIndex eventIndex;
+    private transient IJournal journal;
+
+    /**
+     * Event Manager constructor
+     * <p>
+     * holds all events objects for this conference, and records changes to a journal
+     *
+     * @param events     map of UUIDs for all events in this conference
+     * @param eventIndex index over the events in this conference, which this manager keeps up to date
+     * @param journal    journal to record changes to, or null
+     */
+    public EventManager(Map<UUID, Event> events, EventIndex eventIndex, IJournal journal) {
+        this.events = events;
+        this.eventIndex = eventIndex;
+        this.journal = journal;
+    }
 
     /**
      * Event Manager constructor
      * <p>
      * holds all events objects for this conference
      *
+     * @param events     map of UUIDs for all events in this conference
+     * @param eventIndex index over the events in this conference, which this manager keeps up to date
+     */
+    public EventManager(Map<UUID, Event> events, EventIndex eventIndex) {
+        this(events, eventIndex, null);
+    }
+
+    /**
+     * Event Manager constructor
+     * <p>
+     * holds all events objects for this conference, and builds a new index over them
+     *
      * @param events map of UUIDs for all events in this conference
      */
     public EventManager(Map<UUID, Event> events) {
-        this.events = events;
+        this(events, new EventIndex(events));
     }
 
     /**
@@ -79,12 +128,30 @@ public class EventManager implements Serializable {
      * @return the UUID of this events
      */
     public UUID createEvent(String title, TimeRange timeRange, UUID roomUUID, Set<UUID> speakerUUIDs) {
+        return createEvent(UUID.randomUUID(), title, timeRange, roomUUID, speakerUUIDs);
+    }
+
+    /**
+     * Creates a new events with a known UUID
+     *
+     * @param eventUUID    UUID to give the events
+     * @param title        title of this events
+     * @param timeRange    TimeRange of this events
+     * @param roomUUID     room hosting this events
+     * @param speakerUUIDs speakers of this events
+     * @return the UUID of this events
+     */
+    private UUID createEvent(UUID eventUUID, String title, TimeRange timeRange, UUID roomUUID, Set<UUID> speakerUUIDs) {
         if (!validateEventTitle(title)) {
             throw new InvalidNameException();
         }
 
-        Event event = new Event(title, timeRange, roomUUID, speakerUUIDs);
+        Event event = new Event(eventUUID, title, timeRange, roomUUID, new HashSet<>(speakerUUIDs));
         events.put(event.getUUID(), event);
+        eventIndex.addEvent(event);
+
+        record(new JournalRecord(CREATE_EVENT).putUUID(eventUUID).putString(title).putDateTime(timeRange.getStart())
+                .putDateTime(timeRange.getEnd()).putUUID(roomUUID).putUUIDs(speakerUUIDs));
 
         return event.getUUID();
     }
@@ -95,11 +162,10 @@ public class EventManager implements Serializable {
      * @param eventUUID UUID of events being removed
      */
     public void deleteEvent(UUID eventUUID) {
-        if (!eventExists(eventUUID)) {
-            throw new NullEventException(eventUUID);
-        }
-
+        eventIndex.removeEvent(getEvent(eventUUID));
         events.remove(eventUUID);
+
+        record(new JournalRecord(DELETE_EVENT).putUUID(eventUUID));
     }
 
     /**
@@ -112,6 +178,46 @@ public class EventManager implements Serializable {
         return new HashSet<>(getEvent(eventUUID).getSpeakers());
     }
 
+    /**
+     * Gets the set of events running on a day
+     *
+     * @param day the day to filter with
+     * @return set of UUIDs of events on that day
+     */
+    public Set<UUID> getDayEvents(LocalDate day) {
+        return eventIndex.getDayEvents(day);
+    }
+
+    /**
+     * Tests whether a speaker is already speaking at an event during a time range
+     *
+     * @param speakerUUID UUID of the speaker
+     * @param timeRange   TimeRange to test for overlap
+     * @return true iff the speaker is not available at the given time range
+     */
+    public boolean isSpeakerBooked(UUID speakerUUID, TimeRange timeRange) {
+        return eventIndex.isSpeakerBooked(speakerUUID, timeRange);
+    }
+
+    /**
+     * Gets the set of events a user is speaking at
+     *
+     * @param speakerUUID UUID of the speaker
+     * @return set of UUIDs of the speaker's events
+     */
+    public Set<UUID> getSpeakerEvents(UUID speakerUUID) {
+        return eventIndex.getSpeakerEvents(speakerUUID);
+    }
+
+    /**
+     * Gets the set of users speaking at one or more events
+     *
+     * @return set of UUIDs of speakers
+     */
+    public Set<UUID> getSpeakers() {
+        return eventIndex.getSpeakers();
+    }
+
     /**
      * adds a speaker to an events
      *
@@ -119,8 +225,13 @@ public class EventManager implements Serializable {
      * @param speakerUUID UUID of speaker being added
      */
     public void addEventSpeaker(UUID eventUUID, UUID speakerUUID) {
-        if (!getEvent(eventUUID).isSpeaker(speakerUUID)) {
-            getEvent(eventUUID).addSpeaker(speakerUUID);
+        Event event = getEvent(eventUUID);
+
+        if (!event.isSpeaker(speakerUUID)) {
+            event.addSpeaker(speakerUUID);
+            eventIndex.addSpeaker(event, speakerUUID);
+
+            record(new JournalRecord(ADD_SPEAKER).putUUID(eventUUID).putUUID(speakerUUID));
         }
     }
 
@@ -131,8 +242,13 @@ public class EventManager implements Serializable {
      * @param speakerUUID UUID of speaker being removed
      */
     public void removeEventSpeaker(UUID eventUUID, UUID speakerUUID) {
-        if (getEvent(eventUUID).isSpeaker(speakerUUID)) {
-            getEvent(eventUUID).removeSpeaker(speakerUUID);
+        Event event = getEvent(eventUUID);
+
+        if (event.isSpeaker(speakerUUID)) {
+            event.removeSpeaker(speakerUUID);
+            eventIndex.removeSpeaker(event, speakerUUID);
+
+            record(new JournalRecord(REMOVE_SPEAKER).putUUID(eventUUID).putUUID(speakerUUID));
         }
     }
 
@@ -147,6 +263,7 @@ public class EventManager implements Serializable {
             throw new InvalidNameException();
         }
         getEvent(eventUUID).setTitle(eventTitle);
+        record(new JournalRecord(SET_TITLE).putUUID(eventUUID).putString(eventTitle));
     }
 
     /**
@@ -157,6 +274,7 @@ public class EventManager implements Serializable {
      */
     public void setEventRoom(UUID eventUUID, UUID roomUUID) {
         getEvent(eventUUID).setRoomUUID(roomUUID);
+        record(new JournalRecord(SET_ROOM).putUUID(eventUUID).putUUID(roomUUID));
     }
 
     /**
@@ -166,7 +284,13 @@ public class EventManager implements Serializable {
      * @param timeRange new TimeRange of this events
      */
     public void setEventTimeRange(UUID eventUUID, TimeRange timeRange) {
-        getEvent(eventUUID).setTimeRange(timeRange);
+        Event event = getEvent(eventUUID);
+
+        eventIndex.setTimeRange(event, timeRange);
+        event.setTimeRange(timeRange);
+
+        record(new JournalRecord(SET_TIME_RANGE).putUUID(eventUUID)
+                .putDateTime(timeRange.getStart()).putDateTime(timeRange.getEnd()));
     }
 
     /**
@@ -218,6 +342,7 @@ public class EventManager implements Serializable {
      */
     public void setEventConversationUUID(UUID eventUUID, UUID conversationUUID) {
         getEvent(eventUUID).setConversationUUID(conversationUUID);
+        record(new JournalRecord(SET_CONVERSATION).putUUID(eventUUID).putUUID(conversationUUID));
     }
 
     /**
@@ -230,6 +355,48 @@ public class EventManager implements Serializable {
         return new HashSet<>(getEvent(eventUUID).getAttendeeUUIDs());
     }
 
+    /**
+     * Gets the number of users registered for an events
+     *
+     * @param eventUUID UUID of this events
+     * @return number of registered users
+     */
+    public int getEventAttendeeCount(UUID eventUUID) {
+        return getEvent(eventUUID).getAttendeeUUIDs().size();
+    }
+
+    /**
+     * Checks if a user is registered for an events
+     *
+     * @param eventUUID    UUID of this events
+     * @param attendeeUUID UUID of the user
+     * @return true iff the user is registered for this events
+     */
+    public boolean isEventAttendee(UUID eventUUID, UUID attendeeUUID) {
+        return getEvent(eventUUID).isAttendee(attendeeUUID);
+    }
+
+    /**
+     * Checks if a user is a speaker of an events
+     *
+     * @param eventUUID   UUID of this events
+     * @param speakerUUID UUID of the user
+     * @return true iff the user is speaking at this events
+     */
+    public boolean isEventSpeaker(UUID eventUUID, UUID speakerUUID) {
+        return getEvent(eventUUID).isSpeaker(speakerUUID);
+    }
+
+    /**
+     * Gets the set of events a user is registered in
+     *
+     * @param attendeeUUID UUID of the user
+     * @return set of UUIDs of events the user is registered in
+     */
+    public Set<UUID> getAttendeeEvents(UUID attendeeUUID) {
+        return eventIndex.getAttendeeEvents(attendeeUUID);
+    }
+
     /**
      * registers a new attendee for this events
      *
@@ -237,7 +404,12 @@ public class EventManager implements Serializable {
      * @param attendeeUUID UUID of the user being registered
      */
     public void registerAttendee(UUID eventUUID, UUID attendeeUUID) {
-        getEvent(eventUUID).addAttendee(attendeeUUID);
+        Event event = getEvent(eventUUID);
+
+        event.addAttendee(attendeeUUID);
+        eventIndex.addAttendee(event, attendeeUUID);
+
+        record(new JournalRecord(REGISTER_ATTENDEE).putUUID(eventUUID).putUUID(attendeeUUID));
     }
 
     /**
@@ -247,7 +419,66 @@ public class EventManager implements Serializable {
      * @param attendeeUUID UUID of user being removed
      */
     public void unregisterAttendee(UUID eventUUID, UUID attendeeUUID) {
-        getEvent(eventUUID).removeAttendee(attendeeUUID);
+        Event event = getEvent(eventUUID);
+
+        event.removeAttendee(attendeeUUID);
+        eventIndex.removeAttendee(event, attendeeUUID);
+
+        record(new JournalRecord(UNREGISTER_ATTENDEE).putUUID(eventUUID).putUUID(attendeeUUID));
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
     }
 
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case CREATE_EVENT:
+                createEvent(record.nextUUID(), record.nextString(), new TimeRange(record.nextDateTime(), record.nextDateTime()),
+                        record.nextUUID(), record.nextUUIDs());
+                break;
+            case DELETE_EVENT:
+                deleteEvent(record.nextUUID());
+                break;
+            case ADD_SPEAKER:
+                addEventSpeaker(record.nextUUID(), record.nextUUID());
+                break;
+            case REMOVE_SPEAKER:
+                removeEventSpeaker(record.nextUUID(), record.nextUUID());
+                break;
+            case SET_TITLE:
+                setEventTitle(record.nextUUID(), record.nextString());
+                break;
+            case SET_ROOM:
+                setEventRoom(record.nextUUID(), record.nextUUID());
+                break;
+            case SET_TIME_RANGE:
+                setEventTimeRange(record.nextUUID(), new TimeRange(record.nextDateTime(), record.nextDateTime()));
+                break;
+            case SET_CONVERSATION:
+                setEventConversationUUID(record.nextUUID(), record.nextUUID());
+                break;
+            case REGISTER_ATTENDEE:
+                registerAttendee(record.nextUUID(), record.nextUUID());
+                break;
+            case UNREGISTER_ATTENDEE:
+                unregisterAttendee(record.nextUUID(), record.nextUUID());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
+    }
 }
@@ -9,6 +9,7 @@ import java.util.UUID;
  * Room entity
  */
 public class Room implements Serializable {
+    private static final long serialVersionUID = -5299936349247156441L;
 
     //unique ID for the room
     private UUID roomUUID;
@@ -26,7 +27,18 @@ public class Room implements Serializable {
      * @param capacity     capacity of this room
      */
     public Room(String roomLocation, int capacity) {
-        this.roomUUID = UUID.randomUUID();
+        this(UUID.randomUUID(), roomLocation, capacity);
+    }
+
+    /**
+     * Room constructor with a known UUID, used when replaying the journal.
+     *
+     * @param roomUUID     UUID of the room
+     * @param roomLocation Location of the room in predefined format
+     * @param capacity     capacity of this room
+     */
+    public Room(UUID roomUUID, String roomLocation, int capacity) {
+        this.roomUUID = roomUUID;
         this.capacity = capacity;
         this.roomLocation = roomLocation;
         this.calendar = new Calendar();
@@ -4,6 +4,10 @@ import convention.calendar.CalendarManager;
 import convention.exception.InvalidCapacityException;
 import convention.exception.InvalidNameException;
 import convention.exception.NullRoomException;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -14,9 +18,19 @@ import java.util.UUID;
 /**
  * Manages room entities
  */
-public class RoomManager implements Serializable {
+public class RoomManager implements Serializable, IJournaled {
+    // Pinned so that its serialized form doesn't change with the journal methods
+    private static final long serialVersionUID = -4289853831145496098L;
+
+    // Journal record opcodes
+    private static final int CREATE_ROOM = 0;
+    private static final int SET_ROOM_LOCATION = 1;
+    private static final int SET_ROOM_CAPACITY = 2;
+    private static final int DELETE_ROOM = 3;
+    private static final int CALENDAR = 4;
 
     private Map<UUID, Room> rooms;
+    private transient IJournal journal;
 
     /**
      * Room Locations must be non-empty; this method tests for that condition
@@ -39,7 +53,18 @@ public class RoomManager implements Serializable {
     }
 
     public RoomManager(Map<UUID, Room> rooms) {
+        this(rooms, null);
+    }
+
+    /**
+     * Creates a room manager that records its changes
+     *
+     * @param rooms   map of UUIDs for all rooms in this conference
+     * @param journal journal to record changes to, or null
+     */
+    public RoomManager(Map<UUID, Room> rooms, IJournal journal) {
         this.rooms = rooms;
+        this.journal = journal;
     }
 
     /**
@@ -58,7 +83,11 @@ public class RoomManager implements Serializable {
      * @return the CalendarManager associated with this room
      */
     public CalendarManager getCalendarManager(UUID roomUUID) {
-        return new CalendarManager(getRoom(roomUUID).getCalendar());
+        // Calendar changes are recorded under this room, so they can be sent to the right calendar on replay
+        IJournal calendarJournal = journal == null ? null
+                : record -> journal.append(new JournalRecord(CALENDAR).putUUID(roomUUID).putRecord(record));
+
+        return new CalendarManager(getRoom(roomUUID).getCalendar(), calendarJournal);
     }
 
     /**
@@ -86,15 +115,29 @@ public class RoomManager implements Serializable {
      * @return the UUID of the newly created Room
      */
     public UUID createRoom(String roomLocation, int roomCapacity) {
+        return createRoom(UUID.randomUUID(), roomLocation, roomCapacity);
+    }
+
+    /**
+     * Creates a Room with a known UUID.
+     *
+     * @param roomUUID     the UUID to give the new Room
+     * @param roomLocation the provided location for the new Room
+     * @param roomCapacity the provided capacity for the new Room
+     * @return the UUID of the newly created Room
+     */
+    private UUID createRoom(UUID roomUUID, String roomLocation, int roomCapacity) {
         if (!validateRoomLocation(roomLocation)) {
             throw new InvalidNameException();
         }
         if (!validateRoomCapacity(roomCapacity)) {
             throw new InvalidCapacityException();
         }
-        Room room = new Room(roomLocation, roomCapacity);// make the room here and stuff
+        Room room = new Room(roomUUID, roomLocation, roomCapacity);// make the room here and stuff
         rooms.put(room.getUUID(), room);
 
+        record(new JournalRecord(CREATE_ROOM).putUUID(roomUUID).putString(roomLocation).putInt(roomCapacity));
+
         return room.getUUID();
     }
 
@@ -113,6 +156,7 @@ public class RoomManager implements Serializable {
         }
 
         getRoom(roomUUID).setRoomLocation(roomLocation);
+        record(new JournalRecord(SET_ROOM_LOCATION).putUUID(roomUUID).putString(roomLocation));
     }
 
     /**
@@ -130,6 +174,7 @@ public class RoomManager implements Serializable {
         }
 
         getRoom(roomUUID).setCapacity(capacity);
+        record(new JournalRecord(SET_ROOM_CAPACITY).putUUID(roomUUID).putInt(capacity));
     }
 
     /**
@@ -143,6 +188,7 @@ public class RoomManager implements Serializable {
         }
 
         rooms.remove(roomUUID);
+        record(new JournalRecord(DELETE_ROOM).putUUID(roomUUID));
     }
 
     /**
@@ -165,4 +211,42 @@ public class RoomManager implements Serializable {
         return getRoom(roomUUID).getCapacity();
     }
 
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case CREATE_ROOM:
+                createRoom(record.nextUUID(), record.nextString(), record.nextInt());
+                break;
+            case SET_ROOM_LOCATION:
+                setRoomLocation(record.nextUUID(), record.nextString());
+                break;
+            case SET_ROOM_CAPACITY:
+                setRoomCapacity(record.nextUUID(), record.nextInt());
+                break;
+            case DELETE_ROOM:
+                deleteRoom(record.nextUUID());
+                break;
+            case CALENDAR:
+                getCalendarManager(record.nextUUID()).replay(record.nextRecord());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package gateway;
+
+import util.codec.BinaryFormat;
+import util.codec.ICodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.function.Supplier;
+
+/**
+ * Saves an object to a file in the compact binary format, and loads it back. Replaces Serializer, which uses Java
+ * serialization.
+ * <p>
+ * Saving never overwrites the file in place: the new contents are written to a temporary file, forced to disk and
+ * then renamed over the old one, so a crash part way through leaves the previous save intact.
+ *
+ * @param <T> type of object being saved
+ */
+public class BinarySerializer<T> implements ISnapshotStore<T> {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path path;
+    private final ICodec<T> codec;
+
+    /**
+     * Creates a serializer that saves an object to a file name
+     *
+     * @param fileName name of the save file
+     * @param codec    codec for the object
+     */
+    public BinarySerializer(String fileName, ICodec<T> codec) {
+        this.path = Paths.get(fileName);
+        this.codec = codec;
+    }
+
+    /**
+     * Loads an object from the save file. A save that is damaged (e.g. its checksum doesn't match, or the codec can't
+     * make sense of it) is treated like a missing one. If there is none, then return the fallback object.
+     *
+     * @param fallback creates the object to return if there is no save (e.g. a new instance, or one loaded from an
+     *                 older save file)
+     * @return object loaded from file, or fallback if applicable
+     */
+    @Override
+    public T load(Supplier<T> fallback) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return BinaryFormat.read(channel, codec);
+        } catch (NoSuchFileException e) {
+            // Nothing saved yet
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return fallback.get();
+    }
+
+    /**
+     * Write the object to file
+     *
+     * @param object object to save
+     */
+    @Override
+    public void save(T object) {
+        try {
+            snapshot(object).write();
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Encodes the whole object in memory, without touching the disk
+     *
+     * @param object object to save
+     * @return the contents of the save file, ready to be written
+     */
+    @Override
+    public ISnapshot snapshot(T object) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+            BinaryFormat.write(Channels.newChannel(bytes), codec, object);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] contents = bytes.toByteArray();
+
+        return new ISnapshot() {
+            @Override
+            public long getBytes() {
+                return contents.length;
+            }
+
+            @Override
+            public void write() {
+                BinarySerializer.this.write(contents);
+            }
+        };
+    }
+
+    /**
+     * Writes the contents of a save file, replacing the previous save
+     *
+     * @param snapshot contents of the save file
+     */
+    private void write(byte[] snapshot) {
+        Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                channel.force(true);
+            }
+
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces the renames to disk
+     */
+    private void syncDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows can't open directories
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package gateway;
+
+/**
+ * Contents captured by an {@link ISnapshotStore}, waiting to be written
+ */
+public interface ISnapshot {
+    /**
+     * @return number of bytes that will be written
+     */
+    long getBytes();
+
+    /**
+     * Writes the snapshot to disk. Throws UncheckedIOException if that fails.
+     */
+    void write();
+}
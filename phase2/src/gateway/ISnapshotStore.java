@@ -0,0 +1,36 @@
+package gateway;
+
+import java.util.function.Supplier;
+
+/**
+ * Somewhere a manager can be saved to and loaded from, where saving is split in two: a quick in-memory snapshot taken
+ * while nothing is changing the manager, and the slower disk writes, which can happen on any thread.
+ *
+ * @param <T> type of object being saved
+ */
+public interface ISnapshotStore<T> {
+    /**
+     * Loads the object. If there is nothing saved, then return the fallback object.
+     *
+     * @param fallback creates the object to return if there is nothing saved
+     * @return object loaded, or fallback if applicable
+     */
+    T load(Supplier<T> fallback);
+
+    /**
+     * Captures what needs to be saved, without touching the disk
+     *
+     * @param object object to save
+     * @return the captured snapshot
+     */
+    ISnapshot snapshot(T object);
+
+    /**
+     * Saves the object right away
+     *
+     * @param object object to save
+     */
+    default void save(T object) {
+        snapshot(object).write();
+    }
+}
@@ -4,6 +4,9 @@ import java.io.*;
 
 /**
  * Serializes an object and writes it to a file. Loads the file into memory if possible, or initialize new object.
+ * <p>
+ * Older save files are only readable if the serialVersionUID of every class in them still matches, so the saved
+ * entity and manager classes pin theirs to the values the compiler generated before they gained new methods.
  *
  * @param <T> type of object being serialized
  */
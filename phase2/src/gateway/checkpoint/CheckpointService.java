@@ -0,0 +1,205 @@
+package gateway.checkpoint;
+
+import gateway.ISnapshot;
+import gateway.ISnapshotStore;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves managers every so often while the program runs, so a crash loses at most one interval of changes.
+ * <p>
+ * The managers aren't thread safe, so each checkpoint first encodes them in memory on the thread that changes them
+ * (the Swing event thread, via the capture executor). That's fast compared to disk IO; the files are then written,
+ * synced and renamed into place on a background thread, so the UI never waits on the disk.
+ */
+public class CheckpointService {
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private final List<Entry<?>> entries = new ArrayList<>();
+    private final List<Flushable> flushables = new ArrayList<>();
+    private final Executor captureExecutor;
+    private final long intervalMillis;
+
+    private ScheduledExecutorService scheduler;
+    private volatile CheckpointStats lastStats;
+    private volatile int checkpointCount;
+
+    /**
+     * A manager and where to save it
+     */
+    private static class Entry<T> {
+        final ISnapshotStore<T> store;
+        final T manager;
+
+        Entry(ISnapshotStore<T> store, T manager) {
+            this.store = store;
+            this.manager = manager;
+        }
+
+        ISnapshot snapshot() {
+            return store.snapshot(manager);
+        }
+    }
+
+    /**
+     * Creates a checkpoint service. Nothing is saved until it is started.
+     *
+     * @param intervalMillis  time between checkpoints
+     * @param captureExecutor runs the in-memory capture on the thread that changes the managers (e.g.
+     *                        SwingUtilities::invokeLater)
+     */
+    public CheckpointService(long intervalMillis, Executor captureExecutor) {
+        this.intervalMillis = intervalMillis;
+        this.captureExecutor = captureExecutor;
+    }
+
+    /**
+     * Adds a manager to every checkpoint. Call before starting.
+     *
+     * @param store   where to save the manager
+     * @param manager the manager
+     * @param <T>     type of the manager
+     */
+    public <T> void register(ISnapshotStore<T> store, T manager) {
+        entries.add(new Entry<>(store, manager));
+    }
+
+    /**
+     * Adds something that writes to disk as it goes (e.g. a message store) to every checkpoint, which forces its
+     * writes to disk before writing the snapshots, so they never refer to anything that isn't there. Call before
+     * starting.
+     *
+     * @param flushable what to flush
+     */
+    public void register(Flushable flushable) {
+        flushables.add(flushable);
+    }
+
+    /**
+     * Starts taking checkpoints in the background
+     */
+    public synchronized void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::backgroundCheckpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundCheckpoint() {
+        try {
+            FutureTask<List<ISnapshot>> capture = new FutureTask<>(this::capture);
+            long start = System.nanoTime();
+
+            captureExecutor.execute(capture);
+            List<ISnapshot> snapshots = capture.get();
+
+            write(snapshots, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            // Keep going; the next checkpoint may well succeed
+            LOGGER.log(Level.WARNING, "Checkpoint failed", e);
+        }
+    }
+
+    /**
+     * Stops the background checkpoints and takes a final one. Call this on the thread that changes the managers.
+     */
+    public void close() {
+        ScheduledExecutorService stopping;
+
+        synchronized (this) {
+            stopping = scheduler;
+            scheduler = null;
+        }
+
+        if (stopping != null) {
+            // Interrupts a checkpoint waiting for its capture, which would otherwise be queued behind this call.
+            // One interrupted while writing leaves the previous save files as they were.
+            stopping.shutdownNow();
+
+            try {
+                // Wait for the background thread to stop, so it can't rename an older snapshot over the final one.
+                // Not holding the lock, since that thread may need it to finish writing.
+                stopping.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            // The previous checkpoint is still on disk
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Takes a checkpoint right away. Call this on the thread that changes the managers.
+     */
+    public void checkpoint() {
+        long start = System.nanoTime();
+        write(capture(), System.nanoTime() - start);
+    }
+
+    private List<ISnapshot> capture() {
+        List<ISnapshot> snapshots = new ArrayList<>();
+
+        for (Entry<?> entry : entries) {
+            snapshots.add(entry.snapshot());
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Writes the captured snapshots. Synchronized so a final checkpoint and a background one can't interleave.
+     */
+    private synchronized void write(List<ISnapshot> snapshots, long captureNanos) {
+        long start = System.nanoTime();
+        long bytes = 0;
+
+        for (Flushable flushable : flushables) {
+            try {
+                flushable.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        for (ISnapshot snapshot : snapshots) {
+            snapshot.write();
+            bytes += snapshot.getBytes();
+        }
+
+        lastStats = new CheckpointStats(TimeUnit.NANOSECONDS.toMillis(captureNanos), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), bytes);
+        checkpointCount++;
+
+        LOGGER.log(Level.INFO, String.format("Checkpoint written\n %s", lastStats));
+    }
+
+    /**
+     * @return stats of the latest checkpoint, or null if there hasn't been one
+     */
+    public CheckpointStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * @return number of checkpoints written so far
+     */
+    public int getCheckpointCount() {
+        return checkpointCount;
+    }
+}
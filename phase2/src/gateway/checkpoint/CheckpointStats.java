@@ -0,0 +1,38 @@
+package gateway.checkpoint;
+
+/**
+ * How long a checkpoint took, and how much it wrote
+ */
+public class CheckpointStats {
+    private final long captureMillis;
+    private final long writeMillis;
+    private final long bytes;
+
+    /**
+     * @param captureMillis time spent encoding the managers in memory, while they couldn't be changed
+     * @param writeMillis   time spent writing and syncing the files, in the background
+     * @param bytes         total size of the files written
+     */
+    public CheckpointStats(long captureMillis, long writeMillis, long bytes) {
+        this.captureMillis = captureMillis;
+        this.writeMillis = writeMillis;
+        this.bytes = bytes;
+    }
+
+    public long getCaptureMillis() {
+        return captureMillis;
+    }
+
+    public long getWriteMillis() {
+        return writeMillis;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("capture %d ms, write %d ms, %d bytes", captureMillis, writeMillis, bytes);
+    }
+}
@@ -0,0 +1,10 @@
+package gateway.exceptions;
+
+/**
+ * Thrown when the journal or its snapshots can't be read or written
+ */
+public class JournalException extends RuntimeException {
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
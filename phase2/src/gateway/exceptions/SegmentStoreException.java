@@ -0,0 +1,10 @@
+package gateway.exceptions;
+
+/**
+ * Thrown when a segment store's manifest or segment files can't be read
+ */
+public class SegmentStoreException extends RuntimeException {
+    public SegmentStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
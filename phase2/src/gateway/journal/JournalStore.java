@@ -0,0 +1,612 @@
+package gateway.journal;
+
+import gateway.exceptions.JournalException;
+import util.codec.BinaryFormat;
+import util.codec.ICodec;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persists managers as a snapshot plus a log of every change made since the snapshot was taken.
+ * <p>
+ * Changes are appended to the current log segment as soon as they happen, so they survive the program crashing. A
+ * background thread forces the segment to disk every few milliseconds, so one fsync covers every change made since the
+ * last one (group commit); a power failure can lose at most that window. Every so often a new snapshot is written and
+ * the segments it covers are deleted, which keeps startup time bounded. Snapshots are taken through the checkpoint
+ * executor, after the change that asked for one has finished, rather than in the middle of it.
+ * <p>
+ * Directory layout:
+ * <ul>
+ *     <li>CURRENT - the log sequence number (LSN) of the latest complete snapshot</li>
+ *     <li>snapshot-LSN/ - one binary save file per manager, as of that LSN</li>
+ *     <li>LSN.log - log segment whose first record has that LSN</li>
+ * </ul>
+ * Each log record is framed as [length][CRC32][LSN][target][record], where the target says which manager it belongs
+ * to. A frame that is cut short or fails its checksum marks the end of the log.
+ */
+public class JournalStore {
+    private static final Logger LOGGER = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private static final long DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 10000;
+    private static final long COMMIT_INTERVAL_MILLIS = 10;
+
+    private static final String CURRENT = "CURRENT";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // length and checksum come before the body; the body starts with the LSN and target
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 9;
+
+    private final File directory;
+    private final long segmentSize;
+    private final int checkpointInterval;
+    private final Executor checkpointExecutor;
+
+    private final Map<Integer, Target<?>> targets = new LinkedHashMap<>();
+
+    // -1 if there is no snapshot yet (e.g. the first run after switching from the old save files)
+    private long snapshotLsn;
+    private long lastLsn;
+    private volatile long durableLsn;
+    private int recordsSinceCheckpoint;
+    private boolean checkpointRequested;
+
+    private FileChannel segment;
+    private long segmentBytes;
+    private ScheduledExecutorService committer;
+
+    /**
+     * A registered manager, with the codec and file name its snapshots are written with
+     */
+    private static class Target<T extends IJournaled> {
+        final T manager;
+        final String fileName;
+        final ICodec<T> codec;
+
+        Target(T manager, String fileName, ICodec<T> codec) {
+            this.manager = manager;
+            this.fileName = fileName;
+            this.codec = codec;
+        }
+
+        /**
+         * Writes the manager's file within a snapshot
+         *
+         * @param snapshotDirectory directory of the snapshot
+         */
+        void writeSnapshotFile(File snapshotDirectory) {
+            File file = new File(snapshotDirectory, fileName);
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BinaryFormat.write(channel, codec, manager);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new JournalException("Unable to write snapshot file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Opens a journal directory with the default segment size and snapshot interval
+     *
+     * @param directory          directory to keep the snapshots and log in. Created if it doesn't exist.
+     * @param checkpointExecutor runs snapshots on the thread that changes the managers, once it is done with the
+     *                           current change (e.g. SwingUtilities::invokeLater)
+     */
+    public JournalStore(File directory, Executor checkpointExecutor) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_CHECKPOINT_INTERVAL, checkpointExecutor);
+    }
+
+    /**
+     * Opens a journal directory
+     *
+     * @param directory          directory to keep the snapshots and log in. Created if it doesn't exist.
+     * @param segmentSize        size in bytes after which a new log segment is started
+     * @param checkpointInterval number of records after which a new snapshot is taken
+     * @param checkpointExecutor runs snapshots on the thread that changes the managers, once it is done with the
+     *                           current change (e.g. SwingUtilities::invokeLater)
+     */
+    public JournalStore(File directory, long segmentSize, int checkpointInterval, Executor checkpointExecutor) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpointExecutor = checkpointExecutor;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new JournalException("Unable to create journal directory " + directory, null);
+        }
+
+        this.snapshotLsn = readCurrent();
+        this.lastLsn = Math.max(snapshotLsn, 0);
+        this.durableLsn = lastLsn;
+    }
+
+    /**
+     * Tests if a journal directory holds a snapshot, without creating it. A journal only has anything worth loading
+     * once it does.
+     *
+     * @param directory the journal directory
+     * @return true iff there is a complete snapshot in the directory
+     */
+    public static boolean hasSnapshot(File directory) {
+        return new File(directory, CURRENT).isFile();
+    }
+
+    /**
+     * Loads a manager from the latest snapshot, and registers it to have its changes replayed and recorded
+     *
+     * @param target   number identifying the manager in log records. Must never change between runs.
+     * @param fileName name of the manager's file within a snapshot
+     * @param codec    codec the manager's snapshot file is written with
+     * @param fallback creates the manager if there is no snapshot yet
+     * @param <T>      type of the manager
+     * @return the manager
+     */
+    public <T extends IJournaled> T load(int target, String fileName, ICodec<T> codec, Supplier<T> fallback) {
+        T manager;
+
+        if (snapshotLsn < 0) {
+            manager = fallback.get();
+        } else {
+            File file = new File(getSnapshotDirectory(snapshotLsn), fileName);
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                manager = BinaryFormat.read(channel, codec);
+            } catch (IOException e) {
+                throw new JournalException("Unable to read snapshot " + file, e);
+            }
+        }
+
+        // Managers may be loaded on several threads at once; only registering them needs to be exclusive
+        synchronized (this) {
+            targets.put(target, new Target<>(manager, fileName, codec));
+        }
+
+        return manager;
+    }
+
+    /**
+     * Replays the log into the loaded managers, then starts recording their changes. Call this once, after every
+     * manager has been loaded.
+     */
+    public synchronized void recover() {
+        List<File> segments = getSegments();
+
+        for (int i = 0; i < segments.size(); i++) {
+            long validBytes = replaySegment(segments.get(i));
+
+            if (validBytes < segments.get(i).length()) {
+                // The tail of the log was cut off; everything after it is unusable
+                LOGGER.log(Level.WARNING, String.format("Journal segment %s is damaged after byte %d; discarding the rest of the log", segments.get(i), validBytes));
+                truncate(segments.get(i), validBytes);
+
+                for (File laterSegment : segments.subList(i + 1, segments.size())) {
+                    laterSegment.delete();
+                }
+                break;
+            }
+        }
+
+        long replayed = lastLsn - Math.max(snapshotLsn, 0);
+        recordsSinceCheckpoint = (int) replayed;
+        durableLsn = lastLsn;
+
+        openSegment();
+
+        for (Map.Entry<Integer, Target<?>> entry : targets.entrySet()) {
+            int target = entry.getKey();
+            entry.getValue().manager.setJournal(record -> append(target, record));
+        }
+
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        LOGGER.log(Level.INFO, String.format("Journal recovered\n Snapshot LSN: %d\n Records replayed: %d", snapshotLsn, replayed));
+    }
+
+    /**
+     * Replays the records of one segment that come after the snapshot
+     *
+     * @param segmentFile segment to replay
+     * @return number of bytes at the start of the segment that hold complete records
+     */
+    private long replaySegment(File segmentFile) {
+        byte[] bytes;
+
+        try {
+            bytes = Files.readAllBytes(segmentFile.toPath());
+        } catch (IOException e) {
+            throw new JournalException("Unable to read journal segment " + segmentFile, e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int frameStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+
+            if (length < BODY_HEADER_SIZE || length > buffer.remaining() || checksum != checksum(bytes, buffer.position(), length)) {
+                return frameStart;
+            }
+
+            long lsn = buffer.getLong();
+            int target = buffer.get();
+            byte[] record = new byte[length - BODY_HEADER_SIZE];
+            buffer.get(record);
+
+            if (lsn <= snapshotLsn) {
+                continue;
+            }
+
+            Target<?> registered = targets.get(target);
+
+            if (registered == null) {
+                LOGGER.log(Level.WARNING, String.format("Skipping journal record %d for unknown target %d", lsn, target));
+            } else {
+                try {
+                    registered.manager.replay(new JournalRecord(record));
+                } catch (RuntimeException e) {
+                    // The managers no longer match what was recorded, so carrying on (or snapshotting them) would
+                    // make that permanent
+                    throw new JournalException(String.format("Unable to replay journal record %d", lsn), e);
+                }
+            }
+
+            lastLsn = lsn;
+        }
+
+        return buffer.position();
+    }
+
+    /**
+     * Appends a record to the log. The record is written to the file straight away, and forced to disk by the next
+     * group commit.
+     *
+     * @param target number identifying the manager the record belongs to
+     * @param record the record
+     */
+    private synchronized void append(int target, JournalRecord record) {
+        byte[] payload = record.toBytes();
+        int length = BODY_HEADER_SIZE + payload.length;
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + length);
+        frame.putInt(length);
+        frame.putInt(0);
+        frame.putLong(lastLsn + 1);
+        frame.put((byte) target);
+        frame.put(payload);
+        frame.putInt(4, checksum(frame.array(), FRAME_HEADER_SIZE, length));
+        frame.flip();
+
+        try {
+            while (frame.hasRemaining()) {
+                segment.write(frame);
+            }
+        } catch (IOException e) {
+            throw new JournalException("Unable to write to the journal", e);
+        }
+
+        lastLsn++;
+        segmentBytes += frame.limit();
+        recordsSinceCheckpoint++;
+
+        if (recordsSinceCheckpoint >= checkpointInterval && !checkpointRequested) {
+            // Writing a snapshot takes a while, and the change being recorded may not be finished yet
+            checkpointRequested = true;
+            checkpointExecutor.execute(this::checkpoint);
+        }
+
+        if (segmentBytes >= segmentSize) {
+            rollSegment();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk. Runs on the commit thread, so the thread making changes never waits
+     * on an fsync.
+     */
+    private void commit() {
+        try {
+            force();
+        } catch (ClosedChannelException e) {
+            // The segment was rolled over, which forces it first, or the journal was closed
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to force the journal to disk", e);
+        }
+    }
+
+    /**
+     * Forces the current segment to disk, if anything has been appended to it since it last was
+     *
+     * @throws ClosedChannelException if the segment was closed meanwhile (e.g. rolled over)
+     * @throws IOException            if the segment couldn't be forced
+     */
+    private void force() throws IOException {
+        FileChannel channel;
+        long lsn;
+
+        synchronized (this) {
+            if (durableLsn >= lastLsn) {
+                return;
+            }
+
+            if (segment == null) {
+                throw new ClosedChannelException();
+            }
+
+            channel = segment;
+            lsn = lastLsn;
+        }
+
+        channel.force(false);
+
+        synchronized (this) {
+            durableLsn = Math.max(durableLsn, lsn);
+        }
+    }
+
+    /**
+     * Blocks until everything appended so far is on disk. Throws JournalException if it can't be forced there.
+     */
+    public void sync() {
+        long lsn = getLastLsn();
+
+        while (durableLsn < lsn) {
+            try {
+                force();
+            } catch (ClosedChannelException e) {
+                // Rolling a segment over forces it, so only a closed journal can still be behind
+                synchronized (this) {
+                    if (segment == null && durableLsn < lsn) {
+                        throw new JournalException("The journal was closed before it was forced to disk", e);
+                    }
+                }
+            } catch (IOException e) {
+                throw new JournalException("Unable to force the journal to disk", e);
+            }
+        }
+    }
+
+    /**
+     * @return LSN of the last record appended
+     */
+    public synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * @return LSN of the last record known to be on disk
+     */
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * Writes a snapshot of every manager, then deletes the log segments and older snapshots it replaces.
+     * <p>
+     * Must be called on the thread that changes the managers, so that they aren't changed while being written.
+     */
+    public synchronized void checkpoint() {
+        long lsn = lastLsn;
+
+        if (lsn == snapshotLsn) {
+            checkpointRequested = false;
+            return;
+        }
+
+        File snapshotDirectory = getSnapshotDirectory(lsn);
+        File tempDirectory = new File(directory, SNAPSHOT_PREFIX + lsn + ".tmp");
+
+        deleteRecursively(tempDirectory);
+        deleteRecursively(snapshotDirectory);
+        tempDirectory.mkdirs();
+
+        for (Target<?> target : targets.values()) {
+            target.writeSnapshotFile(tempDirectory);
+        }
+
+        try {
+            syncDirectory(tempDirectory);
+            Files.move(tempDirectory.toPath(), snapshotDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            // The snapshot only counts once CURRENT points at it
+            File tempCurrent = new File(directory, CURRENT + ".tmp");
+
+            try (FileOutputStream out = new FileOutputStream(tempCurrent)) {
+                out.write(Long.toString(lsn).getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+
+            Files.move(tempCurrent.toPath(), new File(directory, CURRENT).toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(directory);
+        } catch (IOException e) {
+            throw new JournalException("Unable to write snapshot " + lsn, e);
+        }
+
+        snapshotLsn = lsn;
+        recordsSinceCheckpoint = 0;
+        checkpointRequested = false;
+
+        // Start a fresh segment so every older segment is covered by the snapshot
+        if (segment != null) {
+            rollSegment();
+        }
+
+        for (File oldSegment : getSegments()) {
+            if (getSegmentFirstLsn(oldSegment) <= lsn) {
+                oldSegment.delete();
+            }
+        }
+
+        // Also cleans up snapshots left half written by a crash
+        File[] oldSnapshots = directory.listFiles((dir, name) -> name.startsWith(SNAPSHOT_PREFIX) && !name.equals(snapshotDirectory.getName()));
+
+        if (oldSnapshots != null) {
+            for (File oldSnapshot : oldSnapshots) {
+                deleteRecursively(oldSnapshot);
+            }
+        }
+
+        LOGGER.log(Level.INFO, String.format("Journal checkpoint written\n Snapshot LSN: %d", lsn));
+    }
+
+    /**
+     * Takes a final snapshot and stops recording changes
+     */
+    public synchronized void close() {
+        checkpoint();
+
+        if (committer != null) {
+            committer.shutdown();
+        }
+
+        for (Target<?> target : targets.values()) {
+            target.manager.setJournal(null);
+        }
+
+        closeSegment();
+    }
+
+    /**
+     * Closes the current segment and starts a new one
+     */
+    private void rollSegment() {
+        closeSegment();
+        openSegment();
+    }
+
+    private void openSegment() {
+        File file = new File(directory, String.format("%020d%s", lastLsn + 1, SEGMENT_SUFFIX));
+
+        try {
+            segment = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            segmentBytes = 0;
+            syncDirectory(directory);
+        } catch (IOException e) {
+            throw new JournalException("Unable to open journal segment " + file, e);
+        }
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+
+        try {
+            segment.force(false);
+            segment.close();
+            durableLsn = lastLsn;
+        } catch (IOException e) {
+            throw new JournalException("Unable to close journal segment", e);
+        } finally {
+            segment = null;
+        }
+    }
+
+    /**
+     * @return log segments in order
+     */
+    private List<File> getSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.matches("\\d{20}" + SEGMENT_SUFFIX.replace(".", "\\.")));
+        List<File> segments = new ArrayList<>();
+
+        if (files != null) {
+            segments.addAll(Arrays.asList(files));
+        }
+
+        // Names are zero padded, so they sort in LSN order
+        segments.sort(Comparator.comparing(File::getName));
+
+        return segments;
+    }
+
+    private long getSegmentFirstLsn(File segmentFile) {
+        String name = segmentFile.getName();
+
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private File getSnapshotDirectory(long lsn) {
+        return new File(directory, SNAPSHOT_PREFIX + lsn);
+    }
+
+    /**
+     * @return LSN of the latest complete snapshot, or -1 if there isn't one
+     */
+    private long readCurrent() {
+        File current = new File(directory, CURRENT);
+
+        if (!current.isFile()) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(current.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new JournalException("Unable to read " + current, e);
+        }
+    }
+
+    private void truncate(File file, long size) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new JournalException("Unable to truncate journal segment " + file, e);
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Makes file creations and renames in a directory durable. Not every platform allows this, in which case it is
+     * skipped.
+     */
+    private static void syncDirectory(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows can't open directories
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+}
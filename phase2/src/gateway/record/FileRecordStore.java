@@ -0,0 +1,566 @@
+package gateway.record;
+
+import util.record.IRecordStore;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps each list of records in its own append-only file, and reads records straight from the file when they are
+ * needed, so the records themselves are never held in memory; only the offset and length of each one are.
+ * <p>
+ * Each file is a series of frames, [length][CRC32][operation][data]: appending a record writes its bytes, replacing
+ * one writes its index and new bytes, removing one writes its index, and writing the list's metadata writes the new
+ * metadata. The offsets, and where the latest metadata is, are rebuilt by scanning the file the first time a list is
+ * used. A frame that is cut short or fails its checksum marks the end of the file, and is cut off.
+ * <p>
+ * Replaced and removed records, and old metadata, are left in the file until they make up most of it. Then the next
+ * flush (e.g. by the checkpoint thread) rewrites the file with just the current records and metadata.
+ * <p>
+ * Files are read with positional reads rather than memory mapped, since a mapping would have to be redone after every
+ * append, and a mapped file can't be truncated or replaced on Windows.
+ * <p>
+ * Only so many files are kept open; the least recently used ones are closed (after being forced to disk), and scanned
+ * again if needed.
+ */
+public class FileRecordStore implements IRecordStore, Closeable {
+    private static final String SUFFIX = ".rec";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int MAX_OPEN_LISTS = 128;
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 64 * 1024;
+
+    // Frame operations
+    private static final byte APPEND = 0;
+    private static final byte REMOVE = 1;
+    private static final byte REPLACE = 2;
+    private static final byte METADATA = 3;
+
+    private final Path directory;
+    private final long compactionThreshold;
+
+    private final Map<UUID, RecordList> openLists = new LinkedHashMap<UUID, RecordList>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, RecordList> eldest) {
+            if (size() > MAX_OPEN_LISTS) {
+                eldest.getValue().close();
+                return true;
+            }
+
+            return false;
+        }
+    };
+
+    /**
+     * Creates a store that keeps its files in a directory
+     *
+     * @param directoryName name of the directory. Created if it doesn't exist.
+     */
+    public FileRecordStore(String directoryName) {
+        this(directoryName, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Creates a store that keeps its files in a directory
+     *
+     * @param directoryName       name of the directory. Created if it doesn't exist.
+     * @param compactionThreshold number of bytes of replaced and removed records a file has to have before it is
+     *                            compacted
+     */
+    public FileRecordStore(String directoryName, long compactionThreshold) {
+        this.directory = Paths.get(directoryName);
+        this.compactionThreshold = compactionThreshold;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One list's file, and where each of its records is
+     */
+    private class RecordList {
+        private final Path path;
+        private FileChannel channel;
+        private long[] offsets = new long[16];
+        private int[] frameLengths = new int[16]; // the length field of each record's frame
+        private int size;
+        private long metadataOffset = -1; // offset of the latest metadata's frame, -1 if there is none
+        private int metadataFrameLength;
+        private long fileSize;
+        private long garbageSize; // bytes taken up by replaced and removed records, and old metadata
+        private boolean dirty;
+
+        RecordList(Path path) throws IOException {
+            this.path = path;
+
+            // Left by a compaction that didn't finish; the file itself is still whole
+            Files.deleteIfExists(getTempPath());
+
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try {
+                scan();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Rebuilds the offsets from the file, cutting off a damaged frame at the end
+         */
+        private void scan() throws IOException {
+            long length = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+
+            while (length - position >= FRAME_HEADER_SIZE + 1) {
+                readFully(header, position);
+
+                int frameLength = header.getInt(0);
+                int checksum = header.getInt(4);
+
+                if (frameLength < 1 || frameLength > length - position - FRAME_HEADER_SIZE) {
+                    break;
+                }
+
+                ByteBuffer frame = ByteBuffer.allocate(frameLength);
+                readFully(frame, position + FRAME_HEADER_SIZE);
+
+                if (checksum != checksum(frame, 0, frameLength)) {
+                    break;
+                }
+
+                byte operation = frame.get();
+
+                if (operation == APPEND) {
+                    add(position, frameLength);
+                } else if (operation == REMOVE && frameLength == 5) {
+                    int index = frame.getInt();
+                    garbageSize += FRAME_HEADER_SIZE + frameLength + (index >= 0 && index < size ? getFrameSize(index) : 0);
+                    removeOffset(index);
+                } else if (operation == REPLACE && frameLength >= 5) {
+                    int index = frame.getInt();
+
+                    if (index >= 0 && index < size) {
+                        garbageSize += getFrameSize(index);
+                        offsets[index] = position;
+                        frameLengths[index] = frameLength;
+                    } else {
+                        garbageSize += FRAME_HEADER_SIZE + frameLength;
+                    }
+                } else if (operation == METADATA) {
+                    setMetadataFrame(position, frameLength);
+                } else {
+                    break;
+                }
+
+                position += FRAME_HEADER_SIZE + frameLength;
+            }
+
+            if (position < length) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+
+            fileSize = position;
+        }
+
+        byte[] read(int index) throws IOException {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + size);
+            }
+
+            ByteBuffer frame = ByteBuffer.allocate(frameLengths[index]);
+            readFully(frame, offsets[index] + FRAME_HEADER_SIZE);
+
+            // A replaced record has its index before its bytes
+            int headerSize = frame.get(0) == REPLACE ? 5 : 1;
+            byte[] record = new byte[frame.limit() - headerSize];
+            frame.position(headerSize);
+            frame.get(record);
+
+            return record;
+        }
+
+        byte[] readMetadata() throws IOException {
+            if (metadataOffset < 0) {
+                return null;
+            }
+
+            ByteBuffer frame = ByteBuffer.allocate(metadataFrameLength);
+            readFully(frame, metadataOffset + FRAME_HEADER_SIZE);
+
+            byte[] metadata = new byte[frame.limit() - 1];
+            frame.position(1);
+            frame.get(metadata);
+
+            return metadata;
+        }
+
+        void writeMetadata(byte[] metadata) throws IOException {
+            long offset = fileSize;
+            write(METADATA, metadata);
+            setMetadataFrame(offset, (int) (fileSize - offset - FRAME_HEADER_SIZE));
+        }
+
+        /**
+         * Makes a frame the latest metadata, leaving the one before it as garbage
+         */
+        private void setMetadataFrame(long offset, int frameLength) {
+            if (metadataOffset >= 0) {
+                garbageSize += FRAME_HEADER_SIZE + metadataFrameLength;
+            }
+
+            metadataOffset = offset;
+            metadataFrameLength = frameLength;
+        }
+
+        /**
+         * Fills a buffer from the file, and flips it for reading
+         *
+         * @param buffer   the buffer
+         * @param position where in the file to start reading
+         */
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            buffer.clear();
+
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+
+                if (read < 0) {
+                    throw new EOFException("Record file ended at " + position);
+                }
+
+                position += read;
+            }
+
+            buffer.flip();
+        }
+
+        /**
+         * @return size of the frame holding a record, including its header
+         */
+        private int getFrameSize(int index) {
+            return FRAME_HEADER_SIZE + frameLengths[index];
+        }
+
+        void append(byte[] record) throws IOException {
+            long offset = fileSize;
+            write(APPEND, record);
+            add(offset, (int) (fileSize - offset - FRAME_HEADER_SIZE));
+        }
+
+        void replace(int index, byte[] record) throws IOException {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + size);
+            }
+
+            long offset = fileSize;
+            int oldFrameSize = getFrameSize(index);
+
+            write(REPLACE, ByteBuffer.allocate(4 + record.length).putInt(index).put(record).array());
+            offsets[index] = offset;
+            frameLengths[index] = (int) (fileSize - offset - FRAME_HEADER_SIZE);
+            garbageSize += oldFrameSize;
+        }
+
+        void remove(int index) throws IOException {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + size);
+            }
+
+            int oldFrameSize = getFrameSize(index);
+            long offset = fileSize;
+
+            write(REMOVE, ByteBuffer.allocate(4).putInt(index).array());
+            removeOffset(index);
+            garbageSize += oldFrameSize + (fileSize - offset);
+        }
+
+        private void write(byte operation, byte[] data) throws IOException {
+            fileSize = writeFrame(channel, fileSize, operation, data);
+            dirty = true;
+        }
+
+        /**
+         * Rewrites the file with only the current records, if enough of it is replaced and removed ones
+         */
+        private void compactIfNeeded() throws IOException {
+            if (garbageSize < compactionThreshold || garbageSize < fileSize / 2) {
+                return;
+            }
+
+            Path tempPath = getTempPath();
+            long[] newOffsets = new long[Math.max(16, size)];
+            int[] newFrameLengths = new int[newOffsets.length];
+            long newMetadataOffset = -1;
+            long position = 0;
+
+            try (FileChannel temp = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                byte[] metadata = readMetadata();
+
+                if (metadata != null) {
+                    newMetadataOffset = position;
+                    position = writeFrame(temp, position, METADATA, metadata);
+                }
+
+                for (int i = 0; i < size; i++) {
+                    newOffsets[i] = position;
+                    position = writeFrame(temp, position, APPEND, read(i));
+                    newFrameLengths[i] = (int) (position - newOffsets[i] - FRAME_HEADER_SIZE);
+                }
+
+                temp.force(true);
+            }
+
+            // Closed first, since an open file can't be replaced on Windows
+            channel.close();
+
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            offsets = newOffsets;
+            frameLengths = newFrameLengths;
+            metadataOffset = newMetadataOffset;
+            fileSize = position;
+            garbageSize = 0;
+        }
+
+        private Path getTempPath() {
+            return path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        }
+
+        private void add(long offset, int frameLength) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                frameLengths = Arrays.copyOf(frameLengths, size * 2);
+            }
+
+            offsets[size] = offset;
+            frameLengths[size] = frameLength;
+            size++;
+        }
+
+        private void removeOffset(int index) {
+            if (index >= 0 && index < size) {
+                System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+                System.arraycopy(frameLengths, index + 1, frameLengths, index, size - index - 1);
+                size--;
+            }
+        }
+
+        void flush() throws IOException {
+            if (dirty) {
+                channel.force(false);
+                dirty = false;
+                compactIfNeeded();
+            }
+        }
+
+        void close() {
+            try {
+                flush();
+                channel.close();
+            } catch (IOException e) {
+                // Everything up to the last flush is safe
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Closes the file and deletes it, along with anything left by a compaction
+         */
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(getTempPath());
+        }
+    }
+
+    /**
+     * Gets a list's file, opening it if needed
+     */
+    private RecordList getList(UUID key) throws IOException {
+        RecordList list = openLists.get(key);
+
+        if (list == null) {
+            list = new RecordList(directory.resolve(key + SUFFIX));
+            openLists.put(key, list);
+        }
+
+        return list;
+    }
+
+    @Override
+    public synchronized int size(UUID key) {
+        if (!openLists.containsKey(key) && !Files.exists(directory.resolve(key + SUFFIX))) {
+            return 0;
+        }
+
+        try {
+            return getList(key).size;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void append(UUID key, byte[] record) {
+        try {
+            getList(key).append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized byte[] read(UUID key, int index) {
+        try {
+            return getList(key).read(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void replace(UUID key, int index, byte[] record) {
+        try {
+            getList(key).replace(index, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(UUID key, int index) {
+        try {
+            getList(key).remove(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized byte[] readMetadata(UUID key) {
+        if (!openLists.containsKey(key) && !Files.exists(directory.resolve(key + SUFFIX))) {
+            return null;
+        }
+
+        try {
+            return getList(key).readMetadata();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void writeMetadata(UUID key, byte[] metadata) {
+        try {
+            getList(key).writeMetadata(metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(UUID key) {
+        try {
+            RecordList list = openLists.remove(key);
+
+            if (list != null) {
+                list.delete();
+            } else {
+                Files.deleteIfExists(directory.resolve(key + SUFFIX));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces everything written so far to disk
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        for (RecordList list : openLists.values()) {
+            list.flush();
+        }
+    }
+
+    /**
+     * Forces everything to disk and closes the files
+     */
+    @Override
+    public synchronized void close() {
+        for (RecordList list : openLists.values()) {
+            list.close();
+        }
+
+        openLists.clear();
+    }
+
+    /**
+     * Writes a frame to a file
+     *
+     * @param channel   the file
+     * @param position  where to write it
+     * @param operation what the frame does
+     * @param data      what goes after the operation
+     * @return position after the frame
+     */
+    private static long writeFrame(FileChannel channel, long position, byte operation, byte[] data) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + 1 + data.length);
+        frame.putInt(1 + data.length);
+        frame.putInt(0);
+        frame.put(operation);
+        frame.put(data);
+        frame.putInt(4, checksum(frame, FRAME_HEADER_SIZE, 1 + data.length));
+        frame.flip();
+
+        while (frame.hasRemaining()) {
+            position += channel.write(frame, position);
+        }
+
+        return position;
+    }
+
+    /**
+     * Forces the renames done by compaction to disk
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows can't open directories
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        crc.update(slice);
+
+        return (int) crc.getValue();
+    }
+}
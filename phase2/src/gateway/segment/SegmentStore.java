@@ -0,0 +1,694 @@
+package gateway.segment;
+
+import gateway.ISnapshot;
+import gateway.ISnapshotStore;
+import gateway.exceptions.SegmentStoreException;
+import util.codec.BinaryFormat;
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.segment.ChangeTracker;
+import util.segment.IChangeTracked;
+import util.segment.ISegmentCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Saves a manager to a directory as separate segment files, one per entity plus one for the root (see
+ * {@link ChangeTracker}), so a save only rewrites the segments that changed since the last one.
+ * <p>
+ * Segment files are never overwritten: each save writes its changed segments to new files named after the save's
+ * generation (e.g. 0b7c...-12.seg, root-12.seg). The MANIFEST file says which generation of each segment is current.
+ * It is a list of frames, [length][CRC32][payload], appended to on every save: the first holds the file header, and
+ * each one after that lists the segments a save wrote or removed. A save only counts once its frame is forced to disk,
+ * so a crash part way through leaves the previous save intact, and a frame that is cut short or fails its checksum is
+ * ignored. After a full save, or once the manifest has grown long, it is rewritten with just the saves that are kept.
+ * <p>
+ * The files of the last few saves can be kept, not just the latest one's, in case it is damaged. Loading falls back to
+ * the save before it if the root or a segment that is read straight away can't be read. A segment read later (see
+ * below) is only checked then.
+ * <p>
+ * Snapshots must be written in the order they are taken, and each snapshot marks what it captured as saved. If a write
+ * fails, the next snapshot captures everything again.
+ * <p>
+ * A codec may put off reading a segment until it's first needed (see {@link ISegmentCodec#loadSegment}). A segment's
+ * file is only deleted once a newer generation has been written, and writing a segment reads it first, so the file is
+ * there for as long as the segment might still be read.
+ *
+ * @param <T> type of manager being saved
+ */
+public class SegmentStore<T extends IChangeTracked> implements ISnapshotStore<T> {
+    private static final String MANIFEST = "MANIFEST";
+    private static final String ROOT = "root";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MANIFEST_VERSION = 1;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int COMPACT_AFTER_EDITS = 1000;
+
+    // Generation of a segment that isn't there
+    private static final long NONE = -1;
+
+    private final Path directory;
+    private final ISegmentCodec<T> codec;
+    private final int generations;
+
+    // What the manifest on disk currently says: the latest save, and the older ones being kept, oldest first
+    private long rootGeneration = NONE;
+    private Map<UUID, Long> segmentGenerations = new HashMap<>();
+    private List<Save> olderSaves = new ArrayList<>();
+    private long nextGeneration;
+    private int manifestEdits;
+
+    // Read by snapshot(), which doesn't hold the lock. Until a full save has been written, the files don't
+    // necessarily match the manager.
+    private volatile boolean committed;
+    private volatile boolean needsFullWrite = true;
+
+    /**
+     * Creates a store that saves a manager to a directory, keeping only the latest save
+     *
+     * @param directoryName name of the directory. Created on the first save if it doesn't exist.
+     * @param codec         codec for the manager's segments
+     */
+    public SegmentStore(String directoryName, ISegmentCodec<T> codec) {
+        this(directoryName, codec, 1);
+    }
+
+    /**
+     * Creates a store that saves a manager to a directory
+     *
+     * @param directoryName name of the directory. Created on the first save if it doesn't exist.
+     * @param codec         codec for the manager's segments
+     * @param generations   number of saves to keep, including the latest one. At least 1.
+     */
+    public SegmentStore(String directoryName, ISegmentCodec<T> codec, int generations) {
+        if (generations < 1) {
+            throw new IllegalArgumentException("Must keep at least one generation");
+        }
+
+        this.directory = Paths.get(directoryName);
+        this.codec = codec;
+        this.generations = generations;
+    }
+
+    /**
+     * Which generation of the root and of each segment a save left current
+     */
+    private static class Save {
+        private final long rootGeneration;
+        private final Map<UUID, Long> segmentGenerations;
+
+        private Save(long rootGeneration, Map<UUID, Long> segmentGenerations) {
+            this.rootGeneration = rootGeneration;
+            this.segmentGenerations = segmentGenerations;
+        }
+
+        /**
+         * Tests if this save uses a file
+         *
+         * @param segmentUUID UUID of the segment, or null for the root
+         * @param generation  generation of the file
+         * @return true iff the file is part of this save
+         */
+        private boolean uses(UUID segmentUUID, long generation) {
+            if (segmentUUID == null) {
+                return rootGeneration == generation;
+            }
+
+            Long segmentGeneration = segmentGenerations.get(segmentUUID);
+
+            return segmentGeneration != null && segmentGeneration == generation;
+        }
+    }
+
+    /**
+     * Loads the manager from the segments the manifest lists, falling back to older saves if the latest one can't be
+     * read. If there is no manifest, then return the fallback object.
+     *
+     * @param fallback creates the object to return if there is nothing saved
+     * @return manager loaded from the segments, or fallback if applicable
+     */
+    @Override
+    public synchronized T load(Supplier<T> fallback) {
+        Path manifestPath = directory.resolve(MANIFEST);
+
+        if (!Files.exists(manifestPath)) {
+            return fallback.get();
+        }
+
+        readManifest(manifestPath);
+
+        List<Save> saves = new ArrayList<>(olderSaves);
+        saves.add(new Save(rootGeneration, segmentGenerations));
+
+        for (int i = saves.size() - 1; ; i--) {
+            try {
+                T manager = read(saves.get(i));
+
+                if (i < saves.size() - 1) {
+                    // The saves after this one are damaged. The next save replaces them, and rewrites the manifest.
+                    rootGeneration = saves.get(i).rootGeneration;
+                    segmentGenerations = saves.get(i).segmentGenerations;
+                    olderSaves = new ArrayList<>(saves.subList(0, i));
+                    needsFullWrite = true;
+                } else {
+                    needsFullWrite = false;
+                    deleteUnreferenced();
+                }
+
+                manager.getChangeTracker().clear();
+                committed = true;
+
+                return manager;
+            } catch (SegmentStoreException e) {
+                if (i == 0) {
+                    throw e;
+                }
+
+                // Try the older saves
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads a manager from a save's files
+     *
+     * @param save the save
+     * @return the manager
+     */
+    private T read(Save save) {
+        T manager = codec.create();
+
+        if (save.rootGeneration != NONE) {
+            readFile(getRootPath(save.rootGeneration), in -> codec.readRoot(in, BinaryFormat.readHeader(in, codec.getVersion()), manager));
+        }
+
+        for (Map.Entry<UUID, Long> entry : save.segmentGenerations.entrySet()) {
+            Path path = getSegmentPath(entry.getKey(), entry.getValue());
+            codec.loadSegment(manager, entry.getKey(), reader -> readFile(path, in -> reader.read(in, BinaryFormat.readHeader(in, codec.getVersion()))));
+        }
+
+        return manager;
+    }
+
+    /**
+     * Encodes the segments that changed since the last snapshot, or every segment if a full save is needed, then
+     * marks them as saved
+     *
+     * @param manager manager to save
+     * @return the changed segments, ready to be written
+     */
+    @Override
+    public ISnapshot snapshot(T manager) {
+        ChangeTracker tracker = manager.getChangeTracker();
+        boolean full = needsFullWrite || !committed || tracker.isAllChanged();
+        Set<UUID> segmentUUIDs = full ? codec.getSegments(manager) : tracker.getChangedSegments();
+
+        byte[] root = full || tracker.isRootChanged() ? encode(out -> codec.writeRoot(out, manager)) : null;
+        Map<UUID, byte[]> segments = new HashMap<>();
+
+        for (UUID segmentUUID : segmentUUIDs) {
+            // Deleted entities are recorded as null, so their files can be removed
+            segments.put(segmentUUID, codec.hasSegment(manager, segmentUUID) ? encode(out -> codec.writeSegment(out, manager, segmentUUID)) : null);
+        }
+
+        tracker.clear();
+
+        return new Snapshot(full, root, segments);
+    }
+
+    /**
+     * Segments captured by {@link #snapshot}
+     */
+    private class Snapshot implements ISnapshot {
+        private final boolean full;
+        private final byte[] root;
+        private final Map<UUID, byte[]> segments;
+
+        private Snapshot(boolean full, byte[] root, Map<UUID, byte[]> segments) {
+            this.full = full;
+            this.root = root;
+            this.segments = segments;
+        }
+
+        @Override
+        public long getBytes() {
+            long bytes = root == null ? 0 : root.length;
+
+            for (byte[] segment : segments.values()) {
+                bytes += segment == null ? 0 : segment.length;
+            }
+
+            return bytes;
+        }
+
+        @Override
+        public void write() {
+            SegmentStore.this.write(this);
+        }
+    }
+
+    /**
+     * Writes a snapshot's segments to new files, then commits them to the manifest and deletes the files they replace
+     *
+     * @param snapshot the snapshot
+     */
+    private synchronized void write(Snapshot snapshot) {
+        if (!snapshot.full && snapshot.root == null && snapshot.segments.isEmpty()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+
+            long generation = nextGeneration++;
+            long newRootGeneration = rootGeneration;
+            Map<UUID, Long> newSegmentGenerations = snapshot.full ? new HashMap<>() : new HashMap<>(segmentGenerations);
+            Map<UUID, Long> edits = new HashMap<>();
+
+            if (snapshot.root != null) {
+                writeFile(getRootPath(generation), snapshot.root);
+                newRootGeneration = generation;
+            }
+
+            for (Map.Entry<UUID, byte[]> entry : snapshot.segments.entrySet()) {
+                if (entry.getValue() == null) {
+                    newSegmentGenerations.remove(entry.getKey());
+                    edits.put(entry.getKey(), NONE);
+                } else {
+                    writeFile(getSegmentPath(entry.getKey(), generation), entry.getValue());
+                    newSegmentGenerations.put(entry.getKey(), generation);
+                    edits.put(entry.getKey(), generation);
+                }
+            }
+
+            syncDirectory();
+
+            // The save this one replaces is kept as an older one, and the oldest is dropped once there are too many
+            Save newSave = new Save(newRootGeneration, newSegmentGenerations);
+            List<Save> newOlderSaves = new ArrayList<>(olderSaves);
+            List<Save> droppedSaves = new ArrayList<>();
+
+            if (committed) {
+                newOlderSaves.add(new Save(rootGeneration, segmentGenerations));
+            }
+
+            while (newOlderSaves.size() > generations - 1) {
+                droppedSaves.add(newOlderSaves.remove(0));
+            }
+
+            if (snapshot.full || manifestEdits >= COMPACT_AFTER_EDITS) {
+                rewriteManifest(newOlderSaves, newSave);
+                manifestEdits = newOlderSaves.size();
+            } else {
+                appendManifest(encodeEdit(false, snapshot.root != null ? generation : NONE, edits));
+                manifestEdits++;
+            }
+
+            // Committed, so the files only the dropped saves used aren't needed any more
+            List<Save> keptSaves = new ArrayList<>(newOlderSaves);
+            keptSaves.add(newSave);
+
+            for (Save droppedSave : droppedSaves) {
+                if (droppedSave.rootGeneration != NONE && !isUsed(keptSaves, null, droppedSave.rootGeneration)) {
+                    Files.deleteIfExists(getRootPath(droppedSave.rootGeneration));
+                }
+
+                for (Map.Entry<UUID, Long> entry : droppedSave.segmentGenerations.entrySet()) {
+                    if (!isUsed(keptSaves, entry.getKey(), entry.getValue())) {
+                        Files.deleteIfExists(getSegmentPath(entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+
+            rootGeneration = newRootGeneration;
+            segmentGenerations = newSegmentGenerations;
+            olderSaves = newOlderSaves;
+            committed = true;
+
+            if (snapshot.full) {
+                // Also clears out anything left behind by earlier saves that failed
+                deleteUnreferenced();
+                needsFullWrite = false;
+            }
+        } catch (IOException e) {
+            needsFullWrite = true;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the manifest into the current generations and the older saves being kept, cutting off a damaged frame at
+     * the end
+     *
+     * @param manifestPath path of the manifest
+     */
+    private void readManifest(Path manifestPath) {
+        byte[] bytes;
+
+        try {
+            bytes = Files.readAllBytes(manifestPath);
+        } catch (IOException e) {
+            throw new SegmentStoreException("Unable to read " + manifestPath, e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<int[]> frames = new ArrayList<>();
+
+        // Find the good frames first, as [offset, length]
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int frameStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+
+            if (length < 0 || length > buffer.remaining() || checksum != checksum(bytes, buffer.position(), length)) {
+                buffer.position(frameStart);
+                break;
+            }
+
+            frames.add(new int[]{buffer.position(), length});
+            buffer.position(buffer.position() + length);
+        }
+
+        rootGeneration = NONE;
+        segmentGenerations = new HashMap<>();
+        olderSaves = new ArrayList<>();
+        manifestEdits = frames.size() - 1;
+        nextGeneration = 0;
+
+        try {
+            if (frames.isEmpty()) {
+                throw new StreamCorruptedException("Missing manifest header");
+            }
+
+            BinaryFormat.readHeader(readFrame(bytes, frames.get(0)), MANIFEST_VERSION);
+
+            // Each frame after the header is a save. Only the last few are kept.
+            for (int i = 1; i < frames.size(); i++) {
+                readEdit(readFrame(bytes, frames.get(i)));
+
+                if (i >= frames.size() - generations && i < frames.size() - 1) {
+                    olderSaves.add(new Save(rootGeneration, new HashMap<>(segmentGenerations)));
+                }
+
+                // Also past the files of saves that aren't kept, in case they're still there
+                nextGeneration = Math.max(nextGeneration, rootGeneration + 1);
+
+                for (long generation : segmentGenerations.values()) {
+                    nextGeneration = Math.max(nextGeneration, generation + 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new SegmentStoreException("Unable to read " + manifestPath, e);
+        }
+
+        if (buffer.position() < bytes.length) {
+            // A save was cut short before it was committed. New frames have to follow the last good one.
+            try (FileChannel channel = FileChannel.open(manifestPath, StandardOpenOption.WRITE)) {
+                channel.truncate(buffer.position());
+                channel.force(true);
+            } catch (IOException e) {
+                throw new SegmentStoreException("Unable to truncate " + manifestPath, e);
+            }
+        }
+    }
+
+    private static BinaryReader readFrame(byte[] bytes, int[] frame) {
+        return new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes, frame[0], frame[1])), frame[1]);
+    }
+
+    /**
+     * Applies one manifest frame written by {@link #encodeEdit}
+     *
+     * @param in where to read the frame from
+     */
+    private void readEdit(BinaryReader in) throws IOException {
+        boolean full = in.readBoolean();
+        long editRootGeneration = in.readVarLong();
+        int size = in.readVarInt();
+
+        if (full) {
+            segmentGenerations.clear();
+        }
+
+        if (editRootGeneration != NONE) {
+            rootGeneration = editRootGeneration;
+        }
+
+        for (int i = 0; i < size; i++) {
+            UUID segmentUUID = in.readUUID();
+            long generation = in.readVarLong();
+
+            if (generation == NONE) {
+                segmentGenerations.remove(segmentUUID);
+            } else {
+                segmentGenerations.put(segmentUUID, generation);
+            }
+        }
+    }
+
+    /**
+     * Encodes a manifest frame's payload
+     *
+     * @param full           whether the frame lists every segment, replacing everything before it
+     * @param rootGeneration generation of the root, or NONE if it didn't change
+     * @param edits          generation of each segment that changed, or NONE if it was removed
+     * @return the payload
+     */
+    private static byte[] encodeEdit(boolean full, long rootGeneration, Map<UUID, Long> edits) {
+        return encodeRaw(out -> {
+            out.writeBoolean(full);
+            out.writeVarLong(rootGeneration);
+            out.writeVarInt(edits.size());
+
+            for (Map.Entry<UUID, Long> entry : edits.entrySet()) {
+                out.writeUUID(entry.getKey());
+                out.writeVarLong(entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * Encodes the changes from one save to the next as a manifest frame's payload
+     *
+     * @param from the earlier save
+     * @param to   the later save
+     * @return the payload
+     */
+    private static byte[] encodeDifference(Save from, Save to) {
+        Map<UUID, Long> edits = new HashMap<>();
+
+        for (UUID segmentUUID : from.segmentGenerations.keySet()) {
+            if (!to.segmentGenerations.containsKey(segmentUUID)) {
+                edits.put(segmentUUID, NONE);
+            }
+        }
+
+        for (Map.Entry<UUID, Long> entry : to.segmentGenerations.entrySet()) {
+            if (!entry.getValue().equals(from.segmentGenerations.get(entry.getKey()))) {
+                edits.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return encodeEdit(false, to.rootGeneration != from.rootGeneration ? to.rootGeneration : NONE, edits);
+    }
+
+    /**
+     * Replaces the manifest with one that lists just the saves that are kept: every segment of the oldest one, then
+     * what changed in each one after it
+     *
+     * @param newOlderSaves the older saves being kept, oldest first
+     * @param newSave       the latest save
+     */
+    private void rewriteManifest(List<Save> newOlderSaves, Save newSave) throws IOException {
+        Path manifestPath = directory.resolve(MANIFEST);
+        Path tempPath = directory.resolve(MANIFEST + TEMP_SUFFIX);
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        List<Save> saves = new ArrayList<>(newOlderSaves);
+        saves.add(newSave);
+
+        writeFrame(contents, encodeRaw(out -> BinaryFormat.writeHeader(out, MANIFEST_VERSION)));
+        writeFrame(contents, encodeEdit(true, saves.get(0).rootGeneration, saves.get(0).segmentGenerations));
+
+        for (int i = 1; i < saves.size(); i++) {
+            writeFrame(contents, encodeDifference(saves.get(i - 1), saves.get(i)));
+        }
+
+        writeFile(tempPath, contents.toByteArray());
+        Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    /**
+     * Appends a frame to the manifest and forces it to disk
+     */
+    private void appendManifest(byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        writeFrame(frame, payload);
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(MANIFEST), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(frame.toByteArray());
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.force(true);
+        }
+    }
+
+    private static void writeFrame(ByteArrayOutputStream out, byte[] payload) {
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        header.putInt(payload.length);
+        header.putInt(checksum(payload, 0, payload.length));
+
+        out.write(header.array(), 0, FRAME_HEADER_SIZE);
+        out.write(payload, 0, payload.length);
+    }
+
+    /**
+     * Deletes segment files that none of the saves being kept use, and temporary files
+     */
+    private void deleteUnreferenced() {
+        Set<Path> referenced = new HashSet<>();
+        List<Save> saves = new ArrayList<>(olderSaves);
+        saves.add(new Save(rootGeneration, segmentGenerations));
+
+        for (Save save : saves) {
+            if (save.rootGeneration != NONE) {
+                referenced.add(getRootPath(save.rootGeneration));
+            }
+
+            for (Map.Entry<UUID, Long> entry : save.segmentGenerations.entrySet()) {
+                referenced.add(getSegmentPath(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+
+                if ((name.endsWith(SEGMENT_SUFFIX) || name.endsWith(TEMP_SUFFIX)) && !referenced.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // Leftover files only waste space, and the next full save tries again
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Tests if any of some saves use a file
+     *
+     * @param saves       the saves
+     * @param segmentUUID UUID of the segment, or null for the root
+     * @param generation  generation of the file
+     * @return true iff one of the saves uses the file
+     */
+    private static boolean isUsed(List<Save> saves, UUID segmentUUID, long generation) {
+        for (Save save : saves) {
+            if (save.uses(segmentUUID, generation)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Path getRootPath(long generation) {
+        return directory.resolve(ROOT + "-" + generation + SEGMENT_SUFFIX);
+    }
+
+    private Path getSegmentPath(UUID segmentUUID, long generation) {
+        return directory.resolve(segmentUUID + "-" + generation + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Encodes a segment with a header, in memory
+     */
+    private byte[] encode(Encoder encoder) {
+        return encodeRaw(out -> {
+            BinaryFormat.writeHeader(out, codec.getVersion());
+            encoder.encode(out);
+        });
+    }
+
+    private static byte[] encodeRaw(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter out = new BinaryWriter(Channels.newChannel(bytes));
+
+        try {
+            encoder.encode(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private void readFile(Path path, Decoder decoder) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            decoder.decode(new BinaryReader(channel));
+        } catch (IOException e) {
+            throw new SegmentStoreException("Unable to read segment " + path, e);
+        }
+    }
+
+    private static void writeFile(Path path, byte[] contents) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(contents);
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces new files and renames to disk
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows can't open directories
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+
+        return (int) crc.getValue();
+    }
+
+    private interface Encoder {
+        void encode(BinaryWriter out) throws IOException;
+    }
+
+    private interface Decoder {
+        void decode(BinaryReader in) throws IOException;
+    }
+}
@@ -20,6 +20,9 @@ import java.awt.event.WindowEvent;
 public class MainFrame implements IFrame {
     private ControllerBundle controllerBundle;
 
+    // Session of the user signed in through this window, or null
+    private String sessionToken;
+
     private Runnable shutdown;
     private JFrame frame;
 
@@ -87,6 +90,26 @@ public class MainFrame implements IFrame {
         return frame;
     }
 
+    /**
+     * Gets the session of the user signed in through this window
+     *
+     * @return the session token, or null if nobody has signed in
+     */
+    @Override
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    /**
+     * Sets the session of the user signed in through this window
+     *
+     * @param sessionToken the session token, or null when signing out
+     */
+    @Override
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
+
     private void setLookAndFeel() {
         String osName = System.getProperty("os.name").toLowerCase();
 
@@ -130,7 +153,7 @@ public class MainFrame implements IFrame {
         frame.setMinimumSize(initialDimension);
 
         // Open panel depending on login state
-        if (controllerBundle.getUserController().getCurrentUser() != null) {
+        if (controllerBundle.getUserController().getCurrentUser(sessionToken) != null) {
             setPanel(panelFactory.createPanel(PanelFactoryOptions.panelNames.MAIN_MENU));
         } else {
             setPanel(panelFactory.createPanel(PanelFactoryOptions.panelNames.LOGIN));
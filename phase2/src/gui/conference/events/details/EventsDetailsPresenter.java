@@ -287,8 +287,8 @@ class EventsDetailsPresenter extends AbstractConferencePresenter {
 
         int index = 0;
 
-        for (UUID userUUID : userUUIDs) {
-            names[index][0] = userController.getUserFullName(userUUID);
+        for (String name : userController.getUserFullNames(userUUIDs).values()) {
+            names[index][0] = name;
 
             index++;
         }
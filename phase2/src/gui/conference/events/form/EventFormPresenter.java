@@ -183,13 +183,9 @@ class EventFormPresenter extends AbstractConferencePresenter {
 
 
     void selectSpeakers() {
-        // Getting all available speakerUUIDs
-        Set<UUID> signedInUserUUIDs = userController.getUsers();
-
         IDialog chooseSpeakersDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.MULTI_USER_PICKER, new HashMap<String, Object>() {
             {
                 put("instructions", "Select speakers for this event");
-                put("availableUserUUIDs", signedInUserUUIDs);
                 put("selectedUserUUIDs", selectedSpeakersUUIDS);
             }
         });
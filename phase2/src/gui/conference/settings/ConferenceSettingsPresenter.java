@@ -10,6 +10,7 @@ import gui.util.interfaces.IFrame;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Manages ConferenceSettingsView
@@ -101,6 +102,22 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
         }
     }
 
+    /**
+     * Opens the conference's announcement channel, starting it if there have been no announcements yet. Organizers
+     * post announcements there like any other message.
+     */
+    void openAnnouncements() {
+        UUID conversationUUID = conferenceController.getAnnouncementConversationUUID(conferenceUUID, signedInUserUUID);
+
+        if (conversationUUID == null) {
+            String welcomeMessage = String.format("Announcements for %s will be posted here.", conferenceController.getConferenceName(conferenceUUID));
+
+            conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, signedInUserUUID, welcomeMessage);
+        }
+
+        openConversation(conversationUUID);
+    }
+
     /**
      * Opens the messages tab to a given conversation UUID
      *
@@ -119,7 +136,9 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
      * Method to start a dialog to select a user and confirm selection. Checks if there are actually users available,
      * and executes lambda function on success.
      *
-     * @param availableUserUUIDs      set of user UUIDs to be available for selection
+     * @param availableUserUUIDs      which users are available for selection, or null for every user that passes the
+     *                                filter
+     * @param userFilter              which of those users are available for selection, or null for all of them
      * @param title                   dialog title
      * @param instructions            instructions for the user selection menu
      * @param emptyListMessage        message displayed if there are no available users
@@ -128,8 +147,8 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
      * @param submit                  lambda function to execute on submit
      * @return UUID of the user select, or null if operation was unsuccessful
      */
-    private UUID confirmSelectUser(Set<UUID> availableUserUUIDs, String title, String instructions, String emptyListMessage, Function<UUID, String> confirmMessageGenerator, Function<UUID, String> successMessageGenerator, Function<UUID, String> submit) {
-        if (availableUserUUIDs.size() == 0) {
+    private UUID confirmSelectUser(Set<UUID> availableUserUUIDs, Predicate<UUID> userFilter, String title, String instructions, String emptyListMessage, Function<UUID, String> confirmMessageGenerator, Function<UUID, String> successMessageGenerator, Function<UUID, String> submit) {
+        if (userController.searchUsers("", availableUserUUIDs, userFilter, 0, 1).isEmpty()) {
             IDialog noUsersAvailableDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.MESSAGE, new HashMap<String, Object>() {
                 {
                     put("message", emptyListMessage);
@@ -144,6 +163,7 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
             IDialog organizerPickerDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.USER_PICKER, new HashMap<String, Object>() {
                 {
                     put("availableUserUUIDs", availableUserUUIDs);
+                    put("userFilter", userFilter);
                     put("instructions", instructions);
                 }
             });
@@ -200,11 +220,11 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
      */
     void addOrganizer() {
         // Users that are eligible to become organizers are in the system, but are not already organizers
-        Set<UUID> availableUserUUIDs = new HashSet<>(userController.getUsers());
-        availableUserUUIDs.removeAll(conferenceController.getOrganizers(conferenceUUID, signedInUserUUID));
+        Set<UUID> currentUserUUIDs = conferenceController.getOrganizers(conferenceUUID, signedInUserUUID);
 
         confirmSelectUser(
-                availableUserUUIDs,
+                null,
+                (uuid) -> !currentUserUUIDs.contains(uuid),
                 "Add Organizer",
                 "Choose a user to give organizer permissions to. The user will be invited to the conference if they are not already a member.",
                 "There are no users available to add as an organizer.",
@@ -227,6 +247,7 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
 
         UUID removedUserUUID = confirmSelectUser(
                 conferenceUserUUIDs,
+                null,
                 "Remove user",
                 "Choose a user to remove from the conference. All of their roles, events registrations, and speaker assignments will be cancelled.",
                 "There are no users to remove from the conference. (wait how did this even happen? are you god?)",
@@ -260,6 +281,7 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
 
         UUID removedUserUUID = confirmSelectUser(
                 conferenceUserUUIDs,
+                null,
                 "Remove organizer",
                 "Choose a user to revoke organizer permissions from. If they do not have any other roles, they will also be removed from the conference.",
                 "There are no users to remove as an organizer. (wait how did this even happen? are you god?)",
@@ -294,11 +316,11 @@ class ConferenceSettingsPresenter extends AbstractConferencePresenter {
      */
     void addAttendee() {
         // Users that are eligible to become attendees are in the system, but are not already attendees
-        Set<UUID> availableUserUUIDs = new HashSet<>(userController.getUsers());
-        availableUserUUIDs.removeAll(conferenceController.getAttendees(conferenceUUID, signedInUserUUID));
+        Set<UUID> currentUserUUIDs = conferenceController.getAttendees(conferenceUUID, signedInUserUUID);
 
         confirmSelectUser(
-                availableUserUUIDs,
+                null,
+                (uuid) -> !currentUserUUIDs.contains(uuid),
                 "Add Attendee",
                 "Choose a user to invite as an attendee.",
                 "There are no users available to add as an attendee.",
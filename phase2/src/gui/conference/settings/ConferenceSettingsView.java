@@ -22,6 +22,7 @@ public class ConferenceSettingsView implements IPanel, IConferenceSettingsView {
     private JButton addAttendee;
     private JButton deleteConferenceButton;
     private JButton createConversationWithUsersButton;
+    private JButton announcementsButton;
     private JTable userTable;
 
     /**
@@ -39,6 +40,7 @@ public class ConferenceSettingsView implements IPanel, IConferenceSettingsView {
         removeOrganizerButton.addActionListener((e) -> conferenceSettingsPresenter.removeOrganizer());
 
         createConversationWithUsersButton.addActionListener((e) -> conferenceSettingsPresenter.createConversation());
+        announcementsButton.addActionListener((e) -> conferenceSettingsPresenter.openAnnouncements());
 
         editConferenceButton.addActionListener((e) -> conferenceSettingsPresenter.editConference());
         deleteConferenceButton.addActionListener((e) -> conferenceSettingsPresenter.deleteConference());
@@ -9,6 +9,7 @@ import gui.util.interfaces.IDialog;
 import gui.util.interfaces.IFrame;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 class ContactsPresenter extends AbstractPresenter {
     private IContactsView contactsView;
@@ -37,11 +38,7 @@ class ContactsPresenter extends AbstractPresenter {
      * Updates the contacts list that is visible to the user
      */
     private void updateContactNames() {
-        String[] contactNames = new String[contactsList.size()];
-
-        for (int i = 0; i < contactsList.size(); i++) {
-            contactNames[i] = userController.getUserFullName(contactsList.get(i));
-        }
+        String[] contactNames = userController.getUserFullNames(contactsList).values().toArray(new String[0]);
 
         contactsView.setContactsList(contactNames);
     }
@@ -50,10 +47,7 @@ class ContactsPresenter extends AbstractPresenter {
      * Updates the requests list that is visible to the user.
      */
     private void updateRequestsNames() {
-        String[] requestNames = new String[requestsList.size()];
-        for (int i = 0; i < requestsList.size(); i++) {
-            requestNames[i] = userController.getUserFullName(requestsList.get(i));
-        }
+        String[] requestNames = userController.getUserFullNames(requestsList).values().toArray(new String[0]);
 
         contactsView.setRequestsList(requestNames);
     }
@@ -113,11 +107,10 @@ class ContactsPresenter extends AbstractPresenter {
      * Sends a request to the user that is selected from the pop up dialog.
      */
     void sendRequest() {
-        Set<UUID> potentialContacts = userController.getUsers();
-
-        potentialContacts.removeAll(contactController.showContacts(signedInUserUUID));
-        potentialContacts.removeAll(contactController.showSentRequests(signedInUserUUID));
-        potentialContacts.remove(signedInUserUUID);
+        // Anyone who isn't already a contact or waiting on a request can be sent one
+        Set<UUID> contacts = contactController.showContacts(signedInUserUUID);
+        Set<UUID> sentRequests = contactController.showSentRequests(signedInUserUUID);
+        Predicate<UUID> potentialContacts = (uuid) -> !uuid.equals(signedInUserUUID) && !contacts.contains(uuid) && !sentRequests.contains(uuid);
 
         UserPickerDialog userPickerDialog = new UserPickerDialog(mainFrame, potentialContacts, "Select User:");
         UUID potentialContactUUID = userPickerDialog.run();
@@ -98,7 +98,8 @@ class MainMenuPresenter extends AbstractPresenter {
     }
 
     void logout() {
-        userController.logout();
+        userController.logout(mainFrame.getSessionToken());
+        mainFrame.setSessionToken(null);
         mainFrame.setPanel(panelFactory.createPanel(PanelFactoryOptions.panelNames.LOGIN));
     }
 }
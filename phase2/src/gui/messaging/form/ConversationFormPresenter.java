@@ -30,7 +30,7 @@ class ConversationFormPresenter extends AbstractPresenter {
 
         // God users can message anyone
         this.availableUserUUIDs = userController.getUserIsGod(signedInUserUUID)
-                ? userController.getUsers()
+                ? null
                 : contactController.showContacts(signedInUserUUID);
     }
 
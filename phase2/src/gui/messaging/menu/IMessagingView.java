@@ -14,6 +14,14 @@ public interface IMessagingView {
 
     void setMessages(String[] messages);
 
+    void addMessage(String message);
+
+    void addOlderMessages(String[] olderMessages);
+
+    void removeMessage(int index);
+
+    String getMessage(int index);
+
     void clearTextBox();
 
     int getNumMessages();
@@ -24,9 +32,13 @@ public interface IMessagingView {
 
     void scrollToLastMessage();
 
+    void scrollToMessage(int index);
+
     void setUsersList(String[] users);
 
     void setEnableArchiveButton(boolean instruction);
 
     void setEnableUnreadButton(boolean instruction);
+
+    void runOnUiThread(Runnable runnable);
 }
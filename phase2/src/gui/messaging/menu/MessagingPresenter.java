@@ -5,10 +5,20 @@ import gui.util.enums.DialogFactoryOptions;
 import gui.util.enums.PanelFactoryOptions;
 import gui.util.interfaces.IDialog;
 import gui.util.interfaces.IFrame;
+import messaging.MessageEntry;
+import messaging.MessageEvent;
+import messaging.MessagePage;
+import util.event.ISubscription;
 
 import java.util.*;
 
 class MessagingPresenter extends AbstractPresenter {
+    // Number of messages to fetch at a time. Busy conversations can have tens of thousands.
+    private static final int PAGE_SIZE = 50;
+
+    // Number of conversations to fetch at a time, most recently active first. God users can see tens of thousands.
+    private static final int INBOX_PAGE_SIZE = 100;
+
     private IMessagingView messagingView;
 
     private List<UUID> conversationUUIDs;
@@ -16,7 +26,14 @@ class MessagingPresenter extends AbstractPresenter {
     private int currentConversationIndex = -1;
     private UUID currentConversationUUID;
 
-    private String[] messageArray;
+    // Ids of the messages shown, which are the newest ones in the conversation starting at firstMessageIndex, and the
+    // row each one is shown in
+    private List<Integer> messageIds;
+    private Map<Integer, Integer> messageRows;
+    private int firstMessageIndex;
+
+    // Keeps the messages shown up to date, while the view is showing
+    private ISubscription conversationSubscription;
 
     /**
      * Constructor for presenting messages
@@ -40,6 +57,13 @@ class MessagingPresenter extends AbstractPresenter {
 
             // Choose the specified default conference UUID
             if (defaultConversationUUID != null) {
+                // It may be further down the list than the first page
+                boolean hasMore = true;
+
+                while (hasMore && !conversationUUIDs.contains(defaultConversationUUID)) {
+                    hasMore = loadMoreConversationUUIDs();
+                }
+
                 if (conversationUUIDs.contains(defaultConversationUUID)) {
                     defaultConversationIndex = conversationUUIDs.indexOf(defaultConversationUUID);
                 } else {
@@ -93,10 +117,12 @@ class MessagingPresenter extends AbstractPresenter {
      */
     void deleteMessage(int index) {
         if (index != -1 && currentConversationUUID != null) {
-            if (conversationController.checkIfSender(currentConversationUUID, signedInUserUUID, index)) {
+            int messageIndex = messageIds.get(index);
+
+            if (conversationController.checkIfSender(currentConversationUUID, signedInUserUUID, messageIndex)) {
                 IDialog deleteMessageConfirmation = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.CONFIRM_BOOLEAN, new HashMap<String, Object>() {
                     {
-                        put("message", String.format("Delete this message?\n\n%s", messageArray[index]));
+                        put("message", String.format("Delete this message?\n\n%s", messagingView.getMessage(index)));
                         put("title", "Delete");
                         put("messageType", DialogFactoryOptions.dialogType.ERROR);
                         put("confirmationType", DialogFactoryOptions.optionType.YES_NO_OPTION);
@@ -105,8 +131,8 @@ class MessagingPresenter extends AbstractPresenter {
                 });
 
                 if ((boolean) deleteMessageConfirmation.run()) {
-                    conversationController.deleteMessage(currentConversationUUID, signedInUserUUID, index);
-                    reloadMessagePage(currentConversationUUID);
+                    // The row is taken out when the deletion comes back as an event
+                    conversationController.deleteMessage(currentConversationUUID, signedInUserUUID, messageIndex);
                 }
             } else {
                 IDialog unauthorizedDeleteAttempt = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.MESSAGE, new HashMap<String, Object>() {
@@ -178,10 +204,16 @@ class MessagingPresenter extends AbstractPresenter {
     void sendMessage() {
         String currentMessage = messagingView.getTextBoxContent();
         if (!currentMessage.equals("")) {
+            // The message is shown when it comes back as an event
             conversationController.sendMessage(signedInUserUUID, currentMessage, currentConversationUUID);
-            updateMessages();
             messagingView.clearTextBox();
-            messagingView.scrollToLastMessage();
+
+            // The conversation is now the most recently active one
+            conversationUUIDs.remove(currentConversationUUID);
+            conversationUUIDs.add(0, currentConversationUUID);
+            currentConversationIndex = 0;
+            updateConversationNames();
+            messagingView.setConversationListSelection(0);
         }
 
     }
@@ -225,14 +257,16 @@ class MessagingPresenter extends AbstractPresenter {
 
     private void updateConversationNames() {
         String[] conversationNames = new String[conversationUUIDs.size()];
+        Map<UUID, Integer> unreadCounts = conversationController.getUnreadCounts(signedInUserUUID, conversationUUIDs);
 
         for (int i = 0; i < conversationUUIDs.size(); i++) {
             UUID conversationUUID = conversationUUIDs.get(i);
+            int unreadCount = unreadCounts.get(conversationUUID);
 
-            if (conversationController.getUserHasRead(signedInUserUUID, conversationUUID)) {
+            if (unreadCount == 0) {
                 conversationNames[i] = conversationController.getConversationName(conversationUUID);
             } else {
-                conversationNames[i] = "(Unread) " + conversationController.getConversationName(conversationUUID);
+                conversationNames[i] = String.format("(%d unread) %s", unreadCount, conversationController.getConversationName(conversationUUID));
             }
         }
 
@@ -241,7 +275,35 @@ class MessagingPresenter extends AbstractPresenter {
 
     private void updateConversationList() {
         currentConversationIndex = -1;
-        conversationUUIDs = new ArrayList<>(conversationController.getConversationList(signedInUserUUID));
+        conversationUUIDs = new ArrayList<>(conversationController.getInbox(signedInUserUUID, null, INBOX_PAGE_SIZE));
+    }
+
+    /**
+     * Adds the next page of conversations to the end of the list, without showing them
+     *
+     * @return true iff there were any more conversations
+     */
+    private boolean loadMoreConversationUUIDs() {
+        if (conversationUUIDs.isEmpty()) {
+            return false;
+        }
+
+        UUID lastConversationUUID = conversationUUIDs.get(conversationUUIDs.size() - 1);
+        List<UUID> nextPage = conversationController.getInbox(signedInUserUUID, lastConversationUUID, INBOX_PAGE_SIZE);
+
+        conversationUUIDs.addAll(nextPage);
+
+        return !nextPage.isEmpty();
+    }
+
+    /**
+     * Shows the next page of conversations below the ones shown, if there are any
+     */
+    void loadMoreConversations() {
+        if (loadMoreConversationUUIDs()) {
+            updateConversationNames();
+            messagingView.setConversationListSelection(currentConversationIndex);
+        }
     }
 
     /**
@@ -254,11 +316,17 @@ class MessagingPresenter extends AbstractPresenter {
             currentConversationIndex = selectedIndex;
             currentConversationUUID = conversationUUIDs.get(selectedIndex);
 
-            updateMessages();
+            updateMessages(PAGE_SIZE);
             messagingView.scrollToLastMessage();
+            subscribeToConversation();
 
             updateUserList(currentConversationUUID);
 
+            // Announcement channels are read only for attendees
+            boolean canSend = conversationController.canSendMessages(signedInUserUUID, currentConversationUUID);
+            messagingView.setEnableSendButton(canSend);
+            messagingView.setEnableTextField(canSend);
+
             // Update title
             messagingView.setConversationTitle(conversationController.getConversationName(currentConversationUUID));
 
@@ -267,23 +335,152 @@ class MessagingPresenter extends AbstractPresenter {
         }
     }
 
-    private void updateMessages() {
-        List<Map<String, String>> messagesListMap = conversationController.getMessages(signedInUserUUID, currentConversationUUID);
+    /**
+     * Shows the newest messages of the current conversation
+     *
+     * @param limit maximum number of messages to show
+     */
+    private void updateMessages(int limit) {
+        MessagePage page = conversationController.getLatestMessages(signedInUserUUID, currentConversationUUID, limit);
+
+        firstMessageIndex = page.getFromIndex();
+        messageIds = getMessageIds(page.getMessages());
+        updateMessageRows();
+        messagingView.setMessages(formatMessages(page.getMessages()));
+    }
+
+    /**
+     * Listens for changes to the current conversation's messages, instead of any previous one
+     */
+    private void subscribeToConversation() {
+        unsubscribe();
+
+        if (currentConversationUUID != null) {
+            conversationSubscription = conversationController.subscribe(signedInUserUUID, currentConversationUUID, messagingView::runOnUiThread, this::applyMessageEvent);
+        }
+    }
+
+    /**
+     * Stops listening for changes to the current conversation, e.g. while the view isn't showing
+     */
+    void unsubscribe() {
+        if (conversationSubscription != null) {
+            conversationSubscription.cancel();
+            conversationSubscription = null;
+        }
+    }
+
+    /**
+     * Catches up on the current conversation and listens for changes to it again, once the view is showing again
+     */
+    void resubscribe() {
+        if (currentConversationUUID != null && conversationSubscription == null) {
+            // Keep any older pages that were loaded
+            updateMessages(Math.max(PAGE_SIZE, messageIds.size()));
+            subscribeToConversation();
+        }
+    }
+
+    /**
+     * Updates the messages shown for a message sent or deleted, without fetching the rest again
+     *
+     * @param event what happened
+     */
+    private void applyMessageEvent(MessageEvent event) {
+        if (!event.getConversationUUID().equals(currentConversationUUID)) {
+            return;
+        }
+
+        if (event.getType() == MessageEvent.Type.APPENDED) {
+            int lastMessageId = messageIds.isEmpty() ? -1 : messageIds.get(messageIds.size() - 1);
+
+            // Already shown if it was sent before the messages were fetched
+            if (event.getMessageId() > lastMessageId) {
+                messageRows.put(event.getMessageId(), messageIds.size());
+                messageIds.add(event.getMessageId());
+
+                messagingView.addMessage(formatMessages(Collections.singletonList(event.getMessage()))[0]);
+                messagingView.scrollToLastMessage();
+            }
+        } else if (event.getType() == MessageEvent.Type.DELETED) {
+            Integer row = messageRows.remove(event.getMessageId());
+
+            if (row != null) {
+                messageIds.remove((int) row);
+
+                // Only the rows below it move up
+                for (int i = row; i < messageIds.size(); i++) {
+                    messageRows.put(messageIds.get(i), i);
+                }
+
+                messagingView.removeMessage(row);
+            }
+        }
+    }
+
+    /**
+     * Shows the page of messages before the ones shown, if there are any
+     */
+    void loadOlderMessages() {
+        if (currentConversationUUID == null || firstMessageIndex == 0) {
+            return;
+        }
+
+        int fromIndex = Math.max(0, firstMessageIndex - PAGE_SIZE);
+        MessagePage page = conversationController.getMessages(signedInUserUUID, currentConversationUUID, fromIndex, PAGE_SIZE);
+        List<MessageEntry> olderEntries = new ArrayList<>();
+
+        // The page goes past the ones shown if some were deleted
+        for (MessageEntry message : page.getMessages()) {
+            if (message.getIndex() < firstMessageIndex) {
+                olderEntries.add(message);
+            }
+        }
+
+        List<Integer> allMessageIds = getMessageIds(olderEntries);
+        allMessageIds.addAll(messageIds);
+
+        firstMessageIndex = fromIndex;
+        messageIds = allMessageIds;
+        updateMessageRows();
+        messagingView.addOlderMessages(formatMessages(olderEntries));
+
+        // Keep the message that was at the top in view, with the older ones above it
+        messagingView.scrollToMessage(olderEntries.size());
+    }
+
+    /**
+     * Finds the row of each message shown, e.g. after older ones were added above them
+     */
+    private void updateMessageRows() {
+        messageRows = new HashMap<>();
+
+        for (int i = 0; i < messageIds.size(); i++) {
+            messageRows.put(messageIds.get(i), i);
+        }
+    }
+
+    private List<Integer> getMessageIds(List<MessageEntry> messages) {
+        List<Integer> ids = new ArrayList<>();
+
+        for (MessageEntry message : messages) {
+            ids.add(message.getIndex());
+        }
+
+        return ids;
+    }
 
-        messageArray = new String[messagesListMap.size()];
-        int index = 0;
+    private String[] formatMessages(List<MessageEntry> messages) {
+        String[] formattedMessages = new String[messages.size()];
+        Map<UUID, String> senderNames = new HashMap<>();
 
-        for (Map<String, String> messageMap : messagesListMap) {
-            UUID senderId = UUID.fromString(messageMap.get("sender"));
-            String senderName = userController.getUserFullName(senderId);
-            String timestamp = messageMap.get("timestamp");
-            String content = messageMap.get("content");
-            String messageString = String.format("[%s @ %s] %s\n", senderName, timestamp, content);
+        for (int i = 0; i < messages.size(); i++) {
+            MessageEntry message = messages.get(i);
+            String senderName = senderNames.computeIfAbsent(message.getSenderUUID(), userController::getUserFullName);
 
-            messageArray[index] = messageString;
-            index++;
+            formattedMessages[i] = String.format("[%s @ %s] %s\n", senderName, message.getTimestamp(), message.getContent());
         }
 
-        messagingView.setMessages(messageArray);
+        return formattedMessages;
     }
-}
\ No newline at end of file
+}
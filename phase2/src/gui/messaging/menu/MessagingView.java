@@ -4,6 +4,8 @@ import gui.util.interfaces.IFrame;
 import gui.util.interfaces.IPanel;
 
 import javax.swing.*;
+import javax.swing.event.AncestorEvent;
+import javax.swing.event.AncestorListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -18,6 +20,7 @@ public class MessagingView implements IPanel, IMessagingView {
     private JList<String> conversationList;
     private JTextField messageText;
     private JList<String> messages;
+    private DefaultListModel<String> messageModel = new DefaultListModel<>();
     private JButton sendButton;
     private JList<String> userList;
     private JButton archiveButton;
@@ -32,6 +35,9 @@ public class MessagingView implements IPanel, IMessagingView {
      * @param defaultConversationUUID UUID of the default conversation to select. If none selected, or invalid, the first one will be selected.
      */
     public MessagingView(IFrame mainFrame, UUID defaultConversationUUID) {
+        // Messages come and go one at a time, so only their rows have to be redrawn
+        messages.setModel(messageModel);
+
         messagingPresenter = new MessagingPresenter(mainFrame, this, defaultConversationUUID);
         conversationList.addListSelectionListener((e) -> messagingPresenter.updateSelection(conversationList.getSelectedIndex()));
         newConversationButton.addActionListener((e) -> messagingPresenter.createConversation());
@@ -54,6 +60,60 @@ public class MessagingView implements IPanel, IMessagingView {
             }
         });
 
+        // Scrolling up past the first message shown fetches older ones. Only the user scrolling counts, not the list
+        // being refilled.
+        JScrollPane messagesScrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, messages);
+
+        if (messagesScrollPane != null) {
+            JScrollBar scrollBar = messagesScrollPane.getVerticalScrollBar();
+
+            scrollBar.addAdjustmentListener((e) -> {
+                if (e.getValueIsAdjusting() && e.getValue() == scrollBar.getMinimum()) {
+                    messagingPresenter.loadOlderMessages();
+                }
+            });
+            messagesScrollPane.addMouseWheelListener((e) -> {
+                if (e.getWheelRotation() < 0 && scrollBar.getValue() == scrollBar.getMinimum()) {
+                    messagingPresenter.loadOlderMessages();
+                }
+            });
+        }
+
+        // Likewise, scrolling down past the last conversation shown fetches more
+        JScrollPane conversationsScrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, conversationList);
+
+        if (conversationsScrollPane != null) {
+            JScrollBar scrollBar = conversationsScrollPane.getVerticalScrollBar();
+
+            scrollBar.addAdjustmentListener((e) -> {
+                if (e.getValueIsAdjusting() && e.getValue() + scrollBar.getVisibleAmount() == scrollBar.getMaximum()) {
+                    messagingPresenter.loadMoreConversations();
+                }
+            });
+            conversationsScrollPane.addMouseWheelListener((e) -> {
+                if (e.getWheelRotation() > 0 && scrollBar.getValue() + scrollBar.getVisibleAmount() == scrollBar.getMaximum()) {
+                    messagingPresenter.loadMoreConversations();
+                }
+            });
+        }
+
+        // Messages are only kept up to date while they can be seen, and the subscription is dropped along with the panel
+        messagingPanel.addAncestorListener(new AncestorListener() {
+            @Override
+            public void ancestorAdded(AncestorEvent event) {
+                messagingPresenter.resubscribe();
+            }
+
+            @Override
+            public void ancestorRemoved(AncestorEvent event) {
+                messagingPresenter.unsubscribe();
+            }
+
+            @Override
+            public void ancestorMoved(AncestorEvent event) {
+            }
+        });
+
     }
 
     /**
@@ -121,7 +181,57 @@ public class MessagingView implements IPanel, IMessagingView {
      */
     @Override
     public void setMessages(String[] updatedMessages) {
-        messages.setListData(updatedMessages);
+        // A new model, so the list is redrawn once rather than for each message
+        messageModel = new DefaultListModel<>();
+
+        for (String message : updatedMessages) {
+            messageModel.addElement(message);
+        }
+
+        messages.setModel(messageModel);
+    }
+
+    /**
+     * adds a message after the ones shown
+     *
+     * @param message the message
+     */
+    @Override
+    public void addMessage(String message) {
+        messageModel.addElement(message);
+    }
+
+    /**
+     * adds messages before the ones shown
+     *
+     * @param olderMessages the messages, oldest first
+     */
+    @Override
+    public void addOlderMessages(String[] olderMessages) {
+        for (int i = olderMessages.length - 1; i >= 0; i--) {
+            messageModel.add(0, olderMessages[i]);
+        }
+    }
+
+    /**
+     * removes a message
+     *
+     * @param index the index of the message in the list
+     */
+    @Override
+    public void removeMessage(int index) {
+        messageModel.remove(index);
+    }
+
+    /**
+     * gets a message shown
+     *
+     * @param index the index of the message in the list
+     * @return the message
+     */
+    @Override
+    public String getMessage(int index) {
+        return messageModel.get(index);
     }
 
     /**
@@ -155,6 +265,16 @@ public class MessagingView implements IPanel, IMessagingView {
         unreadButton.setEnabled(instruction);
     }
 
+    /**
+     * runs something on the Swing event dispatch thread, after any events already waiting
+     *
+     * @param runnable what to run
+     */
+    @Override
+    public void runOnUiThread(Runnable runnable) {
+        SwingUtilities.invokeLater(runnable);
+    }
+
     /**
      * enables/disables a text field
      *
@@ -186,6 +306,18 @@ public class MessagingView implements IPanel, IMessagingView {
         }
     }
 
+    /**
+     * scrolls just far enough to show a message
+     *
+     * @param index the index of the message in the list
+     */
+    @Override
+    public void scrollToMessage(int index) {
+        if (index >= 0 && index < messages.getModel().getSize()) {
+            messages.ensureIndexIsVisible(index);
+        }
+    }
+
     /**
      * sets the list of users
      *
@@ -18,7 +18,7 @@ class RegisterPresenter extends AbstractPresenter {
      * @param registerView view that this presenter is managing
      */
     RegisterPresenter(IFrame mainFrame, IRegisterView registerView) {
-        super(mainFrame);
+        super(mainFrame, true);
         this.registerView = registerView;
     }
 
@@ -46,6 +46,8 @@ class RegisterPresenter extends AbstractPresenter {
             invalidRegistrationDialog.run();
         } else {
             if (userController.registerUser(registerView.getFirstName(), registerView.getLastName(), registerView.getUsername(), registerView.getPassword()) != null) {
+                // New users are signed in straight away
+                mainFrame.setSessionToken(userController.login(registerView.getUsername(), registerView.getPassword()));
                 mainFrame.setPanel(panelFactory.createPanel(PanelFactoryOptions.panelNames.MAIN_MENU));
             } else {
                 IDialog invalidRegistrationDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.MESSAGE, new HashMap<String, Object>() {
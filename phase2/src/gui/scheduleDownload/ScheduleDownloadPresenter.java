@@ -40,7 +40,6 @@ class ScheduleDownloadPresenter extends AbstractPresenter {
         IDialog speakerPickerDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.USER_PICKER, new HashMap<String, Object>() {
             {
                 put("instructions", "Choose a user to sort by\n(Note: All users in the system are included here, so they may not have assigned events)");
-                put("availableUserUUIDs", userController.getUsers());
             }
         });
 
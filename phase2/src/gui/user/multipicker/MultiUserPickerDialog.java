@@ -9,6 +9,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * Dialog to choose many user UUIDs
@@ -31,6 +32,27 @@ public class MultiUserPickerDialog extends JDialog implements IDialog, IMultiUse
      * @param instructions       instructions to display to the user
      */
     public MultiUserPickerDialog(IFrame mainFrame, Set<UUID> availableUserUUIDs, Set<UUID> selectedUserUUIDs, String instructions) {
+        this(mainFrame, availableUserUUIDs, null, selectedUserUUIDs, instructions);
+    }
+
+    /**
+     * @param mainFrame         main GUI frame
+     * @param userFilter        which users are available to select, or null for all of them
+     * @param selectedUserUUIDs set of UUIDs of users that have already been selected
+     * @param instructions      instructions to display to the user
+     */
+    public MultiUserPickerDialog(IFrame mainFrame, Predicate<UUID> userFilter, Set<UUID> selectedUserUUIDs, String instructions) {
+        this(mainFrame, null, userFilter, selectedUserUUIDs, instructions);
+    }
+
+    /**
+     * @param mainFrame          main GUI frame
+     * @param availableUserUUIDs set of UUIDs of users to make available to select, or null for all of them
+     * @param userFilter         which of those users are available to select, or null for all of them
+     * @param selectedUserUUIDs  set of UUIDs of users that have already been selected
+     * @param instructions       instructions to display to the user
+     */
+    public MultiUserPickerDialog(IFrame mainFrame, Set<UUID> availableUserUUIDs, Predicate<UUID> userFilter, Set<UUID> selectedUserUUIDs, String instructions) {
         /* Setup formatting */
 
         // Set the parent frame so that this dialog is centered
@@ -45,7 +67,7 @@ public class MultiUserPickerDialog extends JDialog implements IDialog, IMultiUse
 
         /* Initiate presenter */
 
-        MultiUserPickerPresenter multiUserPickerPresenter = new MultiUserPickerPresenter(mainFrame, this, availableUserUUIDs, selectedUserUUIDs);
+        MultiUserPickerPresenter multiUserPickerPresenter = new MultiUserPickerPresenter(mainFrame, this, availableUserUUIDs, userFilter, selectedUserUUIDs);
 
         /* Initiate listeners */
         addButton.addActionListener((e) -> multiUserPickerPresenter.addUser());
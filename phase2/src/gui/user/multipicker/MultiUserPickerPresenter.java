@@ -6,18 +6,21 @@ import gui.util.interfaces.IDialog;
 import gui.util.interfaces.IFrame;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 class MultiUserPickerPresenter extends AbstractPresenter {
 
     private IMultiUserPickerDialog multiUserPickerDialog;
     private Set<UUID> availableUserUUIDs;
+    private Predicate<UUID> userFilter;
     private Set<UUID> selectedUserUUIDs = new HashSet<>();
 
-    MultiUserPickerPresenter(IFrame mainFrame, IMultiUserPickerDialog multiUserPickerDialog, Set<UUID> availableUserUUIDs, Set<UUID> selectedUserUUIDs) {
+    MultiUserPickerPresenter(IFrame mainFrame, IMultiUserPickerDialog multiUserPickerDialog, Set<UUID> availableUserUUIDs, Predicate<UUID> userFilter, Set<UUID> selectedUserUUIDs) {
         super(mainFrame);
 
         this.multiUserPickerDialog = multiUserPickerDialog;
         this.availableUserUUIDs = availableUserUUIDs;
+        this.userFilter = userFilter;
 
         if (selectedUserUUIDs != null) {
             this.selectedUserUUIDs = selectedUserUUIDs;
@@ -28,32 +31,35 @@ class MultiUserPickerPresenter extends AbstractPresenter {
 
     private void updateUserList() {
         List<UUID> orderedUserUUIDs = new ArrayList<>(selectedUserUUIDs);
+        Map<UUID, String> userFullNames = userController.getUserFullNames(orderedUserUUIDs);
         String[] userNames = new String[orderedUserUUIDs.size()];
 
         for (int i = 0; i < orderedUserUUIDs.size(); i++) {
-            userNames[i] = userController.getUserFullName(orderedUserUUIDs.get(i));
+            userNames[i] = userFullNames.get(orderedUserUUIDs.get(i));
         }
 
         multiUserPickerDialog.setUserList(userNames);
 
         // Disable buttons if they're not relevant
         multiUserPickerDialog.setRemoveButtonDisabled(selectedUserUUIDs.size() == 0);
-        multiUserPickerDialog.setAddButtonDisabled(new HashSet<UUID>(availableUserUUIDs) {
-            {
-                removeAll(selectedUserUUIDs);
-            }
-        }.size() == 0);
+        multiUserPickerDialog.setAddButtonDisabled(userController.searchUsers("", availableUserUUIDs, getAddableUserFilter(), 0, 1).isEmpty());
+    }
+
+    /**
+     * Gets which of the available users can be added to the list
+     *
+     * @return filter for available users who aren't already on the list
+     */
+    private Predicate<UUID> getAddableUserFilter() {
+        return (uuid) -> (userFilter == null || userFilter.test(uuid)) && !selectedUserUUIDs.contains(uuid);
     }
 
     void addUser() {
         IDialog addUserDialog = dialogFactory.createDialog(DialogFactoryOptions.dialogNames.USER_PICKER, new HashMap<String, Object>() {
             {
                 put("instructions", "Add user to the list");
-                put("availableUserUUIDs", new HashSet<UUID>(availableUserUUIDs) {
-                    {
-                        removeAll(selectedUserUUIDs); // You should only be able to add users who aren't already on the list
-                    }
-                });
+                put("availableUserUUIDs", availableUserUUIDs);
+                put("userFilter", getAddableUserFilter()); // You should only be able to add users who aren't already on the list
             }
         });
 
@@ -1,24 +1,148 @@
 package gui.user.picker;
 
-import gui.util.dialogs.UUIDPickerDialog;
 import gui.util.interfaces.IDialog;
 import gui.util.interfaces.IFrame;
 import user.UserController;
-import util.ControllerBundle;
 
+import javax.swing.*;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
- * Dialog to pick a user UUID
+ * Dialog to pick a user UUID. Users are found by searching their names and usernames, and the matches are shown a page
+ * at a time, so only the names on the current page have to be looked up.
  */
-public class UserPickerDialog extends UUIDPickerDialog implements IDialog {
+public class UserPickerDialog implements IDialog {
+    private static final int PAGE_SIZE = 50;
+
+    // Compared by identity, so a user can't be mistaken for one of these even if their name matches
+    private static final String NEXT_PAGE = "Next page...";
+    private static final String PREVIOUS_PAGE = "Previous page...";
+    private static final String NEW_SEARCH = "Search again...";
+
+    private IFrame mainFrame;
+    private UserController userController;
+
+    private Set<UUID> availableUserUUIDs;
+    private Predicate<UUID> userFilter;
+    private String instructions;
+
+    /**
+     * @param mainFrame          main GUI frame
+     * @param availableUserUUIDs set of UUIDs of users to make available to select
+     * @param instructions       instructions to display to the user
+     */
     public UserPickerDialog(IFrame mainFrame, Set<UUID> availableUserUUIDs, String instructions) {
-        super(mainFrame, availableUserUUIDs, instructions, "Select user", (uuid) -> {
-            ControllerBundle controllerBundle = mainFrame.getControllerBundle();
-            UserController userController = controllerBundle.getUserController();
+        this(mainFrame, availableUserUUIDs, null, instructions);
+    }
+
+    /**
+     * @param mainFrame    main GUI frame
+     * @param userFilter   which users are available to select, or null for all of them
+     * @param instructions instructions to display to the user
+     */
+    public UserPickerDialog(IFrame mainFrame, Predicate<UUID> userFilter, String instructions) {
+        this(mainFrame, null, userFilter, instructions);
+    }
+
+    /**
+     * @param mainFrame          main GUI frame
+     * @param availableUserUUIDs set of UUIDs of users to make available to select, or null for all of them
+     * @param userFilter         which of those users are available to select, or null for all of them
+     * @param instructions       instructions to display to the user
+     */
+    public UserPickerDialog(IFrame mainFrame, Set<UUID> availableUserUUIDs, Predicate<UUID> userFilter, String instructions) {
+        this.mainFrame = mainFrame;
+        this.userController = mainFrame.getControllerBundle().getUserController();
+        this.availableUserUUIDs = availableUserUUIDs;
+        this.userFilter = userFilter;
+        this.instructions = instructions;
+    }
+
+    /**
+     * Displays the dialog
+     *
+     * @return UUID of the user selected, or null if the dialog was cancelled
+     */
+    @Override
+    public UUID run() {
+        String query = "";
+
+        while (true) {
+            query = (String) JOptionPane.showInputDialog(
+                    mainFrame.getFrame(),
+                    String.format("%s\n\nSearch by name or username (leave empty to list everyone):", instructions),
+                    "Select user",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    null,
+                    query);
+
+            if (query == null) {
+                return null;
+            }
+
+            int offset = 0;
+
+            while (true) {
+                // Ask for one extra match to know if there is another page
+                List<UUID> matches = userController.searchUsers(query, availableUserUUIDs, userFilter, offset, PAGE_SIZE + 1);
+                int pageSize = Math.min(matches.size(), PAGE_SIZE);
+                Map<UUID, String> fullNames = userController.getUserFullNames(matches.subList(0, pageSize));
+                Map<UUID, String> usernames = userController.getUserUsernames(matches.subList(0, pageSize));
+
+                Object[] options = new Object[pageSize + 3];
+                int optionCount = 0;
+
+                for (int i = 0; i < pageSize; i++) {
+                    UUID userUUID = matches.get(i);
+                    options[optionCount++] = String.format("%4d. %s (%s)", offset + i + 1, fullNames.get(userUUID), usernames.get(userUUID));
+                }
+
+                if (matches.size() > PAGE_SIZE) {
+                    options[optionCount++] = NEXT_PAGE;
+                }
+
+                if (offset > 0) {
+                    options[optionCount++] = PREVIOUS_PAGE;
+                }
+
+                options[optionCount++] = NEW_SEARCH;
+
+                Object[] shownOptions = new Object[optionCount];
+                System.arraycopy(options, 0, shownOptions, 0, optionCount);
+
+                Object selectedValue = JOptionPane.showInputDialog(
+                        mainFrame.getFrame(),
+                        pageSize == 0 ? String.format("No users match \"%s\".", query) : instructions,
+                        "Select user",
+                        JOptionPane.QUESTION_MESSAGE,
+                        null,
+                        shownOptions,
+                        shownOptions[0]);
+
+                if (selectedValue == null) {
+                    return null;
+                } else if (selectedValue == NEXT_PAGE) {
+                    offset += PAGE_SIZE;
+                } else if (selectedValue == PREVIOUS_PAGE) {
+                    offset = Math.max(0, offset - PAGE_SIZE);
+                } else if (selectedValue == NEW_SEARCH) {
+                    break;
+                } else {
+                    // Find the UUID corresponding to the selected value
+                    for (int i = 0; i < pageSize; i++) {
+                        if (shownOptions[i] == selectedValue) {
+                            return matches.get(i);
+                        }
+                    }
 
-            return userController.getUserFullName(uuid);
-        });
+                    return null;
+                }
+            }
+        }
     }
 }
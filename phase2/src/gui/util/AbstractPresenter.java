@@ -37,20 +37,32 @@ public abstract class AbstractPresenter {
      * @param mainFrame main GUI frame
      */
     protected AbstractPresenter(IFrame mainFrame) {
+        this(mainFrame, false);
+    }
+
+    /**
+     * @param mainFrame main GUI frame
+     * @param userOnly  true to only get the user controller, and leave the others null. Lets presenters that are
+     *                  shown before sign in (e.g. login) appear without waiting for the rest to load.
+     */
+    protected AbstractPresenter(IFrame mainFrame, boolean userOnly) {
         this.mainFrame = mainFrame;
 
         ControllerBundle controllerBundle = mainFrame.getControllerBundle();
-        conferenceController = controllerBundle.getConferenceController();
         userController = controllerBundle.getUserController();
-        eventController = controllerBundle.getEventController();
-        roomController = controllerBundle.getRoomController();
-        conversationController = controllerBundle.getConversationController();
-        contactController = controllerBundle.getContactController();
-        scheduleController = controllerBundle.getScheduleController();
+
+        if (!userOnly) {
+            conferenceController = controllerBundle.getConferenceController();
+            eventController = controllerBundle.getEventController();
+            roomController = controllerBundle.getRoomController();
+            conversationController = controllerBundle.getConversationController();
+            contactController = controllerBundle.getContactController();
+            scheduleController = controllerBundle.getScheduleController();
+        }
 
         dialogFactory = mainFrame.getDialogFactory();
         panelFactory = mainFrame.getPanelFactory();
 
-        signedInUserUUID = userController.getCurrentUser();
+        signedInUserUUID = userController.getCurrentUser(mainFrame.getSessionToken());
     }
 }
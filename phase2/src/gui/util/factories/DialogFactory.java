@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * factory to make dialogue panels for the GUI
@@ -65,9 +66,9 @@ public class DialogFactory implements IDialogFactory {
             case CONFERENCE_PICKER:
                 return new ConferencePickerDialog(mainFrame, (Set<UUID>) arguments.get("availableConferenceUUIDs"), (String) arguments.get("instructions"));
             case MULTI_USER_PICKER:
-                return new MultiUserPickerDialog(mainFrame, (Set<UUID>) arguments.get("availableUserUUIDs"), (Set<UUID>) arguments.get("selectedUserUUIDs"), (String) arguments.get("instructions"));
+                return new MultiUserPickerDialog(mainFrame, (Set<UUID>) arguments.get("availableUserUUIDs"), (Predicate<UUID>) arguments.get("userFilter"), (Set<UUID>) arguments.get("selectedUserUUIDs"), (String) arguments.get("instructions"));
             case USER_PICKER:
-                return new UserPickerDialog(mainFrame, (Set<UUID>) arguments.get("availableUserUUIDs"), (String) arguments.get("instructions"));
+                return new UserPickerDialog(mainFrame, (Set<UUID>) arguments.get("availableUserUUIDs"), (Predicate<UUID>) arguments.get("userFilter"), (String) arguments.get("instructions"));
             case MESSAGE:
                 return new MessageDialogView(mainFrame, (String) arguments.get("message"), (String) arguments.getOrDefault("title", "Message"), (DialogFactoryOptions.dialogType) arguments.get("messageType"));
             case ROOM_FORM:
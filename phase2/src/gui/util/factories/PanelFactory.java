@@ -60,6 +60,13 @@ public class PanelFactory implements IPanelFactory {
      */
     @Override
     public IPanel createPanel(PanelFactoryOptions.panelNames name, Map<String, Object> initializationArguments) {
+        // Everything past the login page needs a signed in user, which there won't be if the session has expired
+        if (name != PanelFactoryOptions.panelNames.LOGIN && name != PanelFactoryOptions.panelNames.REGISTER
+                && mainFrame.getControllerBundle().getUserController().getCurrentUser(mainFrame.getSessionToken()) == null) {
+            mainFrame.setSessionToken(null);
+            return new LoginView(mainFrame);
+        }
+
         switch (name) {
             case LOGIN:
                 return new LoginView(mainFrame);
@@ -17,4 +17,8 @@ public interface IFrame {
     IDialogFactory getDialogFactory();
 
     JFrame getFrame();
+
+    String getSessionToken();
+
+    void setSessionToken(String sessionToken);
 }
@@ -1,23 +1,40 @@
 package messaging;
 
 import java.io.Serializable;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * Conversation object. Contains messages and metadata such as conversation name, users who have read and write access, etc.
  */
 public class Conversation implements Serializable {
+    private static final long serialVersionUID = 5775743741307259450L;
+
     private String conversationName; // either group chat or 2 person chat
-    private final List<Message> conversationMessages;
+    private List<Message> conversationMessages;
     private final Set<UUID> writeAccessUsers;
     private final Set<UUID> readAccessUsers;
     private final UUID conversationUUID;
-    private Set<UUID> usersHaveRead = new HashSet<>();
     private Set<UUID> userArchivedUUIDs = new HashSet<>();
 
+    // Id of the first message each user hasn't read, which is also how many they have read counting deleted ones.
+    // Users who haven't read anything aren't in it.
+    private Map<UUID, Integer> readWatermarks = new HashMap<>();
+
+    // Users who had read the whole conversation, in conversations saved before the watermarks were added. Turned into
+    // watermarks when they are first needed, since the number of messages may not be known until then.
+    private Set<UUID> usersHaveRead;
+
+    // Ids of the deleted messages. A message's id is its index in conversationMessages, which doesn't change when
+    // messages before it are deleted, since they are only replaced by tombstones. Filled in when first needed: from
+    // the message store's metadata if the messages are kept there, so they don't all have to be read, or else from the
+    // tombstones.
+    private transient NavigableSet<Integer> deletedMessageIds;
+
+    // Number of deleted messages before each user's watermark, so an unread count doesn't have to count the deleted
+    // messages after it. Filled in as the counts are asked for, and kept up to date after that.
+    private transient Map<UUID, Integer> deletedBeforeWatermarks;
+
     /**
      * Constructor for Conversation
      *
@@ -28,11 +45,25 @@ public class Conversation implements Serializable {
      */
     public Conversation(String name, Set<UUID> usersWriteUUIDs, Set<UUID>
             usersReadUUIDs, List<Message> messages) {
-        conversationName = name;
-        conversationMessages = messages;
-        writeAccessUsers = usersWriteUUIDs;
-        readAccessUsers = usersReadUUIDs;
-        conversationUUID = UUID.randomUUID();
+        this(UUID.randomUUID(), name, usersWriteUUIDs, usersReadUUIDs, messages);
+    }
+
+    /**
+     * Constructor for Conversation with a known UUID, used when replaying the journal
+     *
+     * @param conversationUUID UUID of the Conversation
+     * @param name             name of the Conversation
+     * @param usersWriteUUIDs  The set of users that have write access to the chat/conversation
+     * @param usersReadUUIDs   The set of users that have read access to the chat/conversation
+     * @param messages         A list of all the messages in the Chat/conversation
+     */
+    public Conversation(UUID conversationUUID, String name, Set<UUID> usersWriteUUIDs, Set<UUID>
+            usersReadUUIDs, List<Message> messages) {
+        this.conversationName = name;
+        this.conversationMessages = messages;
+        this.writeAccessUsers = usersWriteUUIDs;
+        this.readAccessUsers = usersReadUUIDs;
+        this.conversationUUID = conversationUUID;
     }
 
     /**
@@ -107,6 +138,45 @@ public class Conversation implements Serializable {
         return conversationMessages;
     }
 
+    /**
+     * Replaces the list of messages, e.g. with one kept on disk
+     *
+     * @param messages list of messages in this conversation
+     */
+    void setConversationMessages(List<Message> messages) {
+        conversationMessages = messages;
+        deletedMessageIds = null;
+        deletedBeforeWatermarks = null;
+    }
+
+    /**
+     * Tests if the messages of this conversation are kept in a message store rather than in memory
+     *
+     * @return true iff the messages are in a message store
+     */
+    boolean isMessagesStored() {
+        return conversationMessages instanceof StoredMessages.StoredMessageList;
+    }
+
+    /**
+     * Gets the time of the newest message in this conversation
+     *
+     * @return timestamp of the last message, or LocalDateTime.MIN if there are no messages
+     */
+    LocalDateTime getLastActivity() {
+        int lastMessageId = conversationMessages.size() - 1;
+
+        while (lastMessageId >= 0 && isMessageDeleted(lastMessageId)) {
+            lastMessageId--;
+        }
+
+        if (lastMessageId < 0) {
+            return LocalDateTime.MIN;
+        }
+
+        return conversationMessages.get(lastMessageId).getTimestamp();
+    }
+
     /**
      * Changes the name of the Chat (Group or private) to the new name provided
      *
@@ -131,20 +201,74 @@ public class Conversation implements Serializable {
      * @param message Message to be added in the conversation
      */
     public void addMessage(Message message) {
-        if (conversationMessages.contains(message)) {
-            System.out.println("Message has already been added");
-        } else {
-            conversationMessages.add(message);
+        conversationMessages.add(message);
+    }
+
+    /**
+     * Deletes a message, leaving a tombstone in its place so the ids of the messages after it don't change. Does
+     * nothing if it was already deleted.
+     *
+     * @param messageId the id of the message being deleted
+     */
+    public void deleteMessage(int messageId) {
+        if (!isMessageDeleted(messageId)) {
+            conversationMessages.set(messageId, conversationMessages.get(messageId).toTombstone());
+            getDeletedMessageIds().add(messageId);
+
+            for (Map.Entry<UUID, Integer> entry : getDeletedBeforeWatermarks().entrySet()) {
+                if (getReadWatermarks().getOrDefault(entry.getKey(), 0) > messageId) {
+                    entry.setValue(entry.getValue() + 1);
+                }
+            }
         }
     }
 
     /**
-     * deletes a message
+     * Tests if a message has been deleted
+     *
+     * @param messageId id of the message
+     * @return true iff the message has been deleted
+     */
+    boolean isMessageDeleted(int messageId) {
+        return getDeletedMessageIds().contains(messageId);
+    }
+
+    /**
+     * Gets the number of messages in this conversation, not counting deleted ones
      *
-     * @param index the index of the message being deleted
+     * @return number of messages
      */
-    public void deleteMessage(int index) {
-        conversationMessages.remove(index);
+    int getMessageCount() {
+        return conversationMessages.size() - getDeletedMessageIds().size();
+    }
+
+    /**
+     * Gets the ids of the deleted messages, finding them if that hasn't been done since this was loaded
+     *
+     * @return the live set of ids, in order
+     */
+    NavigableSet<Integer> getDeletedMessageIds() {
+        if (deletedMessageIds == null && isMessagesStored()) {
+            deletedMessageIds = new TreeSet<>(((StoredMessages.StoredMessageList) conversationMessages).getDeletedMessageIds());
+        } else if (deletedMessageIds == null) {
+            deletedMessageIds = new TreeSet<>();
+
+            for (int i = 0; i < conversationMessages.size(); i++) {
+                if (conversationMessages.get(i).isDeleted()) {
+                    deletedMessageIds.add(i);
+                }
+            }
+        }
+
+        return deletedMessageIds;
+    }
+
+    private Map<UUID, Integer> getDeletedBeforeWatermarks() {
+        if (deletedBeforeWatermarks == null) {
+            deletedBeforeWatermarks = new HashMap<>();
+        }
+
+        return deletedBeforeWatermarks;
     }
 
     /**
@@ -160,7 +284,7 @@ public class Conversation implements Serializable {
      * resets the list of people who have archived this conversation
      */
     public void resetUserArchivedUUIDs() {
-        userArchivedUUIDs = new HashSet<>();
+        userArchivedUUIDs.clear();
     }
 
     /**
@@ -173,46 +297,83 @@ public class Conversation implements Serializable {
     }
 
     /**
-     * Marks a conversation for a specific user
+     * Marks every message in this conversation as read by a specific user
      *
      * @param userUUID the user having read this conversation
+     * @return true iff the user hadn't already read every message
      */
-    public void readConversation(UUID userUUID) {
-        usersHaveRead.add(userUUID);
+    public boolean readConversation(UUID userUUID) {
+        Integer previousWatermark = getReadWatermarks().put(userUUID, conversationMessages.size());
+        getDeletedBeforeWatermarks().put(userUUID, getDeletedMessageIds().size());
+
+        return previousWatermark == null || previousWatermark != conversationMessages.size();
     }
 
     /**
-     * removes a user form the list of users who have read this conversation
+     * Marks the last message in this conversation that hasn't been deleted as unread by a specific user, if they had
+     * read it
      *
      * @param userUUID the user in question
      */
     public void unreadConversation(UUID userUUID) {
-        usersHaveRead.remove(userUUID);
+        int lastMessage = conversationMessages.size() - 1;
+
+        // Tombstones can't be unread, so skip back past them
+        while (lastMessage >= 0 && isMessageDeleted(lastMessage)) {
+            lastMessage--;
+        }
+
+        Integer watermark = getReadWatermarks().get(userUUID);
+
+        if (lastMessage >= 0 && watermark != null && watermark > lastMessage) {
+            int newWatermark = lastMessage;
+            getReadWatermarks().put(userUUID, newWatermark);
+            getDeletedBeforeWatermarks().computeIfPresent(userUUID, (k, deleted) -> deleted - getDeletedMessageIds().subSet(newWatermark, watermark).size());
+        }
     }
 
     /**
-     * resets the set of users who have read this conversation
+     * gets whether a specific user has read this conversation
+     *
+     * @param userUUID the user in question
+     * @return true if the user in question has read every message in this conversation
      */
-    public void resetUsersHaveRead() {
-        usersHaveRead = new HashSet<>();
+    public boolean getUserHasRead(UUID userUUID) {
+        return getUnreadCount(userUUID) == 0;
     }
 
     /**
-     * gets the list of users who have read this conversation
+     * Gets the number of messages a specific user hasn't read
      *
-     * @return the list of users who have read this conversation
+     * @param userUUID the user in question
+     * @return number of messages after the last one the user has read
      */
-    public Set<UUID> getUsersHaveRead() {
-        return usersHaveRead;
+    public int getUnreadCount(UUID userUUID) {
+        int watermark = getReadWatermarks().getOrDefault(userUUID, 0);
+        int deletedBefore = getDeletedBeforeWatermarks().computeIfAbsent(userUUID, k -> getDeletedMessageIds().headSet(watermark).size());
+
+        return Math.max(0, conversationMessages.size() - watermark - (getDeletedMessageIds().size() - deletedBefore));
     }
 
     /**
-     * gets whether a specific user has read this conversation
+     * Gets the number of messages each user has read
      *
-     * @param userUUID the user in question
-     * @return true if the user in question has read this conversation
+     * @return map from user UUID to the number of messages they have read. Users who haven't read any aren't in it.
      */
-    public boolean getUserHasRead(UUID userUUID) {
-        return usersHaveRead.contains(userUUID);
+    Map<UUID, Integer> getReadWatermarks() {
+        if (readWatermarks == null) {
+            // Saved before the watermarks were added; everyone who had read the conversation had read all of it
+            readWatermarks = new HashMap<>();
+
+            if (usersHaveRead != null) {
+                for (UUID userUUID : usersHaveRead) {
+                    readWatermarks.put(userUUID, conversationMessages.size());
+                }
+            }
+
+            usersHaveRead = null;
+        }
+
+        return readWatermarks;
     }
-}
\ No newline at end of file
+}
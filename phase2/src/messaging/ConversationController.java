@@ -2,9 +2,13 @@ package messaging;
 
 import contact.ContactManager;
 import messaging.exception.MessageDeniedException;
+import messaging.exception.NoReadAccessException;
 import user.UserManager;
+import util.event.ISubscription;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Operations on Conversations
@@ -88,6 +92,37 @@ public class ConversationController {
         return conversationManager.getMessages(executorUUID, conversationUUID, userManager.getUserIsGod(executorUUID));
     }
 
+    /**
+     * Gets a page of messages for a conversation a user has read access to, e.g. older messages as the user scrolls
+     * back. Throws NoReadAccessException if the user has no read access.
+     * <p>
+     * God users can bypass read-restrictions.
+     *
+     * @param executorUUID     The ID of the User
+     * @param conversationUUID The UUID of the Conversation for which the messages need to be seen
+     * @param fromIndex        id of the first message to get, 0 being the oldest
+     * @param limit            maximum number of messages to get
+     * @return up to limit messages starting at fromIndex
+     */
+    public MessagePage getMessages(UUID executorUUID, UUID conversationUUID, int fromIndex, int limit) {
+        return conversationManager.getMessages(executorUUID, conversationUUID, fromIndex, limit, userManager.getUserIsGod(executorUUID));
+    }
+
+    /**
+     * Gets the newest messages for a conversation a user has read access to. Throws NoReadAccessException if the user
+     * has no read access.
+     * <p>
+     * God users can bypass read-restrictions.
+     *
+     * @param executorUUID     The ID of the User
+     * @param conversationUUID The UUID of the Conversation for which the messages need to be seen
+     * @param limit            maximum number of messages to get
+     * @return the last limit messages, or all of them if there are fewer
+     */
+    public MessagePage getLatestMessages(UUID executorUUID, UUID conversationUUID, int limit) {
+        return conversationManager.getLatestMessages(executorUUID, conversationUUID, limit, userManager.getUserIsGod(executorUUID));
+    }
+
     /**
      * Get the conversation name
      *
@@ -120,6 +155,62 @@ public class ConversationController {
         }
     }
 
+    /**
+     * Gets a page of the conversations a user can see and hasn't archived, most recently active first. Unlike
+     * getConversationList, this doesn't go through every conversation, so it stays quick for god users.
+     *
+     * @param userUUID              UUID of the user
+     * @param afterConversationUUID UUID of the conversation to start after, i.e. the last one of the previous page. Null
+     *                              for the first page.
+     * @param limit                 maximum number of conversations to get
+     * @return UUIDs of up to limit conversations
+     */
+    public List<UUID> getInbox(UUID userUUID, UUID afterConversationUUID, int limit) {
+        return conversationManager.getInbox(userUUID, afterConversationUUID, limit, userManager.getUserIsGod(userUUID));
+    }
+
+    /**
+     * Tests if a user can send messages to a conversation. Members of announcement channels who aren't organizers can
+     * only read them.
+     *
+     * @param userUUID         UUID of the user
+     * @param conversationUUID UUID of the conversation
+     * @return true iff the user has write access, or is a god user
+     */
+    public boolean canSendMessages(UUID userUUID, UUID conversationUUID) {
+        return conversationManager.getConversation(conversationUUID).getWriteAccessUsers().contains(userUUID) || userManager.getUserIsGod(userUUID);
+    }
+
+    /**
+     * Has a listener told about each message sent, deleted or read in a conversation from now on, so a view can keep
+     * up with it without reloading. Throws NoReadAccessException if the user can't read the conversation.
+     *
+     * @param userUUID         UUID of the user the listener is showing the conversation to
+     * @param conversationUUID UUID of the conversation
+     * @param executor         runs the listener for each event, e.g. on the UI thread
+     * @param listener         called with each event, in order
+     * @return the subscription, to cancel when the listener is done
+     */
+    public ISubscription subscribe(UUID userUUID, UUID conversationUUID, Executor executor, Consumer<MessageEvent> listener) {
+        if (!conversationManager.getConversation(conversationUUID).getReadAccessUsers().contains(userUUID) && !userManager.getUserIsGod(userUUID)) {
+            throw new NoReadAccessException();
+        }
+
+        return conversationManager.subscribe(conversationUUID, executor, listener);
+    }
+
+    /**
+     * Searches the messages of every conversation a user can read. God users can search every conversation.
+     *
+     * @param userUUID UUID of the user searching
+     * @param query    words to search for
+     * @param limit    maximum number of results
+     * @return up to limit messages containing any of the words, best match first
+     */
+    public List<SearchResult> searchMessages(UUID userUUID, String query, int limit) {
+        return conversationManager.searchMessages(userUUID, query, limit, userManager.getUserIsGod(userUUID));
+    }
+
     /**
      * adds a specific user to a specific conversation
      *
@@ -181,17 +272,29 @@ public class ConversationController {
         return conversationManager.getUserHasRead(userUUID, conversationUUID);
     }
 
+    /**
+     * Gets the number of messages a user hasn't read in each of several conversations, e.g. for badges in a list of
+     * conversations
+     *
+     * @param userUUID          user in question
+     * @param conversationUUIDs conversations in question
+     * @return map from conversation UUID to the number of messages the user hasn't read in it
+     */
+    public Map<UUID, Integer> getUnreadCounts(UUID userUUID, Collection<UUID> conversationUUIDs) {
+        return conversationManager.getUnreadCounts(userUUID, conversationUUIDs);
+    }
+
 
     /**
      * Deletes a specific message if the message was sent by that person or is being deleted by a god user
      *
      * @param conversationUUID conversation in question
      * @param userUUID         user in question
-     * @param index            index of the message in question
+     * @param messageId        id of the message in question (see {@link MessageEntry#getIndex()})
      */
-    public void deleteMessage(UUID conversationUUID, UUID userUUID, int index) {
-        if (checkIfSender(conversationUUID, userUUID, index)) {
-            conversationManager.userDeleteMessage(conversationUUID, index);
+    public void deleteMessage(UUID conversationUUID, UUID userUUID, int messageId) {
+        if (checkIfSender(conversationUUID, userUUID, messageId)) {
+            conversationManager.userDeleteMessage(conversationUUID, messageId);
         }
     }
 
@@ -200,12 +303,13 @@ public class ConversationController {
      *
      * @param conversationUUID conversation in question
      * @param userUUID         user in question
-     * @param index            index of the message in question in the list of messages
-     * @return true if that user is a god user or the sender of the message
+     * @param messageId        id of the message in question
+     * @return true if the message hasn't been deleted, and that user is a god user or the sender of the message
      */
-    public boolean checkIfSender(UUID conversationUUID, UUID userUUID, int index) {
-        return conversationManager.getConversation(conversationUUID).getConversationMessages().get(index).getSenderUUID() == userUUID
-                || userManager.getUserIsGod(userUUID);
+    public boolean checkIfSender(UUID conversationUUID, UUID userUUID, int messageId) {
+        Message message = conversationManager.getConversation(conversationUUID).getConversationMessages().get(messageId);
+
+        return !message.isDeleted() && (message.getSenderUUID().equals(userUUID) || userManager.getUserIsGod(userUUID));
     }
 
 //    /**
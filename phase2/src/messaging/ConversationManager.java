@@ -3,14 +3,40 @@ package messaging;
 import messaging.exception.NoReadAccessException;
 import messaging.exception.NoWriteAccessException;
 import messaging.exception.NullConversationException;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
+import util.record.IRecordStore;
+import util.event.EventBus;
+import util.event.ISubscription;
+import util.segment.ChangeTracker;
+import util.segment.IChangeTracked;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Manages Conversation entities
  */
-public class ConversationManager implements Serializable {
+public class ConversationManager implements Serializable, IJournaled, IChangeTracked {
+    // Pinned so that save files from before the members index was added can still be loaded
+    private static final long serialVersionUID = -3201268868022236467L;
+
+    // Journal record opcodes
+    private static final int CREATE_CONVERSATION = 0;
+    private static final int DELETE_CONVERSATION = 1;
+    private static final int ADD_USER = 2;
+    private static final int REMOVE_USER = 3;
+    private static final int SEND_MESSAGE = 4;
+    private static final int READ = 5;
+    private static final int UNREAD = 6;
+    private static final int ARCHIVE = 7;
+    private static final int DELETE_MESSAGE = 8;
+    private static final int ADD_READER = 9;
 
     // Note that the userUUIDtoConversationUUIDs HashMap is only there for efficiency reasons
     // the permissions are decided based on the read/write access to each conversation
@@ -18,6 +44,50 @@ public class ConversationManager implements Serializable {
     private final Map<UUID, Set<UUID>> userUUIDtoConversationUUIDs = new HashMap<>();
     private final Map<UUID, Conversation> conversationUUIDsToEntity = new HashMap<>();
 
+    // Reverse of userUUIDtoConversationUUIDs, so the members of a conversation can be found without going through
+    // every user. Rebuilt from userUUIDtoConversationUUIDs on load instead of being saved.
+    private transient Map<UUID, Set<UUID>> conversationUUIDtoUserUUIDs;
+
+    private transient IJournal journal;
+
+    // Which conversations have changed since the last save
+    private transient ChangeTracker changeTracker;
+
+    // Where messages are kept if not in memory
+    private transient StoredMessages storedMessages;
+
+    // Conversations ordered by their newest message, newest first: every conversation, and for each user the ones
+    // they are in and haven't archived. Built on first use instead of being saved, and kept up to date after that.
+    private transient Map<UUID, Activity> conversationActivity;
+    private transient NavigableSet<Activity> conversationsByActivity;
+    private transient Map<UUID, NavigableSet<Activity>> inboxes;
+
+    // Index of message content for searching. Built on first use, like the activity index.
+    private transient MessageIndex messageIndex;
+
+    // Changes to the messages of each conversation, for views that are showing it
+    private transient EventBus<UUID, MessageEvent> messageEvents;
+
+    /**
+     * When a conversation last had a message. Ordered newest first, then by conversation UUID so that no two are equal.
+     */
+    private static final class Activity implements Comparable<Activity> {
+        private final LocalDateTime lastActivity;
+        private final UUID conversationUUID;
+
+        private Activity(LocalDateTime lastActivity, UUID conversationUUID) {
+            this.lastActivity = lastActivity;
+            this.conversationUUID = conversationUUID;
+        }
+
+        @Override
+        public int compareTo(Activity other) {
+            int order = other.lastActivity.compareTo(lastActivity);
+
+            return order != 0 ? order : conversationUUID.compareTo(other.conversationUUID);
+        }
+    }
+
     /**
      * Creates an instance of Conversation
      *
@@ -29,16 +99,36 @@ public class ConversationManager implements Serializable {
      * @return A chat with the given specifications
      */
     public UUID createConversation(String conversationName, Set<UUID> usersWrite, Set<UUID> usersRead, UUID senderUUID, String messageContent) {
+        return createConversation(UUID.randomUUID(), LocalDateTime.now(), conversationName, usersWrite, usersRead, senderUUID, messageContent);
+    }
+
+    /**
+     * Creates an instance of Conversation with a known UUID and initial message timestamp
+     *
+     * @param conversationUUID UUID of the new conversation
+     * @param timestamp        time the initial message was sent
+     * @param conversationName name of the conversation
+     * @param usersWrite       The set of users that have writing access to this conversation
+     * @param usersRead        The set of users that have reading access to this conversation
+     * @param senderUUID       the UUID of the sender of the message
+     * @param messageContent   The content of the message to be sent
+     * @return A chat with the given specifications
+     */
+    private UUID createConversation(UUID conversationUUID, LocalDateTime timestamp, String conversationName, Set<UUID> usersWrite, Set<UUID> usersRead, UUID senderUUID, String messageContent) {
         // Create an initial message that initiates a conversation
-        Message initialMessage = new Message(senderUUID, messageContent);
+        Message initialMessage = new Message(senderUUID, messageContent, timestamp);
         // Adds the initial messages
         List<Message> messages = new ArrayList<>();
         messages.add(initialMessage);
 
         // Add conversation object to UUID -> Conversation map
-        Conversation newConversation = new Conversation(conversationName, usersWrite, usersRead, messages);
-        UUID conversationUUID = newConversation.getConversationUUID();
+        Conversation newConversation = new Conversation(conversationUUID, conversationName, usersWrite, usersRead, messages);
         conversationUUIDsToEntity.put(conversationUUID, newConversation);
+        storeMessages(newConversation);
+
+        if (messageIndex != null) {
+            messageIndex.addConversation(conversationUUID, newConversation.getConversationMessages());
+        }
 
         // This contains all the users in this conversation
         Set<UUID> conversationUsers = new HashSet<>();
@@ -50,6 +140,12 @@ public class ConversationManager implements Serializable {
             addConversationToUserList(user, conversationUUID);
         }
 
+        updateActivity(newConversation);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(CREATE_CONVERSATION).putUUID(conversationUUID).putDateTime(timestamp)
+                .putString(conversationName).putUUIDs(usersWrite).putUUIDs(usersRead).putUUID(senderUUID).putString(messageContent));
+
         return conversationUUID;
     }
 
@@ -67,16 +163,54 @@ public class ConversationManager implements Serializable {
         return conversationUUIDsToEntity.get(conversationUUID);
     }
 
+    /**
+     * Gets the conversation to members index, building it if this manager was just loaded
+     *
+     * @return map of conversation UUIDs to the UUIDs of their members
+     */
+    private Map<UUID, Set<UUID>> getConversationUUIDtoUserUUIDs() {
+        if (conversationUUIDtoUserUUIDs == null) {
+            conversationUUIDtoUserUUIDs = new HashMap<>();
+
+            for (Map.Entry<UUID, Set<UUID>> userConversations : userUUIDtoConversationUUIDs.entrySet()) {
+                for (UUID conversationUUID : userConversations.getValue()) {
+                    conversationUUIDtoUserUUIDs.computeIfAbsent(conversationUUID, k -> new HashSet<>()).add(userConversations.getKey());
+                }
+            }
+        }
+
+        return conversationUUIDtoUserUUIDs;
+    }
+
     private void addConversationToUserList(UUID userUUID, UUID conversationUUID) {
         userUUIDtoConversationUUIDs.computeIfAbsent(userUUID, k -> new HashSet<>());
 
         userUUIDtoConversationUUIDs.get(userUUID).add(conversationUUID);
+        getConversationUUIDtoUserUUIDs().computeIfAbsent(conversationUUID, k -> new HashSet<>()).add(userUUID);
+
+        if (conversationActivity != null && conversationActivity.containsKey(conversationUUID)
+                && !getConversation(conversationUUID).getUserArchivedUUIDs().contains(userUUID)) {
+            inboxes.computeIfAbsent(userUUID, k -> new TreeSet<>()).add(conversationActivity.get(conversationUUID));
+        }
     }
 
     private void removeConversationFromUserList(UUID userUUID, UUID conversationUUID) {
         if (userUUIDtoConversationUUIDs.get(userUUID) != null) {
             userUUIDtoConversationUUIDs.get(userUUID).remove(conversationUUID);
         }
+
+        Set<UUID> usersInConversation = getConversationUUIDtoUserUUIDs().get(conversationUUID);
+
+        if (usersInConversation != null) {
+            usersInConversation.remove(userUUID);
+
+            // Views from getUsers look the set up again, so they still follow the conversation if users are added back
+            if (usersInConversation.isEmpty()) {
+                getConversationUUIDtoUserUUIDs().remove(conversationUUID);
+            }
+        }
+
+        removeFromInbox(userUUID, conversationUUID);
     }
 
     /**
@@ -98,6 +232,23 @@ public class ConversationManager implements Serializable {
         }
 
         conversationUUIDsToEntity.remove(conversationUUID);
+        getConversationUUIDtoUserUUIDs().remove(conversationUUID);
+
+        if (conversationActivity != null && conversationActivity.containsKey(conversationUUID)) {
+            conversationsByActivity.remove(conversationActivity.remove(conversationUUID));
+        }
+
+        if (messageIndex != null) {
+            messageIndex.removeConversation(conversationUUID);
+        }
+
+        // Otherwise the messages would be left on disk for good
+        if (conversation.isMessagesStored()) {
+            storedMessages.delete(conversationUUID);
+        }
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(DELETE_CONVERSATION).putUUID(conversationUUID));
     }
 
     /**
@@ -115,24 +266,59 @@ public class ConversationManager implements Serializable {
 
         // Add conversation to user's list
         addConversationToUserList(userUUID, conversationUUID);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(ADD_USER).putUUID(userUUID).putUUID(conversationUUID));
+    }
+
+    /**
+     * Adds a user to a specific chat with read access only, e.g. to an announcement channel
+     *
+     * @param userUUID         The userUUID of the user to be added to the Chat
+     * @param conversationUUID The UUID of the conversation/chat to which the user needs to be added
+     */
+    public void addReader(UUID userUUID, UUID conversationUUID) {
+        Conversation conversation = getConversation(conversationUUID);
+
+        conversation.removeUserFromWrite(userUUID);
+        conversation.grantReadAccess(userUUID);
+
+        addConversationToUserList(userUUID, conversationUUID);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(ADD_READER).putUUID(userUUID).putUUID(conversationUUID));
     }
 
     /**
      * Returns the UUID of users who are part of a Conversation
+     * <p>
+     * The returned set is a read-only view that follows later changes to the conversation, even while it has no users,
+     * so copy it before adding or removing users while iterating over it.
      *
      * @param conversationUUID The UUID of a Conversation/Chat Group
      * @return set of users in the conversation
      */
     public Set<UUID> getUsers(UUID conversationUUID) {
-        Set<UUID> usersInConversation = new HashSet<>();
-        Set<UUID> allUsersUUID = userUUIDtoConversationUUIDs.keySet();
-        for (UUID userUUID : allUsersUUID) {
-            if (userUUIDtoConversationUUIDs.get(userUUID).contains(conversationUUID)) {
-                usersInConversation.add(userUUID);
+        return new AbstractSet<UUID>() {
+            private Set<UUID> users() {
+                return getConversationUUIDtoUserUUIDs().getOrDefault(conversationUUID, Collections.emptySet());
             }
 
-        }
-        return usersInConversation;
+            @Override
+            public Iterator<UUID> iterator() {
+                return Collections.unmodifiableSet(users()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return users().size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return users().contains(o);
+            }
+        };
     }
 
     /**
@@ -150,6 +336,9 @@ public class ConversationManager implements Serializable {
 
         // Add conversation to user's list
         removeConversationFromUserList(userUUID, conversationUUID);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(REMOVE_USER).putUUID(userUUID).putUUID(conversationUUID));
     }
 
     /**
@@ -183,6 +372,18 @@ public class ConversationManager implements Serializable {
         return getConversation(conversationUUID).getConversationName();
     }
 
+    /**
+     * Sends a particular message to a specific chat. Throws NoWriteAccessException if the sender doesn't have write
+     * access to it.
+     *
+     * @param senderUUID       the UUID of the sender of the message
+     * @param messageContent   The content of the message to be sent
+     * @param conversationUUID the conversation UUID of the conversation to which this message has to be added
+     */
+    public void sendMessage(UUID senderUUID, String messageContent, UUID conversationUUID) {
+        sendMessage(senderUUID, messageContent, conversationUUID, false);
+    }
+
     /**
      * Sends a particular message to a specific chat
      *
@@ -198,14 +399,37 @@ public class ConversationManager implements Serializable {
         UUID userUUID = message.getSenderUUID();
 
         if (conversation.getWriteAccessUsers().contains(userUUID) || bypassRestriction) {
-            conversation.addMessage(message);
-            conversation.resetUserArchivedUUIDs();
-            conversation.resetUsersHaveRead();
+            postMessage(conversation, message);
+
+            getChangeTracker().markChanged(conversationUUID);
+            record(new JournalRecord(SEND_MESSAGE).putUUID(conversationUUID).putUUID(senderUUID)
+                    .putString(messageContent).putDateTime(message.getTimestamp()));
         } else {
             throw new NoWriteAccessException();
         }
     }
 
+    /**
+     * Adds a message to a conversation and unarchives it for everyone. The message counts as unread for everyone
+     * until they next read the conversation.
+     *
+     * @param conversation conversation to add to
+     * @param message      message to add
+     */
+    private void postMessage(Conversation conversation, Message message) {
+        int messageCount = conversation.getConversationMessages().size();
+        conversation.addMessage(message);
+
+        if (messageIndex != null) {
+            messageIndex.addMessage(conversation.getConversationUUID(), messageCount, message.getContent());
+        }
+
+        publish(MessageEvent.appended(conversation.getConversationUUID(), new MessageEntry(messageCount, message)));
+
+        conversation.resetUserArchivedUUIDs();
+        updateActivity(conversation);
+    }
+
     /**
      * Gets messages for a conversation a user has read access to. Throws NoReadAccessException if the user has no
      * read access.
@@ -216,26 +440,107 @@ public class ConversationManager implements Serializable {
      * @return returns an List of Maps. Each Map stores information about a message in the conversation.
      */
     List<Map<String, String>> getMessages(UUID userUUID, UUID conversationUUID, boolean bypassRestriction) {
-        Conversation conversation = getConversation(conversationUUID);
+        Conversation conversation = openConversation(userUUID, conversationUUID, bypassRestriction);
+        List<Map<String, String>> newList = new ArrayList<>();
+
+        for (Message message : conversation.getConversationMessages()) {
+            if (message.isDeleted()) {
+                continue;
+            }
 
-        conversation.getUsersHaveRead().add(userUUID);
-        if (conversation.getReadAccessUsers().contains(userUUID) || bypassRestriction) {
-            List<Map<String, String>> newList = new ArrayList<>();
+            Map<String, String> messageMap = new HashMap<>();
+            messageMap.put("sender", message.getSenderUUID().toString());
+            messageMap.put("timestamp", message.getTimestamp().toString());
+            messageMap.put("content", message.getContent());
+            newList.add(messageMap);
+        }
+        return newList;
+    }
+
+    /**
+     * Gets a page of messages for a conversation a user has read access to. Throws NoReadAccessException if the user
+     * has no read access.
+     *
+     * @param userUUID          The ID of the User
+     * @param conversationUUID  The UUID of the Conversation for which the messages need to be seen
+     * @param fromIndex         id of the first message to get, 0 being the oldest
+     * @param limit             maximum number of messages to get
+     * @param bypassRestriction whether to bypass read access restrictions
+     * @return up to limit messages starting at fromIndex. Empty if fromIndex is past the last message.
+     */
+    MessagePage getMessages(UUID userUUID, UUID conversationUUID, int fromIndex, int limit, boolean bypassRestriction) {
+        if (fromIndex < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative message index or limit");
+        }
 
-            // Mark this conversation as read
-            conversation.readConversation(userUUID);
+        Conversation conversation = openConversation(userUUID, conversationUUID, bypassRestriction);
+        List<Message> messages = conversation.getConversationMessages();
+        int start = Math.min(fromIndex, messages.size());
+        int end = start;
 
-            for (Message message : conversation.getConversationMessages()) {
-                Map<String, String> messageMap = new HashMap<>();
-                messageMap.put("sender", message.getSenderUUID().toString());
-                messageMap.put("timestamp", message.getTimestamp().toString());
-                messageMap.put("content", message.getContent());
-                newList.add(messageMap);
+        // Deleted messages don't count towards the limit
+        for (int found = 0; end < messages.size() && found < limit; end++) {
+            if (!conversation.isMessageDeleted(end)) {
+                found++;
             }
-            return newList;
-        } else {
+        }
+
+        return new MessagePage(messages, start, end, conversation.getMessageCount());
+    }
+
+    /**
+     * Gets the newest messages for a conversation a user has read access to. Throws NoReadAccessException if the user
+     * has no read access.
+     *
+     * @param userUUID          The ID of the User
+     * @param conversationUUID  The UUID of the Conversation for which the messages need to be seen
+     * @param limit             maximum number of messages to get
+     * @param bypassRestriction whether to bypass read access restrictions
+     * @return the last limit messages, or all of them if there are fewer
+     */
+    MessagePage getLatestMessages(UUID userUUID, UUID conversationUUID, int limit, boolean bypassRestriction) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative message limit");
+        }
+
+        Conversation conversation = openConversation(userUUID, conversationUUID, bypassRestriction);
+        List<Message> messages = conversation.getConversationMessages();
+        int start = messages.size();
+
+        // Deleted messages don't count towards the limit
+        for (int found = 0; start > 0 && found < limit; start--) {
+            if (!conversation.isMessageDeleted(start - 1)) {
+                found++;
+            }
+        }
+
+        return new MessagePage(messages, start, messages.size(), conversation.getMessageCount());
+    }
+
+    /**
+     * Checks that a user has read access to a conversation, then marks it as read by them. Throws
+     * NoReadAccessException if the user has no read access.
+     *
+     * @param userUUID          The ID of the User
+     * @param conversationUUID  The UUID of the Conversation being read
+     * @param bypassRestriction whether to bypass read access restrictions
+     * @return the conversation
+     */
+    private Conversation openConversation(UUID userUUID, UUID conversationUUID, boolean bypassRestriction) {
+        Conversation conversation = getConversation(conversationUUID);
+
+        if (!conversation.getReadAccessUsers().contains(userUUID) && !bypassRestriction) {
             throw new NoReadAccessException();
         }
+
+        // Fetching another page of a conversation that was already read doesn't change anything
+        if (conversation.readConversation(userUUID)) {
+            getChangeTracker().markChanged(conversationUUID);
+            record(new JournalRecord(READ).putUUID(userUUID).putUUID(conversationUUID));
+            publish(MessageEvent.read(conversationUUID, userUUID, conversation.getReadWatermarks().get(userUUID)));
+        }
+
+        return conversation;
     }
 
     /**
@@ -247,6 +552,10 @@ public class ConversationManager implements Serializable {
     public void userUnreadConversation(UUID userUUID, UUID conversationUUID) {
         Conversation conversation = getConversation(conversationUUID);
         conversation.unreadConversation(userUUID);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(UNREAD).putUUID(userUUID).putUUID(conversationUUID));
+        publish(MessageEvent.read(conversationUUID, userUUID, conversation.getReadWatermarks().getOrDefault(userUUID, 0)));
     }
 
     /**
@@ -257,6 +566,10 @@ public class ConversationManager implements Serializable {
      */
     public void userArchiveConversation(UUID userUUID, UUID conversationUUID) {
         getConversation(conversationUUID).archiveConversation(userUUID);
+        removeFromInbox(userUUID, conversationUUID);
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(ARCHIVE).putUUID(userUUID).putUUID(conversationUUID));
     }
 
     /**
@@ -281,15 +594,390 @@ public class ConversationManager implements Serializable {
     }
 
     /**
-     * deletes a message
+     * Gets the number of messages a user hasn't read in each of several conversations
+     *
+     * @param userUUID          user in question
+     * @param conversationUUIDs conversations in question
+     * @return map from conversation UUID to the number of messages the user hasn't read in it
+     */
+    public Map<UUID, Integer> getUnreadCounts(UUID userUUID, Collection<UUID> conversationUUIDs) {
+        Map<UUID, Integer> unreadCounts = new HashMap<>();
+
+        for (UUID conversationUUID : conversationUUIDs) {
+            unreadCounts.put(conversationUUID, getConversation(conversationUUID).getUnreadCount(userUUID));
+        }
+
+        return unreadCounts;
+    }
+
+    /**
+     * Gets the conversations a user is in and hasn't archived, most recently active first
      *
+     * @param userUUID              user in question
+     * @param afterConversationUUID conversation to start after, e.g. the last one of the previous page. Null to start
+     *                              with the most recently active.
+     * @param limit                 maximum number of conversations to get
+     * @param allConversations      whether to include every conversation in the system, not just the user's
+     * @return UUIDs of up to limit conversations
+     */
+    List<UUID> getInbox(UUID userUUID, UUID afterConversationUUID, int limit, boolean allConversations) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative conversation limit");
+        }
+
+        buildActivityIndex();
+
+        NavigableSet<Activity> conversations = allConversations ? conversationsByActivity : inboxes.get(userUUID);
+        List<UUID> inbox = new ArrayList<>();
+
+        if (conversations == null) {
+            return inbox;
+        }
+
+        if (afterConversationUUID != null) {
+            getConversation(afterConversationUUID);
+            conversations = conversations.tailSet(conversationActivity.get(afterConversationUUID), false);
+        }
+
+        for (Activity activity : conversations) {
+            if (inbox.size() == limit) {
+                break;
+            }
+
+            // Only the user's own conversations are kept without the ones they archived
+            if (!allConversations || !getConversation(activity.conversationUUID).getUserArchivedUUIDs().contains(userUUID)) {
+                inbox.add(activity.conversationUUID);
+            }
+        }
+
+        return inbox;
+    }
+
+    /**
+     * Builds the conversation activity index, if this manager was just loaded
+     */
+    private void buildActivityIndex() {
+        if (conversationActivity != null) {
+            return;
+        }
+
+        conversationActivity = new HashMap<>();
+        conversationsByActivity = new TreeSet<>();
+        inboxes = new HashMap<>();
+
+        for (Conversation conversation : conversationUUIDsToEntity.values()) {
+            Activity activity = new Activity(conversation.getLastActivity(), conversation.getConversationUUID());
+
+            conversationActivity.put(activity.conversationUUID, activity);
+            conversationsByActivity.add(activity);
+        }
+
+        for (Map.Entry<UUID, Set<UUID>> userConversations : userUUIDtoConversationUUIDs.entrySet()) {
+            NavigableSet<Activity> inbox = new TreeSet<>();
+
+            for (UUID conversationUUID : userConversations.getValue()) {
+                Conversation conversation = conversationUUIDsToEntity.get(conversationUUID);
+
+                if (conversation != null && !conversation.getUserArchivedUUIDs().contains(userConversations.getKey())) {
+                    inbox.add(conversationActivity.get(conversationUUID));
+                }
+            }
+
+            inboxes.put(userConversations.getKey(), inbox);
+        }
+    }
+
+    /**
+     * Moves a conversation to its place by last activity, and puts it back in the inboxes of members who had archived
+     * it but no longer have. Does nothing if the index hasn't been built yet.
+     *
+     * @param conversation the conversation
+     */
+    private void updateActivity(Conversation conversation) {
+        if (conversationActivity == null) {
+            return;
+        }
+
+        UUID conversationUUID = conversation.getConversationUUID();
+        Activity oldActivity = conversationActivity.get(conversationUUID);
+        Activity newActivity = new Activity(conversation.getLastActivity(), conversationUUID);
+
+        // Removed before the new one is added, since the two are equal if the last activity didn't change
+        if (oldActivity != null) {
+            conversationsByActivity.remove(oldActivity);
+        }
+
+        conversationActivity.put(conversationUUID, newActivity);
+        conversationsByActivity.add(newActivity);
+
+        for (UUID userUUID : getUsers(conversationUUID)) {
+            NavigableSet<Activity> inbox = inboxes.computeIfAbsent(userUUID, k -> new TreeSet<>());
+
+            if (oldActivity != null) {
+                inbox.remove(oldActivity);
+            }
+
+            if (!conversation.getUserArchivedUUIDs().contains(userUUID)) {
+                inbox.add(newActivity);
+            }
+        }
+    }
+
+    /**
+     * Takes a conversation out of a user's inbox, if the index has been built
+     *
+     * @param userUUID         user in question
      * @param conversationUUID conversation in question
-     * @param index            index on a message in the list of messages
      */
-    public void userDeleteMessage(UUID conversationUUID, int index) {
-        getConversation(conversationUUID).deleteMessage(index);
+    private void removeFromInbox(UUID userUUID, UUID conversationUUID) {
+        if (conversationActivity != null && conversationActivity.containsKey(conversationUUID) && inboxes.containsKey(userUUID)) {
+            inboxes.get(userUUID).remove(conversationActivity.get(conversationUUID));
+        }
+    }
+
+    /**
+     * Searches the content of the messages in every conversation a user has read access to
+     *
+     * @param userUUID          user searching
+     * @param query             words to search for
+     * @param limit             maximum number of results
+     * @param bypassRestriction whether to bypass read access restrictions
+     * @return up to limit messages containing any of the words, best match first
+     */
+    List<SearchResult> searchMessages(UUID userUUID, String query, int limit, boolean bypassRestriction) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative result limit");
+        }
+
+        List<SearchResult> results = new ArrayList<>();
+        List<MessageIndex.Hit> hits = getMessageIndex().search(query,
+                conversationUUID -> bypassRestriction || getConversation(conversationUUID).getReadAccessUsers().contains(userUUID), limit);
 
+        for (MessageIndex.Hit hit : hits) {
+            List<Message> messages = getConversation(hit.getConversationUUID()).getConversationMessages();
+            MessageEntry message = new MessageEntry(hit.getMessageIndex(), messages.get(hit.getMessageIndex()));
+
+            results.add(new SearchResult(hit.getConversationUUID(), message, hit.getScore()));
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the message content index, building it if this manager was just loaded
+     *
+     * @return the index
+     */
+    private MessageIndex getMessageIndex() {
+        if (messageIndex == null) {
+            messageIndex = new MessageIndex();
+
+            for (Conversation conversation : conversationUUIDsToEntity.values()) {
+                messageIndex.addConversation(conversation.getConversationUUID(), conversation.getConversationMessages());
+            }
+        }
+
+        return messageIndex;
     }
 
+    /**
+     * deletes a message. The ids of the other messages stay the same.
+     *
+     * @param conversationUUID conversation in question
+     * @param messageId        id of the message in question
+     */
+    public void userDeleteMessage(UUID conversationUUID, int messageId) {
+        Conversation conversation = getConversation(conversationUUID);
 
+        if (conversation.isMessageDeleted(messageId)) {
+            return;
+        }
+
+        String content = conversation.getConversationMessages().get(messageId).getContent();
+        conversation.deleteMessage(messageId);
+
+        // The conversation's last activity goes back if its newest message was deleted
+        updateActivity(conversation);
+
+        if (messageIndex != null) {
+            messageIndex.removeMessage(conversationUUID, messageId, content);
+        }
+
+        getChangeTracker().markChanged(conversationUUID);
+        record(new JournalRecord(DELETE_MESSAGE).putUUID(conversationUUID).putInt(messageId));
+        publish(MessageEvent.deleted(conversationUUID, messageId));
+    }
+
+    /**
+     * Gets the map of conversations by UUID, for the codec
+     *
+     * @return the live map of conversations
+     */
+    Map<UUID, Conversation> getConversationMap() {
+        return conversationUUIDsToEntity;
+    }
+
+    /**
+     * Gets the map of user UUIDs to the UUIDs of their conversations, for the codec
+     *
+     * @return the live map of conversation memberships
+     */
+    Map<UUID, Set<UUID>> getUserConversationMap() {
+        return userUUIDtoConversationUUIDs;
+    }
+
+    /**
+     * Keeps every conversation's messages in a record store from now on, instead of in memory. Messages loaded from a
+     * save that kept them with their conversations are moved to the store.
+     * <p>
+     * Not for use with a journal, since replaying it would add the messages to the store again.
+     *
+     * @param store where to keep the messages
+     */
+    public void setMessageStore(IRecordStore store) {
+        storedMessages = new StoredMessages(store);
+
+        for (Conversation conversation : conversationUUIDsToEntity.values()) {
+            storeMessages(conversation);
+        }
+    }
+
+    /**
+     * Reads every conversation's messages out of a record store that {@link #setMessageStore} kept them in, and keeps
+     * them in memory from now on. For moving a save that used a message store over to a journal.
+     *
+     * @param store where the messages were kept
+     */
+    public void readMessages(IRecordStore store) {
+        StoredMessages readFrom = new StoredMessages(store);
+
+        for (Conversation conversation : conversationUUIDsToEntity.values()) {
+            List<Message> stored = readFrom.getMessages(conversation.getConversationUUID());
+
+            // A conversation saved without its messages has none in memory. One saved before they were moved has
+            // them all, and the store has at most some of them.
+            if (stored.size() > conversation.getConversationMessages().size()) {
+                conversation.setConversationMessages(new ArrayList<>(stored));
+            }
+        }
+    }
+
+    /**
+     * Moves a conversation's messages to the message store, if there is one
+     *
+     * @param conversation the conversation
+     */
+    private void storeMessages(Conversation conversation) {
+        if (storedMessages == null || conversation.isMessagesStored()) {
+            return;
+        }
+
+        List<Message> messages = conversation.getConversationMessages();
+        List<Message> stored = storedMessages.getMessages(conversation.getConversationUUID());
+
+        // Messages are moved in order, so any already in the store were moved there by a run that stopped before
+        // saving the conversation without them
+        if (stored.size() < messages.size()) {
+            stored.addAll(messages.subList(stored.size(), messages.size()));
+        }
+
+        conversation.setConversationMessages(stored);
+
+        if (!messages.isEmpty()) {
+            getChangeTracker().markChanged(conversation.getConversationUUID());
+        }
+    }
+
+    /**
+     * Subscribes a listener to the changes to a conversation's messages. Doesn't check read access.
+     *
+     * @param conversationUUID conversation in question
+     * @param executor         runs the listener for each event
+     * @param listener         called with each event
+     * @return the subscription, to cancel when the listener is done
+     */
+    ISubscription subscribe(UUID conversationUUID, Executor executor, Consumer<MessageEvent> listener) {
+        if (messageEvents == null) {
+            messageEvents = new EventBus<>();
+        }
+
+        return messageEvents.subscribe(conversationUUID, executor, listener);
+    }
+
+    /**
+     * Sends an event to the listeners of its conversation, if there are any
+     *
+     * @param event the event
+     */
+    private void publish(MessageEvent event) {
+        if (messageEvents != null) {
+            messageEvents.publish(event.getConversationUUID(), event);
+        }
+    }
+
+    @Override
+    public ChangeTracker getChangeTracker() {
+        if (changeTracker == null) {
+            changeTracker = new ChangeTracker();
+        }
+
+        return changeTracker;
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case CREATE_CONVERSATION:
+                createConversation(record.nextUUID(), record.nextDateTime(), record.nextString(), record.nextUUIDs(),
+                        record.nextUUIDs(), record.nextUUID(), record.nextString());
+                break;
+            case DELETE_CONVERSATION:
+                deleteConversation(record.nextUUID());
+                break;
+            case ADD_USER:
+                addUser(record.nextUUID(), record.nextUUID());
+                break;
+            case REMOVE_USER:
+                removeUser(record.nextUUID(), record.nextUUID());
+                break;
+            case ADD_READER:
+                addReader(record.nextUUID(), record.nextUUID());
+                break;
+            case SEND_MESSAGE:
+                Conversation conversation = getConversation(record.nextUUID());
+                postMessage(conversation, new Message(record.nextUUID(), record.nextString(), record.nextDateTime()));
+                break;
+            case READ:
+                UUID userUUID = record.nextUUID();
+                getConversation(record.nextUUID()).readConversation(userUUID);
+                break;
+            case UNREAD:
+                userUnreadConversation(record.nextUUID(), record.nextUUID());
+                break;
+            case ARCHIVE:
+                userArchiveConversation(record.nextUUID(), record.nextUUID());
+                break;
+            case DELETE_MESSAGE:
+                userDeleteMessage(record.nextUUID(), record.nextInt());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package messaging;
+
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.codec.ICodec;
+import util.segment.ISegmentCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts a ConversationManager, including every conversation and message, to and from the compact binary format,
+ * either whole or as one segment per conversation. A segment leaves out the messages if they are kept in a message
+ * store (see {@link ConversationManager#setMessageStore}).
+ */
+public class ConversationManagerCodec implements ICodec<ConversationManager>, ISegmentCodec<ConversationManager> {
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(BinaryWriter out, ConversationManager conversationManager) throws IOException {
+        Map<UUID, Conversation> conversations = conversationManager.getConversationMap();
+        out.writeVarInt(conversations.size());
+
+        for (Conversation conversation : conversations.values()) {
+            writeConversation(out, conversation, false);
+        }
+
+        Map<UUID, Set<UUID>> userConversations = conversationManager.getUserConversationMap();
+        out.writeVarInt(userConversations.size());
+
+        for (Map.Entry<UUID, Set<UUID>> entry : userConversations.entrySet()) {
+            out.writeUUID(entry.getKey());
+            out.writeUUIDs(entry.getValue());
+        }
+    }
+
+    @Override
+    public ConversationManager read(BinaryReader in, int version) throws IOException {
+        ConversationManager conversationManager = new ConversationManager();
+
+        Map<UUID, Conversation> conversations = conversationManager.getConversationMap();
+        int conversationCount = in.readVarInt();
+
+        for (int i = 0; i < conversationCount; i++) {
+            Conversation conversation = readConversation(in, false);
+            conversations.put(conversation.getConversationUUID(), conversation);
+        }
+
+        Map<UUID, Set<UUID>> userConversations = conversationManager.getUserConversationMap();
+        int userCount = in.readVarInt();
+
+        for (int i = 0; i < userCount; i++) {
+            userConversations.put(in.readUUID(), in.readUUIDs());
+        }
+
+        return conversationManager;
+    }
+
+    @Override
+    public ConversationManager create() {
+        return new ConversationManager();
+    }
+
+    @Override
+    public Set<UUID> getSegments(ConversationManager conversationManager) {
+        return new HashSet<>(conversationManager.getConversationMap().keySet());
+    }
+
+    @Override
+    public boolean hasSegment(ConversationManager conversationManager, UUID conversationUUID) {
+        return conversationManager.getConversationMap().containsKey(conversationUUID);
+    }
+
+    @Override
+    public void writeRoot(BinaryWriter out, ConversationManager conversationManager) {
+        // Which users are in which conversations is saved with each conversation
+    }
+
+    @Override
+    public void readRoot(BinaryReader in, int version, ConversationManager conversationManager) {
+    }
+
+    @Override
+    public void writeSegment(BinaryWriter out, ConversationManager conversationManager, UUID conversationUUID) throws IOException {
+        writeConversation(out, conversationManager.getConversationMap().get(conversationUUID), true);
+        out.writeUUIDs(conversationManager.getUsers(conversationUUID));
+    }
+
+    @Override
+    public void readSegment(BinaryReader in, int version, ConversationManager conversationManager) throws IOException {
+        Conversation conversation = readConversation(in, true);
+        UUID conversationUUID = conversation.getConversationUUID();
+
+        conversationManager.getConversationMap().put(conversationUUID, conversation);
+
+        for (UUID userUUID : in.readUUIDs()) {
+            conversationManager.getUserConversationMap().computeIfAbsent(userUUID, k -> new HashSet<>()).add(conversationUUID);
+        }
+    }
+
+    /**
+     * Writes a conversation
+     *
+     * @param out          where to write
+     * @param conversation the conversation
+     * @param segment      whether it's being written as a segment, and can leave out messages kept in a message store
+     */
+    private void writeConversation(BinaryWriter out, Conversation conversation, boolean segment) throws IOException {
+        out.writeUUID(conversation.getConversationUUID());
+        out.writeString(conversation.getConversationName());
+        out.writeUUIDs(conversation.getWriteAccessUsers());
+        out.writeUUIDs(conversation.getReadAccessUsers());
+        out.writeUUIDs(conversation.getUserArchivedUUIDs());
+
+        Map<UUID, Integer> readWatermarks = conversation.getReadWatermarks();
+        out.writeVarInt(readWatermarks.size());
+
+        for (Map.Entry<UUID, Integer> entry : readWatermarks.entrySet()) {
+            out.writeUUID(entry.getKey());
+            out.writeVarInt(entry.getValue());
+        }
+
+        if (segment) {
+            out.writeBoolean(conversation.isMessagesStored());
+
+            if (conversation.isMessagesStored()) {
+                return;
+            }
+        }
+
+        List<Message> messages = conversation.getConversationMessages();
+        out.writeVarInt(messages.size());
+
+        for (Message message : messages) {
+            out.writeUUID(message.getSenderUUID());
+            out.writeBoolean(message.isDeleted());
+            out.writeString(message.getContent());
+            out.writeDateTime(message.getTimestamp());
+        }
+    }
+
+    /**
+     * Reads a conversation written by {@link #writeConversation}. If its messages were left out, the conversation
+     * has none until the message store is set.
+     */
+    private Conversation readConversation(BinaryReader in, boolean segment) throws IOException {
+        UUID conversationUUID = in.readUUID();
+        String name = in.readString();
+        Set<UUID> writeAccessUsers = in.readUUIDs();
+        Set<UUID> readAccessUsers = in.readUUIDs();
+        Set<UUID> userArchivedUUIDs = in.readUUIDs();
+        Map<UUID, Integer> readWatermarks = new HashMap<>();
+        int watermarkCount = in.readVarInt();
+
+        for (int i = 0; i < watermarkCount; i++) {
+            readWatermarks.put(in.readUUID(), in.readVarInt());
+        }
+
+        List<Message> messages = new ArrayList<>();
+
+        if (!segment || !in.readBoolean()) {
+            int messageCount = in.readVarInt();
+
+            for (int i = 0; i < messageCount; i++) {
+                UUID senderUUID = in.readUUID();
+                boolean deleted = in.readBoolean();
+
+                messages.add(new Message(senderUUID, in.readString(), in.readDateTime(), deleted));
+            }
+        }
+
+        Conversation conversation = new Conversation(conversationUUID, name, writeAccessUsers, readAccessUsers, messages);
+        conversation.getUserArchivedUUIDs().addAll(userArchivedUUIDs);
+        conversation.getReadWatermarks().putAll(readWatermarks);
+
+        return conversation;
+    }
+}
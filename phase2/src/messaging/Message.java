@@ -8,9 +8,12 @@ import java.util.UUID;
  * Contains information about individual messages, such as the sender, timestamp, etc.
  */
 class Message implements Serializable {
+    private static final long serialVersionUID = -7453064121014083970L;
+
     private final String content;
     private final LocalDateTime timestamp;
     private final UUID senderUUID;
+    private final boolean deleted;
 
     /**
      * Constructor for Message.
@@ -19,9 +22,33 @@ class Message implements Serializable {
      * @param messageContent The content of the message to be sent.
      */
     Message(UUID senderUUID, String messageContent) {
-        content = messageContent;
-        timestamp = LocalDateTime.now();
+        this(senderUUID, messageContent, LocalDateTime.now());
+    }
+
+    /**
+     * Constructor for Message with a known timestamp, used when replaying the journal.
+     *
+     * @param senderUUID     The UUID of the sender of the message
+     * @param messageContent The content of the message to be sent.
+     * @param timestamp      The date and time the message was sent
+     */
+    Message(UUID senderUUID, String messageContent, LocalDateTime timestamp) {
+        this(senderUUID, messageContent, timestamp, false);
+    }
+
+    /**
+     * Constructor for Message that may be what's left of a deleted one, used when loading messages
+     *
+     * @param senderUUID     The UUID of the sender of the message
+     * @param messageContent The content of the message, or null if it was deleted
+     * @param timestamp      The date and time the message was sent
+     * @param deleted        whether the message has been deleted
+     */
+    Message(UUID senderUUID, String messageContent, LocalDateTime timestamp, boolean deleted) {
+        this.content = deleted ? null : messageContent;
+        this.timestamp = timestamp;
         this.senderUUID = senderUUID;
+        this.deleted = deleted;
     }
 
     /**
@@ -51,6 +78,25 @@ class Message implements Serializable {
         return timestamp;
     }
 
+    /**
+     * Tests if this message has been deleted. A deleted message keeps its place in its conversation, so that the
+     * messages after it keep their ids, but not its content.
+     *
+     * @return true iff this is what's left of a deleted message
+     */
+    boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Makes what's left of this message once it's deleted
+     *
+     * @return a message with the same sender and timestamp, but no content
+     */
+    Message toTombstone() {
+        return new Message(senderUUID, null, timestamp, true);
+    }
+
     /**
      * The toString method for the message
      */
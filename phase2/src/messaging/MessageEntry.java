@@ -0,0 +1,58 @@
+package messaging;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only copy of a message, as handed out to the UI
+ */
+public final class MessageEntry {
+    private final int index;
+    private final UUID senderUUID;
+    private final LocalDateTime timestamp;
+    private final String content;
+
+    /**
+     * Copies a message
+     *
+     * @param index   id of the message in its conversation
+     * @param message the message
+     */
+    MessageEntry(int index, Message message) {
+        this.index = index;
+        this.senderUUID = message.getSenderUUID();
+        this.timestamp = message.getTimestamp();
+        this.content = message.getContent();
+    }
+
+    /**
+     * Gets the id of the message, e.g. to delete it. This is its position in its conversation counting deleted
+     * messages, so it never changes.
+     *
+     * @return id of the message, 0 being the oldest
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return UUID of the message sender
+     */
+    public UUID getSenderUUID() {
+        return senderUUID;
+    }
+
+    /**
+     * @return the date and time that the message was sent
+     */
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the content of the message
+     */
+    public String getContent() {
+        return content;
+    }
+}
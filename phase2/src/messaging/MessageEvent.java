@@ -0,0 +1,97 @@
+package messaging;
+
+import java.util.UUID;
+
+/**
+ * Something that happened to the messages of a conversation, for views to apply instead of reloading the whole
+ * conversation
+ */
+public final class MessageEvent {
+    /**
+     * What happened
+     */
+    public enum Type {
+        APPENDED, // a message was sent
+        DELETED, // a message was deleted
+        READ // how far a user has read changed
+    }
+
+    private final Type type;
+    private final UUID conversationUUID;
+    private final int messageId;
+    private final MessageEntry message;
+    private final UUID userUUID;
+
+    private MessageEvent(Type type, UUID conversationUUID, int messageId, MessageEntry message, UUID userUUID) {
+        this.type = type;
+        this.conversationUUID = conversationUUID;
+        this.messageId = messageId;
+        this.message = message;
+        this.userUUID = userUUID;
+    }
+
+    /**
+     * @param conversationUUID UUID of the conversation
+     * @param message          the message sent
+     * @return event for a message being sent
+     */
+    static MessageEvent appended(UUID conversationUUID, MessageEntry message) {
+        return new MessageEvent(Type.APPENDED, conversationUUID, message.getIndex(), message, message.getSenderUUID());
+    }
+
+    /**
+     * @param conversationUUID UUID of the conversation
+     * @param messageId        id of the message deleted
+     * @return event for a message being deleted
+     */
+    static MessageEvent deleted(UUID conversationUUID, int messageId) {
+        return new MessageEvent(Type.DELETED, conversationUUID, messageId, null, null);
+    }
+
+    /**
+     * @param conversationUUID UUID of the conversation
+     * @param userUUID         UUID of the user
+     * @param watermark        id of the first message the user hasn't read
+     * @return event for a user reading or unreading the conversation
+     */
+    static MessageEvent read(UUID conversationUUID, UUID userUUID, int watermark) {
+        return new MessageEvent(Type.READ, conversationUUID, watermark, null, userUUID);
+    }
+
+    /**
+     * @return what happened
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return UUID of the conversation it happened in
+     */
+    public UUID getConversationUUID() {
+        return conversationUUID;
+    }
+
+    /**
+     * Gets the id of the message appended or deleted. For READ, the id of the first message the user hasn't read.
+     *
+     * @return a message id
+     */
+    public int getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * @return the message appended, or null for other events
+     */
+    public MessageEntry getMessage() {
+        return message;
+    }
+
+    /**
+     * @return UUID of the sender for APPENDED, of the reader for READ, or null for DELETED
+     */
+    public UUID getUserUUID() {
+        return userUUID;
+    }
+}
@@ -0,0 +1,354 @@
+package messaging;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index of message content: for each term, the messages it appears in. Messages are identified by their
+ * conversation and their index in it.
+ * <p>
+ * Results are ranked by TF-IDF, so messages that use a rare query term, or use a term several times, come first.
+ * <p>
+ * Each conversation is given a slot number, which is what the posting lists refer to. Taking a conversation out of the
+ * index only frees its slot, and taking out a message only marks it deleted; their postings are skipped from then on,
+ * and dropped once they make up most of the index.
+ */
+class MessageIndex {
+    private final Map<String, Postings> terms = new HashMap<>();
+
+    // Messages deleted from conversations that are still in the index, by slot and message id
+    private final Set<Long> deletedMessages = new HashSet<>();
+
+    private final Map<UUID, Integer> conversationSlots = new HashMap<>();
+    private final List<UUID> slotConversations = new ArrayList<>(); // null for freed slots
+    private int[] slotPostings = new int[16];
+    private int[] slotMessages = new int[16];
+
+    private int messageCount;
+    private long postingCount;
+    private long freedPostingCount;
+
+    /**
+     * The messages a term appears in, in the order they were added, along with how many times it appears in each
+     */
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int[] messageIndices = new int[2];
+        private byte[] termCounts = new byte[2];
+        private int size;
+
+        private void add(int slot, int messageIndex, int termCount) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                messageIndices = Arrays.copyOf(messageIndices, size * 2);
+                termCounts = Arrays.copyOf(termCounts, size * 2);
+            }
+
+            slots[size] = slot;
+            messageIndices[size] = messageIndex;
+            termCounts[size] = (byte) Math.min(termCount, Byte.MAX_VALUE);
+            size++;
+        }
+    }
+
+    /**
+     * A message that matched a search
+     */
+    static final class Hit {
+        private final UUID conversationUUID;
+        private final int messageIndex;
+        private double score;
+
+        private Hit(UUID conversationUUID, int messageIndex) {
+            this.conversationUUID = conversationUUID;
+            this.messageIndex = messageIndex;
+        }
+
+        UUID getConversationUUID() {
+            return conversationUUID;
+        }
+
+        int getMessageIndex() {
+            return messageIndex;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+
+    // Best hits first, then the newest
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::getScore).reversed()
+            .thenComparing(Comparator.comparingInt(Hit::getMessageIndex).reversed());
+
+    /**
+     * Splits text into lower case terms: runs of letters and digits
+     *
+     * @param text text to split
+     * @return the terms, in the order they appear
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        if (text == null) {
+            return tokens;
+        }
+
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if (isWordCharacter && start == -1) {
+                start = i;
+            } else if (!isWordCharacter && start != -1) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Adds a message to the index. Messages of a conversation must be added in order.
+     *
+     * @param conversationUUID conversation the message is in
+     * @param messageIndex     index of the message in its conversation
+     * @param content          content of the message
+     */
+    void addMessage(UUID conversationUUID, int messageIndex, String content) {
+        int slot = getSlot(conversationUUID);
+        List<String> tokens = tokenize(content);
+
+        // Sorted, so each term's occurrences are together
+        Collections.sort(tokens);
+
+        int i = 0;
+
+        while (i < tokens.size()) {
+            String term = tokens.get(i);
+            int termCount = 0;
+
+            while (i < tokens.size() && tokens.get(i).equals(term)) {
+                termCount++;
+                i++;
+            }
+
+            terms.computeIfAbsent(term, k -> new Postings()).add(slot, messageIndex, termCount);
+            slotPostings[slot]++;
+            postingCount++;
+        }
+
+        slotMessages[slot]++;
+        messageCount++;
+    }
+
+    /**
+     * Adds every message in a conversation to the index
+     *
+     * @param conversationUUID UUID of the conversation
+     * @param messages         messages in the conversation
+     */
+    void addConversation(UUID conversationUUID, List<Message> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (!messages.get(i).isDeleted()) {
+                addMessage(conversationUUID, i, messages.get(i).getContent());
+            }
+        }
+    }
+
+    /**
+     * Takes a message out of the index. Its postings are skipped from then on, like those of a removed conversation.
+     *
+     * @param conversationUUID conversation the message is in
+     * @param messageIndex     index of the message in its conversation
+     * @param content          content the message had, to tell how many postings it had
+     */
+    void removeMessage(UUID conversationUUID, int messageIndex, String content) {
+        Integer slot = conversationSlots.get(conversationUUID);
+
+        if (slot == null || !deletedMessages.add(getKey(slot, messageIndex))) {
+            return;
+        }
+
+        int postings = new HashSet<>(tokenize(content)).size();
+
+        slotPostings[slot] -= postings;
+        slotMessages[slot]--;
+        freedPostingCount += postings;
+        messageCount--;
+
+        if (freedPostingCount > postingCount / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Takes every message in a conversation out of the index
+     *
+     * @param conversationUUID UUID of the conversation
+     */
+    void removeConversation(UUID conversationUUID) {
+        Integer slot = conversationSlots.remove(conversationUUID);
+
+        if (slot == null) {
+            return;
+        }
+
+        slotConversations.set(slot, null);
+        freedPostingCount += slotPostings[slot];
+        messageCount -= slotMessages[slot];
+
+        if (freedPostingCount > postingCount / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the slot of a conversation, giving it one if it doesn't have one
+     *
+     * @param conversationUUID UUID of the conversation
+     * @return the slot
+     */
+    private int getSlot(UUID conversationUUID) {
+        Integer slot = conversationSlots.get(conversationUUID);
+
+        if (slot == null) {
+            slot = slotConversations.size();
+            slotConversations.add(conversationUUID);
+            conversationSlots.put(conversationUUID, slot);
+
+            if (slot == slotPostings.length) {
+                slotPostings = Arrays.copyOf(slotPostings, slot * 2);
+                slotMessages = Arrays.copyOf(slotMessages, slot * 2);
+            }
+        }
+
+        return slot;
+    }
+
+    /**
+     * Drops the postings of freed slots and numbers the remaining slots from 0 again
+     */
+    private void compact() {
+        int[] newSlots = new int[slotConversations.size()];
+        List<UUID> newSlotConversations = new ArrayList<>();
+        int[] newSlotPostings = new int[Math.max(16, conversationSlots.size())];
+        int[] newSlotMessages = new int[newSlotPostings.length];
+
+        for (int slot = 0; slot < slotConversations.size(); slot++) {
+            UUID conversationUUID = slotConversations.get(slot);
+
+            if (conversationUUID == null) {
+                newSlots[slot] = -1;
+            } else {
+                newSlots[slot] = newSlotConversations.size();
+                newSlotPostings[newSlots[slot]] = slotPostings[slot];
+                newSlotMessages[newSlots[slot]] = slotMessages[slot];
+                newSlotConversations.add(conversationUUID);
+                conversationSlots.put(conversationUUID, newSlots[slot]);
+            }
+        }
+
+        Iterator<Postings> termIterator = terms.values().iterator();
+
+        while (termIterator.hasNext()) {
+            Postings postings = termIterator.next();
+            int size = 0;
+
+            for (int i = 0; i < postings.size; i++) {
+                int slot = newSlots[postings.slots[i]];
+
+                if (slot != -1 && !deletedMessages.contains(getKey(postings.slots[i], postings.messageIndices[i]))) {
+                    postings.slots[size] = slot;
+                    postings.messageIndices[size] = postings.messageIndices[i];
+                    postings.termCounts[size] = postings.termCounts[i];
+                    size++;
+                }
+            }
+
+            postings.size = size;
+
+            if (size == 0) {
+                termIterator.remove();
+            }
+        }
+
+        slotConversations.clear();
+        slotConversations.addAll(newSlotConversations);
+        slotPostings = newSlotPostings;
+        slotMessages = newSlotMessages;
+        postingCount -= freedPostingCount;
+        freedPostingCount = 0;
+        deletedMessages.clear();
+    }
+
+    /**
+     * @return key of a message in deletedMessages and in search hits
+     */
+    private static long getKey(int slot, int messageIndex) {
+        return ((long) slot << 32) | messageIndex;
+    }
+
+    /**
+     * Finds the messages that contain any of the terms in a query, best match first
+     *
+     * @param query   text to search for
+     * @param canRead whether to include messages from a conversation, by UUID
+     * @param limit   maximum number of results
+     * @return up to limit hits
+     */
+    List<Hit> search(String query, Predicate<UUID> canRead, int limit) {
+        Map<Long, Hit> hits = new HashMap<>();
+
+        // 0 if not checked yet, 1 if readable, 2 if not (or freed)
+        byte[] readable = new byte[slotConversations.size()];
+
+        for (String term : new HashSet<>(tokenize(query))) {
+            Postings postings = terms.get(term);
+
+            if (postings == null) {
+                continue;
+            }
+
+            // Freed postings still count here, until the next compaction
+            double inverseDocumentFrequency = Math.log(1 + (double) Math.max(messageCount, postings.size) / postings.size);
+
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+
+                if (readable[slot] == 0) {
+                    UUID conversationUUID = slotConversations.get(slot);
+                    readable[slot] = (byte) (conversationUUID != null && canRead.test(conversationUUID) ? 1 : 2);
+                }
+
+                int messageIndex = postings.messageIndices[i];
+                long key = getKey(slot, messageIndex);
+
+                if (readable[slot] == 1 && (deletedMessages.isEmpty() || !deletedMessages.contains(key))) {
+                    Hit hit = hits.computeIfAbsent(key, k -> new Hit(slotConversations.get(slot), messageIndex));
+
+                    hit.score += (1 + Math.log(postings.termCounts[i])) * inverseDocumentFrequency;
+                }
+            }
+        }
+
+        // Keep only the best few, with the worst of them at the head so it can be replaced
+        PriorityQueue<Hit> best = new PriorityQueue<>(RANKING.reversed());
+
+        for (Hit hit : hits.values()) {
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (limit > 0 && RANKING.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        List<Hit> results = new ArrayList<>(best);
+        results.sort(RANKING);
+
+        return results;
+    }
+}
@@ -0,0 +1,85 @@
+package messaging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A run of consecutive messages from a conversation, oldest first, so a long conversation can be shown a page at a
+ * time
+ */
+public final class MessagePage {
+    private final List<MessageEntry> messages;
+    private final int fromIndex;
+    private final int toIndex;
+    private final int endIndex;
+    private final int totalMessages;
+
+    /**
+     * Copies a run of messages, leaving out deleted ones
+     *
+     * @param messages      every message in the conversation, including deleted ones
+     * @param fromIndex     id of the first message to copy
+     * @param toIndex       id after the last message to copy
+     * @param totalMessages number of messages in the conversation, not counting deleted ones
+     */
+    MessagePage(List<Message> messages, int fromIndex, int toIndex, int totalMessages) {
+        List<MessageEntry> entries = new ArrayList<>(toIndex - fromIndex);
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            Message message = messages.get(i);
+
+            if (!message.isDeleted()) {
+                entries.add(new MessageEntry(i, message));
+            }
+        }
+
+        this.messages = Collections.unmodifiableList(entries);
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.endIndex = messages.size();
+        this.totalMessages = totalMessages;
+    }
+
+    /**
+     * @return the messages on this page, oldest first
+     */
+    public List<MessageEntry> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return id of the first message on this page, or of a deleted one before it
+     */
+    public int getFromIndex() {
+        return fromIndex;
+    }
+
+    /**
+     * @return id after the last message on this page
+     */
+    public int getToIndex() {
+        return toIndex;
+    }
+
+    /**
+     * @return number of messages in the whole conversation, not counting deleted ones
+     */
+    public int getTotalMessages() {
+        return totalMessages;
+    }
+
+    /**
+     * @return true iff there are messages before this page
+     */
+    public boolean hasOlder() {
+        return fromIndex > 0;
+    }
+
+    /**
+     * @return true iff there are messages after this page
+     */
+    public boolean hasNewer() {
+        return toIndex < endIndex;
+    }
+}
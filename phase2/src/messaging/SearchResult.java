@@ -0,0 +1,48 @@
+package messaging;
+
+import java.util.UUID;
+
+/**
+ * A message that matched a search, along with where it is and how well it matched
+ */
+public final class SearchResult {
+    private final UUID conversationUUID;
+    private final MessageEntry message;
+    private final double score;
+
+    /**
+     * Creates a search result
+     *
+     * @param conversationUUID UUID of the conversation the message is in
+     * @param message          the message
+     * @param score            how well the message matched
+     */
+    SearchResult(UUID conversationUUID, MessageEntry message, double score) {
+        this.conversationUUID = conversationUUID;
+        this.message = message;
+        this.score = score;
+    }
+
+    /**
+     * @return UUID of the conversation the message is in
+     */
+    public UUID getConversationUUID() {
+        return conversationUUID;
+    }
+
+    /**
+     * @return the message
+     */
+    public MessageEntry getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets how well the message matched the search. Only meaningful compared to other results of the same search.
+     *
+     * @return the score, higher being better
+     */
+    public double getScore() {
+        return score;
+    }
+}
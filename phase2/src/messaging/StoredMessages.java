@@ -0,0 +1,215 @@
+package messaging;
+
+import util.record.IRecordStore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Keeps messages in a record store, one list per conversation, with only the most recently used ones kept in memory
+ */
+class StoredMessages {
+    private static final int CACHE_SIZE = 2000;
+
+    private final IRecordStore store;
+
+    // Most recently used messages, keyed by conversation and index. Shared by every conversation so the total stays
+    // bounded.
+    private final Map<Map.Entry<UUID, Integer>, Message> recent = new LinkedHashMap<Map.Entry<UUID, Integer>, Message>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Map.Entry<UUID, Integer>, Message> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @param store where to keep the messages
+     */
+    StoredMessages(IRecordStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Gets a conversation's messages. Changes to the list are written to the store.
+     *
+     * @param conversationUUID UUID of the conversation
+     * @return the conversation's messages
+     */
+    List<Message> getMessages(UUID conversationUUID) {
+        return new StoredMessageList(conversationUUID);
+    }
+
+    /**
+     * Deletes a conversation's messages from the store
+     *
+     * @param conversationUUID UUID of the conversation
+     */
+    void delete(UUID conversationUUID) {
+        store.delete(conversationUUID);
+        recent.keySet().removeIf(key -> key.getKey().equals(conversationUUID));
+    }
+
+    /**
+     * A conversation's messages, read from the store as needed
+     * <p>
+     * The ids of the deleted messages are kept in the list's metadata, so they can be known without reading every
+     * message. The metadata is written before the tombstone replaces the message, so it is what says a message is
+     * deleted: if the tombstone didn't make it to disk, the message is still read back as one.
+     */
+    class StoredMessageList extends AbstractList<Message> implements RandomAccess {
+        private final UUID conversationUUID;
+        private NavigableSet<Integer> deletedMessageIds;
+
+        private StoredMessageList(UUID conversationUUID) {
+            this.conversationUUID = conversationUUID;
+        }
+
+        @Override
+        public Message get(int index) {
+            Map.Entry<UUID, Integer> key = new AbstractMap.SimpleImmutableEntry<>(conversationUUID, index);
+            Message message = recent.get(key);
+
+            if (message == null) {
+                message = decode(store.read(conversationUUID, index));
+
+                if (!message.isDeleted() && getDeletedMessageIds().contains(index)) {
+                    message = message.toTombstone();
+                }
+
+                recent.put(key, message);
+            }
+
+            return message;
+        }
+
+        @Override
+        public int size() {
+            return store.size(conversationUUID);
+        }
+
+        @Override
+        public boolean add(Message message) {
+            return addAll(Collections.singletonList(message));
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Message> messages) {
+            int index = size();
+            boolean deleted = false;
+
+            for (Message message : messages) {
+                if (message.isDeleted()) {
+                    deleted |= getDeletedMessageIds().add(index);
+                }
+
+                index++;
+            }
+
+            // Written once for every tombstone being added, e.g. when a conversation's messages are moved here
+            if (deleted) {
+                writeDeletedMessageIds();
+            }
+
+            index = size();
+
+            for (Message message : messages) {
+                store.append(conversationUUID, encode(message));
+                recent.put(new AbstractMap.SimpleImmutableEntry<>(conversationUUID, index++), message);
+            }
+
+            modCount++;
+
+            return !messages.isEmpty();
+        }
+
+        @Override
+        public Message set(int index, Message message) {
+            Message previous = get(index);
+
+            if (message.isDeleted() && getDeletedMessageIds().add(index)) {
+                writeDeletedMessageIds();
+            }
+
+            store.replace(conversationUUID, index, encode(message));
+            recent.put(new AbstractMap.SimpleImmutableEntry<>(conversationUUID, index), message);
+
+            return previous;
+        }
+
+        /**
+         * Gets the ids of the deleted messages, reading them from the list's metadata the first time
+         *
+         * @return the ids, in order. Not to be changed.
+         */
+        NavigableSet<Integer> getDeletedMessageIds() {
+            if (deletedMessageIds == null) {
+                deletedMessageIds = new TreeSet<>();
+                byte[] metadata = store.readMetadata(conversationUUID);
+
+                if (metadata != null) {
+                    ByteBuffer buffer = ByteBuffer.wrap(metadata);
+                    int count = buffer.getInt();
+
+                    for (int i = 0; i < count; i++) {
+                        deletedMessageIds.add(buffer.getInt());
+                    }
+                }
+            }
+
+            return deletedMessageIds;
+        }
+
+        /**
+         * Layout: number of deleted messages, then each of their ids
+         */
+        private void writeDeletedMessageIds() {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + 4 * deletedMessageIds.size());
+            buffer.putInt(deletedMessageIds.size());
+
+            for (int messageId : deletedMessageIds) {
+                buffer.putInt(messageId);
+            }
+
+            store.writeMetadata(conversationUUID, buffer.array());
+        }
+    }
+
+    // What follows the timestamp
+    private static final byte DELETED = 0;
+    private static final byte CONTENT = 1;
+
+    /**
+     * Layout: sender UUID, timestamp as UTC epoch seconds and nanoseconds, whether it's deleted, then the UTF-8 content
+     * if it isn't
+     */
+    private static byte[] encode(Message message) {
+        byte[] content = message.isDeleted() ? null : message.getContent().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(29 + (content == null ? 0 : content.length));
+        LocalDateTime timestamp = message.getTimestamp();
+
+        buffer.putLong(message.getSenderUUID().getMostSignificantBits());
+        buffer.putLong(message.getSenderUUID().getLeastSignificantBits());
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp.getNano());
+        buffer.put(message.isDeleted() ? DELETED : CONTENT);
+
+        if (content != null) {
+            buffer.put(content);
+        }
+
+        return buffer.array();
+    }
+
+    private static Message decode(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        UUID senderUUID = new UUID(buffer.getLong(), buffer.getLong());
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        byte contentType = buffer.get();
+        String content = contentType == CONTENT ? new String(record, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8) : null;
+
+        return new Message(senderUUID, content, timestamp, contentType == DELETED);
+    }
+}
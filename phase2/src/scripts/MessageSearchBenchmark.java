@@ -0,0 +1,153 @@
+package scripts;
+
+import contact.ContactManager;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.MessageEntry;
+import messaging.SearchResult;
+import user.UserManager;
+
+import java.util.*;
+
+/**
+ * Compares searching messages with the inverted index against scanning every message, on a made up data set. Also
+ * reports how long the index takes to build, and to keep up to date as messages are sent.
+ * <p>
+ * Usage: MessageSearchBenchmark [conversations] [messages per conversation] [queries]
+ */
+public class MessageSearchBenchmark {
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final int WORDS_PER_MESSAGE = 8;
+
+    public static void main(String[] args) {
+        int conversationCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int messagesPerConversation = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        Random random = new Random(207);
+        UserManager userManager = new UserManager();
+        ConversationManager conversationManager = new ConversationManager();
+        ConversationController conversationController = new ConversationController(new ContactManager(), conversationManager, userManager);
+
+        UUID godUUID = userManager.registerUser("God", "User", "god", "password", true);
+        List<UUID> userUUIDs = new ArrayList<>();
+        List<UUID> conversationUUIDs = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            userUUIDs.add(userManager.registerUser("First" + i, "Last" + i, "user" + i, "password" + i));
+        }
+
+        for (int i = 0; i < conversationCount; i++) {
+            Set<UUID> members = new HashSet<>();
+
+            for (int j = 0; j < 5; j++) {
+                members.add(userUUIDs.get(random.nextInt(userUUIDs.size())));
+            }
+
+            UUID senderUUID = members.iterator().next();
+            UUID conversationUUID = conversationManager.createConversation("Chat " + i, members, members, senderUUID, makeMessage(random));
+
+            for (int j = 1; j < messagesPerConversation; j++) {
+                conversationController.sendMessage(senderUUID, makeMessage(random), conversationUUID);
+            }
+
+            conversationUUIDs.add(conversationUUID);
+        }
+
+        List<String> queries = new ArrayList<>();
+
+        for (int i = 0; i < queryCount; i++) {
+            queries.add(makeWord(random) + " " + makeWord(random));
+        }
+
+        System.out.printf("%d conversations, %d messages, %d queries\n", conversationCount, conversationCount * messagesPerConversation, queryCount);
+
+        // The first search builds the index
+        long startNanos = System.nanoTime();
+        conversationController.searchMessages(godUUID, "warm up", 10);
+        System.out.printf("%-30s %12.2f ms\n", "build index", (System.nanoTime() - startNanos) / 1e6);
+
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < 10000; i++) {
+            UUID conversationUUID = conversationUUIDs.get(random.nextInt(conversationUUIDs.size()));
+            UUID senderUUID = conversationController.getUsersInConversation(conversationUUID).iterator().next();
+
+            conversationController.sendMessage(senderUUID, makeMessage(random), conversationUUID);
+        }
+
+        System.out.printf("%-30s %12.2f us\n", "send message, indexed", (System.nanoTime() - startNanos) / 1e3 / 10000);
+
+        // Members see a small part of the corpus, god users see all of it
+        UUID memberUUID = userUUIDs.get(0);
+        long found = 0;
+
+        startNanos = System.nanoTime();
+
+        for (String query : queries) {
+            found += conversationController.searchMessages(godUUID, query, 20).size();
+        }
+
+        System.out.printf("%-30s %12.2f ms (%d results)\n", "indexed search, god", (System.nanoTime() - startNanos) / 1e6 / queryCount, found);
+
+        found = 0;
+        startNanos = System.nanoTime();
+
+        for (String query : queries) {
+            found += conversationController.searchMessages(memberUUID, query, 20).size();
+        }
+
+        System.out.printf("%-30s %12.2f ms (%d results)\n", "indexed search, member", (System.nanoTime() - startNanos) / 1e6 / queryCount, found);
+
+        // Scanning is slow, so only a few queries
+        int scanCount = Math.min(queryCount, 5);
+        found = 0;
+        startNanos = System.nanoTime();
+
+        for (String query : queries.subList(0, scanCount)) {
+            found += scan(conversationController, godUUID, conversationUUIDs, query);
+        }
+
+        System.out.printf("%-30s %12.2f ms (%d matches)\n", "scan, god", (System.nanoTime() - startNanos) / 1e6 / scanCount, found);
+    }
+
+    /**
+     * Counts the messages containing any of the words in a query by going through every one
+     */
+    private static long scan(ConversationController conversationController, UUID userUUID, List<UUID> conversationUUIDs, String query) {
+        String[] words = query.split(" ");
+        long found = 0;
+
+        for (UUID conversationUUID : conversationUUIDs) {
+            for (MessageEntry message : conversationController.getLatestMessages(userUUID, conversationUUID, Integer.MAX_VALUE).getMessages()) {
+                String content = message.getContent().toLowerCase(Locale.ROOT);
+
+                for (String word : words) {
+                    if (content.contains(word)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private static String makeMessage(Random random) {
+        StringBuilder message = new StringBuilder();
+
+        for (int i = 0; i < WORDS_PER_MESSAGE; i++) {
+            message.append(makeWord(random)).append(' ');
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Picks a word, with a few common ones and a long tail of rare ones, like real text
+     */
+    private static String makeWord(Random random) {
+        return "w" + (int) (Math.pow(random.nextDouble(), 3) * VOCABULARY_SIZE);
+    }
+}
@@ -0,0 +1,149 @@
+package scripts;
+
+import contact.ContactManager;
+import contact.ContactManagerCodec;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import convention.event.EventManager;
+import convention.room.RoomManager;
+import gateway.BinarySerializer;
+import gateway.Serializer;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import user.UserManager;
+import user.UserManagerCodec;
+import util.codec.ICodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Compares save time, load time and file size of the Java serialization save files against the binary ones, on a
+ * made up data set.
+ * <p>
+ * Usage: SerializerBenchmark [users] [conferences] [iterations]
+ */
+public class SerializerBenchmark {
+    private static File directory;
+    private static int iterations;
+
+    public static void main(String[] args) throws IOException {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int conferenceCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        directory = Files.createTempDirectory("serializer-benchmark").toFile();
+
+        UserManager userManager = new UserManager();
+        ContactManager contactManager = new ContactManager();
+        ConversationManager conversationManager = new ConversationManager();
+        ConferenceManager conferenceManager = new ConferenceManager();
+
+        populate(userCount, conferenceCount, userManager, contactManager, conversationManager, conferenceManager);
+
+        System.out.printf("%d users, %d conferences, best of %d runs\n", userCount, conferenceCount, iterations);
+        System.out.printf("%-20s %-7s %10s %10s %12s\n", "manager", "format", "save ms", "load ms", "bytes");
+
+        compare("userManager", userManager, new UserManagerCodec());
+        compare("contactManager", contactManager, new ContactManagerCodec());
+        compare("conversationManager", conversationManager, new ConversationManagerCodec());
+        compare("conferenceManager", conferenceManager, new ConferenceManagerCodec());
+    }
+
+    private static void populate(int userCount, int conferenceCount, UserManager userManager, ContactManager contactManager, ConversationManager conversationManager, ConferenceManager conferenceManager) {
+        Random random = new Random(207);
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        List<UUID> userUUIDs = new ArrayList<>();
+
+        for (int i = 0; i < userCount; i++) {
+            userUUIDs.add(userManager.registerUser("First" + i, "Last" + i, "user" + i, "password" + i));
+        }
+
+        for (UUID userUUID : userUUIDs) {
+            Set<UUID> contacts = new HashSet<>();
+
+            for (int i = 0; i < 10; i++) {
+                contacts.add(userUUIDs.get(random.nextInt(userCount)));
+            }
+
+            contactManager.setContacts(userUUID, contacts);
+
+            Set<UUID> members = new HashSet<>(contacts);
+            members.add(userUUID);
+
+            UUID conversationUUID = conversationManager.createConversation("Chat", members, members, userUUID, "Hi everyone");
+
+            for (int i = 0; i < 20; i++) {
+                conversationController.sendMessage(userUUID, "Message number " + i + " in this conversation", conversationUUID);
+            }
+        }
+
+        LocalDateTime start = LocalDateTime.of(2021, Month.JANUARY, 1, 0, 0);
+
+        for (int i = 0; i < conferenceCount; i++) {
+            UUID organizerUUID = userUUIDs.get(random.nextInt(userCount));
+            UUID conferenceUUID = conferenceManager.createConference("Conference " + i, new TimeRange(start, start.plusDays(30)), organizerUUID);
+
+            for (int j = 0; j < 100; j++) {
+                conferenceManager.addAttendee(conferenceUUID, userUUIDs.get(random.nextInt(userCount)));
+            }
+
+            RoomManager roomManager = conferenceManager.getRoomManager(conferenceUUID);
+            EventManager eventManager = conferenceManager.getEventManager(conferenceUUID);
+
+            for (int r = 0; r < 5; r++) {
+                UUID roomUUID = roomManager.createRoom("Room " + r, 50);
+
+                for (int e = 0; e < 20; e++) {
+                    TimeRange timeRange = new TimeRange(start.plusHours(e * 2), start.plusHours(e * 2 + 1));
+                    UUID eventUUID = eventManager.createEvent("Event " + e, timeRange, roomUUID, new HashSet<>());
+                    roomManager.getCalendarManager(roomUUID).addTimeBlock(eventUUID, timeRange);
+
+                    for (int a = 0; a < 10; a++) {
+                        eventManager.registerAttendee(eventUUID, userUUIDs.get(random.nextInt(userCount)));
+                    }
+                }
+            }
+        }
+    }
+
+    private static <T> void compare(String name, T manager, ICodec<T> codec) {
+        File serFile = new File(directory, name + ".ser");
+        File binFile = new File(directory, name + ".bin");
+
+        Serializer<T> serializer = new Serializer<>(serFile.getPath());
+        BinarySerializer<T> binarySerializer = new BinarySerializer<>(binFile.getPath(), codec);
+
+        report(name, "java", serFile, () -> serializer.save(manager), () -> serializer.load(null));
+        report(name, "binary", binFile, () -> binarySerializer.save(manager), () -> binarySerializer.load(() -> null));
+    }
+
+    private static void report(String name, String format, File file, Runnable save, Supplier<?> load) {
+        long bestSave = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+
+        for (int i = 0; i < iterations; i++) {
+            long startNanos = System.nanoTime();
+            save.run();
+            bestSave = Math.min(bestSave, System.nanoTime() - startNanos);
+
+            startNanos = System.nanoTime();
+
+            if (load.get() == null) {
+                throw new IllegalStateException("Unable to load " + file);
+            }
+
+            bestLoad = Math.min(bestLoad, System.nanoTime() - startNanos);
+        }
+
+        System.out.printf("%-20s %-7s %10.2f %10.2f %12d\n", name, format, bestSave / 1e6, bestLoad / 1e6, file.length());
+        file.delete();
+    }
+}
@@ -0,0 +1,75 @@
+package scripts;
+
+import user.UserManager;
+
+import java.util.*;
+
+/**
+ * Times registering, bulk loading and signing in users, which all look users up by username. Also times looking
+ * usernames up by going through every user, for comparison with the username index.
+ * <p>
+ * Usage: UserRegistrationBenchmark [users] [god users] [logins]
+ */
+public class UserRegistrationBenchmark {
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int godUserCount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int loginCount = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+
+        Random random = new Random(207);
+        UserManager userManager = new UserManager();
+
+        System.out.printf("%d users, %d god users, %d logins\n", userCount, godUserCount, loginCount);
+
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < userCount; i++) {
+            userManager.registerUser("First" + i, "Last" + i, "user" + i, "password" + i, false);
+        }
+
+        System.out.printf("%-30s %12.2f ms\n", "register users", (System.nanoTime() - startNanos) / 1e6);
+
+        // Like a CSV where half the usernames are already taken
+        List<String[]> entries = new ArrayList<>();
+
+        for (int i = 0; i < godUserCount; i++) {
+            String username = i % 2 == 0 ? "user" + i : "god" + i;
+            entries.add(new String[]{"God" + i, "User" + i, username, "password" + i});
+        }
+
+        startNanos = System.nanoTime();
+        int loaded = userManager.loadGodUsers(entries).size();
+        System.out.printf("%-30s %12.2f ms (%d new)\n", "load god users", (System.nanoTime() - startNanos) / 1e6, loaded);
+
+        int authenticated = 0;
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < loginCount; i++) {
+            int user = random.nextInt(userCount);
+
+            if (userManager.authenticate("user" + user, "password" + user) != null) {
+                authenticated++;
+            }
+        }
+
+        System.out.printf("%-30s %12.2f us (%d authenticated)\n", "login", (System.nanoTime() - startNanos) / 1e3 / loginCount, authenticated);
+
+        // Scanning is slow, so only a few lookups
+        int scanCount = Math.min(loginCount, 20);
+        int found = 0;
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < scanCount; i++) {
+            String username = "user" + random.nextInt(userCount);
+
+            for (UUID userUUID : userManager.getAllUsers()) {
+                if (userManager.getUserUsername(userUUID).equals(username)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+
+        System.out.printf("%-30s %12.2f us (%d found)\n", "scan for username", (System.nanoTime() - startNanos) / 1e3 / scanCount, found);
+    }
+}
@@ -0,0 +1,77 @@
+package scripts;
+
+import user.UserManager;
+
+import java.util.*;
+
+/**
+ * Times searching users by name for one page of a user picker, against going through every user and looking up their
+ * full name, which is what the pickers used to do.
+ * <p>
+ * Usage: UserSearchBenchmark [users] [searches] [page size]
+ */
+public class UserSearchBenchmark {
+    private static final String[] FIRST_NAMES = {"Anna", "Bob", "Carla", "David", "Eve", "Farid", "Grace", "Hiro", "Ines", "Jamal"};
+    private static final String[] LAST_NAMES = {"Smith", "Nguyen", "Patel", "Garcia", "Kim", "Okafor", "Rossi", "Chen", "Singh", "Brown"};
+
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int searchCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        Random random = new Random(207);
+        UserManager userManager = new UserManager();
+
+        System.out.printf("%d users, %d searches, %d per page\n", userCount, searchCount, pageSize);
+
+        for (int i = 0; i < userCount; i++) {
+            userManager.registerUser(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + i % 1000,
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)], "user" + i, "password", false);
+        }
+
+        long startNanos = System.nanoTime();
+        userManager.searchUsers("", null, 0, 1);
+        System.out.printf("%-30s %12.2f ms\n", "build search index", (System.nanoTime() - startNanos) / 1e6);
+
+        String[] queries = new String[searchCount];
+
+        for (int i = 0; i < searchCount; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)].toLowerCase();
+            queries[i] = firstName.substring(0, 1 + random.nextInt(firstName.length())) + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)].substring(0, 2);
+        }
+
+        int found = 0;
+        startNanos = System.nanoTime();
+
+        for (String query : queries) {
+            found += userManager.searchUsers(query, null, 0, pageSize).size();
+        }
+
+        System.out.printf("%-30s %12.2f ms (%d found)\n", "search page", (System.nanoTime() - startNanos) / 1e6 / searchCount, found);
+
+        found = 0;
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < searchCount; i++) {
+            found += userManager.searchUsers("", null, i * pageSize, pageSize).size();
+        }
+
+        System.out.printf("%-30s %12.2f ms (%d found)\n", "list page of everyone", (System.nanoTime() - startNanos) / 1e6 / searchCount, found);
+
+        // Scanning is slow, so only a few times
+        int scanCount = Math.min(searchCount, 5);
+        startNanos = System.nanoTime();
+
+        for (int i = 0; i < scanCount; i++) {
+            List<String> names = new ArrayList<>();
+
+            for (UUID userUUID : userManager.getAllUsers()) {
+                names.add(userManager.getUserFullName(userUUID));
+            }
+
+            found += names.size();
+        }
+
+        System.out.printf("%-30s %12.2f ms\n", "resolve every full name", (System.nanoTime() - startNanos) / 1e6 / scanCount);
+    }
+}
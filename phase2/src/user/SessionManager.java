@@ -0,0 +1,172 @@
+package user;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of who is signed in. Each sign in starts a session, identified by a random token that the client passes
+ * back to say who it is acting for. Sessions end when the user signs out, or once they haven't been used for a while.
+ * <p>
+ * Any number of users can be signed in at once, each with any number of sessions, and sessions can be used from any
+ * thread. Sessions are only kept in memory, so everyone has to sign in again when the system restarts.
+ */
+public class SessionManager {
+    // How long a session lasts without being used, by default
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long idleTimeoutMillis;
+    private final LongSupplier clock;
+
+    // Expired sessions that are never used again are only found by going through every session, so that's done at
+    // most once per timeout, when a session is started
+    private final AtomicLong nextSweepMillis;
+
+    /**
+     * A signed in user, and when they last did anything
+     */
+    private static final class Session {
+        private final UUID userUUID;
+        private volatile long lastUsedMillis;
+
+        private Session(UUID userUUID, long lastUsedMillis) {
+            this.userUUID = userUUID;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+    }
+
+    /**
+     * Creates a session manager with the default idle timeout
+     */
+    public SessionManager() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a session manager
+     *
+     * @param idleTimeoutMillis how long a session lasts without being used
+     * @param clock             gives the current time in milliseconds
+     */
+    public SessionManager(long idleTimeoutMillis, LongSupplier clock) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clock = clock;
+        this.nextSweepMillis = new AtomicLong(clock.getAsLong() + idleTimeoutMillis);
+    }
+
+    /**
+     * Starts a session for a user
+     *
+     * @param userUUID UUID of the user signing in
+     * @return token identifying the new session
+     */
+    public String createSession(UUID userUUID) {
+        long now = clock.getAsLong();
+        long nextSweep = nextSweepMillis.get();
+
+        if (now >= nextSweep && nextSweepMillis.compareAndSet(nextSweep, now + idleTimeoutMillis)) {
+            removeExpiredSessions();
+        }
+
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        random.nextBytes(tokenBytes);
+
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        sessions.put(token, new Session(userUUID, now));
+
+        return token;
+    }
+
+    /**
+     * Gets the user a session is for, and counts the session as used
+     *
+     * @param token token of the session
+     * @return UUID of the signed in user, or null if the token is null, unknown, or its session has expired or ended
+     */
+    public UUID getUser(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        Session session = sessions.get(token);
+
+        if (session == null) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+
+        if (isExpired(session, now)) {
+            sessions.remove(token, session);
+            return null;
+        }
+
+        session.lastUsedMillis = now;
+
+        return session.userUUID;
+    }
+
+    /**
+     * Ends a session, e.g. when the user signs out. Does nothing if it has already ended.
+     *
+     * @param token token of the session
+     */
+    public void endSession(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Ends every session of a user, e.g. to sign them out everywhere
+     *
+     * @param userUUID UUID of the user
+     */
+    public void endSessions(UUID userUUID) {
+        sessions.values().removeIf(session -> session.userUUID.equals(userUUID));
+    }
+
+    /**
+     * Forgets the sessions that have expired
+     *
+     * @return number of sessions removed
+     */
+    public int removeExpiredSessions() {
+        long now = clock.getAsLong();
+        int removed = 0;
+
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (isExpired(entry.getValue(), now) && sessions.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Gets the number of sessions, including expired ones that haven't been removed yet
+     *
+     * @return number of sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastUsedMillis >= idleTimeoutMillis;
+    }
+}
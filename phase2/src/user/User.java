@@ -7,6 +7,7 @@ import java.util.UUID;
  * Stores name, username, password, UUID of a user
  */
 class User implements Serializable {
+    private static final long serialVersionUID = 8168763426448050140L;
 
     private String firstName;
     private String lastName;
@@ -17,6 +18,9 @@ class User implements Serializable {
     // God mode users are organizers for all conferences
     private boolean isGod;
 
+    // Full name, worked out on first use and cleared when the first or last name changes
+    private transient String name;
+
     /**
      * Constructor for User
      *
@@ -27,11 +31,25 @@ class User implements Serializable {
      * @param isGod     whether a user is a god
      */
     User(String firstName, String lastName, String username, String password, boolean isGod) {
+        this(UUID.randomUUID(), firstName, lastName, username, password, isGod);
+    }
+
+    /**
+     * Constructor for User with a known UUID, used when replaying the journal
+     *
+     * @param uuid      UUID of the user
+     * @param firstName first name of the user
+     * @param lastName  last name of the user
+     * @param username  username the user wants to keep
+     * @param password  password of the user
+     * @param isGod     whether a user is a god
+     */
+    User(UUID uuid, String firstName, String lastName, String username, String password, boolean isGod) {
         this.firstName = firstName;
         this.lastName = lastName;
         this.username = username;
         this.password = password;
-        this.uuid = UUID.randomUUID();
+        this.uuid = uuid;
         this.isGod = isGod;
     }
 
@@ -42,6 +60,7 @@ class User implements Serializable {
      */
     void setFirstName(String firstName) {
         this.firstName = firstName;
+        this.name = null;
     }
 
     /**
@@ -60,6 +79,7 @@ class User implements Serializable {
      */
     void setLastName(String lastName) {
         this.lastName = lastName;
+        this.name = null;
     }
 
     /**
@@ -77,7 +97,11 @@ class User implements Serializable {
      * @return the full name of the user by combining first and last name
      */
     String getName() {
-        return getFirstName() + " " + getLastName();
+        if (name == null) {
+            name = getFirstName() + " " + getLastName();
+        }
+
+        return name;
     }
 
     /**
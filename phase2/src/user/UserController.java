@@ -1,7 +1,11 @@
 package user;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 public class UserController {
 
@@ -9,24 +13,35 @@ public class UserController {
      * Responsibilities:
      * <p>
      * - Stores an instance of UserManager
-     * - Handles login (i.e. tags in a username + password pair and returns whether or not the login was successful
-     * - Saves a copy of the logged in user's UUID in UserController
+     * - Handles login (i.e. tags in a username + password pair and starts a session if they match)
      * <p>
-     * - Getter for the logged in user's UUID
+     * - Getter for the UUID of the user a session is for
      * <p>
-     * - Handles logout (i.e. erases the UUID of the logged in user)
+     * - Handles logout (i.e. ends the session)
      * - Handles account registration (i.e. given a username + password pair, create a user)
      */
 
     UserManager userManager;
+    SessionManager sessionManager;
 
     /**
-     * Creating an instance of the UserManager class
+     * Creating an instance of the UserManager class, with sessions that expire after the default idle timeout
      *
      * @param userManager instance of the class
      */
     public UserController(UserManager userManager) {
+        this(userManager, new SessionManager());
+    }
+
+    /**
+     * Creating an instance of the UserManager class
+     *
+     * @param userManager    instance of the class
+     * @param sessionManager keeps track of who is signed in
+     */
+    public UserController(UserManager userManager, SessionManager sessionManager) {
         this.userManager = userManager;
+        this.sessionManager = sessionManager;
     }
 
     /**
@@ -69,6 +84,16 @@ public class UserController {
         return userManager.getUserFullName(userUUID);
     }
 
+    /**
+     * Returns the full names of many users at once, which is cheaper than asking for them one at a time
+     *
+     * @param userUUIDs unique user ids
+     * @return map of the user ids to the full names of their users, in the same order as the ids were given
+     */
+    public Map<UUID, String> getUserFullNames(Collection<UUID> userUUIDs) {
+        return userManager.getUserFullNames(userUUIDs);
+    }
+
     /**
      * Returns the first name
      *
@@ -100,7 +125,7 @@ public class UserController {
     }
 
     /**
-     * Setter for username
+     * Setter for username. Throws UsernameTakenException if another user already has it.
      *
      * @param userUUID unique user id
      * @param username user's username
@@ -119,6 +144,16 @@ public class UserController {
         return userManager.getUserUsername(userUUID);
     }
 
+    /**
+     * Returns the usernames of many users at once, which is cheaper than asking for them one at a time
+     *
+     * @param userUUIDs unique user ids
+     * @return map of the user ids to the usernames of their users, in the same order as the ids were given
+     */
+    public Map<UUID, String> getUserUsernames(Collection<UUID> userUUIDs) {
+        return userManager.getUserUsernames(userUUIDs);
+    }
+
     /**
      * Setter for password
      *
@@ -136,37 +171,77 @@ public class UserController {
      * @param lastName  user's last name
      * @param username  user's username
      * @param password  user's password
-     * @return user id of the registered user
+     * @return user id of the registered user, or null if the username is taken
      */
     public UUID registerUser(String firstName, String lastName, String username, String password) {
         return userManager.registerUser(firstName, lastName, username, password);
     }
 
     /**
-     * Method for user login
+     * Method for user login. Starts a new session, so several users (or the same user several times) can be signed in
+     * at once.
      *
      * @param username user's username
      * @param password user's password
-     * @return the user id of the logged in User
+     * @return token of the new session, or null if the credentials don't match
      */
-    public UUID login(String username, String password) {
-        return userManager.login(username, password);
+    public String login(String username, String password) {
+        UUID userUUID = userManager.authenticate(username, password);
+
+        if (userUUID == null) {
+            return null;
+        }
+
+        return sessionManager.createSession(userUUID);
     }
 
     /**
-     * Logout the user
+     * Logout the user of a session
+     *
+     * @param sessionToken token of the session
+     */
+    public void logout(String sessionToken) {
+        sessionManager.endSession(sessionToken);
+    }
+
+    /**
+     * Returns the UUID of the user a session is for. Using a session keeps it from expiring.
+     *
+     * @param sessionToken token of the session
+     * @return UUID of the logged in user, or null if the session has expired or ended
+     */
+    public UUID getCurrentUser(String sessionToken) {
+        return sessionManager.getUser(sessionToken);
+    }
+
+    /**
+     * Searches users by first name, last name and username, a page at a time. Every word of the query has to be the
+     * start of one of those for a user to match.
+     *
+     * @param query  words to look for. An empty query matches every user, ordered by full name.
+     * @param filter which users may be returned, or null for all of them
+     * @param offset number of best matches to skip
+     * @param limit  maximum number of matches to return
+     * @return UUIDs of the matching users, best match first
      */
-    public void logout() {
-        userManager.clearCurrentUser();
+    public List<UUID> searchUsers(String query, Predicate<UUID> filter, int offset, int limit) {
+        return userManager.searchUsers(query, null, filter, offset, limit);
     }
 
     /**
-     * Returns the UUID
+     * Searches users by first name, last name and username, a page at a time. Every word of the query has to be the
+     * start of one of those for a user to match.
      *
-     * @return UUID of the logged in user
+     * @param query      words to look for. An empty query matches every user, ordered by full name.
+     * @param candidates the only users that may be returned, or null for all of them. Searching a small set is
+     *                   much faster than searching everyone with a filter.
+     * @param filter     which of those users may be returned, or null for all of them
+     * @param offset     number of best matches to skip
+     * @param limit      maximum number of matches to return
+     * @return UUIDs of the matching users, best match first
      */
-    public UUID getCurrentUser() {
-        return userManager.getSignedInUserUUID();
+    public List<UUID> searchUsers(String query, Set<UUID> candidates, Predicate<UUID> filter, int offset, int limit) {
+        return userManager.searchUsers(query, candidates, filter, offset, limit);
     }
 
     /**
@@ -1,26 +1,51 @@
 package user;
 
 import user.exception.NullUserException;
+import user.exception.UsernameTakenException;
+import util.journal.IJournal;
+import util.journal.IJournaled;
+import util.journal.JournalRecord;
+import util.journal.exception.UnknownRecordException;
+import util.segment.ChangeTracker;
+import util.segment.IChangeTracked;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * manages the user entity
  */
-public class UserManager implements Serializable {
+public class UserManager implements Serializable, IJournaled, IChangeTracked {
+    private static final long serialVersionUID = -110200571554682946L;
+
+    // Journal record opcodes
+    private static final int SET_FIRST_NAME = 0;
+    private static final int SET_LAST_NAME = 1;
+    private static final int SET_USERNAME = 2;
+    private static final int SET_PASSWORD = 3;
+    private static final int REGISTER = 4;
 
     /**
      * Responsibilities:
      * - Stores a map of UUID -> User objects (i.e. instances of User)
      * - Method to create a user + add it to the map
-     * - Method to test a username/password combination + loop through the users to see if there's a match
-     * - Method to logout the user
+     * - Method to test a username/password combination
+     *
+     * Who is signed in is kept by SessionManager instead, so that several users can be at once.
      */
 
-    private UUID signedInUserUUID;
     private Map<UUID, User> userMap = new HashMap<>();
 
+    // Derived from the users, so it is rebuilt on load instead of being saved
+    private transient Map<String, UUID> usernameIndex;
+    private transient UserSearchIndex searchIndex;
+
+    private transient IJournal journal;
+
+    // Which users have changed since the last save
+    private transient ChangeTracker changeTracker;
+
     /**
      * Returns the full name
      *
@@ -31,6 +56,22 @@ public class UserManager implements Serializable {
         return getUser(userUUID).getName();
     }
 
+    /**
+     * Returns the full names of many users at once
+     *
+     * @param userUUIDs unique user ids
+     * @return map of the user ids to the full names of their users, in the same order as the ids were given
+     */
+    public Map<UUID, String> getUserFullNames(Collection<UUID> userUUIDs) {
+        Map<UUID, String> fullNames = new LinkedHashMap<>();
+
+        for (UUID userUUID : userUUIDs) {
+            fullNames.put(userUUID, getUser(userUUID).getName());
+        }
+
+        return fullNames;
+    }
+
     /**
      * Setter for User's first name
      *
@@ -38,7 +79,12 @@ public class UserManager implements Serializable {
      * @param firstName user's first name
      */
     public void setUserFirstName(UUID userUUID, String firstName) {
-        getUser(userUUID).setFirstName(firstName);
+        User user = getUser(userUUID);
+
+        user.setFirstName(firstName);
+        updateSearchIndex(user);
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_FIRST_NAME).putUUID(userUUID).putString(firstName));
     }
 
     /**
@@ -58,7 +104,12 @@ public class UserManager implements Serializable {
      * @param lastName user's last name
      */
     public void setUserLastName(UUID userUUID, String lastName) {
-        getUser(userUUID).setLastName(lastName);
+        User user = getUser(userUUID);
+
+        user.setLastName(lastName);
+        updateSearchIndex(user);
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_LAST_NAME).putUUID(userUUID).putString(lastName));
     }
 
     /**
@@ -72,13 +123,22 @@ public class UserManager implements Serializable {
     }
 
     /**
-     * Setter for user's username
+     * Setter for user's username. Throws UsernameTakenException if another user already has it.
      *
      * @param userUUID unique user id
      * @param username user's username
      */
     public void setUserUsername(UUID userUUID, String username) {
-        getUser(userUUID).setUsername(username);
+        User user = getUser(userUUID);
+        UUID ownerUUID = getUsernameIndex().get(username);
+
+        if (ownerUUID != null && !ownerUUID.equals(userUUID)) {
+            throw new UsernameTakenException(username);
+        }
+
+        changeUsername(user, username);
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_USERNAME).putUUID(userUUID).putString(username));
     }
 
     /**
@@ -91,6 +151,22 @@ public class UserManager implements Serializable {
         return getUser(userUUID).getUsername();
     }
 
+    /**
+     * Returns the usernames of many users at once
+     *
+     * @param userUUIDs unique user ids
+     * @return map of the user ids to the usernames of their users, in the same order as the ids were given
+     */
+    public Map<UUID, String> getUserUsernames(Collection<UUID> userUUIDs) {
+        Map<UUID, String> usernames = new LinkedHashMap<>();
+
+        for (UUID userUUID : userUUIDs) {
+            usernames.put(userUUID, getUser(userUUID).getUsername());
+        }
+
+        return usernames;
+    }
+
     /**
      * Returns true iff the user has god mode
      *
@@ -109,6 +185,8 @@ public class UserManager implements Serializable {
      */
     public void setUserPassword(UUID userUUID, String password) {
         getUser(userUUID).setPassword(password);
+        getChangeTracker().markChanged(userUUID);
+        record(new JournalRecord(SET_PASSWORD).putUUID(userUUID).putString(password));
     }
 
     /**
@@ -138,16 +216,85 @@ public class UserManager implements Serializable {
      * Returns a user
      *
      * @param username of the user
-     * @return the user given their username
+     * @return the user given their username, or null if there is none
      */
     private User getUserByUsername(String username) {
-        for (User user : userMap.values()) {
-            if (user.getUsername().equals(username)) {
-                return user;
+        UUID userUUID = getUsernameIndex().get(username);
+
+        return userUUID == null ? null : userMap.get(userUUID);
+    }
+
+    /**
+     * Gets the username to user index, building it if this manager was just loaded
+     *
+     * @return map of usernames to the UUIDs of their users
+     */
+    private Map<String, UUID> getUsernameIndex() {
+        if (usernameIndex == null) {
+            usernameIndex = new HashMap<>();
+
+            for (User user : userMap.values()) {
+                usernameIndex.putIfAbsent(user.getUsername(), user.getUuid());
             }
         }
 
-        return null;
+        return usernameIndex;
+    }
+
+    /**
+     * Changes a user's username, keeping the username index up to date
+     *
+     * @param user     the user
+     * @param username new username
+     */
+    private void changeUsername(User user, String username) {
+        getUsernameIndex().remove(user.getUsername(), user.getUuid());
+        user.setUsername(username);
+        getUsernameIndex().put(username, user.getUuid());
+        updateSearchIndex(user);
+    }
+
+    /**
+     * Gets the index used to search users by name, building it if this manager was just loaded
+     *
+     * @return the search index
+     */
+    private UserSearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new UserSearchIndex();
+
+            for (User user : userMap.values()) {
+                searchIndex.put(user);
+            }
+        }
+
+        return searchIndex;
+    }
+
+    /**
+     * Re-indexes a user after their name or username has changed. Does nothing if the index hasn't been built yet.
+     *
+     * @param user the user
+     */
+    private void updateSearchIndex(User user) {
+        if (searchIndex != null) {
+            searchIndex.put(user);
+        }
+    }
+
+    /**
+     * Adds a user read from a save file, for the codec
+     *
+     * @param user the user
+     */
+    void putUser(User user) {
+        userMap.put(user.getUuid(), user);
+
+        if (usernameIndex != null) {
+            usernameIndex.putIfAbsent(user.getUsername(), user.getUuid());
+        }
+
+        updateSearchIndex(user);
     }
 
     /**
@@ -158,19 +305,34 @@ public class UserManager implements Serializable {
      * @param username  user name of the user
      * @param password  password of the user
      * @param isGod     whether this user has god mode
-     * @param autoLogin whether to automatically login as this new user
-     * @return the unique user id of the registered user
+     * @return the unique user id of the registered user, or null if the username is taken
+     */
+    public UUID registerUser(String firstName, String lastName, String username, String password, boolean isGod) {
+        return registerUser(UUID.randomUUID(), firstName, lastName, username, password, isGod);
+    }
+
+    /**
+     * Registers a new user with a known UUID
+     *
+     * @param newUserUUID UUID to give the user
+     * @param firstName   first name of the user
+     * @param lastName    last name of the user
+     * @param username    user name of the user
+     * @param password    password of the user
+     * @param isGod       whether this user has god mode
+     * @return the unique user id of the registered user, or null if the username is taken
      */
-    public UUID registerUser(String firstName, String lastName, String username, String password, boolean isGod, boolean autoLogin) {
-        if (getUserByUsername(username) == null) {
-            User newUser = new User(firstName, lastName, username, password, isGod);
-            UUID newUserUUID = newUser.getUuid();
+    private UUID registerUser(UUID newUserUUID, String firstName, String lastName, String username, String password, boolean isGod) {
+        if (!getUsernameIndex().containsKey(username)) {
+            User newUser = new User(newUserUUID, firstName, lastName, username, password, isGod);
 
             userMap.put(newUserUUID, newUser);
+            getUsernameIndex().put(username, newUserUUID);
+            updateSearchIndex(newUser);
 
-            if (autoLogin) {
-                signedInUserUUID = newUserUUID;
-            }
+            getChangeTracker().markChanged(newUserUUID);
+            record(new JournalRecord(REGISTER).putUUID(newUserUUID).putString(firstName).putString(lastName)
+                    .putString(username).putString(password).putBoolean(isGod));
 
             return newUserUUID;
         }
@@ -185,10 +347,10 @@ public class UserManager implements Serializable {
      * @param lastName  last name of the user
      * @param username  user name of the user
      * @param password  password of the user
-     * @return the unique user id of the registered user
+     * @return the unique user id of the registered user, or null if the username is taken
      */
     public UUID registerUser(String firstName, String lastName, String username, String password) {
-        return registerUser(firstName, lastName, username, password, false, true);
+        return registerUser(firstName, lastName, username, password, false);
     }
 
     /**
@@ -206,7 +368,7 @@ public class UserManager implements Serializable {
 
             // Test if the god user was created successfully
             UUID newUUID;
-            if ((newUUID = registerUser(entry[0], entry[1], entry[2], entry[3], true, false)) != null) {
+            if ((newUUID = registerUser(entry[0], entry[1], entry[2], entry[3], true)) != null) {
                 newGodUserUUIDs.add(newUUID);
             }
         }
@@ -215,17 +377,16 @@ public class UserManager implements Serializable {
     }
 
     /**
-     * Method for login of already registered users
+     * Checks the credentials of an already registered user. Doesn't sign them in; see SessionManager for that.
      *
      * @param username user name of the user
      * @param password password of the user
-     * @return the user id of the user of the credentials match
+     * @return the user id of the user if the credentials match, or null otherwise
      */
-    public UUID login(String username, String password) {
+    public UUID authenticate(String username, String password) {
         User user = getUserByUsername(username);
 
         if (user != null && user.getPassword().equals(password)) {
-            signedInUserUUID = user.getUuid();
             return user.getUuid();
         }
 
@@ -233,29 +394,104 @@ public class UserManager implements Serializable {
     }
 
     /**
-     * Sets the current user to null when logged out
+     * Returns a set of UUID's of all users
+     *
+     * @return a set of all users registered
+     */
+    public Set<UUID> getAllUsers() {
+        return new HashSet<>(userMap.keySet());
+    }
+
+    /**
+     * Searches users by first name, last name and username. Every word of the query has to be the start of one of
+     * those for a user to match.
+     *
+     * @param query  words to look for. An empty query matches every user, ordered by full name.
+     * @param filter which users may be returned, or null for all of them
+     * @param offset number of best matches to skip, for paging through them
+     * @param limit  maximum number of matches to return
+     * @return UUIDs of the matching users, best match first
      */
-    public void clearCurrentUser() {
-        signedInUserUUID = null;
+    public List<UUID> searchUsers(String query, Predicate<UUID> filter, int offset, int limit) {
+        return getSearchIndex().search(query, null, filter, offset, limit);
     }
 
     /**
-     * Returns the id of a user
+     * Searches users by first name, last name and username. Every word of the query has to be the start of one of
+     * those for a user to match.
      *
-     * @return the UUID of a user
+     * @param query      words to look for. An empty query matches every user, ordered by full name.
+     * @param candidates the only users that may be returned, or null for all of them. Searching a small set is
+     *                   much faster than searching everyone with a filter.
+     * @param filter     which of those users may be returned, or null for all of them
+     * @param offset     number of best matches to skip, for paging through them
+     * @param limit      maximum number of matches to return
+     * @return UUIDs of the matching users, best match first
      */
-    public UUID getSignedInUserUUID() {
-        return signedInUserUUID;
+    public List<UUID> searchUsers(String query, Set<UUID> candidates, Predicate<UUID> filter, int offset, int limit) {
+        return getSearchIndex().search(query, candidates, filter, offset, limit);
     }
 
     /**
-     * Returns a set of UUID's of all users
+     * Gets the map of users by UUID, for the codec
      *
-     * @return a set of all users registered
+     * @return the live map of users
      */
-    public Set<UUID> getAllUsers() {
-        return new HashSet<>(userMap.keySet());
+    Map<UUID, User> getUserMap() {
+        return userMap;
+    }
+
+    @Override
+    public ChangeTracker getChangeTracker() {
+        if (changeTracker == null) {
+            changeTracker = new ChangeTracker();
+        }
+
+        return changeTracker;
+    }
+
+    /**
+     * Appends a record of a change to the journal, if there is one
+     *
+     * @param record the change
+     */
+    private void record(JournalRecord record) {
+        if (journal != null) {
+            journal.append(record);
+        }
+    }
+
+    @Override
+    public void setJournal(IJournal journal) {
+        this.journal = journal;
     }
 
+    @Override
+    public void replay(JournalRecord record) {
+        switch (record.getOpcode()) {
+            case SET_FIRST_NAME:
+                User firstNameUser = getUser(record.nextUUID());
+                firstNameUser.setFirstName(record.nextString());
+                updateSearchIndex(firstNameUser);
+                break;
+            case SET_LAST_NAME:
+                User lastNameUser = getUser(record.nextUUID());
+                lastNameUser.setLastName(record.nextString());
+                updateSearchIndex(lastNameUser);
+                break;
+            case SET_USERNAME:
+                changeUsername(getUser(record.nextUUID()), record.nextString());
+                break;
+            case SET_PASSWORD:
+                getUser(record.nextUUID()).setPassword(record.nextString());
+                break;
+            case REGISTER:
+                registerUser(record.nextUUID(), record.nextString(), record.nextString(), record.nextString(),
+                        record.nextString(), record.nextBoolean());
+                break;
+            default:
+                throw new UnknownRecordException(record.getOpcode());
+        }
+    }
 }
 
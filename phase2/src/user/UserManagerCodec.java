@@ -0,0 +1,95 @@
+package user;
+
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.codec.ICodec;
+import util.segment.ISegmentCodec;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts a UserManager to and from the compact binary format, either whole or as one segment per user
+ */
+public class UserManagerCodec implements ICodec<UserManager>, ISegmentCodec<UserManager> {
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(BinaryWriter out, UserManager userManager) throws IOException {
+        Map<UUID, User> userMap = userManager.getUserMap();
+
+        writeRoot(out, userManager);
+        out.writeVarInt(userMap.size());
+
+        for (User user : userMap.values()) {
+            writeUser(out, user);
+        }
+    }
+
+    @Override
+    public UserManager read(BinaryReader in, int version) throws IOException {
+        UserManager userManager = new UserManager();
+
+        readRoot(in, version, userManager);
+
+        int size = in.readVarInt();
+
+        for (int i = 0; i < size; i++) {
+            readSegment(in, version, userManager);
+        }
+
+        return userManager;
+    }
+
+    @Override
+    public UserManager create() {
+        return new UserManager();
+    }
+
+    @Override
+    public Set<UUID> getSegments(UserManager userManager) {
+        return new HashSet<>(userManager.getUserMap().keySet());
+    }
+
+    @Override
+    public boolean hasSegment(UserManager userManager, UUID userUUID) {
+        return userManager.getUserMap().containsKey(userUUID);
+    }
+
+    @Override
+    public void writeRoot(BinaryWriter out, UserManager userManager) throws IOException {
+        // Nothing but the users
+    }
+
+    @Override
+    public void readRoot(BinaryReader in, int version, UserManager userManager) throws IOException {
+    }
+
+    @Override
+    public void writeSegment(BinaryWriter out, UserManager userManager, UUID userUUID) throws IOException {
+        writeUser(out, userManager.getUserMap().get(userUUID));
+    }
+
+    @Override
+    public void readSegment(BinaryReader in, int version, UserManager userManager) throws IOException {
+        User user = new User(in.readUUID(), in.readString(), in.readString(), in.readString(), in.readString(), in.readBoolean());
+        userManager.putUser(user);
+    }
+
+    private void writeUser(BinaryWriter out, User user) throws IOException {
+        out.writeUUID(user.getUuid());
+        out.writeString(user.getFirstName());
+        out.writeString(user.getLastName());
+        out.writeString(user.getUsername());
+        out.writeString(user.getPassword());
+        out.writeBoolean(user.getIsGod());
+    }
+}
@@ -0,0 +1,219 @@
+package user;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Index of users by the words in their first name, last name and username, so that a user can be found by typing the
+ * start of any of them. A user matches a query if every word of the query is the start of one of the user's words.
+ * <p>
+ * Matches are ranked by how many query words are whole words of the user, then by full name.
+ */
+class UserSearchIndex {
+    // Scores of a query word that is one of a user's words, or only the start of one
+    private static final int WHOLE_WORD = 2;
+    private static final int PREFIX = 1;
+
+    // Word -> users with that word. Kept sorted so every word starting with a prefix is in one range, like a trie.
+    private final NavigableMap<String, Set<UUID>> wordIndex = new TreeMap<>();
+
+    // Words each user is indexed under, so they can be removed after the user has changed
+    private final Map<UUID, String[]> userWords = new HashMap<>();
+
+    // Lower case full names, to break ties between matches without looking the users up
+    private final Map<UUID, String> sortKeys = new HashMap<>();
+
+    /**
+     * Adds a user to the index, or updates them if they are already in it
+     *
+     * @param user the user
+     */
+    void put(User user) {
+        UUID userUUID = user.getUuid();
+        String[] words = split(user.getFirstName() + " " + user.getLastName() + " " + user.getUsername());
+
+        remove(userUUID);
+
+        for (String word : words) {
+            wordIndex.computeIfAbsent(word, k -> new HashSet<>()).add(userUUID);
+        }
+
+        userWords.put(userUUID, words);
+        sortKeys.put(userUUID, user.getName().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Removes a user from the index
+     *
+     * @param userUUID UUID of the user
+     */
+    void remove(UUID userUUID) {
+        String[] words = userWords.remove(userUUID);
+
+        if (words == null) {
+            return;
+        }
+
+        for (String word : words) {
+            Set<UUID> userUUIDs = wordIndex.get(word);
+
+            if (userUUIDs != null) {
+                userUUIDs.remove(userUUID);
+
+                if (userUUIDs.isEmpty()) {
+                    wordIndex.remove(word);
+                }
+            }
+        }
+
+        sortKeys.remove(userUUID);
+    }
+
+    /**
+     * Finds the best matches for a query. Every match is scored, but only the requested page of them is sorted.
+     * <p>
+     * If the candidates are given, only they are looked at, so searching a few users (e.g. someone's contacts) costs
+     * the same however many users there are. Otherwise the matches are found through the word index, and an empty
+     * query goes through every user.
+     *
+     * @param query      words to look for. An empty query matches every user, ordered by full name.
+     * @param candidates the only users that may be returned, or null for all of them
+     * @param filter     which of those users may be returned, or null for all of them
+     * @param offset     number of best matches to skip
+     * @param limit      maximum number of matches to return
+     * @return UUIDs of the matching users, best match first
+     */
+    List<UUID> search(String query, Set<UUID> candidates, Predicate<UUID> filter, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        String[] queryWords = split(query);
+        Map<UUID, Integer> scores = candidates == null ? score(queryWords) : score(queryWords, candidates);
+
+        Comparator<UUID> order = Comparator.<UUID>comparingInt(uuid -> scores == null ? 0 : scores.get(uuid)).reversed()
+                .thenComparing(sortKeys::get)
+                .thenComparing(Comparator.naturalOrder());
+
+        // Worst of the kept matches at the head, so it can be dropped when a better one comes along
+        int pageEnd = offset + limit;
+        PriorityQueue<UUID> bestMatches = new PriorityQueue<>(order.reversed());
+
+        for (UUID userUUID : scores == null ? sortKeys.keySet() : scores.keySet()) {
+            if (filter != null && !filter.test(userUUID)) {
+                continue;
+            }
+
+            if (bestMatches.size() < pageEnd) {
+                bestMatches.add(userUUID);
+            } else if (order.compare(userUUID, bestMatches.peek()) < 0) {
+                bestMatches.poll();
+                bestMatches.add(userUUID);
+            }
+        }
+
+        List<UUID> page = new ArrayList<>(bestMatches.size());
+
+        while (!bestMatches.isEmpty()) {
+            page.add(bestMatches.poll());
+        }
+
+        Collections.reverse(page);
+
+        return offset >= page.size() ? new ArrayList<>() : new ArrayList<>(page.subList(offset, page.size()));
+    }
+
+    /**
+     * Scores the users matching every word of a query
+     *
+     * @param queryWords words of the query
+     * @return map of matching user UUIDs to their scores, or null if there are no words to match
+     */
+    private Map<UUID, Integer> score(String[] queryWords) {
+        Map<UUID, Integer> scores = null;
+
+        for (String queryWord : queryWords) {
+            Map<UUID, Integer> wordScores = new HashMap<>();
+
+            for (Map.Entry<String, Set<UUID>> entry : wordIndex.subMap(queryWord, true, queryWord + Character.MAX_VALUE, false).entrySet()) {
+                int score = entry.getKey().equals(queryWord) ? WHOLE_WORD : PREFIX;
+
+                for (UUID userUUID : entry.getValue()) {
+                    // Only users that matched all the earlier words are still in the running
+                    if (scores == null || scores.containsKey(userUUID)) {
+                        wordScores.merge(userUUID, score, Math::max);
+                    }
+                }
+            }
+
+            if (scores != null) {
+                for (Map.Entry<UUID, Integer> entry : wordScores.entrySet()) {
+                    entry.setValue(entry.getValue() + scores.get(entry.getKey()));
+                }
+            }
+
+            scores = wordScores;
+        }
+
+        return scores;
+    }
+
+    /**
+     * Scores the candidates matching every word of a query, by checking each of their words
+     *
+     * @param queryWords words of the query
+     * @param candidates UUIDs of the users to score. Ones that aren't in the index are left out.
+     * @return map of matching user UUIDs to their scores
+     */
+    private Map<UUID, Integer> score(String[] queryWords, Set<UUID> candidates) {
+        Map<UUID, Integer> scores = new HashMap<>();
+
+        for (UUID userUUID : candidates) {
+            String[] words = userWords.get(userUUID);
+
+            if (words == null) {
+                continue;
+            }
+
+            int score = 0;
+
+            for (String queryWord : queryWords) {
+                int wordScore = 0;
+
+                for (String word : words) {
+                    if (word.equals(queryWord)) {
+                        wordScore = WHOLE_WORD;
+                        break;
+                    } else if (word.startsWith(queryWord)) {
+                        wordScore = PREFIX;
+                    }
+                }
+
+                if (wordScore == 0) {
+                    score = -1;
+                    break;
+                }
+
+                score += wordScore;
+            }
+
+            if (score >= 0) {
+                scores.put(userUUID, score);
+            }
+        }
+
+        return scores;
+    }
+
+    /**
+     * Splits text into lower case words
+     *
+     * @param text the text
+     * @return the words, without any empty ones
+     */
+    private static String[] split(String text) {
+        String trimmed = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+}
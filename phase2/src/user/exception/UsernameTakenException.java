@@ -0,0 +1,10 @@
+package user.exception;
+
+/**
+ * raises an error when a user tries to take a username another user already has
+ */
+public class UsernameTakenException extends RuntimeException {
+    public UsernameTakenException(String username) {
+        super(String.format("Username %s is already taken.", username));
+    }
+}
@@ -8,6 +8,9 @@ import convention.ScheduleController;
 import messaging.ConversationController;
 import user.UserController;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 /**
  * Stores all the controllers in the system as a single object to make it easier to pass around the UI
  */
@@ -25,6 +28,9 @@ public class ControllerBundle {
     private ConferenceController conferenceController;
     private ScheduleController scheduleController;
 
+    // Set while everything except the user controller is still being loaded
+    private Future<ControllerBundle> pending;
+
     /**
      * Constructs controller bundle
      */
@@ -38,6 +44,44 @@ public class ControllerBundle {
         this.scheduleController = scheduleController;
     }
 
+    /**
+     * Creates a bundle whose user controller is ready, while the rest are still being loaded. Getting any of the others
+     * waits until they are ready.
+     *
+     * @param userController user controller
+     * @param pending        completes with a bundle containing the rest of the controllers
+     */
+    public ControllerBundle(UserController userController, Future<ControllerBundle> pending) {
+        this.userController = userController;
+        this.pending = pending;
+    }
+
+    /**
+     * Waits for the rest of the controllers to be loaded, if they aren't already
+     */
+    private void awaitPending() {
+        if (pending == null) {
+            return;
+        }
+
+        try {
+            ControllerBundle loaded = pending.get();
+
+            contactController = loaded.contactController;
+            conversationController = loaded.conversationController;
+            roomController = loaded.roomController;
+            eventController = loaded.eventController;
+            conferenceController = loaded.conferenceController;
+            scheduleController = loaded.scheduleController;
+            pending = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to load", e.getCause());
+        }
+    }
+
     /**
      * Gets UserController
      *
@@ -53,6 +97,7 @@ public class ControllerBundle {
      * @return
      */
     public ConferenceController getConferenceController() {
+        awaitPending();
         return conferenceController;
     }
 
@@ -62,6 +107,7 @@ public class ControllerBundle {
      * @return
      */
     public ContactController getContactController() {
+        awaitPending();
         return contactController;
     }
 
@@ -71,6 +117,7 @@ public class ControllerBundle {
      * @return
      */
     public RoomController getRoomController() {
+        awaitPending();
         return roomController;
     }
 
@@ -80,6 +127,7 @@ public class ControllerBundle {
      * @return
      */
     public EventController getEventController() {
+        awaitPending();
         return eventController;
     }
 
@@ -89,10 +137,12 @@ public class ControllerBundle {
      * @return
      */
     public ConversationController getConversationController() {
+        awaitPending();
         return conversationController;
     }
 
     public ScheduleController getScheduleController() {
+        awaitPending();
         return scheduleController;
     }
 }
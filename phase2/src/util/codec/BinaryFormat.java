@@ -0,0 +1,171 @@
+package util.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes whole files in the compact binary format. Each file starts with a magic number and the version of
+ * the codec that wrote it, so files from other programs or newer versions are rejected instead of misread.
+ * <p>
+ * Whole files also end in a CRC32 of everything before it, so a file that was damaged on disk is rejected before it is
+ * decoded. Files written before the checksum was added have a different magic number, and are read without one.
+ */
+public class BinaryFormat {
+    // "CSCB", for files without a checksum and the headers inside other files
+    private static final int MAGIC = 0x43534342;
+
+    // "CSCC", for whole files ending in a checksum
+    private static final int CHECKED_MAGIC = 0x43534343;
+
+    private static final int CHECKSUM_SIZE = 4;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Writes an object with a header and a checksum, and flushes it to the channel
+     *
+     * @param channel where to write
+     * @param codec   codec for the object
+     * @param value   object to write
+     * @param <T>     type of object
+     */
+    public static <T> void write(WritableByteChannel channel, ICodec<T> codec, T value) throws IOException {
+        CRC32 crc = new CRC32();
+
+        // Every byte passes through here on its way to the channel, so the checksum is taken as it's written
+        BinaryWriter out = new BinaryWriter(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                ByteBuffer written = src.duplicate();
+                int count = channel.write(src);
+
+                written.limit(written.position() + count);
+                crc.update(written);
+
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        });
+
+        out.writeInt(CHECKED_MAGIC);
+        out.writeVarInt(codec.getVersion());
+        codec.write(out, value);
+        out.flush();
+
+        ByteBuffer checksum = ByteBuffer.allocate(CHECKSUM_SIZE);
+        checksum.putInt((int) crc.getValue());
+        checksum.flip();
+
+        while (checksum.hasRemaining()) {
+            channel.write(checksum);
+        }
+    }
+
+    /**
+     * Reads an object written by {@link #write}. The whole file is read and checked before anything is decoded.
+     *
+     * @param channel where to read from
+     * @param codec   codec for the object
+     * @param <T>     type of object
+     * @return the object
+     * @throws StreamCorruptedException if the file is damaged, including if the codec fails on what it contains
+     */
+    public static <T> T read(ReadableByteChannel channel, ICodec<T> codec) throws IOException {
+        byte[] bytes = readFully(channel);
+        int length = bytes.length;
+
+        if (length >= 4 && ByteBuffer.wrap(bytes).getInt() == CHECKED_MAGIC) {
+            if (length < 4 + CHECKSUM_SIZE) {
+                throw new StreamCorruptedException("Missing checksum");
+            }
+
+            length -= CHECKSUM_SIZE;
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, length);
+
+            if ((int) crc.getValue() != ByteBuffer.wrap(bytes, length, CHECKSUM_SIZE).getInt()) {
+                throw new StreamCorruptedException("Checksum doesn't match");
+            }
+        }
+
+        BinaryReader in = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes, 0, length)), length);
+        int version = readHeader(in, codec.getVersion(), true);
+
+        try {
+            return codec.read(in, version);
+        } catch (RuntimeException e) {
+            // e.g. a damaged file from before the checksum was added
+            StreamCorruptedException corrupt = new StreamCorruptedException("Unable to decode save file");
+            corrupt.initCause(e);
+            throw corrupt;
+        }
+    }
+
+    private static byte[] readFully(ReadableByteChannel channel) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        while (channel.read(buffer) >= 0) {
+            bytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the header that starts every file
+     *
+     * @param out     where to write
+     * @param version version of the layout that follows
+     */
+    public static void writeHeader(BinaryWriter out, int version) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeVarInt(version);
+    }
+
+    /**
+     * Reads and checks the header written by {@link #writeHeader}
+     *
+     * @param in             where to read from
+     * @param currentVersion newest layout version the reader understands
+     * @return version of the layout that follows
+     */
+    public static int readHeader(BinaryReader in, int currentVersion) throws IOException {
+        return readHeader(in, currentVersion, false);
+    }
+
+    private static int readHeader(BinaryReader in, int currentVersion, boolean wholeFile) throws IOException {
+        int magic = in.readInt();
+
+        if (magic != MAGIC && (!wholeFile || magic != CHECKED_MAGIC)) {
+            throw new StreamCorruptedException("Not a binary save file");
+        }
+
+        int version = in.readVarInt();
+
+        if (version < 1 || version > currentVersion) {
+            throw new StreamCorruptedException("Unsupported save file version " + version);
+        }
+
+        return version;
+    }
+}
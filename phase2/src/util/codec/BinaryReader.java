@@ -0,0 +1,227 @@
+package util.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads values written by a {@link BinaryWriter} from a channel, through a buffer
+ */
+public class BinaryReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Bytes left in the channel that haven't been buffered yet, so a corrupt length can be rejected before allocating
+    // anything for it
+    private long unread;
+
+    // Every UUID read so far, so later references to them can be resolved
+    private final List<UUID> uuids = new ArrayList<>();
+
+    /**
+     * Creates a reader for a channel. If the channel is a file, lengths are checked against what's left of it.
+     *
+     * @param channel channel to read from
+     */
+    public BinaryReader(ReadableByteChannel channel) {
+        this(channel, remainingBytes(channel));
+    }
+
+    /**
+     * Creates a reader for a channel with a known number of bytes left to read
+     *
+     * @param channel channel to read from
+     * @param length  number of bytes left in the channel, or Long.MAX_VALUE if unknown
+     */
+    public BinaryReader(ReadableByteChannel channel, long length) {
+        this.channel = channel;
+        this.unread = length;
+        buffer.flip();
+    }
+
+    private static long remainingBytes(ReadableByteChannel channel) {
+        if (channel instanceof SeekableByteChannel) {
+            try {
+                SeekableByteChannel seekable = (SeekableByteChannel) channel;
+                return seekable.size() - seekable.position();
+            } catch (IOException e) {
+                // Read it anyway; a short file still ends in an EOFException
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return number of bytes left to read, or a huge number if the length of the channel isn't known
+     */
+    private long remaining() {
+        return unread == Long.MAX_VALUE ? Long.MAX_VALUE : unread + buffer.remaining();
+    }
+
+    /**
+     * Reads from the channel until at least a number of bytes are buffered
+     *
+     * @param bytes number of bytes needed. At most the buffer size.
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        buffer.compact();
+
+        while (buffer.position() < bytes) {
+            int read = channel.read(buffer);
+
+            if (read < 0) {
+                throw new EOFException();
+            }
+
+            if (unread != Long.MAX_VALUE) {
+                unread = Math.max(0, unread - read);
+            }
+        }
+
+        buffer.flip();
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    public boolean readBoolean() throws IOException {
+        require(1);
+        return buffer.get() != 0;
+    }
+
+    private byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new StreamCorruptedException("Varint is too long");
+    }
+
+    public long readVarLong() throws IOException {
+        long zigzag = 0;
+
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+
+        throw new StreamCorruptedException("Varlong is too long");
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt() - 1;
+
+        if (length == -1) {
+            return null;
+        }
+
+        if (length < 0 || length > remaining()) {
+            throw new StreamCorruptedException("String of " + length + " bytes is longer than the rest of the file");
+        }
+
+        byte[] bytes = new byte[length];
+        int offset = 0;
+
+        while (offset < length) {
+            require(1);
+
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public UUID readUUID() throws IOException {
+        int reference = readVarInt();
+
+        if (reference == 0) {
+            require(16);
+
+            UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            uuids.add(uuid);
+
+            return uuid;
+        }
+
+        if (reference < 0 || reference > uuids.size()) {
+            throw new StreamCorruptedException("Reference to unknown UUID " + reference);
+        }
+
+        return uuids.get(reference - 1);
+    }
+
+    public UUID readNullableUUID() throws IOException {
+        return readBoolean() ? readUUID() : null;
+    }
+
+    /**
+     * Reads a collection of UUIDs
+     *
+     * @return a new modifiable set of the UUIDs
+     */
+    public Set<UUID> readUUIDs() throws IOException {
+        int size = readVarInt();
+        Set<UUID> uuids = new HashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            uuids.add(readUUID());
+        }
+
+        return uuids;
+    }
+
+    public LocalDateTime readDateTime() throws IOException {
+        long epochSecond = readVarLong();
+        int nano = readVarInt();
+
+        try {
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new StreamCorruptedException("Invalid time " + epochSecond + "." + nano);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package util.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes primitive values in the compact binary format to a channel, through a buffer.
+ * <p>
+ * Counts and lengths are unsigned varints (7 bits per byte), UUIDs are two longs, times are epoch seconds (UTC) and
+ * nanoseconds, and strings are length-prefixed UTF-8. The same UUID tends to show up many times in one file (e.g. a
+ * user in every conversation and conference they're part of), so after the first time it is written as a varint
+ * reference to that first occurrence. Call {@link #flush()} when done.
+ */
+public class BinaryWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Index of each UUID written so far, in the order they were first written
+    private final Map<UUID, Integer> uuidToIndex = new HashMap<>();
+
+    /**
+     * Creates a writer for a channel
+     *
+     * @param channel channel to write to
+     */
+    public BinaryWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Makes room for a number of bytes in the buffer, writing out what is already there if needed
+     *
+     * @param bytes number of bytes needed
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Writes everything buffered so far to the channel
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensureRemaining(4);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensureRemaining(8);
+        buffer.putLong(value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Writes an int in 1 to 5 bytes. Small non-negative values (e.g. counts and lengths) take the fewest bytes.
+     *
+     * @param value value to write
+     */
+    public void writeVarInt(int value) throws IOException {
+        ensureRemaining(5);
+
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a long in 1 to 10 bytes. Values close to zero, negative or positive, take the fewest bytes.
+     *
+     * @param value value to write
+     */
+    public void writeVarLong(long value) throws IOException {
+        ensureRemaining(10);
+
+        // Zigzag encoding, so small negative numbers stay small
+        long zigzag = (value << 1) ^ (value >> 63);
+
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+
+        buffer.put((byte) zigzag);
+    }
+
+    /**
+     * Writes a string, which may be null
+     *
+     * @param value string to write
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+
+        int offset = 0;
+
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Writes a UUID, which must not be null
+     *
+     * @param uuid UUID to write
+     */
+    public void writeUUID(UUID uuid) throws IOException {
+        Integer index = uuidToIndex.get(uuid);
+
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+
+        uuidToIndex.put(uuid, uuidToIndex.size());
+
+        // 0 means the UUID itself follows
+        ensureRemaining(17);
+        buffer.put((byte) 0);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a UUID that may be null
+     *
+     * @param uuid UUID to write
+     */
+    public void writeNullableUUID(UUID uuid) throws IOException {
+        writeBoolean(uuid != null);
+
+        if (uuid != null) {
+            writeUUID(uuid);
+        }
+    }
+
+    /**
+     * Writes a collection of UUIDs, none of which may be null
+     *
+     * @param uuids UUIDs to write
+     */
+    public void writeUUIDs(Collection<UUID> uuids) throws IOException {
+        writeVarInt(uuids.size());
+
+        for (UUID uuid : uuids) {
+            writeUUID(uuid);
+        }
+    }
+
+    /**
+     * Writes a date and time, which must not be null
+     *
+     * @param dateTime date and time to write
+     */
+    public void writeDateTime(LocalDateTime dateTime) throws IOException {
+        writeVarLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        writeVarInt(dateTime.getNano());
+    }
+}
@@ -0,0 +1,35 @@
+package util.codec;
+
+import java.io.IOException;
+
+/**
+ * Converts one kind of object to and from the compact binary format
+ *
+ * @param <T> type of object
+ */
+public interface ICodec<T> {
+    /**
+     * Gets the version of the layout this codec writes. Bump it whenever {@link #write} changes, and keep
+     * {@link #read} able to read the older versions.
+     *
+     * @return current layout version
+     */
+    int getVersion();
+
+    /**
+     * Writes an object
+     *
+     * @param out   where to write
+     * @param value object to write
+     */
+    void write(BinaryWriter out, T value) throws IOException;
+
+    /**
+     * Reads an object
+     *
+     * @param in      where to read from
+     * @param version version of the layout the object was written with
+     * @return the object
+     */
+    T read(BinaryReader in, int version) throws IOException;
+}
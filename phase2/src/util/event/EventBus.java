@@ -0,0 +1,96 @@
+package util.event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Passes events from whatever publishes them to the listeners subscribed to their topic (e.g. a conversation), in
+ * process. Each listener says which executor to be called on, so e.g. a view can have its events delivered on the UI
+ * thread. Events published to a topic with no listeners cost next to nothing.
+ *
+ * @param <K> type of topic
+ * @param <E> type of event
+ */
+public class EventBus<K, E> {
+    private final Map<K, List<Subscriber<E>>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * A listener, and where to call it
+     */
+    private static final class Subscriber<E> {
+        private final Executor executor;
+        private final Consumer<? super E> listener;
+        private volatile boolean cancelled;
+
+        private Subscriber(Executor executor, Consumer<? super E> listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        private void deliver(E event) {
+            executor.execute(() -> {
+                if (!cancelled) {
+                    listener.accept(event);
+                }
+            });
+        }
+    }
+
+    /**
+     * Subscribes a listener to the events of a topic
+     *
+     * @param topic    topic to listen to
+     * @param executor runs the listener for each event (e.g. SwingUtilities::invokeLater, or Runnable::run to call it
+     *                 straight away)
+     * @param listener called with each event, in the order they were published
+     * @return the subscription, to cancel when the listener is done
+     */
+    public ISubscription subscribe(K topic, Executor executor, Consumer<? super E> listener) {
+        Subscriber<E> subscriber = new Subscriber<>(executor, listener);
+        // Added inside compute so that it can't go into a list that a cancel is removing at the same time
+        subscribers.compute(topic, (k, topicSubscribers) -> {
+            List<Subscriber<E>> updated = topicSubscribers == null ? new CopyOnWriteArrayList<>() : topicSubscribers;
+            updated.add(subscriber);
+            return updated;
+        });
+
+        return () -> {
+            subscriber.cancelled = true;
+
+            subscribers.computeIfPresent(topic, (k, topicSubscribers) -> {
+                topicSubscribers.remove(subscriber);
+                return topicSubscribers.isEmpty() ? null : topicSubscribers;
+            });
+        };
+    }
+
+    /**
+     * Sends an event to every listener of a topic
+     *
+     * @param topic topic of the event
+     * @param event the event
+     */
+    public void publish(K topic, E event) {
+        List<Subscriber<E>> topicSubscribers = subscribers.get(topic);
+
+        if (topicSubscribers == null) {
+            return;
+        }
+
+        for (Subscriber<E> subscriber : topicSubscribers) {
+            subscriber.deliver(event);
+        }
+    }
+
+    /**
+     * @param topic topic in question
+     * @return true iff any listener is subscribed to the topic
+     */
+    public boolean hasSubscribers(K topic) {
+        return subscribers.containsKey(topic);
+    }
+}
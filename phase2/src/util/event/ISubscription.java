@@ -0,0 +1,11 @@
+package util.event;
+
+/**
+ * A listener's subscription to an event bus
+ */
+public interface ISubscription {
+    /**
+     * Stops the listener from getting any more events, including ones published but not yet delivered
+     */
+    void cancel();
+}
@@ -0,0 +1,8 @@
+package util.journal;
+
+/**
+ * Somewhere to append records of the changes made to a manager
+ */
+public interface IJournal {
+    void append(JournalRecord record);
+}
@@ -0,0 +1,20 @@
+package util.journal;
+
+/**
+ * A manager that records its changes to a journal, and can apply those records again to rebuild its state
+ */
+public interface IJournaled {
+    /**
+     * Sets where changes are recorded. Set to null to stop recording.
+     *
+     * @param journal journal to append to
+     */
+    void setJournal(IJournal journal);
+
+    /**
+     * Applies a record previously appended by this kind of manager
+     *
+     * @param record the record to apply
+     */
+    void replay(JournalRecord record);
+}
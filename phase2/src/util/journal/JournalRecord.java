@@ -0,0 +1,240 @@
+package util.journal;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * A single journal entry describing one change to a manager.
+ * <p>
+ * A record is an opcode followed by its arguments. Records are built by chaining put methods, and read back by
+ * calling the matching next methods in the same order.
+ */
+public class JournalRecord {
+    private final int opcode;
+
+    private ByteArrayOutputStream bytes;
+    private DataOutputStream out;
+
+    private DataInputStream in;
+
+    /**
+     * Creates an empty record to write arguments into
+     *
+     * @param opcode operation this record describes, in the range 0-255
+     */
+    public JournalRecord(int opcode) {
+        this.opcode = opcode;
+        this.bytes = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(bytes);
+
+        try {
+            out.writeByte(opcode);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a record from its encoded form
+     *
+     * @param encoded bytes from toBytes
+     */
+    public JournalRecord(byte[] encoded) {
+        this.in = new DataInputStream(new ByteArrayInputStream(encoded));
+
+        try {
+            this.opcode = in.readUnsignedByte();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the operation this record describes
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * @return the encoded record
+     */
+    public byte[] toBytes() {
+        return bytes.toByteArray();
+    }
+
+    public JournalRecord putBoolean(boolean value) {
+        try {
+            out.writeBoolean(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    public JournalRecord putInt(int value) {
+        try {
+            out.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    public JournalRecord putLong(long value) {
+        try {
+            out.writeLong(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes a string, which may be null
+     */
+    public JournalRecord putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Writes a UUID, which may be null
+     */
+    public JournalRecord putUUID(UUID value) {
+        putBoolean(value != null);
+
+        if (value != null) {
+            putLong(value.getMostSignificantBits());
+            putLong(value.getLeastSignificantBits());
+        }
+
+        return this;
+    }
+
+    public JournalRecord putUUIDs(Collection<UUID> values) {
+        putInt(values.size());
+
+        for (UUID value : values) {
+            putUUID(value);
+        }
+
+        return this;
+    }
+
+    public JournalRecord putDateTime(LocalDateTime value) {
+        putLong(value.toEpochSecond(ZoneOffset.UTC));
+        return putInt(value.getNano());
+    }
+
+    /**
+     * Writes another record inside this one. Used by managers that pass on changes from the managers they create.
+     */
+    public JournalRecord putRecord(JournalRecord record) {
+        byte[] encoded = record.toBytes();
+
+        try {
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return this;
+    }
+
+    public boolean nextBoolean() {
+        try {
+            return in.readBoolean();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int nextInt() {
+        try {
+            return in.readInt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long nextLong() {
+        try {
+            return in.readLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String nextString() {
+        int length = nextInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] encoded = new byte[length];
+
+        try {
+            in.readFully(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    public UUID nextUUID() {
+        if (!nextBoolean()) {
+            return null;
+        }
+
+        return new UUID(nextLong(), nextLong());
+    }
+
+    public Set<UUID> nextUUIDs() {
+        int size = nextInt();
+        Set<UUID> values = new HashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            values.add(nextUUID());
+        }
+
+        return values;
+    }
+
+    public LocalDateTime nextDateTime() {
+        return LocalDateTime.ofEpochSecond(nextLong(), nextInt(), ZoneOffset.UTC);
+    }
+
+    public JournalRecord nextRecord() {
+        byte[] encoded = new byte[nextInt()];
+
+        try {
+            in.readFully(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new JournalRecord(encoded);
+    }
+}
@@ -0,0 +1,10 @@
+package util.journal.exception;
+
+/**
+ * Thrown when a manager is asked to replay a journal record it doesn't recognize
+ */
+public class UnknownRecordException extends RuntimeException {
+    public UnknownRecordException(int opcode) {
+        super(String.format("Unknown journal record opcode %d", opcode));
+    }
+}
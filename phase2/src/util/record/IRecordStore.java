@@ -0,0 +1,76 @@
+package util.record;
+
+import java.io.Flushable;
+import java.util.UUID;
+
+/**
+ * Keeps lists of records on disk instead of in memory, one list per key (e.g. the messages of a conversation). Records
+ * are opaque bytes, numbered from 0 in the order they were appended.
+ * <p>
+ * Changes are written straight away, but only forced to disk by {@link #flush()}. Throws UncheckedIOException if the
+ * disk can't be read or written.
+ */
+public interface IRecordStore extends Flushable {
+    /**
+     * @param key key of the list
+     * @return number of records in the list, 0 if there is no such list
+     */
+    int size(UUID key);
+
+    /**
+     * Adds a record to the end of a list, creating the list if needed
+     *
+     * @param key    key of the list
+     * @param record the record
+     */
+    void append(UUID key, byte[] record);
+
+    /**
+     * @param key   key of the list
+     * @param index index of the record
+     * @return the record
+     */
+    byte[] read(UUID key, int index);
+
+    /**
+     * Replaces a record in a list. The space the old one took up may only be reclaimed later.
+     *
+     * @param key    key of the list
+     * @param index  index of the record
+     * @param record the new record
+     */
+    void replace(UUID key, int index, byte[] record);
+
+    /**
+     * Removes a record from a list. The records after it move down by one.
+     *
+     * @param key   key of the list
+     * @param index index of the record
+     */
+    void remove(UUID key, int index);
+
+    /**
+     * Gets a list's metadata: a small record kept apart from the numbered ones, for what would otherwise mean reading
+     * all of them (e.g. which messages of a conversation are deleted)
+     *
+     * @param key key of the list
+     * @return the metadata, or null if it was never written or there is no such list
+     */
+    byte[] readMetadata(UUID key);
+
+    /**
+     * Replaces a list's metadata, creating the list if needed
+     *
+     * @param key      key of the list
+     * @param metadata the new metadata
+     */
+    void writeMetadata(UUID key, byte[] metadata);
+
+    /**
+     * Removes a list and all of its records, e.g. when its conversation is deleted. Does nothing if there is no such
+     * list.
+     *
+     * @param key key of the list
+     */
+    void delete(UUID key);
+}
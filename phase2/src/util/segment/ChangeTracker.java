@@ -0,0 +1,76 @@
+package util.segment;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps track of which parts of a manager have changed since it was last saved, so only those need to be written
+ * again.
+ * <p>
+ * A manager is split into segments: one per entity (e.g. a conference, including its events and rooms), identified by
+ * the entity's UUID, plus a root segment for anything that doesn't belong to an entity. A new tracker considers
+ * everything changed, since nothing has been saved yet.
+ */
+public class ChangeTracker {
+    private Set<UUID> changedSegments = new HashSet<>();
+    private boolean rootChanged = true;
+    private boolean allChanged = true;
+
+    /**
+     * Marks an entity's segment as changed, including the entity being created or deleted
+     *
+     * @param segmentUUID UUID of the entity
+     */
+    public void markChanged(UUID segmentUUID) {
+        if (!allChanged) {
+            changedSegments.add(segmentUUID);
+        }
+    }
+
+    /**
+     * Marks the root segment as changed
+     */
+    public void markRootChanged() {
+        rootChanged = true;
+    }
+
+    /**
+     * Marks everything as changed, e.g. if writing the last changes failed
+     */
+    public void markAllChanged() {
+        allChanged = true;
+        rootChanged = true;
+        changedSegments = new HashSet<>();
+    }
+
+    /**
+     * Marks everything as saved, e.g. right after loading
+     */
+    public void clear() {
+        allChanged = false;
+        rootChanged = false;
+        changedSegments = new HashSet<>();
+    }
+
+    /**
+     * @return whether everything has to be written
+     */
+    public boolean isAllChanged() {
+        return allChanged;
+    }
+
+    /**
+     * @return whether the root segment has to be written
+     */
+    public boolean isRootChanged() {
+        return rootChanged;
+    }
+
+    /**
+     * @return UUIDs of the entities whose segments have to be written. Empty if everything has changed.
+     */
+    public Set<UUID> getChangedSegments() {
+        return changedSegments;
+    }
+}
@@ -0,0 +1,11 @@
+package util.segment;
+
+/**
+ * A manager that keeps track of which of its segments have changed since it was last saved
+ */
+public interface IChangeTracked {
+    /**
+     * @return the manager's change tracker
+     */
+    ChangeTracker getChangeTracker();
+}
@@ -0,0 +1,75 @@
+package util.segment;
+
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Converts a manager to and from the compact binary format one segment at a time, so that each segment can be saved
+ * separately (see {@link ChangeTracker}).
+ *
+ * @param <T> type of manager
+ */
+public interface ISegmentCodec<T> {
+    /**
+     * Gets the version of the layout this codec writes, like {@link util.codec.ICodec#getVersion()}
+     *
+     * @return current layout version
+     */
+    int getVersion();
+
+    /**
+     * @return a new, empty manager to read segments into
+     */
+    T create();
+
+    /**
+     * @param manager the manager
+     * @return UUIDs of every entity that has a segment
+     */
+    Set<UUID> getSegments(T manager);
+
+    /**
+     * @param manager     the manager
+     * @param segmentUUID UUID of an entity
+     * @return whether the entity exists, i.e. hasn't been deleted
+     */
+    boolean hasSegment(T manager, UUID segmentUUID);
+
+    void writeRoot(BinaryWriter out, T manager) throws IOException;
+
+    void readRoot(BinaryReader in, int version, T manager) throws IOException;
+
+    /**
+     * Writes an entity's segment
+     *
+     * @param out         where to write
+     * @param manager     the manager
+     * @param segmentUUID UUID of the entity, which must exist
+     */
+    void writeSegment(BinaryWriter out, T manager, UUID segmentUUID) throws IOException;
+
+    /**
+     * Reads an entity's segment and adds the entity to the manager
+     *
+     * @param in      where to read from
+     * @param version version of the layout the segment was written with
+     * @param manager the manager
+     */
+    void readSegment(BinaryReader in, int version, T manager) throws IOException;
+
+    /**
+     * Adds a saved segment to the manager once the root has been read. By default it is read straight away; a codec
+     * can instead keep the source and read it the first time the entity is needed.
+     *
+     * @param manager     the manager
+     * @param segmentUUID UUID of the entity
+     * @param source      the saved segment
+     */
+    default void loadSegment(T manager, UUID segmentUUID, ISegmentSource source) {
+        source.read((in, version) -> readSegment(in, version, manager));
+    }
+}
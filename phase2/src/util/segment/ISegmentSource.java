@@ -0,0 +1,24 @@
+package util.segment;
+
+import util.codec.BinaryReader;
+
+import java.io.IOException;
+
+/**
+ * A saved segment that hasn't been read yet, so a codec can put off reading it until it's first needed
+ */
+public interface ISegmentSource {
+    /**
+     * Reads the segment. Throws an unchecked exception if it can't be read.
+     *
+     * @param reader reads the segment's contents
+     */
+    void read(Reader reader);
+
+    /**
+     * Reads a segment's contents, like {@link ISegmentCodec#readSegment}
+     */
+    interface Reader {
+        void read(BinaryReader in, int version) throws IOException;
+    }
+}
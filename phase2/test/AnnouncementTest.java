@@ -0,0 +1,154 @@
+import contact.ContactManager;
+import convention.ConferenceController;
+import convention.EventController;
+import convention.RoomController;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import convention.exception.PermissionException;
+import gateway.BinarySerializer;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.exception.NoReadAccessException;
+import messaging.exception.NoWriteAccessException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AnnouncementTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    UserManager userManager;
+    ConferenceManager conferenceManager;
+    ConversationController conversationController;
+    EventController eventController;
+    RoomController roomController;
+    ConferenceController conferenceController;
+
+    UUID organizer;
+    UUID attendeeA;
+    UUID attendeeB;
+    UUID outsider;
+    UUID conferenceUUID;
+
+    TimeRange timeRange = new TimeRange(LocalDateTime.of(2030, 1, 1, 9, 0), LocalDateTime.of(2030, 1, 2, 17, 0));
+
+    @Before
+    public void init() {
+        userManager = new UserManager();
+        conferenceManager = new ConferenceManager();
+        ConversationManager conversationManager = new ConversationManager();
+
+        conversationController = new ConversationController(new ContactManager(), conversationManager, userManager);
+        roomController = new RoomController(conferenceManager, userManager);
+        eventController = new EventController(conferenceManager, conversationManager, userManager);
+        conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+
+        organizer = userManager.registerUser("Organ", "Izer", "organizer", "pw");
+        attendeeA = userManager.registerUser("Attendee", "A", "attendeeA", "pw");
+        attendeeB = userManager.registerUser("Attendee", "B", "attendeeB", "pw");
+        outsider = userManager.registerUser("Out", "Sider", "outsider", "pw");
+
+        conferenceUUID = conferenceController.createConference("Conference", timeRange, organizer);
+        conferenceController.addAttendee(conferenceUUID, attendeeA);
+        conferenceController.addAttendee(conferenceUUID, attendeeB);
+    }
+
+    @Test(timeout = 1000)
+    public void testBroadcast() {
+        assertNull(conferenceController.getAnnouncementConversationUUID(conferenceUUID, attendeeA));
+
+        UUID conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, organizer, "Welcome");
+        assertEquals(conferenceController.sendAnnouncement(conferenceUUID, organizer, "Lunch is at noon"), conversationUUID);
+        assertEquals(conferenceController.getAnnouncementConversationUUID(conferenceUUID, attendeeA), conversationUUID);
+
+        // Everyone reads the same two messages, and has their own read state
+        assertEquals(conversationController.getLatestMessages(attendeeA, conversationUUID, 10).getMessages().size(), 2);
+        assertEquals((int) conversationController.getUnreadCounts(attendeeA, Collections.singleton(conversationUUID)).get(conversationUUID), 0);
+        assertEquals((int) conversationController.getUnreadCounts(attendeeB, Collections.singleton(conversationUUID)).get(conversationUUID), 2);
+
+        assertTrue(conversationController.getInbox(attendeeB, null, 10).contains(conversationUUID));
+        assertTrue(conversationController.canSendMessages(organizer, conversationUUID));
+        assertFalse(conversationController.canSendMessages(attendeeA, conversationUUID));
+    }
+
+    @Test(timeout = 1000, expected = NoWriteAccessException.class)
+    public void testAttendeeCannotPost() {
+        UUID conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, organizer, "Welcome");
+
+        conversationController.sendMessage(attendeeA, "Hello everyone", conversationUUID);
+    }
+
+    @Test(timeout = 1000, expected = PermissionException.class)
+    public void testAttendeeCannotAnnounce() {
+        conferenceController.sendAnnouncement(conferenceUUID, attendeeA, "Welcome");
+    }
+
+    @Test(timeout = 1000)
+    public void testMembership() {
+        UUID conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, organizer, "Welcome");
+        UUID latecomer = userManager.registerUser("Late", "Comer", "latecomer", "pw");
+        UUID speaker = userManager.registerUser("Spea", "Ker", "speaker", "pw");
+
+        // Joining, even after the channel was started
+        conferenceController.addAttendee(conferenceUUID, latecomer);
+        assertEquals(conversationController.getLatestMessages(latecomer, conversationUUID, 10).getMessages().size(), 1);
+
+        // Speakers get announcements too
+        UUID roomUUID = roomController.createRoom(conferenceUUID, organizer, "Room", 10);
+        eventController.createEvent(conferenceUUID, organizer, "Talk", timeRange, roomUUID, Collections.singleton(speaker));
+        assertTrue(conversationController.getUsersInConversation(conversationUUID).contains(speaker));
+        assertFalse(conversationController.canSendMessages(speaker, conversationUUID));
+
+        // Organizers can post
+        conferenceController.addOrganizer(conferenceUUID, organizer, attendeeA);
+        assertTrue(conversationController.canSendMessages(attendeeA, conversationUUID));
+
+        conferenceController.removeOrganizer(conferenceUUID, organizer, attendeeA);
+        assertFalse(conversationController.canSendMessages(attendeeA, conversationUUID));
+        assertTrue(conversationController.getUsersInConversation(conversationUUID).contains(attendeeA));
+
+        // Leaving
+        conferenceController.leaveConference(conferenceUUID, attendeeB, attendeeB);
+        assertFalse(conversationController.getUsersInConversation(conversationUUID).contains(attendeeB));
+
+        try {
+            conversationController.getLatestMessages(attendeeB, conversationUUID, 10);
+            fail();
+        } catch (NoReadAccessException e) {
+            // Expected
+        }
+
+        assertFalse(conversationController.getUsersInConversation(conversationUUID).contains(outsider));
+    }
+
+    @Test(timeout = 1000)
+    public void testDeleteConference() {
+        UUID conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, organizer, "Welcome");
+
+        conferenceController.deleteConference(conferenceUUID, organizer);
+
+        assertFalse(conversationController.getConversationList(attendeeA).contains(conversationUUID));
+    }
+
+    @Test(timeout = 5000)
+    public void testSaved() {
+        UUID conversationUUID = conferenceController.sendAnnouncement(conferenceUUID, organizer, "Welcome");
+
+        BinarySerializer<ConferenceManager> serializer = new BinarySerializer<>(new File(folder.getRoot(), "conferenceManager.bin").getPath(), new ConferenceManagerCodec());
+        serializer.save(conferenceManager);
+
+        ConferenceManager loadedConferenceManager = serializer.load(() -> null);
+        assertEquals(loadedConferenceManager.getAnnouncementConversationUUID(conferenceUUID), conversationUUID);
+    }
+}
@@ -0,0 +1,200 @@
+import contact.ContactController;
+import contact.ContactManager;
+import contact.ContactManagerCodec;
+import convention.ConferenceController;
+import convention.EventController;
+import convention.RoomController;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import gateway.BinarySerializer;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+import util.codec.BinaryReader;
+import util.codec.BinaryWriter;
+import util.codec.ICodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinarySerializerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    TimeRange conferenceTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 9, 0), LocalDateTime.of(2020, Month.JULY, 3, 17, 0));
+    TimeRange eventTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 10, 0), LocalDateTime.of(2020, Month.JULY, 1, 11, 0));
+
+    private <T> BinarySerializer<T> serializer(String fileName, ICodec<T> codec) {
+        return new BinarySerializer<>(new File(folder.getRoot(), fileName).getPath(), codec);
+    }
+
+    @Test(timeout = 5000)
+    public void testRoundTrip() {
+        UserManager userManager = new UserManager();
+        ContactManager contactManager = new ContactManager();
+        ConversationManager conversationManager = new ConversationManager();
+        ConferenceManager conferenceManager = new ConferenceManager();
+
+        ContactController contactController = new ContactController(contactManager);
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        RoomController roomController = new RoomController(conferenceManager, userManager);
+        EventController eventController = new EventController(conferenceManager, conversationManager, userManager);
+        ConferenceController conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+
+        UUID organizer = userManager.registerUser("Org", "Anizer", "organizer", "pw");
+        UUID attendee = userManager.registerUser("Ät", "Tendee ☕", "attendee", "pw");
+
+        UUID conferenceUUID = conferenceController.createConference("Conference", conferenceTimeRange, organizer);
+        conferenceController.addAttendee(conferenceUUID, attendee);
+
+        UUID roomUUID = roomController.createRoom(conferenceUUID, organizer, "BA1234", 10);
+        UUID eventUUID = eventController.createEvent(conferenceUUID, organizer, "Talk", eventTimeRange, roomUUID, new HashSet<>());
+        eventController.registerForEvent(conferenceUUID, attendee, attendee, eventUUID);
+
+        UUID conversationUUID = eventController.createEventConversation(conferenceUUID, organizer, eventUUID);
+        conversationController.sendMessage(attendee, "Hello", conversationUUID);
+        String timestamp = conversationController.getMessages(attendee, conversationUUID).get(1).get("timestamp");
+
+        contactController.sendRequest(attendee, organizer);
+
+        serializer("users.bin", new UserManagerCodec()).save(userManager);
+        serializer("contacts.bin", new ContactManagerCodec()).save(contactManager);
+        serializer("conversations.bin", new ConversationManagerCodec()).save(conversationManager);
+        serializer("conferences.bin", new ConferenceManagerCodec()).save(conferenceManager);
+
+        userManager = serializer("users.bin", new UserManagerCodec()).load(() -> null);
+        contactManager = serializer("contacts.bin", new ContactManagerCodec()).load(() -> null);
+        conversationManager = serializer("conversations.bin", new ConversationManagerCodec()).load(() -> null);
+        conferenceManager = serializer("conferences.bin", new ConferenceManagerCodec()).load(() -> null);
+
+        contactController = new ContactController(contactManager);
+        conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        roomController = new RoomController(conferenceManager, userManager);
+        eventController = new EventController(conferenceManager, conversationManager, userManager);
+        conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+
+        assertEquals(userManager.getAllUsers().size(), 2);
+        assertEquals(userManager.getUserFullName(attendee), "Ät Tendee ☕");
+        assertEquals(userManager.authenticate("organizer", "pw"), organizer);
+
+        assertEquals(conferenceController.getConferenceName(conferenceUUID), "Conference");
+        assertTrue(conferenceController.isOrganizer(conferenceUUID, organizer, organizer));
+        assertTrue(conferenceController.isAttendee(conferenceUUID, organizer, attendee));
+        assertEquals(roomController.getRoomCapacity(conferenceUUID, organizer, roomUUID), 10);
+        assertTrue(roomController.getRoomSchedule(conferenceUUID, organizer, roomUUID).containsKey(eventUUID));
+        assertTrue(eventController.isRegistered(conferenceUUID, attendee, eventUUID));
+        assertEquals(eventController.getEventConversationUUID(conferenceUUID, organizer, eventUUID), conversationUUID);
+
+        List<Map<String, String>> messages = conversationController.getMessages(attendee, conversationUUID);
+        assertEquals(messages.size(), 2);
+        assertEquals(messages.get(1).get("content"), "Hello");
+        assertEquals(messages.get(1).get("timestamp"), timestamp);
+        assertEquals(conversationController.getUsersInConversation(conversationUUID).size(), 2);
+
+        assertTrue(contactController.showRequests(organizer).contains(attendee));
+        assertTrue(contactController.showSentRequests(attendee).contains(organizer));
+    }
+
+    @Test(timeout = 5000)
+    public void testPrimitives() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter out = new BinaryWriter(Channels.newChannel(bytes));
+
+        // Longer than the buffer, so it has to be written and read in pieces
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'é');
+        String longString = new String(chars);
+
+        UUID uuid = UUID.randomUUID();
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, Month.DECEMBER, 31, 23, 59, 59, 123456789);
+
+        out.writeVarInt(0);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeVarInt(-1);
+        out.writeVarLong(Long.MIN_VALUE);
+        out.writeVarLong(-1);
+        out.writeString(null);
+        out.writeString("");
+        out.writeString(longString);
+        out.writeUUID(uuid);
+        out.writeNullableUUID(null);
+        out.writeUUIDs(Arrays.asList(uuid, UUID.randomUUID()));
+        out.writeDateTime(beforeEpoch);
+        out.flush();
+
+        BinaryReader in = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(in.readVarInt(), 0);
+        assertEquals(in.readVarInt(), Integer.MAX_VALUE);
+        assertEquals(in.readVarInt(), -1);
+        assertEquals(in.readVarLong(), Long.MIN_VALUE);
+        assertEquals(in.readVarLong(), -1);
+        assertNull(in.readString());
+        assertEquals(in.readString(), "");
+        assertEquals(in.readString(), longString);
+        assertEquals(in.readUUID(), uuid);
+        assertNull(in.readNullableUUID());
+        assertTrue(in.readUUIDs().contains(uuid));
+        assertEquals(in.readDateTime(), beforeEpoch);
+    }
+
+    @Test(timeout = 5000)
+    public void testFallbackOnForeignFile() throws IOException {
+        File file = new File(folder.getRoot(), "users.bin");
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a save file".getBytes());
+        }
+
+        UserManager fallback = new UserManager();
+        assertSame(new BinarySerializer<>(file.getPath(), new UserManagerCodec()).load(() -> fallback), fallback);
+    }
+
+    @Test(timeout = 5000)
+    public void testFallbackOnDamagedFile() throws IOException {
+        File file = new File(folder.getRoot(), "users.bin");
+        BinarySerializer<UserManager> serializer = new BinarySerializer<>(file.getPath(), new UserManagerCodec());
+
+        UserManager userManager = new UserManager();
+        userManager.registerUser("Anna", "Smith", "asmith", "password");
+        serializer.save(userManager);
+
+        // Damage a byte in the middle of the newest save, where the codec wouldn't notice
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(file.toPath(), bytes);
+
+        UserManager fallback = new UserManager();
+        assertSame(serializer.load(() -> fallback), fallback);
+    }
+
+    @Test(timeout = 5000, expected = StreamCorruptedException.class)
+    public void testStringLongerThanFile() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter out = new BinaryWriter(Channels.newChannel(bytes));
+
+        // A damaged length shouldn't make the reader allocate that much
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.flush();
+
+        new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), bytes.size()).readString();
+    }
+}
@@ -0,0 +1,100 @@
+import gateway.BinarySerializer;
+import gateway.checkpoint.CheckpointService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File file;
+
+    @Before
+    public void init() {
+        file = new File(folder.getRoot(), "userManager.bin");
+    }
+
+    private BinarySerializer<UserManager> serializer() {
+        return new BinarySerializer<>(file.getPath(), new UserManagerCodec());
+    }
+
+    @Test(timeout = 5000)
+    public void testBackgroundCheckpoint() throws Exception {
+        UserManager userManager = new UserManager();
+        BinarySerializer<UserManager> serializer = serializer();
+
+        // Stands in for the Swing event thread
+        ExecutorService eventThread = Executors.newSingleThreadExecutor();
+        UUID userUUID = eventThread.submit(() -> userManager.registerUser("A", "B", "ab", "pw")).get();
+
+        CheckpointService checkpointService = new CheckpointService(10, eventThread);
+        checkpointService.register(serializer, userManager);
+        checkpointService.start();
+
+        while (checkpointService.getCheckpointCount() == 0) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(checkpointService.getLastStats().getBytes() > 0);
+        assertEquals(serializer.load(() -> null).getUserUsername(userUUID), "ab");
+
+        // Changes made after the last background checkpoint are saved on close
+        UUID otherUUID = eventThread.submit(() -> userManager.registerUser("C", "D", "cd", "pw")).get();
+        eventThread.submit(checkpointService::close).get();
+        eventThread.shutdown();
+
+        assertEquals(serializer.load(() -> null).getUserUsername(otherUUID), "cd");
+    }
+
+    @Test(timeout = 5000)
+    public void testCloseWhileCaptureQueued() throws Exception {
+        UserManager userManager = new UserManager();
+        userManager.registerUser("A", "B", "ab", "pw");
+
+        ExecutorService eventThread = Executors.newSingleThreadExecutor();
+
+        // Every background capture is queued behind the close call, like invokeLater behind the window closing
+        CheckpointService checkpointService = new CheckpointService(1, eventThread);
+        checkpointService.register(serializer(), userManager);
+        checkpointService.start();
+
+        Thread.sleep(20);
+        eventThread.submit(checkpointService::close).get();
+        eventThread.shutdown();
+
+        assertEquals(serializer().load(() -> null).getAllUsers().size(), 1);
+    }
+
+    @Test(timeout = 5000)
+    public void testLeftoverTempFileIgnored() throws IOException {
+        BinarySerializer<UserManager> serializer = serializer();
+        UserManager userManager = new UserManager();
+        userManager.registerUser("First", "Last", "user", "pw");
+        serializer.save(userManager);
+
+        // A crash part way through the next save leaves a partial temp file behind
+        try (FileOutputStream out = new FileOutputStream(file.getPath() + ".tmp")) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        assertEquals(serializer.load(() -> null).getAllUsers().size(), 1);
+
+        userManager.registerUser("First", "Last", "other", "pw");
+        serializer.save(userManager);
+        assertEquals(serializer.load(() -> null).getAllUsers().size(), 2);
+    }
+}
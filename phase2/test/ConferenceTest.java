@@ -13,6 +13,8 @@ import user.UserManager;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -317,6 +319,31 @@ public class ConferenceTest {
         conferenceController.removeOrganizer(conferenceUUID, myUser, randomUser);
     }
 
+    /**
+     * Conferences a user has a role in should follow role changes
+     */
+    @Test(timeout = 500)
+    public void testGetUserConferences() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
+        UUID conference2UUID = conferenceController.createConference(conferenceNameB, timeRangeA, myUser);
+
+        assertEquals(conferenceController.getUserConferences(myUser).size(), 2);
+        assertEquals(conferenceController.getNotUserConferences(someOrganizer).size(), 2);
+
+        conferenceController.addOrganizer(conferenceUUID, myUser, someOrganizer);
+        conferenceController.addAttendee(conferenceUUID, someOrganizer);
+        assertTrue(conferenceController.getUserConferences(someOrganizer).contains(conferenceUUID));
+        assertTrue(conferenceController.getNotUserConferences(someOrganizer).contains(conference2UUID));
+
+        // Still an attendee after losing organizer
+        conferenceController.removeOrganizer(conferenceUUID, myUser, someOrganizer);
+        assertEquals(conferenceController.getUserConferences(someOrganizer).size(), 1);
+
+        conferenceController.deleteConference(conferenceUUID, myUser);
+        assertEquals(conferenceController.getUserConferences(someOrganizer).size(), 0);
+        assertEquals(conferenceController.getUserConferences(myUser).size(), 1);
+    }
+
     @Test(timeout = 500)
     public void testGetSpeakers() {
         UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
@@ -712,6 +739,28 @@ public class ConferenceTest {
         assertEquals(eventController.getAttendeeEvents(conferenceUUID, someAttendee).size(), 2);
     }
 
+    @Test(timeout = 500)
+    public void testAttendeeEventsAfterChanges() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeD, myUser);
+        conferenceController.addAttendee(conferenceUUID, someAttendee);
+
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<>());
+        UUID event2UUID = eventController.createEvent(conferenceUUID, myUser, eventNameB, timeRangeB, roomUUID, new HashSet<>());
+
+        eventController.registerForEvent(conferenceUUID, someAttendee, someAttendee, eventUUID);
+        eventController.registerForEvent(conferenceUUID, someAttendee, someAttendee, event2UUID);
+        assertTrue(eventController.isRegistered(conferenceUUID, someAttendee, eventUUID));
+        assertEquals(eventController.getNumRegistered(conferenceUUID, someAttendee, eventUUID), 1);
+
+        eventController.unregisterForEvent(conferenceUUID, someAttendee, someAttendee, eventUUID);
+        assertFalse(eventController.isRegistered(conferenceUUID, someAttendee, eventUUID));
+        assertEquals(eventController.getAttendeeEvents(conferenceUUID, someAttendee).size(), 1);
+
+        eventController.deleteEvent(conferenceUUID, myUser, event2UUID);
+        assertEquals(eventController.getAttendeeEvents(conferenceUUID, someAttendee).size(), 0);
+    }
+
     @Test(timeout = 500, expected = CalendarDoubleBookingException.class)
     public void testDoubleBookRoom() {
         UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
@@ -734,6 +783,27 @@ public class ConferenceTest {
         });
     }
 
+    @Test(timeout = 500)
+    public void testBookRoomAfterReschedule() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeD, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<>());
+        eventController.setEventTimeRange(conferenceUUID, myUser, eventUUID, timeRangeC);
+
+        // The old slot is free again, and the new one is taken
+        UUID event2UUID = eventController.createEvent(conferenceUUID, myUser, eventNameB, timeRangeA, roomUUID, new HashSet<>());
+        assertEquals(roomController.getRoomSchedule(conferenceUUID, myUser, roomUUID).get(event2UUID), timeRangeA);
+        assertEquals(roomController.getRoomSchedule(conferenceUUID, myUser, roomUUID).get(eventUUID), timeRangeC);
+
+        try {
+            eventController.createEvent(conferenceUUID, myUser, eventNameB, timeRangeC, roomUUID, new HashSet<>());
+            fail();
+        } catch (CalendarDoubleBookingException e) {
+            assertEquals(roomController.getRoomSchedule(conferenceUUID, myUser, roomUUID).size(), 2);
+        }
+    }
+
     @Test(timeout = 500, expected = SpeakerDoubleBookingException.class)
     public void testDoubleBookSpeaker() {
         UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
@@ -757,6 +827,36 @@ public class ConferenceTest {
         });
     }
 
+    @Test(timeout = 500)
+    public void testBookSpeakerAfterRemoval() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeD, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+        UUID room2UUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<UUID>() {
+            {
+                add(someSpeaker);
+            }
+        });
+
+        eventController.removeEventSpeaker(conferenceUUID, myUser, eventUUID, someSpeaker);
+        assertFalse(conferenceController.getSpeakers(conferenceUUID, myUser).contains(someSpeaker));
+
+        // The speaker is free again, so they can be booked for another event at the same time
+        UUID event2UUID = eventController.createEvent(conferenceUUID, myUser, eventNameB, timeRangeA, room2UUID, new HashSet<UUID>() {
+            {
+                add(someSpeaker);
+            }
+        });
+
+        assertTrue(conferenceController.getSpeakers(conferenceUUID, myUser).contains(someSpeaker));
+        assertEquals(eventController.getSpeakerEvents(conferenceUUID, someSpeaker), new HashSet<UUID>() {
+            {
+                add(event2UUID);
+            }
+        });
+    }
+
     @Test(timeout = 500)
     public void testGetSpeakerEvents() {
         UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeD, myUser);
@@ -791,6 +891,54 @@ public class ConferenceTest {
         assertEquals(eventController.getSpeakerEvents(conferenceUUID, someSpeaker).size(), 2);
     }
 
+    @Test(timeout = 500)
+    public void testGetDayEvents() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeD, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+
+        TimeRange twoDays = new TimeRange(LocalDateTime.of(2016, Month.MARCH, 1, 22, 0), LocalDateTime.of(2016, Month.MARCH, 2, 2, 0));
+        TimeRange nextWeek = new TimeRange(LocalDateTime.of(2016, Month.MARCH, 8, 9, 0), LocalDateTime.of(2016, Month.MARCH, 8, 10, 0));
+
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, twoDays, roomUUID, new HashSet<>());
+
+        assertTrue(eventController.getDayEvents(conferenceUUID, twoDays.getStart().toLocalDate()).contains(eventUUID));
+        assertTrue(eventController.getDayEvents(conferenceUUID, twoDays.getEnd().toLocalDate()).contains(eventUUID));
+        assertEquals(eventController.getDayEvents(conferenceUUID, nextWeek.getStart().toLocalDate()).size(), 0);
+
+        eventController.setEventTimeRange(conferenceUUID, myUser, eventUUID, nextWeek);
+
+        assertEquals(eventController.getDayEvents(conferenceUUID, twoDays.getStart().toLocalDate()).size(), 0);
+        assertTrue(eventController.getDayEvents(conferenceUUID, nextWeek.getStart().toLocalDate()).contains(eventUUID));
+
+        // Events running for years are still found
+        UUID longEventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameB, timeRangeB, roomUUID, new HashSet<>());
+        assertTrue(eventController.getDayEvents(conferenceUUID, dateD.toLocalDate().minusYears(1)).contains(longEventUUID));
+
+        eventController.deleteEvent(conferenceUUID, myUser, eventUUID);
+        assertEquals(eventController.getDayEvents(conferenceUUID, nextWeek.getStart().toLocalDate()).size(), 0);
+    }
+
+    @Test(timeout = 500)
+    public void testGetDayConferences() {
+        ConferenceManager conferenceManager = new ConferenceManager();
+
+        TimeRange twoDays = new TimeRange(LocalDateTime.of(2016, Month.MARCH, 1, 22, 0), LocalDateTime.of(2016, Month.MARCH, 2, 2, 0));
+        TimeRange nextWeek = new TimeRange(LocalDateTime.of(2016, Month.MARCH, 8, 9, 0), LocalDateTime.of(2016, Month.MARCH, 8, 10, 0));
+
+        UUID conferenceUUID = conferenceManager.createConference(conferenceNameA, twoDays, myUser);
+        UUID longConferenceUUID = conferenceManager.createConference(conferenceNameB, timeRangeA, myUser);
+
+        assertEquals(conferenceManager.getDayConferences(twoDays.getEnd().toLocalDate()), new HashSet<>(Arrays.asList(conferenceUUID, longConferenceUUID)));
+        assertEquals(conferenceManager.getDayConferences(nextWeek.getStart().toLocalDate()), Collections.singleton(longConferenceUUID));
+
+        conferenceManager.setTimeRange(conferenceUUID, nextWeek);
+        assertEquals(conferenceManager.getDayConferences(twoDays.getStart().toLocalDate()), Collections.singleton(longConferenceUUID));
+        assertTrue(conferenceManager.getDayConferences(nextWeek.getStart().toLocalDate()).contains(conferenceUUID));
+
+        conferenceManager.deleteConference(longConferenceUUID);
+        assertEquals(conferenceManager.getDayConferences(twoDays.getStart().toLocalDate()).size(), 0);
+    }
+
     // TestView conflicts
 
     @Test(timeout = 500, expected = PermissionException.class)
@@ -871,6 +1019,95 @@ public class ConferenceTest {
         assertEquals(conversationController.getMessages(someAttendee, eventConversationUUID).size(), 1);
     }
 
+    @Test(timeout = 500)
+    public void testEventConversationMembersAfterUnregister() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+
+        conferenceController.addAttendee(conferenceUUID, someAttendee);
+        conferenceController.addAttendee(conferenceUUID, someAttendeeB);
+
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<UUID>() {
+            {
+                add(someSpeaker);
+            }
+        });
+
+        eventController.registerForEvent(conferenceUUID, someAttendee, someAttendee, eventUUID);
+        eventController.registerForEvent(conferenceUUID, someAttendeeB, someAttendeeB, eventUUID);
+
+        UUID eventConversationUUID = eventController.createEventConversation(conferenceUUID, someSpeaker, eventUUID);
+        Set<UUID> members = conversationController.getUsersInConversation(eventConversationUUID);
+        assertEquals(members.size(), 4);
+
+        eventController.unregisterForEvent(conferenceUUID, someAttendee, someAttendee, eventUUID);
+        assertEquals(members.size(), 3);
+        assertFalse(members.contains(someAttendee));
+        assertEquals(conversationController.getConversationList(someAttendee).size(), 0);
+    }
+
+    @Test(timeout = 500)
+    public void testEventConversationMembersAfterRoleChanges() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+
+        conferenceController.addAttendee(conferenceUUID, someAttendee);
+        conferenceController.addAttendee(conferenceUUID, someAttendeeB);
+
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<UUID>() {
+            {
+                add(someSpeaker);
+            }
+        });
+
+        UUID eventConversationUUID = eventController.createEventConversation(conferenceUUID, someSpeaker, eventUUID);
+        Set<UUID> members = conversationController.getUsersInConversation(eventConversationUUID);
+        assertEquals(members.size(), 2);
+
+        // Organizers are in every event conversation
+        conferenceController.addOrganizer(conferenceUUID, myUser, someAttendee);
+        assertTrue(members.contains(someAttendee));
+
+        // Registered attendees stay when they stop being organizers
+        eventController.registerForEvent(conferenceUUID, someAttendee, someAttendee, eventUUID);
+        conferenceController.removeOrganizer(conferenceUUID, myUser, someAttendee);
+        assertTrue(members.contains(someAttendee));
+
+        eventController.addEventSpeaker(conferenceUUID, myUser, eventUUID, someSpeakerB);
+        assertTrue(members.contains(someSpeakerB));
+
+        eventController.removeEventSpeaker(conferenceUUID, myUser, eventUUID, someSpeaker);
+        assertFalse(members.contains(someSpeaker));
+
+        conferenceController.leaveConference(conferenceUUID, someAttendee, someAttendee);
+        assertFalse(members.contains(someAttendee));
+        assertEquals(members.size(), 2);
+    }
+
+    @Test(timeout = 500)
+    public void testConversationMembersViewWhileEmpty() {
+        UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, myUser, roomA, 2);
+        UUID eventUUID = eventController.createEvent(conferenceUUID, myUser, eventNameA, timeRangeA, roomUUID, new HashSet<UUID>() {
+            {
+                add(someSpeaker);
+            }
+        });
+
+        UUID eventConversationUUID = eventController.createEventConversation(conferenceUUID, someSpeaker, eventUUID);
+        Set<UUID> members = conversationController.getUsersInConversation(eventConversationUUID);
+
+        for (UUID member : new HashSet<>(members)) {
+            conversationController.removeUserFromConversation(eventConversationUUID, member);
+        }
+
+        assertTrue(members.isEmpty());
+
+        // The view still follows the conversation once it has users again
+        conversationController.addUserToConversation(eventConversationUUID, someAttendee);
+        assertEquals(members, Collections.singleton(someAttendee));
+    }
+
     @Test(timeout = 500, expected = PermissionException.class)
     public void testListEventConversationInsufficientPermission() {
         UUID conferenceUUID = conferenceController.createConference(conferenceNameA, timeRangeA, myUser);
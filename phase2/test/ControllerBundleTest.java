@@ -0,0 +1,48 @@
+import contact.ContactController;
+import contact.ContactManager;
+import org.junit.Test;
+import user.UserController;
+import user.UserManager;
+import util.ControllerBundle;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ControllerBundleTest {
+
+    @Test(timeout = 5000)
+    public void testPendingControllers() throws Exception {
+        UserController userController = new UserController(new UserManager());
+        ContactController contactController = new ContactController(new ContactManager());
+
+        CompletableFuture<ControllerBundle> pending = new CompletableFuture<>();
+        ControllerBundle controllerBundle = new ControllerBundle(userController, pending);
+
+        // The user controller is available straight away
+        assertSame(controllerBundle.getUserController(), userController);
+
+        // The rest wait until they've been loaded
+        Thread loader = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+
+            pending.complete(new ControllerBundle(userController, contactController, null, null, null, null, null));
+        });
+        loader.start();
+
+        assertSame(controllerBundle.getContactController(), contactController);
+        assertTrue(pending.isDone());
+        loader.join();
+    }
+
+    @Test(timeout = 5000, expected = IllegalStateException.class)
+    public void testFailedLoad() {
+        CompletableFuture<ControllerBundle> pending = new CompletableFuture<>();
+        pending.completeExceptionally(new RuntimeException("Unreadable save file"));
+
+        new ControllerBundle(new UserController(new UserManager()), pending).getConferenceController();
+    }
+}
@@ -0,0 +1,107 @@
+import messaging.ConversationController;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class InboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MessagingFixture fixture;
+    ConversationController conversationController;
+
+    UUID user;
+    UUID friend;
+    UUID god;
+
+    List<UUID> conversations = new ArrayList<>();
+
+    @Before
+    public void init() throws InterruptedException {
+        fixture = new MessagingFixture();
+        conversationController = fixture.conversationController;
+        user = fixture.sender;
+        friend = fixture.recipient;
+        god = fixture.userManager.registerUser("G", "Od", "god", "pw", true);
+
+        for (int i = 0; i < 5; i++) {
+            conversations.add(fixture.startConversation("Chat " + i, "Hello"));
+            pause();
+        }
+    }
+
+    /**
+     * Waits long enough for the next message to have a later timestamp
+     */
+    private void pause() throws InterruptedException {
+        Thread.sleep(5);
+    }
+
+    @Test(timeout = 5000)
+    public void testOrderedByActivity() throws InterruptedException {
+        assertEquals(conversationController.getInbox(user, null, 10), Arrays.asList(conversations.get(4), conversations.get(3), conversations.get(2), conversations.get(1), conversations.get(0)));
+
+        conversationController.sendMessage(friend, "Bump", conversations.get(1));
+        pause();
+        conversationController.sendMessage(user, "Bump", conversations.get(3));
+
+        assertEquals(conversationController.getInbox(friend, null, 10), Arrays.asList(conversations.get(3), conversations.get(1), conversations.get(4), conversations.get(2), conversations.get(0)));
+
+        // Deleting the newest message moves it back to the one before
+        conversationController.deleteMessage(conversations.get(3), user, 1);
+        assertEquals(conversationController.getInbox(friend, null, 2), Arrays.asList(conversations.get(1), conversations.get(4)));
+    }
+
+    @Test(timeout = 5000)
+    public void testPaged() {
+        List<UUID> firstPage = conversationController.getInbox(user, null, 2);
+        List<UUID> secondPage = conversationController.getInbox(user, firstPage.get(1), 2);
+        List<UUID> lastPage = conversationController.getInbox(user, secondPage.get(1), 2);
+
+        assertEquals(firstPage, Arrays.asList(conversations.get(4), conversations.get(3)));
+        assertEquals(secondPage, Arrays.asList(conversations.get(2), conversations.get(1)));
+        assertEquals(lastPage, Collections.singletonList(conversations.get(0)));
+        assertTrue(conversationController.getInbox(user, lastPage.get(0), 2).isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testArchivedAndMembership() throws InterruptedException {
+        // Build the index first so that it has to be kept up to date
+        conversationController.getInbox(friend, null, 10);
+
+        conversationController.userArchiveConversation(friend, conversations.get(4));
+        assertEquals(conversationController.getInbox(friend, null, 1), Collections.singletonList(conversations.get(3)));
+        assertEquals(conversationController.getInbox(user, null, 1), Collections.singletonList(conversations.get(4)));
+
+        // A new message unarchives it
+        pause();
+        conversationController.sendMessage(user, "Still there?", conversations.get(4));
+        assertEquals(conversationController.getInbox(friend, null, 1), Collections.singletonList(conversations.get(4)));
+
+        conversationController.removeUserFromConversation(conversations.get(4), friend);
+        assertFalse(conversationController.getInbox(friend, null, 10).contains(conversations.get(4)));
+
+        UUID newConversation = conversationController.initiateConversation("New", user, Collections.singleton(friend), "Hi");
+        assertEquals(conversationController.getInbox(friend, null, 1), Collections.singletonList(newConversation));
+    }
+
+    @Test(timeout = 5000)
+    public void testGodSeesEverything() {
+        assertEquals(conversationController.getInbox(god, null, 3), Arrays.asList(conversations.get(4), conversations.get(3), conversations.get(2)));
+        assertEquals(conversationController.getInbox(god, null, 10).size(), 5);
+    }
+
+    @Test(timeout = 5000)
+    public void testRebuiltAfterLoad() {
+        conversationController.sendMessage(friend, "Bump", conversations.get(0));
+
+        ConversationController loadedController = fixture.saveAndLoad(folder.getRoot());
+        assertEquals(loadedController.getInbox(user, null, 2), Arrays.asList(conversations.get(0), conversations.get(4)));
+    }
+}
@@ -0,0 +1,248 @@
+import contact.ContactController;
+import contact.ContactManager;
+import contact.ContactManagerCodec;
+import convention.ConferenceController;
+import convention.EventController;
+import convention.RoomController;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import gateway.exceptions.JournalException;
+import gateway.journal.JournalStore;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+import util.journal.JournalRecord;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File journalDirectory;
+
+    TimeRange conferenceTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 9, 0), LocalDateTime.of(2020, Month.JULY, 3, 17, 0));
+    TimeRange eventTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 10, 0), LocalDateTime.of(2020, Month.JULY, 1, 11, 0));
+    TimeRange movedTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 2, 10, 0), LocalDateTime.of(2020, Month.JULY, 2, 11, 0));
+
+    /**
+     * Managers and controllers on top of one journal store, like ConventionSystem sets them up
+     */
+    class Session {
+        JournalStore store;
+        Queue<Runnable> pendingCheckpoints = new ArrayDeque<>();
+        UserManager userManager;
+        ContactManager contactManager;
+        ConversationManager conversationManager;
+        ConferenceManager conferenceManager;
+
+        ContactController contactController;
+        ConversationController conversationController;
+        RoomController roomController;
+        EventController eventController;
+        ConferenceController conferenceController;
+
+        Session(int checkpointInterval) {
+            store = new JournalStore(journalDirectory, 1024, checkpointInterval, pendingCheckpoints::add);
+            userManager = store.load(0, "userManager.bin", new UserManagerCodec(), UserManager::new);
+            contactManager = store.load(1, "contactManager.bin", new ContactManagerCodec(), ContactManager::new);
+            conversationManager = store.load(2, "conversationManager.bin", new ConversationManagerCodec(), ConversationManager::new);
+            conferenceManager = store.load(3, "conferenceManager.bin", new ConferenceManagerCodec(), ConferenceManager::new);
+            store.recover();
+
+            contactController = new ContactController(contactManager);
+            conversationController = new ConversationController(contactManager, conversationManager, userManager);
+            roomController = new RoomController(conferenceManager, userManager);
+            eventController = new EventController(conferenceManager, conversationManager, userManager);
+            conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+        }
+
+        /**
+         * Takes the snapshots asked for so far, like the event thread would once it is done with the current change
+         */
+        void runPendingCheckpoints() {
+            while (!pendingCheckpoints.isEmpty()) {
+                pendingCheckpoints.poll().run();
+            }
+        }
+    }
+
+    UUID organizer;
+    UUID attendee;
+    UUID conferenceUUID;
+    UUID roomUUID;
+    UUID eventUUID;
+    UUID conversationUUID;
+
+    @Before
+    public void init() {
+        journalDirectory = new File(folder.getRoot(), "journal");
+    }
+
+    /**
+     * Makes a bit of everything, then returns without closing the store (as if the program crashed)
+     */
+    private void populate(Session session) {
+        organizer = session.userManager.registerUser("Org", "Anizer", "organizer", "pw");
+        attendee = session.userManager.registerUser("At", "Tendee", "attendee", "pw");
+
+        conferenceUUID = session.conferenceController.createConference("Conference", conferenceTimeRange, organizer);
+        session.conferenceController.addAttendee(conferenceUUID, attendee);
+        session.runPendingCheckpoints();
+
+        roomUUID = session.roomController.createRoom(conferenceUUID, organizer, "BA1234", 10);
+        eventUUID = session.eventController.createEvent(conferenceUUID, organizer, "Talk", eventTimeRange, roomUUID, new HashSet<>());
+        session.eventController.registerForEvent(conferenceUUID, attendee, attendee, eventUUID);
+        session.eventController.setEventTimeRange(conferenceUUID, organizer, eventUUID, movedTimeRange);
+        session.runPendingCheckpoints();
+
+        conversationUUID = session.eventController.createEventConversation(conferenceUUID, organizer, eventUUID);
+        session.conversationController.sendMessage(attendee, "Hello", conversationUUID);
+
+        session.contactController.sendRequest(attendee, organizer);
+        session.contactController.acceptRequest(organizer, attendee);
+
+        session.store.sync();
+    }
+
+    private void assertPopulated(Session session) {
+        assertEquals(session.userManager.getAllUsers().size(), 2);
+        assertEquals(session.userManager.getUserUsername(attendee), "attendee");
+
+        assertEquals(session.conferenceController.getConferenceName(conferenceUUID), "Conference");
+        assertTrue(session.conferenceController.isAttendee(conferenceUUID, organizer, attendee));
+        assertEquals(session.roomController.getRoomLocation(conferenceUUID, organizer, roomUUID), "BA1234");
+
+        assertEquals(session.eventController.getEventTimeRange(conferenceUUID, organizer, eventUUID).getStart(), movedTimeRange.getStart());
+        assertTrue(session.eventController.isRegistered(conferenceUUID, attendee, eventUUID));
+        assertTrue(session.roomController.getRoomSchedule(conferenceUUID, organizer, roomUUID).containsKey(eventUUID));
+        assertEquals(session.eventController.getDayEvents(conferenceUUID, movedTimeRange.getStart().toLocalDate()).size(), 1);
+
+        List<Map<String, String>> messages = session.conversationController.getMessages(attendee, conversationUUID);
+        assertEquals(messages.size(), 2);
+        assertEquals(messages.get(1).get("content"), "Hello");
+        assertEquals(session.conversationController.getUsersInConversation(conversationUUID).size(), 2);
+
+        assertTrue(session.contactController.showContacts(organizer).contains(attendee));
+        assertTrue(session.contactController.showRequests(organizer).isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testReplayAfterCrash() {
+        Session session = new Session(10000);
+        populate(session);
+
+        Session recovered = new Session(10000);
+        assertEquals(recovered.store.getLastLsn(), session.store.getLastLsn());
+        assertPopulated(recovered);
+    }
+
+    @Test(timeout = 5000)
+    public void testReplayAfterCheckpoints() {
+        // Checkpoint every few records, so recovery starts from a snapshot taken part way through
+        Session session = new Session(7);
+        populate(session);
+        String timestamp = session.conversationController.getMessages(attendee, conversationUUID).get(1).get("timestamp");
+        session.store.sync();
+
+        Session recovered = new Session(7);
+        assertPopulated(recovered);
+
+        // Messages keep their original timestamps after a replay
+        assertEquals(recovered.conversationController.getMessages(attendee, conversationUUID).get(1).get("timestamp"), timestamp);
+    }
+
+    @Test(timeout = 5000)
+    public void testCleanClose() {
+        Session session = new Session(10000);
+        populate(session);
+        session.store.close();
+
+        Session recovered = new Session(10000);
+        assertPopulated(recovered);
+    }
+
+    @Test(timeout = 5000)
+    public void testTornRecordIgnored() throws IOException {
+        Session session = new Session(10000);
+        populate(session);
+
+        // A write cut short by a crash leaves part of a frame at the end of the log
+        File[] segments = journalDirectory.listFiles((dir, name) -> name.endsWith(".log"));
+        Arrays.sort(segments);
+
+        try (FileOutputStream out = new FileOutputStream(segments[segments.length - 1], true)) {
+            out.write(new byte[]{0, 0, 0, 40, 1, 2, 3});
+        }
+
+        Session recovered = new Session(10000);
+        assertPopulated(recovered);
+
+        // New changes after the damaged record are kept
+        recovered.conferenceController.setConferenceName(conferenceUUID, organizer, "Renamed");
+        recovered.store.sync();
+
+        Session recoveredAgain = new Session(10000);
+        assertEquals(recoveredAgain.conferenceController.getConferenceName(conferenceUUID), "Renamed");
+    }
+
+    @Test(timeout = 5000)
+    public void testCheckpointNotTakenDuringChange() {
+        Session session = new Session(3);
+        organizer = session.userManager.registerUser("Org", "Anizer", "organizer", "pw");
+        attendee = session.userManager.registerUser("At", "Tendee", "attendee", "pw");
+        session.userManager.registerUser("Third", "User", "third", "pw");
+        session.userManager.registerUser("Fourth", "User", "fourth", "pw");
+
+        // Only asked for, once
+        assertEquals(session.pendingCheckpoints.size(), 1);
+        assertFalse(new File(journalDirectory, "CURRENT").exists());
+
+        session.runPendingCheckpoints();
+        assertTrue(new File(journalDirectory, "CURRENT").exists());
+
+        Session recovered = new Session(3);
+        assertEquals(recovered.userManager.getAllUsers().size(), 4);
+    }
+
+    @Test(timeout = 5000, expected = JournalException.class)
+    public void testUnreplayableRecordStopsRecovery() throws IOException {
+        Session session = new Session(10000);
+        populate(session);
+
+        // A record the user manager doesn't know, as if written by a newer version
+        byte[] payload = new JournalRecord(99).toBytes();
+        ByteBuffer frame = ByteBuffer.allocate(8 + 9 + payload.length);
+        frame.putInt(9 + payload.length).putInt(0).putLong(session.store.getLastLsn() + 1).put((byte) 0).put(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 8, 9 + payload.length);
+        frame.putInt(4, (int) crc.getValue());
+
+        File[] segments = journalDirectory.listFiles((dir, name) -> name.endsWith(".log"));
+        Arrays.sort(segments);
+
+        try (FileOutputStream out = new FileOutputStream(segments[segments.length - 1], true)) {
+            out.write(frame.array());
+        }
+
+        new Session(10000);
+    }
+}
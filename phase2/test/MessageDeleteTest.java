@@ -0,0 +1,148 @@
+import gateway.record.FileRecordStore;
+import gateway.segment.SegmentStore;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import messaging.MessageEntry;
+import messaging.MessagePage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MessageDeleteTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MessagingFixture fixture;
+    ConversationManager conversationManager;
+    ConversationController conversationController;
+
+    UUID sender;
+    UUID recipient;
+    UUID god;
+    UUID conversationUUID;
+
+    @Before
+    public void init() {
+        fixture = new MessagingFixture();
+        conversationManager = fixture.conversationManager;
+        conversationController = fixture.conversationController;
+        sender = fixture.sender;
+        recipient = fixture.recipient;
+        god = fixture.userManager.registerUser("G", "Od", "god", "pw", true);
+    }
+
+    private void populate() {
+        conversationUUID = fixture.startConversation("Chat", "Message 0");
+
+        for (int i = 1; i < 10; i++) {
+            conversationController.sendMessage(i % 2 == 0 ? sender : recipient, "Message " + i, conversationUUID);
+        }
+    }
+
+    private List<Integer> ids(MessagePage page) {
+        List<Integer> ids = new ArrayList<>();
+
+        for (MessageEntry message : page.getMessages()) {
+            ids.add(message.getIndex());
+        }
+
+        return ids;
+    }
+
+    @Test(timeout = 1000)
+    public void testIdsStable() {
+        populate();
+
+        conversationController.deleteMessage(conversationUUID, sender, 2);
+        conversationController.deleteMessage(conversationUUID, sender, 4);
+
+        MessagePage page = conversationController.getLatestMessages(recipient, conversationUUID, 100);
+        assertEquals(ids(page), Arrays.asList(0, 1, 3, 5, 6, 7, 8, 9));
+        assertEquals(page.getTotalMessages(), 8);
+        assertEquals(page.getMessages().get(3).getContent(), "Message 5");
+
+        // Deleted messages don't count towards the limit
+        assertEquals(ids(conversationController.getLatestMessages(recipient, conversationUUID, 7)), Arrays.asList(1, 3, 5, 6, 7, 8, 9));
+        assertEquals(ids(conversationController.getMessages(recipient, conversationUUID, 1, 3)), Arrays.asList(1, 3, 5));
+        assertEquals(conversationController.getMessages(recipient, conversationUUID).size(), 8);
+    }
+
+    @Test(timeout = 1000)
+    public void testPermissions() {
+        populate();
+
+        // Only the sender or a god user can delete, and a message can only be deleted once
+        assertFalse(conversationController.checkIfSender(conversationUUID, recipient, 2));
+        assertTrue(conversationController.checkIfSender(conversationUUID, recipient, 3));
+        assertTrue(conversationController.checkIfSender(conversationUUID, god, 2));
+
+        conversationController.deleteMessage(conversationUUID, recipient, 2);
+        assertEquals(conversationController.getLatestMessages(sender, conversationUUID, 100).getTotalMessages(), 10);
+
+        conversationController.deleteMessage(conversationUUID, god, 2);
+        assertFalse(conversationController.checkIfSender(conversationUUID, god, 2));
+        assertFalse(conversationController.checkIfSender(conversationUUID, sender, 2));
+        assertEquals(conversationController.getLatestMessages(sender, conversationUUID, 100).getTotalMessages(), 9);
+    }
+
+    @Test(timeout = 5000)
+    public void testSaved() {
+        populate();
+        conversationController.deleteMessage(conversationUUID, sender, 8);
+
+        ConversationController loadedController = fixture.saveAndLoad(folder.getRoot());
+        assertEquals(ids(loadedController.getLatestMessages(recipient, conversationUUID, 2)), Arrays.asList(7, 9));
+        assertFalse(loadedController.checkIfSender(conversationUUID, sender, 8));
+    }
+
+    @Test(timeout = 5000)
+    public void testStoredMessages() {
+        FileRecordStore store = new FileRecordStore(new File(folder.getRoot(), "messages").getPath());
+        conversationManager.setMessageStore(store);
+        populate();
+
+        conversationController.deleteMessage(conversationUUID, sender, 0);
+        conversationController.sendMessage(sender, "Message 10", conversationUUID);
+
+        // Read back from disk
+        store.close();
+        assertEquals(ids(conversationController.getMessages(recipient, conversationUUID, 0, 2)), Arrays.asList(1, 2));
+        assertEquals(conversationController.getLatestMessages(recipient, conversationUUID, 1).getMessages().get(0).getIndex(), 10);
+    }
+
+    @Test(timeout = 5000)
+    public void testDeletedAfterLastSave() {
+        File messageDirectory = new File(folder.getRoot(), "messages");
+        SegmentStore<ConversationManager> segmentStore = new SegmentStore<>(new File(folder.getRoot(), "conversationManager").getPath(), new ConversationManagerCodec());
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        conversationManager.setMessageStore(store);
+        populate();
+        segmentStore.save(conversationManager);
+
+        // The tombstone reaches the message store, but the program stops before the conversation is saved again
+        conversationController.deleteMessage(conversationUUID, sender, 4);
+        int unreadCount = conversationController.getUnreadCounts(recipient, Collections.singleton(conversationUUID)).get(conversationUUID);
+        store.close();
+
+        ConversationManager loaded = segmentStore.load(() -> null);
+        loaded.setMessageStore(new FileRecordStore(messageDirectory.getPath()));
+        ConversationController loadedController = new ConversationController(fixture.contactManager, loaded, fixture.userManager);
+
+        // Checked before reading the messages, which marks them read
+        assertEquals((int) loadedController.getUnreadCounts(recipient, Collections.singleton(conversationUUID)).get(conversationUUID), unreadCount);
+        assertEquals(loadedController.getLatestMessages(recipient, conversationUUID, 100).getTotalMessages(), 9);
+        assertFalse(loadedController.checkIfSender(conversationUUID, sender, 4));
+    }
+}
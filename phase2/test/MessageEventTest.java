@@ -0,0 +1,97 @@
+import messaging.ConversationController;
+import messaging.MessageEvent;
+import messaging.exception.NoReadAccessException;
+import org.junit.Before;
+import org.junit.Test;
+import util.event.EventBus;
+import util.event.ISubscription;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MessageEventTest {
+
+    ConversationController conversationController;
+
+    UUID sender;
+    UUID recipient;
+    UUID outsider;
+    UUID conversationUUID;
+    UUID otherConversationUUID;
+
+    List<MessageEvent> events = new ArrayList<>();
+
+    @Before
+    public void init() {
+        MessagingFixture fixture = new MessagingFixture();
+        conversationController = fixture.conversationController;
+        sender = fixture.sender;
+        recipient = fixture.recipient;
+        outsider = fixture.userManager.registerUser("Out", "Sider", "outsider", "pw");
+
+        conversationUUID = fixture.startConversation("Chat", "Message 0");
+        otherConversationUUID = fixture.startConversation("Other", "Hello");
+    }
+
+    @Test(timeout = 1000)
+    public void testMessageEvents() {
+        ISubscription subscription = conversationController.subscribe(recipient, conversationUUID, Runnable::run, events::add);
+
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+        conversationController.sendMessage(sender, "Not this one", otherConversationUUID);
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.deleteMessage(conversationUUID, sender, 0);
+
+        assertEquals(events.size(), 3);
+
+        assertEquals(events.get(0).getType(), MessageEvent.Type.APPENDED);
+        assertEquals(events.get(0).getMessageId(), 1);
+        assertEquals(events.get(0).getMessage().getContent(), "Message 1");
+        assertEquals(events.get(0).getUserUUID(), sender);
+
+        assertEquals(events.get(1).getType(), MessageEvent.Type.READ);
+        assertEquals(events.get(1).getUserUUID(), recipient);
+        assertEquals(events.get(1).getMessageId(), 2);
+
+        assertEquals(events.get(2).getType(), MessageEvent.Type.DELETED);
+        assertEquals(events.get(2).getMessageId(), 0);
+
+        subscription.cancel();
+        conversationController.sendMessage(sender, "Message 2", conversationUUID);
+        assertEquals(events.size(), 3);
+    }
+
+    @Test(timeout = 1000, expected = NoReadAccessException.class)
+    public void testNoReadAccess() {
+        conversationController.subscribe(outsider, conversationUUID, Runnable::run, events::add);
+    }
+
+    @Test(timeout = 1000)
+    public void testEventBus() {
+        EventBus<String, Integer> eventBus = new EventBus<>();
+        Queue<Runnable> pending = new ArrayDeque<>();
+        List<Integer> received = new ArrayList<>();
+
+        // Delivered later, like on the UI thread
+        ISubscription subscription = eventBus.subscribe("topic", pending::add, received::add);
+        assertTrue(eventBus.hasSubscribers("topic"));
+
+        eventBus.publish("topic", 1);
+        eventBus.publish("other topic", 2);
+        eventBus.publish("topic", 3);
+        assertTrue(received.isEmpty());
+
+        pending.remove().run();
+        pending.remove().run();
+        assertEquals(received, Arrays.asList(1, 3));
+
+        // Events published but not delivered before cancelling are dropped
+        eventBus.publish("topic", 4);
+        subscription.cancel();
+        pending.remove().run();
+
+        assertEquals(received, Arrays.asList(1, 3));
+        assertFalse(eventBus.hasSubscribers("topic"));
+    }
+}
@@ -0,0 +1,76 @@
+import messaging.ConversationController;
+import messaging.MessageEntry;
+import messaging.MessagePage;
+import messaging.exception.NoReadAccessException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MessagePageTest {
+    ConversationController conversationController;
+
+    UUID sender;
+    UUID recipient;
+    UUID outsider;
+    UUID conversationUUID;
+
+    @Before
+    public void init() {
+        MessagingFixture fixture = new MessagingFixture();
+        conversationController = fixture.conversationController;
+        sender = fixture.sender;
+        recipient = fixture.recipient;
+        outsider = fixture.userManager.registerUser("Out", "Sider", "outsider", "pw");
+
+        // Message 0 is the one that starts the conversation
+        conversationUUID = fixture.startConversation("Chat", "Message 0");
+
+        for (int i = 1; i < 120; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void testLatestPage() {
+        MessagePage page = conversationController.getLatestMessages(recipient, conversationUUID, 50);
+
+        assertEquals(page.getMessages().size(), 50);
+        assertEquals(page.getFromIndex(), 70);
+        assertEquals(page.getTotalMessages(), 120);
+        assertTrue(page.hasOlder());
+        assertFalse(page.hasNewer());
+
+        MessageEntry last = page.getMessages().get(49);
+        assertEquals(last.getIndex(), 119);
+        assertEquals(last.getContent(), "Message 119");
+        assertEquals(last.getSenderUUID(), sender);
+        assertTrue(conversationController.getUserHasRead(recipient, conversationUUID));
+    }
+
+    @Test(timeout = 1000)
+    public void testOlderPages() {
+        MessagePage page = conversationController.getMessages(recipient, conversationUUID, 20, 50);
+
+        assertEquals(page.getMessages().get(0).getContent(), "Message 20");
+        assertEquals(page.getToIndex(), 70);
+        assertTrue(page.hasNewer());
+
+        // Short pages at either end
+        assertEquals(conversationController.getMessages(recipient, conversationUUID, 100, 50).getMessages().size(), 20);
+        assertEquals(conversationController.getMessages(recipient, conversationUUID, 500, 50).getMessages().size(), 0);
+        assertEquals(conversationController.getLatestMessages(recipient, conversationUUID, 500).getFromIndex(), 0);
+    }
+
+    @Test(timeout = 1000, expected = UnsupportedOperationException.class)
+    public void testPageIsReadOnly() {
+        conversationController.getLatestMessages(recipient, conversationUUID, 10).getMessages().clear();
+    }
+
+    @Test(timeout = 1000, expected = NoReadAccessException.class)
+    public void testNoReadAccess() {
+        conversationController.getMessages(outsider, conversationUUID, 0, 10);
+    }
+}
@@ -0,0 +1,112 @@
+import contact.ContactController;
+import contact.ContactManager;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.SearchResult;
+import org.junit.Before;
+import org.junit.Test;
+import user.UserManager;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MessageSearchTest {
+
+    UserManager userManager;
+    ConversationManager conversationManager;
+    ConversationController conversationController;
+
+    UUID alice;
+    UUID bob;
+    UUID carol;
+    UUID god;
+
+    UUID aliceBob;
+    UUID bobCarol;
+
+    @Before
+    public void init() {
+        userManager = new UserManager();
+        ContactManager contactManager = new ContactManager();
+        ContactController contactController = new ContactController(contactManager);
+        conversationManager = new ConversationManager();
+        conversationController = new ConversationController(contactManager, conversationManager, userManager);
+
+        alice = userManager.registerUser("Al", "Ice", "alice", "pw");
+        bob = userManager.registerUser("B", "Ob", "bob", "pw");
+        carol = userManager.registerUser("Car", "Ol", "carol", "pw");
+        god = userManager.registerUser("G", "Od", "god", "pw", true);
+
+        contactController.sendRequest(alice, bob);
+        contactController.acceptRequest(bob, alice);
+        contactController.sendRequest(bob, carol);
+        contactController.acceptRequest(carol, bob);
+
+        aliceBob = conversationController.initiateConversation("Alice and Bob", alice, Collections.singleton(bob), "Lunch at noon?");
+        conversationController.sendMessage(bob, "Sure, lunch sounds good", aliceBob);
+        conversationController.sendMessage(alice, "The keynote starts at 3", aliceBob);
+
+        bobCarol = conversationController.initiateConversation("Bob and Carol", bob, Collections.singleton(carol), "Did you see the KEYNOTE?");
+        conversationController.sendMessage(carol, "Keynote, keynote, keynote!", bobCarol);
+    }
+
+    private List<String> contents(List<SearchResult> results) {
+        List<String> contents = new ArrayList<>();
+
+        for (SearchResult result : results) {
+            contents.add(result.getMessage().getContent());
+        }
+
+        return contents;
+    }
+
+    @Test(timeout = 1000)
+    public void testReadAccess() {
+        assertEquals(contents(conversationController.searchMessages(alice, "keynote", 10)), Collections.singletonList("The keynote starts at 3"));
+        assertEquals(conversationController.searchMessages(carol, "keynote", 10).size(), 2);
+        assertEquals(conversationController.searchMessages(bob, "keynote", 10).size(), 3);
+        assertEquals(conversationController.searchMessages(god, "keynote", 10).size(), 3);
+        assertTrue(conversationController.searchMessages(carol, "lunch", 10).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testRanked() {
+        List<SearchResult> results = conversationController.searchMessages(bob, "keynote lunch", 10);
+
+        // More occurrences of a term rank higher
+        assertEquals(results.get(0).getMessage().getContent(), "Keynote, keynote, keynote!");
+        assertEquals(results.get(0).getConversationUUID(), bobCarol);
+        assertEquals(results.get(0).getMessage().getIndex(), 1);
+        assertEquals(results.size(), 5);
+
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+        }
+
+        assertEquals(conversationController.searchMessages(bob, "keynote lunch", 2).size(), 2);
+        assertTrue(conversationController.searchMessages(bob, "dinner", 10).isEmpty());
+        assertTrue(conversationController.searchMessages(bob, "", 10).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testKeptUpToDate() {
+        // Build the index first so that it has to be kept up to date
+        conversationController.searchMessages(bob, "keynote", 10);
+
+        conversationController.sendMessage(alice, "Lunch is cancelled", aliceBob);
+        assertEquals(conversationController.searchMessages(alice, "cancelled", 10).get(0).getMessage().getIndex(), 3);
+
+        // Later messages keep their ids after a delete
+        conversationController.deleteMessage(aliceBob, alice, 0);
+        SearchResult cancelled = conversationController.searchMessages(alice, "cancelled", 10).get(0);
+        assertEquals(cancelled.getMessage().getIndex(), 3);
+        assertEquals(contents(conversationController.searchMessages(alice, "noon", 10)), Collections.emptyList());
+
+        UUID newConversation = conversationController.initiateConversation("New", alice, Collections.singleton(bob), "Dinner?");
+        assertEquals(conversationController.searchMessages(bob, "dinner", 10).get(0).getConversationUUID(), newConversation);
+
+        conversationManager.deleteConversation(newConversation);
+        assertTrue(conversationController.searchMessages(bob, "dinner", 10).isEmpty());
+    }
+}
@@ -0,0 +1,353 @@
+import contact.ContactController;
+import contact.ContactManager;
+import gateway.record.FileRecordStore;
+import gateway.segment.SegmentStore;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import util.record.IRecordStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class MessageStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File messageDirectory;
+    File segmentDirectory;
+
+    UserManager userManager;
+    ContactManager contactManager;
+
+    UUID sender;
+    UUID recipient;
+
+    @Before
+    public void init() {
+        messageDirectory = new File(folder.getRoot(), "messages");
+        segmentDirectory = new File(folder.getRoot(), "conversationManager");
+
+        userManager = new UserManager();
+        contactManager = new ContactManager();
+        ContactController contactController = new ContactController(contactManager);
+
+        sender = userManager.registerUser("Send", "Er", "sender", "pw");
+        recipient = userManager.registerUser("Recip", "Ient", "recipient", "pw");
+
+        contactController.sendRequest(sender, recipient);
+        contactController.acceptRequest(recipient, sender);
+    }
+
+    private SegmentStore<ConversationManager> segmentStore() {
+        return new SegmentStore<>(segmentDirectory.getPath(), new ConversationManagerCodec());
+    }
+
+    @Test(timeout = 5000)
+    public void testRecordStore() throws IOException {
+        UUID key = UUID.randomUUID();
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+
+        assertEquals(store.size(key), 0);
+
+        for (int i = 0; i < 100; i++) {
+            store.append(key, new byte[]{(byte) i});
+        }
+
+        store.remove(key, 10);
+        store.flush();
+        store.close();
+
+        // A record cut short by a crash
+        try (FileOutputStream out = new FileOutputStream(new File(messageDirectory, key + ".rec"), true)) {
+            out.write(new byte[]{0, 0, 0, 40, 1, 2, 3});
+        }
+
+        FileRecordStore reopened = new FileRecordStore(messageDirectory.getPath());
+        assertEquals(reopened.size(key), 99);
+        assertArrayEquals(reopened.read(key, 9), new byte[]{9});
+        assertArrayEquals(reopened.read(key, 10), new byte[]{11});
+
+        // Appending after the damaged record works
+        reopened.append(key, new byte[]{100});
+        assertArrayEquals(reopened.read(key, 99), new byte[]{100});
+        reopened.close();
+    }
+
+    @Test(timeout = 5000)
+    public void testReplaceAndCompact() throws IOException {
+        UUID key = UUID.randomUUID();
+        File file = new File(messageDirectory, key + ".rec");
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath(), 1);
+
+        for (int i = 0; i < 100; i++) {
+            store.append(key, new byte[]{(byte) i, 0, 0, 0, 0, 0, 0, 0});
+        }
+
+        store.flush();
+        long fullSize = file.length();
+
+        // Replaced records are read back straight away, and after the file is scanned again
+        for (int i = 0; i < 100; i++) {
+            store.replace(key, i, new byte[]{(byte) -i});
+        }
+
+        store.replace(key, 11, new byte[]{11, 0, 0, 0, 0, 0, 0, 0});
+        assertArrayEquals(store.read(key, 10), new byte[]{-10});
+        assertArrayEquals(store.read(key, 11), new byte[]{11, 0, 0, 0, 0, 0, 0, 0});
+        store.close();
+
+        // Closing flushed, which compacted the file since most of it was replaced records
+        assertTrue(file.length() < fullSize);
+
+        FileRecordStore reopened = new FileRecordStore(messageDirectory.getPath(), 1);
+        assertEquals(reopened.size(key), 100);
+        assertArrayEquals(reopened.read(key, 10), new byte[]{-10});
+        assertArrayEquals(reopened.read(key, 11), new byte[]{11, 0, 0, 0, 0, 0, 0, 0});
+
+        reopened.replace(key, 11, new byte[]{1});
+        reopened.append(key, new byte[]{100});
+        reopened.close();
+
+        FileRecordStore reopenedAgain = new FileRecordStore(messageDirectory.getPath());
+        assertArrayEquals(reopenedAgain.read(key, 11), new byte[]{1});
+        assertArrayEquals(reopenedAgain.read(key, 100), new byte[]{100});
+        reopenedAgain.close();
+    }
+
+    /**
+     * Counts the records read from a store
+     */
+    static class CountingRecordStore implements IRecordStore {
+        final IRecordStore store;
+        int reads;
+
+        CountingRecordStore(IRecordStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public int size(UUID key) {
+            return store.size(key);
+        }
+
+        @Override
+        public void append(UUID key, byte[] record) {
+            store.append(key, record);
+        }
+
+        @Override
+        public byte[] read(UUID key, int index) {
+            reads++;
+            return store.read(key, index);
+        }
+
+        @Override
+        public void replace(UUID key, int index, byte[] record) {
+            store.replace(key, index, record);
+        }
+
+        @Override
+        public void remove(UUID key, int index) {
+            store.remove(key, index);
+        }
+
+        @Override
+        public byte[] readMetadata(UUID key) {
+            return store.readMetadata(key);
+        }
+
+        @Override
+        public void writeMetadata(UUID key, byte[] metadata) {
+            store.writeMetadata(key, metadata);
+        }
+
+        @Override
+        public void delete(UUID key) {
+            store.delete(key);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            store.flush();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testMetadata() throws IOException {
+        UUID key = UUID.randomUUID();
+        File file = new File(messageDirectory, key + ".rec");
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath(), 1);
+
+        assertNull(store.readMetadata(key));
+
+        for (int i = 0; i < 100; i++) {
+            store.append(key, new byte[]{(byte) i, 0, 0, 0, 0, 0, 0, 0});
+            store.writeMetadata(key, new byte[]{(byte) i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        }
+
+        store.flush();
+        assertArrayEquals(store.readMetadata(key), new byte[]{99, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+
+        // Flushing compacted the file, since most of it was old metadata
+        assertTrue(file.length() < 100 * 17 + 2 * 25);
+        store.close();
+
+        FileRecordStore reopened = new FileRecordStore(messageDirectory.getPath());
+        assertArrayEquals(reopened.readMetadata(key), new byte[]{99, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        assertEquals(reopened.size(key), 100);
+        assertArrayEquals(reopened.read(key, 99), new byte[]{99, 0, 0, 0, 0, 0, 0, 0});
+        reopened.close();
+    }
+
+    @Test(timeout = 5000)
+    public void testLoadReadsNoMessages() {
+        ConversationManager conversationManager = new ConversationManager();
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        conversationManager.setMessageStore(store);
+
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        UUID conversationUUID = conversationController.initiateConversation("Chat", sender, Collections.singleton(recipient), "Message 0");
+        UUID otherConversationUUID = conversationController.initiateConversation("Other", sender, Collections.singleton(recipient), "Hello");
+
+        for (int i = 1; i < 200; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+
+        for (int i = 0; i < 200; i += 2) {
+            conversationController.deleteMessage(conversationUUID, sender, i);
+        }
+
+        conversationController.deleteMessage(conversationUUID, sender, 199);
+        segmentStore().save(conversationManager);
+        store.close();
+
+        ConversationManager loaded = segmentStore().load(() -> null);
+        CountingRecordStore countingStore = new CountingRecordStore(new FileRecordStore(messageDirectory.getPath()));
+        loaded.setMessageStore(countingStore);
+        ConversationController loadedController = new ConversationController(contactManager, loaded, userManager);
+
+        // The tombstones are known from the store's metadata
+        assertEquals((int) loadedController.getUnreadCounts(recipient, Collections.singleton(conversationUUID)).get(conversationUUID), 99);
+        assertEquals(countingStore.reads, 0);
+
+        // Ordering the inbox only reads the newest message left in each conversation
+        List<UUID> inbox = loadedController.getInbox(recipient, null, 10);
+        assertEquals(inbox.size(), 2);
+        assertEquals(countingStore.reads, 2);
+
+        assertEquals(loadedController.getLatestMessages(recipient, conversationUUID, 1).getMessages().get(0).getContent(), "Message 197");
+        assertEquals(loadedController.getMessages(recipient, otherConversationUUID, 0, 1).getMessages().get(0).getContent(), "Hello");
+    }
+
+    @Test(timeout = 5000)
+    public void testDeletedWithoutTombstone() throws IOException {
+        ConversationManager conversationManager = new ConversationManager();
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        conversationManager.setMessageStore(store);
+
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        UUID conversationUUID = conversationController.initiateConversation("Chat", sender, Collections.singleton(recipient), "Message 0");
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+        conversationController.deleteMessage(conversationUUID, sender, 0);
+        segmentStore().save(conversationManager);
+        store.close();
+
+        // As if the tombstone was cut off by a crash just after the metadata was written
+        FileRecordStore reopened = new FileRecordStore(messageDirectory.getPath());
+        reopened.replace(conversationUUID, 0, reopened.read(conversationUUID, 1));
+        reopened.close();
+
+        ConversationManager loaded = segmentStore().load(() -> null);
+        loaded.setMessageStore(new FileRecordStore(messageDirectory.getPath()));
+        ConversationController loadedController = new ConversationController(contactManager, loaded, userManager);
+
+        assertEquals(loadedController.getMessages(recipient, conversationUUID, 0, 2).getMessages().size(), 1);
+        assertFalse(loadedController.checkIfSender(conversationUUID, sender, 0));
+    }
+
+    @Test(timeout = 5000)
+    public void testMessagesKeptInStore() {
+        ConversationManager conversationManager = new ConversationManager();
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        conversationManager.setMessageStore(store);
+
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        UUID conversationUUID = conversationController.initiateConversation("Chat", sender, Collections.singleton(recipient), "Message 0");
+
+        for (int i = 1; i < 500; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+
+        conversationController.deleteMessage(conversationUUID, sender, 0);
+        segmentStore().save(conversationManager);
+        store.close();
+
+        // The conversation's segment doesn't hold the messages
+        File[] segments = segmentDirectory.listFiles((dir, name) -> name.startsWith(conversationUUID.toString()));
+        assertEquals(segments.length, 1);
+        assertTrue(segments[0].length() < 200);
+
+        ConversationManager loaded = segmentStore().load(() -> null);
+        loaded.setMessageStore(new FileRecordStore(messageDirectory.getPath()));
+        ConversationController loadedController = new ConversationController(contactManager, loaded, userManager);
+
+        assertEquals(loadedController.getLatestMessages(recipient, conversationUUID, 10).getTotalMessages(), 499);
+        assertEquals(loadedController.getMessages(recipient, conversationUUID, 0, 1).getMessages().get(0).getContent(), "Message 1");
+        assertEquals(loadedController.getLatestMessages(recipient, conversationUUID, 1).getMessages().get(0).getContent(), "Message 499");
+    }
+
+    @Test(timeout = 5000)
+    public void testMessagesMovedToStore() {
+        // Saved from before there was a message store
+        ConversationManager conversationManager = new ConversationManager();
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        UUID conversationUUID = conversationController.initiateConversation("Chat", sender, Collections.singleton(recipient), "Message 0");
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+        segmentStore().save(conversationManager);
+
+        // Moving the messages, but stopping before the conversation is saved without them
+        ConversationManager loaded = segmentStore().load(() -> null);
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        loaded.setMessageStore(store);
+        store.close();
+
+        ConversationManager loadedAgain = segmentStore().load(() -> null);
+        loadedAgain.setMessageStore(new FileRecordStore(messageDirectory.getPath()));
+        segmentStore().save(loadedAgain);
+
+        // Moved once, not twice
+        ConversationController loadedController = new ConversationController(contactManager, loadedAgain, userManager);
+        assertEquals(loadedController.getLatestMessages(recipient, conversationUUID, 10).getTotalMessages(), 2);
+        assertEquals(loadedController.getMessages(recipient, conversationUUID, 1, 1).getMessages().get(0).getContent(), "Message 1");
+    }
+
+    @Test(timeout = 5000)
+    public void testDeletedConversationRemovedFromStore() {
+        ConversationManager conversationManager = new ConversationManager();
+        FileRecordStore store = new FileRecordStore(messageDirectory.getPath());
+        conversationManager.setMessageStore(store);
+
+        ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+        UUID conversationUUID = conversationController.initiateConversation("Chat", sender, Collections.singleton(recipient), "Message 0");
+        assertEquals(store.size(conversationUUID), 1);
+
+        conversationManager.deleteConversation(conversationUUID);
+
+        assertEquals(store.size(conversationUUID), 0);
+        assertEquals(messageDirectory.listFiles().length, 0);
+        store.close();
+    }
+}
@@ -0,0 +1,59 @@
+import contact.ContactController;
+import contact.ContactManager;
+import gateway.BinarySerializer;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import user.UserManager;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Two users who are each other's contacts, and the managers to start conversations between them, shared by the
+ * messaging tests
+ */
+class MessagingFixture {
+    final UserManager userManager = new UserManager();
+    final ContactManager contactManager = new ContactManager();
+    final ConversationManager conversationManager = new ConversationManager();
+    final ConversationController conversationController = new ConversationController(contactManager, conversationManager, userManager);
+
+    final UUID sender;
+    final UUID recipient;
+
+    MessagingFixture() {
+        ContactController contactController = new ContactController(contactManager);
+
+        sender = userManager.registerUser("Send", "Er", "sender", "pw");
+        recipient = userManager.registerUser("Recip", "Ient", "recipient", "pw");
+
+        contactController.sendRequest(sender, recipient);
+        contactController.acceptRequest(recipient, sender);
+    }
+
+    /**
+     * Starts a conversation from the sender to the recipient
+     *
+     * @param name         name of the conversation
+     * @param firstMessage message that starts it, with id 0
+     * @return UUID of the conversation
+     */
+    UUID startConversation(String name, String firstMessage) {
+        return conversationController.initiateConversation(name, sender, Collections.singleton(recipient), firstMessage);
+    }
+
+    /**
+     * Saves the conversations to a file and loads them back
+     *
+     * @param directory where to save them
+     * @return controller for the loaded conversations, with the same users and contacts
+     */
+    ConversationController saveAndLoad(File directory) {
+        BinarySerializer<ConversationManager> serializer = new BinarySerializer<>(new File(directory, "conversationManager.bin").getPath(), new ConversationManagerCodec());
+        serializer.save(conversationManager);
+
+        return new ConversationController(contactManager, serializer.load(() -> null), userManager);
+    }
+}
@@ -0,0 +1,157 @@
+import contact.ContactController;
+import contact.ContactManager;
+import contact.ContactManagerCodec;
+import convention.ConferenceController;
+import convention.EventController;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import gateway.journal.JournalStore;
+import gateway.record.FileRecordStore;
+import gateway.segment.SegmentStore;
+import messaging.ConversationController;
+import messaging.ConversationManager;
+import messaging.ConversationManagerCodec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+import util.segment.IChangeTracked;
+import util.segment.ISegmentCodec;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ModeSwitchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    TimeRange conferenceTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 9, 0), LocalDateTime.of(2020, Month.JULY, 3, 17, 0));
+
+    /**
+     * Managers and controllers loaded the way ConventionSystem loads them in either mode
+     */
+    class Session {
+        final boolean journaling;
+        JournalStore journalStore;
+        FileRecordStore messageStore;
+        UserManager userManager;
+        ContactManager contactManager;
+        ConversationManager conversationManager;
+        ConferenceManager conferenceManager;
+
+        ContactController contactController;
+        ConversationController conversationController;
+        ConferenceController conferenceController;
+
+        Session(boolean journaling) {
+            this.journaling = journaling;
+            File directory = folder.getRoot();
+
+            if (journaling) {
+                ConventionSystem.moveSavesToJournal(directory);
+
+                journalStore = new JournalStore(new File(directory, "journal"), Runnable::run);
+                userManager = journalStore.load(0, "userManager.bin", new UserManagerCodec(), UserManager::new);
+                contactManager = journalStore.load(1, "contactManager.bin", new ContactManagerCodec(), ContactManager::new);
+                conversationManager = journalStore.load(2, "conversationManager.bin", new ConversationManagerCodec(), ConversationManager::new);
+                conferenceManager = journalStore.load(3, "conferenceManager.bin", new ConferenceManagerCodec(), ConferenceManager::new);
+                journalStore.recover();
+            } else {
+                ConventionSystem.moveJournalToSaves(directory);
+
+                userManager = segmentStore("userManager", new UserManagerCodec()).load(UserManager::new);
+                contactManager = segmentStore("contactManager", new ContactManagerCodec()).load(ContactManager::new);
+                conversationManager = segmentStore("conversationManager", new ConversationManagerCodec()).load(ConversationManager::new);
+                conferenceManager = segmentStore("conferenceManager", new ConferenceManagerCodec()).load(ConferenceManager::new);
+
+                messageStore = new FileRecordStore(new File(directory, "save/messages").getPath());
+                conversationManager.setMessageStore(messageStore);
+            }
+
+            contactController = new ContactController(contactManager);
+            conversationController = new ConversationController(contactManager, conversationManager, userManager);
+            EventController eventController = new EventController(conferenceManager, conversationManager, userManager);
+            conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+        }
+
+        /**
+         * Saves everything, then stops without closing anything, as if the program crashed
+         */
+        void crash() {
+            if (journaling) {
+                journalStore.sync();
+            } else {
+                messageStore.close();
+                segmentStore("userManager", new UserManagerCodec()).save(userManager);
+                segmentStore("contactManager", new ContactManagerCodec()).save(contactManager);
+                segmentStore("conversationManager", new ConversationManagerCodec()).save(conversationManager);
+                segmentStore("conferenceManager", new ConferenceManagerCodec()).save(conferenceManager);
+            }
+        }
+
+        private <T extends IChangeTracked> SegmentStore<T> segmentStore(String name, ISegmentCodec<T> codec) {
+            return new SegmentStore<>(new File(folder.getRoot(), "save/" + name).getPath(), codec);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSwitchModes() {
+        // Started without the journal
+        Session session = new Session(false);
+        UUID first = session.userManager.registerUser("First", "User", "first", "pw");
+        UUID second = session.userManager.registerUser("Second", "User", "second", "pw");
+        session.contactController.sendRequest(first, second);
+        session.contactController.acceptRequest(second, first);
+        UUID conversationUUID = session.conversationController.initiateConversation("Chat", first, Collections.singleton(second), "Deleted later");
+        session.conversationController.sendMessage(second, "Saved to the message store", conversationUUID);
+        UUID conferenceUUID = session.conferenceController.createConference("Conference", conferenceTimeRange, first);
+        session.crash();
+
+        // Switched to the journal
+        session = new Session(true);
+        assertEquals(session.userManager.getUserUsername(second), "second");
+        assertTrue(session.contactController.showContacts(first).contains(second));
+        assertEquals(session.conversationController.getMessages(first, conversationUUID).get(1).get("content"), "Saved to the message store");
+        assertEquals(session.conferenceController.getConferenceName(conferenceUUID), "Conference");
+
+        UUID third = session.userManager.registerUser("Third", "User", "third", "pw");
+        session.conversationController.deleteMessage(conversationUUID, first, 0);
+        session.conversationController.sendMessage(first, "Only in the journal", conversationUUID);
+        session.conferenceController.setConferenceName(conferenceUUID, first, "Renamed");
+        session.crash();
+
+        assertFalse(new File(folder.getRoot(), "save").exists());
+
+        // Switched back
+        session = new Session(false);
+        assertEquals(session.userManager.getUserUsername(third), "third");
+        assertEquals(session.conferenceController.getConferenceName(conferenceUUID), "Renamed");
+        assertFalse(new File(folder.getRoot(), "journal").exists());
+
+        // The deleted message is left out
+        List<Map<String, String>> messages = session.conversationController.getMessages(first, conversationUUID);
+        assertEquals(messages.size(), 2);
+        assertEquals(messages.get(0).get("content"), "Saved to the message store");
+        assertEquals(messages.get(1).get("content"), "Only in the journal");
+
+        // And to the journal once more, which has to pick up changes made since the last switch
+        session.conversationController.sendMessage(second, "After switching back", conversationUUID);
+        session.crash();
+
+        session = new Session(true);
+        messages = session.conversationController.getMessages(first, conversationUUID);
+        assertEquals(messages.size(), 3);
+        assertEquals(messages.get(2).get("content"), "After switching back");
+        assertEquals(session.userManager.getAllUsers().size(), 3);
+    }
+}
@@ -0,0 +1,162 @@
+import messaging.ConversationController;
+import messaging.MessageEvent;
+import messaging.exception.NoReadAccessException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ReadWatermarkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    MessagingFixture fixture;
+    ConversationController conversationController;
+
+    UUID sender;
+    UUID recipient;
+    UUID conversationUUID;
+    UUID otherConversationUUID;
+
+    @Before
+    public void init() {
+        fixture = new MessagingFixture();
+        conversationController = fixture.conversationController;
+        sender = fixture.sender;
+        recipient = fixture.recipient;
+
+        conversationUUID = fixture.startConversation("Chat", "Message 0");
+        otherConversationUUID = fixture.startConversation("Other", "Hello");
+    }
+
+    private int unreadCount(UUID userUUID, UUID conversationUUID) {
+        return conversationController.getUnreadCounts(userUUID, Collections.singleton(conversationUUID)).get(conversationUUID);
+    }
+
+    @Test(timeout = 1000)
+    public void testUnreadCounts() {
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+
+        for (int i = 1; i <= 5; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+
+        Map<UUID, Integer> unreadCounts = conversationController.getUnreadCounts(recipient, Arrays.asList(conversationUUID, otherConversationUUID));
+        assertEquals((int) unreadCounts.get(conversationUUID), 5);
+        assertEquals((int) unreadCounts.get(otherConversationUUID), 1);
+        assertFalse(conversationController.getUserHasRead(recipient, conversationUUID));
+
+        conversationController.getLatestMessages(recipient, conversationUUID, 1);
+        assertEquals(unreadCount(recipient, conversationUUID), 0);
+        assertTrue(conversationController.getUserHasRead(recipient, conversationUUID));
+
+        // Marking as unread leaves just the last message unread
+        conversationController.userUnreadConversation(recipient, conversationUUID);
+        assertEquals(unreadCount(recipient, conversationUUID), 1);
+    }
+
+    @Test(timeout = 1000)
+    public void testDeletedMessages() {
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.sendMessage(sender, "Message 2", conversationUUID);
+        conversationController.sendMessage(sender, "Message 3", conversationUUID);
+
+        // A message the recipient had read
+        conversationController.deleteMessage(conversationUUID, sender, 0);
+        assertEquals(unreadCount(recipient, conversationUUID), 2);
+
+        // One they hadn't
+        conversationController.deleteMessage(conversationUUID, sender, 2);
+        assertEquals(unreadCount(recipient, conversationUUID), 1);
+    }
+
+    @Test(timeout = 1000)
+    public void testDeletedAroundUnread() {
+        for (int i = 1; i <= 3; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.deleteMessage(conversationUUID, sender, 3);
+
+        // The last message left is unread again, and the deleted one after it doesn't count
+        conversationController.userUnreadConversation(recipient, conversationUUID);
+        assertEquals(unreadCount(recipient, conversationUUID), 1);
+
+        conversationController.sendMessage(sender, "Message 4", conversationUUID);
+        conversationController.deleteMessage(conversationUUID, sender, 1);
+        assertEquals(unreadCount(recipient, conversationUUID), 2);
+    }
+
+    @Test(timeout = 1000)
+    public void testUnreadAfterTombstones() {
+        for (int i = 1; i <= 3; i++) {
+            conversationController.sendMessage(sender, "Message " + i, conversationUUID);
+        }
+
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.deleteMessage(conversationUUID, sender, 2);
+        conversationController.deleteMessage(conversationUUID, sender, 3);
+
+        // Skips back past both tombstones to the last message that's still there
+        conversationController.userUnreadConversation(recipient, conversationUUID);
+        assertEquals(unreadCount(recipient, conversationUUID), 1);
+
+        // Only the message, not the tombstones, is unread
+        conversationController.sendMessage(sender, "Message 4", conversationUUID);
+        assertEquals(unreadCount(recipient, conversationUUID), 2);
+    }
+
+    @Test(timeout = 1000)
+    public void testNoReadAccessNotRecorded() {
+        UUID outsider = fixture.userManager.registerUser("Out", "Sider", "outsider", "pw");
+        List<MessageEvent> events = new ArrayList<>();
+        conversationController.subscribe(sender, conversationUUID, Runnable::run, events::add);
+
+        try {
+            conversationController.getLatestMessages(outsider, conversationUUID, 10);
+            fail();
+        } catch (NoReadAccessException e) {
+            // Expected
+        }
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testReadAgain() {
+        List<MessageEvent> events = new ArrayList<>();
+
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.subscribe(recipient, conversationUUID, Runnable::run, events::add);
+
+        // Fetching another page without anything new to read isn't recorded
+        conversationController.getMessages(recipient, conversationUUID, 0, 10);
+        assertTrue(events.isEmpty());
+
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        assertEquals(events.get(events.size() - 1).getType(), MessageEvent.Type.READ);
+    }
+
+    @Test(timeout = 5000)
+    public void testSaved() {
+        conversationController.getLatestMessages(recipient, conversationUUID, 10);
+        conversationController.sendMessage(sender, "Message 1", conversationUUID);
+
+        ConversationController loadedController = fixture.saveAndLoad(folder.getRoot());
+        assertEquals((int) loadedController.getUnreadCounts(recipient, Collections.singleton(conversationUUID)).get(conversationUUID), 1);
+        assertEquals((int) loadedController.getUnreadCounts(sender, Collections.singleton(conversationUUID)).get(conversationUUID), 2);
+    }
+}
@@ -0,0 +1,272 @@
+import convention.ConferenceController;
+import convention.EventController;
+import convention.RoomController;
+import convention.calendar.TimeRange;
+import convention.conference.ConferenceManager;
+import convention.conference.ConferenceManagerCodec;
+import gateway.exceptions.SegmentStoreException;
+import gateway.segment.SegmentStore;
+import messaging.ConversationManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SegmentStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File directory;
+
+    TimeRange conferenceTimeRange = new TimeRange(LocalDateTime.of(2020, Month.JULY, 1, 9, 0), LocalDateTime.of(2020, Month.JULY, 3, 17, 0));
+
+    UserManager userManager;
+    ConferenceManager conferenceManager;
+    RoomController roomController;
+    ConferenceController conferenceController;
+
+    UUID organizer;
+
+    @Before
+    public void init() {
+        directory = new File(folder.getRoot(), "conferenceManager");
+
+        userManager = new UserManager();
+        conferenceManager = new ConferenceManager();
+        ConversationManager conversationManager = new ConversationManager();
+        EventController eventController = new EventController(conferenceManager, conversationManager, userManager);
+        roomController = new RoomController(conferenceManager, userManager);
+        conferenceController = new ConferenceController(conversationManager, eventController, conferenceManager, userManager);
+
+        organizer = userManager.registerUser("Org", "Anizer", "organizer", "pw");
+    }
+
+    private SegmentStore<ConferenceManager> store() {
+        return new SegmentStore<>(directory.getPath(), new ConferenceManagerCodec());
+    }
+
+    private Set<String> segmentFiles() {
+        return Arrays.stream(directory.list()).filter(name -> name.endsWith(".seg")).collect(Collectors.toSet());
+    }
+
+    @Test(timeout = 5000)
+    public void testRoundTrip() {
+        UUID conferenceUUID = conferenceController.createConference("Conference", conferenceTimeRange, organizer);
+        UUID roomUUID = roomController.createRoom(conferenceUUID, organizer, "BA1234", 10);
+
+        store().save(conferenceManager);
+
+        ConferenceManager loaded = store().load(() -> null);
+        RoomController loadedRoomController = new RoomController(loaded, userManager);
+
+        assertEquals(loadedRoomController.getRoomLocation(conferenceUUID, organizer, roomUUID), "BA1234");
+        assertFalse(loaded.getChangeTracker().isAllChanged());
+
+        // Nothing saved yet
+        assertNull(new SegmentStore<>(new File(folder.getRoot(), "empty").getPath(), new UserManagerCodec()).load(() -> null));
+    }
+
+    @Test(timeout = 5000)
+    public void testOnlyChangedSegmentsWritten() {
+        UUID firstUUID = conferenceController.createConference("First", conferenceTimeRange, organizer);
+        UUID secondUUID = conferenceController.createConference("Second", conferenceTimeRange, organizer);
+        UUID roomUUID = roomController.createRoom(firstUUID, organizer, "BA1234", 10);
+
+        SegmentStore<ConferenceManager> store = store();
+        store.save(conferenceManager);
+        Set<String> before = segmentFiles();
+
+        // A change deep inside one conference only rewrites that conference
+        roomController.setRoomCapacity(firstUUID, organizer, roomUUID, 20);
+        store.save(conferenceManager);
+        Set<String> after = segmentFiles();
+
+        assertEquals(after.size(), before.size());
+        assertTrue(after.stream().anyMatch(name -> name.startsWith(secondUUID.toString()) && before.contains(name)));
+        assertTrue(after.stream().anyMatch(name -> name.startsWith(firstUUID.toString()) && !before.contains(name)));
+
+        // Nothing changed, so nothing to write
+        assertEquals(store.snapshot(conferenceManager).getBytes(), 0);
+
+        ConferenceManager loaded = store().load(() -> null);
+        assertEquals(new RoomController(loaded, userManager).getRoomCapacity(firstUUID, organizer, roomUUID), 20);
+    }
+
+    @Test(timeout = 5000)
+    public void testDeletedSegmentRemoved() {
+        UUID firstUUID = conferenceController.createConference("First", conferenceTimeRange, organizer);
+        UUID secondUUID = conferenceController.createConference("Second", conferenceTimeRange, organizer);
+
+        SegmentStore<ConferenceManager> store = store();
+        store.save(conferenceManager);
+
+        conferenceController.deleteConference(firstUUID, organizer);
+        store.save(conferenceManager);
+
+        assertTrue(segmentFiles().stream().noneMatch(name -> name.startsWith(firstUUID.toString())));
+
+        ConferenceManager loaded = store().load(() -> null);
+        assertEquals(loaded.getConferences(), new HashSet<>(Arrays.asList(secondUUID)));
+    }
+
+    @Test(timeout = 5000)
+    public void testConferenceBodyLoadedLazily() {
+        UUID firstUUID = conferenceController.createConference("First", conferenceTimeRange, organizer);
+        UUID secondUUID = conferenceController.createConference("Second", conferenceTimeRange, organizer);
+        UUID roomUUID = roomController.createRoom(secondUUID, organizer, "BA1234", 10);
+
+        store().save(conferenceManager);
+
+        // Without the first conference's events and rooms, everything else can still be loaded
+        for (File file : directory.listFiles((dir, name) -> name.startsWith(firstUUID.toString()))) {
+            assertTrue(file.delete());
+        }
+
+        ConferenceManager loaded = store().load(() -> null);
+        RoomController loadedRoomController = new RoomController(loaded, userManager);
+
+        assertEquals(loaded.getConferenceName(firstUUID), "First");
+        assertEquals(loaded.getTimeRange(firstUUID).getStart(), conferenceTimeRange.getStart());
+        assertTrue(loaded.getOrganizers(firstUUID).contains(organizer));
+        assertEquals(loadedRoomController.getRoomLocation(secondUUID, organizer, roomUUID), "BA1234");
+
+        try {
+            loaded.getRoomManager(firstUUID);
+            fail();
+        } catch (SegmentStoreException e) {
+            // Expected
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testConferenceHeaderChangeOnlyWritesDirectory() {
+        UUID conferenceUUID = conferenceController.createConference("Conference", conferenceTimeRange, organizer);
+        roomController.createRoom(conferenceUUID, organizer, "BA1234", 10);
+
+        SegmentStore<ConferenceManager> store = store();
+        store.save(conferenceManager);
+        Set<String> before = segmentFiles();
+
+        conferenceController.setConferenceName(conferenceUUID, organizer, "Renamed");
+        store.save(conferenceManager);
+        Set<String> after = segmentFiles();
+
+        assertTrue(after.stream().anyMatch(name -> name.startsWith(conferenceUUID.toString()) && before.contains(name)));
+        assertTrue(after.stream().anyMatch(name -> name.startsWith("root") && !before.contains(name)));
+        assertEquals(store().load(() -> null).getConferenceName(conferenceUUID), "Renamed");
+    }
+
+    @Test(timeout = 5000)
+    public void testTornManifestIgnored() throws IOException {
+        UUID conferenceUUID = conferenceController.createConference("Conference", conferenceTimeRange, organizer);
+
+        SegmentStore<ConferenceManager> store = store();
+        store.save(conferenceManager);
+
+        // A save cut short by a crash leaves part of a frame at the end of the manifest
+        try (FileOutputStream out = new FileOutputStream(new File(directory, "MANIFEST"), true)) {
+            out.write(new byte[]{0, 0, 0, 40, 1, 2, 3});
+        }
+
+        SegmentStore<ConferenceManager> recoveredStore = store();
+        ConferenceManager recovered = recoveredStore.load(() -> null);
+        assertEquals(recovered.getConferenceName(conferenceUUID), "Conference");
+
+        // Changes saved after the damaged frame are kept
+        ConversationManager conversationManager = new ConversationManager();
+        EventController eventController = new EventController(recovered, conversationManager, userManager);
+        new ConferenceController(conversationManager, eventController, recovered, userManager).setConferenceName(conferenceUUID, organizer, "Renamed");
+        recoveredStore.save(recovered);
+
+        assertEquals(store().load(() -> null).getConferenceName(conferenceUUID), "Renamed");
+    }
+
+    @Test(timeout = 5000)
+    public void testFailedWriteForcesFullWrite() {
+        UUID firstUUID = conferenceController.createConference("First", conferenceTimeRange, organizer);
+        UUID secondUUID = conferenceController.createConference("Second", conferenceTimeRange, organizer);
+
+        SegmentStore<ConferenceManager> store = store();
+        store.save(conferenceManager);
+
+        // Appending to a missing manifest fails
+        assertTrue(new File(directory, "MANIFEST").delete());
+        conferenceController.setConferenceName(firstUUID, organizer, "Renamed");
+
+        try {
+            store.snapshot(conferenceManager).write();
+            fail();
+        } catch (UncheckedIOException e) {
+            // Expected
+        }
+
+        // The change that failed to save is still saved by the next write, along with everything else
+        store.save(conferenceManager);
+
+        ConferenceManager loaded = store().load(() -> null);
+        assertEquals(loaded.getConferenceName(firstUUID), "Renamed");
+        assertEquals(loaded.getConferenceName(secondUUID), "Second");
+    }
+
+    @Test(timeout = 5000)
+    public void testGenerations() throws IOException {
+        File userDirectory = new File(folder.getRoot(), "userManager");
+        SegmentStore<UserManager> store = new SegmentStore<>(userDirectory.getPath(), new UserManagerCodec(), 3);
+        UserManager users = new UserManager();
+        UUID userUUID = users.registerUser("First", "Last", "user", "pw");
+
+        for (int i = 0; i < 4; i++) {
+            users.setUserFirstName(userUUID, "Name " + i);
+            store.save(users);
+        }
+
+        // Only the last three saves' files are kept
+        Set<String> userFiles = Arrays.stream(userDirectory.list()).filter(name -> name.startsWith(userUUID.toString())).collect(Collectors.toSet());
+        assertEquals(userFiles, new HashSet<>(Arrays.asList(userUUID + "-1.seg", userUUID + "-2.seg", userUUID + "-3.seg")));
+
+        // A damaged latest save falls back to the one before it
+        try (FileOutputStream out = new FileOutputStream(new File(userDirectory, userUUID + "-3.seg"))) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        SegmentStore<UserManager> recoveredStore = new SegmentStore<>(userDirectory.getPath(), new UserManagerCodec(), 3);
+        UserManager recovered = recoveredStore.load(() -> null);
+        assertEquals(recovered.getUserFirstName(userUUID), "Name 2");
+
+        // The next save replaces the damaged one, and still keeps the older ones
+        recovered.setUserFirstName(userUUID, "Name 4");
+        recoveredStore.save(recovered);
+
+        File newest = Arrays.stream(userDirectory.listFiles()).filter(file -> file.getName().startsWith(userUUID.toString()))
+                .max((a, b) -> Long.compare(generation(a), generation(b))).get();
+
+        try (FileOutputStream out = new FileOutputStream(newest)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        assertEquals(new SegmentStore<>(userDirectory.getPath(), new UserManagerCodec(), 3).load(() -> null).getUserFirstName(userUUID), "Name 2");
+    }
+
+    private static long generation(File segmentFile) {
+        String name = segmentFile.getName();
+
+        return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - ".seg".length()));
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.Before;
+import org.junit.Test;
+import user.SessionManager;
+import user.UserController;
+import user.UserManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SessionTest {
+
+    static final long TIMEOUT = 1000;
+
+    AtomicLong now = new AtomicLong();
+    SessionManager sessionManager;
+    UserController userController;
+
+    UUID userA;
+    UUID userB;
+
+    @Before
+    public void init() {
+        UserManager userManager = new UserManager();
+        sessionManager = new SessionManager(TIMEOUT, now::get);
+        userController = new UserController(userManager, sessionManager);
+
+        userA = userController.registerUser("User", "A", "a", "passwordA");
+        userB = userController.registerUser("User", "B", "b", "passwordB");
+    }
+
+    @Test(timeout = 1000)
+    public void testConcurrentUsers() {
+        String sessionA = userController.login("a", "passwordA");
+        String sessionB = userController.login("b", "passwordB");
+        String otherSessionA = userController.login("a", "passwordA");
+
+        assertNull(userController.login("a", "wrong"));
+        assertEquals(new HashSet<>(Arrays.asList(sessionA, sessionB, otherSessionA)).size(), 3);
+
+        assertEquals(userController.getCurrentUser(sessionA), userA);
+        assertEquals(userController.getCurrentUser(sessionB), userB);
+        assertEquals(userController.getCurrentUser(otherSessionA), userA);
+        assertNull(userController.getCurrentUser(null));
+        assertNull(userController.getCurrentUser("not a session"));
+
+        // Signing out of one session leaves the others
+        userController.logout(sessionA);
+        assertNull(userController.getCurrentUser(sessionA));
+        assertEquals(userController.getCurrentUser(sessionB), userB);
+        assertEquals(userController.getCurrentUser(otherSessionA), userA);
+
+        sessionManager.endSessions(userA);
+        assertNull(userController.getCurrentUser(otherSessionA));
+        assertEquals(sessionManager.getSessionCount(), 1);
+    }
+
+    @Test(timeout = 1000)
+    public void testIdleExpiry() {
+        String sessionA = userController.login("a", "passwordA");
+        String sessionB = userController.login("b", "passwordB");
+
+        // Using a session keeps it going
+        now.set(TIMEOUT - 1);
+        assertEquals(userController.getCurrentUser(sessionA), userA);
+
+        now.set(TIMEOUT);
+        assertNull(userController.getCurrentUser(sessionB));
+        assertEquals(userController.getCurrentUser(sessionA), userA);
+
+        now.set(3 * TIMEOUT);
+        assertEquals(sessionManager.removeExpiredSessions(), 1);
+        assertEquals(sessionManager.getSessionCount(), 0);
+        assertNull(userController.getCurrentUser(sessionA));
+    }
+
+    @Test(timeout = 1000)
+    public void testExpiredSessionsSwept() {
+        for (int i = 0; i < 10; i++) {
+            userController.login("a", "passwordA");
+        }
+
+        // Starting a session once the timeout has passed clears out the abandoned ones
+        now.set(TIMEOUT);
+        String session = userController.login("b", "passwordB");
+
+        assertEquals(sessionManager.getSessionCount(), 1);
+        assertEquals(userController.getCurrentUser(session), userB);
+    }
+
+    @Test(timeout = 10000)
+    public void testManyThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                List<String> sessions = new ArrayList<>();
+
+                for (int i = 0; i < 1000; i++) {
+                    String session = userController.login("a", "passwordA");
+                    assertEquals(userController.getCurrentUser(session), userA);
+                    sessions.add(session);
+                }
+
+                return sessions;
+            }));
+        }
+
+        Set<String> sessions = new HashSet<>();
+
+        for (Future<List<String>> future : futures) {
+            sessions.addAll(future.get());
+        }
+
+        executor.shutdown();
+
+        assertEquals(sessions.size(), 8000);
+        assertEquals(sessionManager.getSessionCount(), 8000);
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.Before;
+import org.junit.Test;
+import user.UserManager;
+import user.exception.NullUserException;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UserFullNamesTest {
+
+    UserManager userManager;
+    UUID userA;
+    UUID userB;
+
+    @Before
+    public void init() {
+        userManager = new UserManager();
+        userA = userManager.registerUser("Anna", "Smith", "a", "password");
+        userB = userManager.registerUser("Bob", "Jones", "b", "password");
+    }
+
+    @Test(timeout = 1000)
+    public void testFullNames() {
+        Map<UUID, String> fullNames = userManager.getUserFullNames(Arrays.asList(userB, userA));
+
+        assertEquals(Arrays.asList(userB, userA), new ArrayList<>(fullNames.keySet()));
+        assertEquals(Arrays.asList("Bob Jones", "Anna Smith"), new ArrayList<>(fullNames.values()));
+        assertTrue(userManager.getUserFullNames(Collections.emptyList()).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testUsernames() {
+        Map<UUID, String> usernames = userManager.getUserUsernames(Arrays.asList(userB, userA));
+
+        assertEquals(Arrays.asList(userB, userA), new ArrayList<>(usernames.keySet()));
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(usernames.values()));
+    }
+
+    @Test(timeout = 1000)
+    public void testRename() {
+        assertEquals("Anna Smith", userManager.getUserFullName(userA));
+
+        userManager.setUserFirstName(userA, "Annabel");
+        assertEquals("Annabel Smith", userManager.getUserFullName(userA));
+
+        userManager.setUserLastName(userA, "Jones");
+        assertEquals("Annabel Jones", userManager.getUserFullNames(Collections.singleton(userA)).get(userA));
+    }
+
+    @Test(timeout = 1000, expected = NullUserException.class)
+    public void testUnknownUser() {
+        userManager.getUserFullNames(Arrays.asList(userA, UUID.randomUUID()));
+    }
+}
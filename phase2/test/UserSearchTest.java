@@ -0,0 +1,100 @@
+import gateway.BinarySerializer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UserSearchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    UserManager userManager;
+    UUID annaSmith;
+    UUID annabelJones;
+    UUID bobSmithers;
+
+    @Before
+    public void init() {
+        userManager = new UserManager();
+        annaSmith = userManager.registerUser("Anna", "Smith", "asmith", "password");
+        annabelJones = userManager.registerUser("Annabel", "Jones", "ajones", "password");
+        bobSmithers = userManager.registerUser("Bob", "Smithers", "bobby", "password");
+    }
+
+    @Test(timeout = 1000)
+    public void testPrefixMatches() {
+        assertEquals(new HashSet<>(Arrays.asList(annaSmith, annabelJones)), new HashSet<>(userManager.searchUsers("ann", null, 0, 10)));
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("BOBB", null, 0, 10));
+        assertEquals(Collections.singletonList(annabelJones), userManager.searchUsers("ajo", null, 0, 10));
+        assertTrue(userManager.searchUsers("nna", null, 0, 10).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testEveryWordMustMatch() {
+        assertEquals(Collections.singletonList(annaSmith), userManager.searchUsers("an smi", null, 0, 10));
+        assertTrue(userManager.searchUsers("bob jones", null, 0, 10).isEmpty());
+    }
+
+    @Test(timeout = 1000)
+    public void testRanking() {
+        // Whole words rank above prefixes, then ties are by full name
+        assertEquals(Arrays.asList(annaSmith, bobSmithers), userManager.searchUsers("smith", null, 0, 10));
+        assertEquals(Arrays.asList(annaSmith, annabelJones), userManager.searchUsers("anna", null, 0, 10));
+        assertEquals(Arrays.asList(annaSmith, annabelJones, bobSmithers), userManager.searchUsers("", null, 0, 10));
+    }
+
+    @Test(timeout = 1000)
+    public void testPagesAndFilter() {
+        assertEquals(Collections.singletonList(annaSmith), userManager.searchUsers("", null, 0, 1));
+        assertEquals(Arrays.asList(annabelJones, bobSmithers), userManager.searchUsers("", null, 1, 5));
+        assertTrue(userManager.searchUsers("", null, 3, 5).isEmpty());
+
+        assertEquals(Arrays.asList(annabelJones, bobSmithers), userManager.searchUsers("", (uuid) -> !uuid.equals(annaSmith), 0, 10));
+    }
+
+    @Test(timeout = 1000)
+    public void testCandidates() {
+        Set<UUID> candidates = new HashSet<>(Arrays.asList(annabelJones, bobSmithers, UUID.randomUUID()));
+
+        // Ranked the same as searching everyone, and users that don't exist are left out
+        assertEquals(Arrays.asList(annabelJones, bobSmithers), userManager.searchUsers("", candidates, null, 0, 10));
+        assertEquals(Collections.singletonList(annabelJones), userManager.searchUsers("ann", candidates, null, 0, 10));
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("smith bob", candidates, null, 0, 10));
+        assertTrue(userManager.searchUsers("anna smith", candidates, null, 0, 10).isEmpty());
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("", candidates, (uuid) -> !uuid.equals(annabelJones), 0, 10));
+    }
+
+    @Test(timeout = 1000)
+    public void testRename() {
+        // Build the index before renaming, so it has to be updated
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("bob", null, 0, 10));
+
+        userManager.setUserFirstName(bobSmithers, "Robert");
+        userManager.setUserUsername(bobSmithers, "rsmithers");
+
+        assertTrue(userManager.searchUsers("bob", null, 0, 10).isEmpty());
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("rob smithers", null, 0, 10));
+        assertEquals(Collections.singletonList(bobSmithers), userManager.searchUsers("rsm", null, 0, 10));
+
+        UUID newUser = userManager.registerUser("Roberta", "Lee", "rlee", "password");
+        assertEquals(Arrays.asList(bobSmithers, newUser), userManager.searchUsers("rob", null, 0, 10));
+    }
+
+    @Test(timeout = 5000)
+    public void testSaved() {
+        BinarySerializer<UserManager> serializer = new BinarySerializer<>(new File(folder.getRoot(), "userManager.bin").getPath(), new UserManagerCodec());
+        serializer.save(userManager);
+
+        UserManager loadedUserManager = serializer.load(() -> null);
+
+        assertEquals(Arrays.asList(annaSmith, bobSmithers), loadedUserManager.searchUsers("smith", null, 0, 10));
+    }
+}
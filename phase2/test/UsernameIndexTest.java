@@ -0,0 +1,68 @@
+import gateway.BinarySerializer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import user.UserManager;
+import user.UserManagerCodec;
+import user.exception.UsernameTakenException;
+
+import java.io.File;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class UsernameIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    UserManager userManager;
+    UUID userA;
+    UUID userB;
+
+    @Before
+    public void init() {
+        userManager = new UserManager();
+        userA = userManager.registerUser("User", "A", "a", "passwordA");
+        userB = userManager.registerUser("User", "B", "b", "passwordB");
+    }
+
+    @Test(timeout = 1000)
+    public void testRegisterTakenUsername() {
+        assertNull(userManager.registerUser("Another", "A", "a", "password"));
+        assertEquals(userManager.authenticate("a", "passwordA"), userA);
+    }
+
+    @Test(timeout = 1000)
+    public void testRename() {
+        userManager.setUserUsername(userA, "c");
+
+        assertNull(userManager.authenticate("a", "passwordA"));
+        assertEquals(userManager.authenticate("c", "passwordA"), userA);
+
+        // The old username is free again
+        assertNotNull(userManager.registerUser("Another", "A", "a", "password"));
+
+        // Keeping your own username is fine
+        userManager.setUserUsername(userA, "c");
+    }
+
+    @Test(timeout = 1000, expected = UsernameTakenException.class)
+    public void testRenameToTakenUsername() {
+        userManager.setUserUsername(userA, "b");
+    }
+
+    @Test(timeout = 5000)
+    public void testSaved() {
+        userManager.setUserUsername(userA, "c");
+
+        BinarySerializer<UserManager> serializer = new BinarySerializer<>(new File(folder.getRoot(), "userManager.bin").getPath(), new UserManagerCodec());
+        serializer.save(userManager);
+
+        UserManager loadedUserManager = serializer.load(() -> null);
+        assertEquals(loadedUserManager.authenticate("c", "passwordA"), userA);
+        assertEquals(loadedUserManager.authenticate("b", "passwordB"), userB);
+        assertNull(loadedUserManager.registerUser("Another", "B", "b", "password"));
+    }
+}